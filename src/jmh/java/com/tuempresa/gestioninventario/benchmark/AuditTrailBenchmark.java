@@ -0,0 +1,59 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditEvent;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.audit.OverflowPolicy;
+import com.tuempresa.gestioninventario.repository.AuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Costo de auditar un cambio en el hilo de la request (correr con -prof gc):
+//   record:          un productor, publicación directa en el buffer
+//   recordContended: 4 productores compitiendo por el CAS de la secuencia
+// El consumidor corre de verdad pero escribe en un repositorio vacío, para medir solo el lado del productor.
+// En SampleTime JMH informa los percentiles (p99, p99.9) además de la media.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AuditTrailBenchmark {
+
+    private AuditTrail auditTrail;
+    private long productId;
+
+    @Setup
+    public void setUp() throws Exception {
+        AuditLogRepository discard = new AuditLogRepository(null) {
+            @Override
+            public void insertAll(List<AuditEvent> events) {
+            }
+        };
+        Path spillFile = Files.createTempFile("audit-bench", ".bin");
+        // DROP: si el consumidor se atrasa se descarta en lugar de medir la escritura del archivo
+        auditTrail = new AuditTrail(discard, new SimpleMeterRegistry(), true, 8192, 256, Duration.ofMillis(1),
+                OverflowPolicy.DROP, Duration.ZERO, spillFile, Duration.ofSeconds(10));
+        auditTrail.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        auditTrail.stop();
+    }
+
+    @Benchmark
+    public void record() {
+        auditTrail.record(AuditAction.STOCK_EXIT, ++productId, 5L, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        auditTrail.record(AuditAction.STOCK_EXIT, 42L, 5L, null);
+    }
+}
@@ -0,0 +1,88 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tuempresa.gestioninventario.security.AppUserDetails;
+import com.tuempresa.gestioninventario.security.AuthenticationCache;
+import com.tuempresa.gestioninventario.security.CachingAuthenticationProvider;
+import com.tuempresa.gestioninventario.security.TokenRevocationList;
+import com.tuempresa.gestioninventario.security.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Costo de autenticar una request, antes y después de los tokens firmados:
+//   basicUncached: basic auth sin caché (carga del usuario + bcrypt). El usuario sale de un stub en memoria,
+//                  así que en producción hay que sumarle la consulta a app_users con sus roles.
+//   basicCached:   basic auth con AuthenticationCache caliente (HMAC de las credenciales).
+//   bearerToken:   validación del token (HMAC + JSON) y armado de las authorities, como TokenAuthenticationFilter.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AuthenticationOverheadBenchmark {
+
+    private static final String USERNAME = "usuario1";
+    private static final String PASSWORD = "password1";
+
+    private DaoAuthenticationProvider daoProvider;
+    private CachingAuthenticationProvider cachingProvider;
+    private ExecutorService hashingExecutor;
+    private TokenService tokenService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        AppUserDetails user = new AppUserDetails(1L, USERNAME, passwordEncoder.encode(PASSWORD), true,
+                AuthorityUtils.createAuthorityList("ROLE_GERENTE_INVENTARIO", "ROLE_EMPLEADO_ALMACEN"));
+        daoProvider = new DaoAuthenticationProvider();
+        daoProvider.setUserDetailsService(username -> new AppUserDetails(user.getId(), user.getUsername(),
+                user.getPassword(), true, user.getAuthorities()));
+        daoProvider.setPasswordEncoder(passwordEncoder);
+
+        hashingExecutor = Executors.newFixedThreadPool(2);
+        cachingProvider = new CachingAuthenticationProvider(daoProvider,
+                new AuthenticationCache(Duration.ofHours(1), 1000), hashingExecutor, Duration.ofSeconds(30));
+        cachingProvider.authenticate(credentials()); // Deja la caché caliente
+
+        tokenService = new TokenService(new ObjectMapper(), new TokenRevocationList(null, null, Duration.ofMinutes(15)),
+                Duration.ofMinutes(15), Duration.ofHours(1), "");
+        token = tokenService.issue(1L, USERNAME, List.of("ROLE_GERENTE_INVENTARIO", "ROLE_EMPLEADO_ALMACEN")).token();
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Authentication basicUncached() {
+        return daoProvider.authenticate(credentials());
+    }
+
+    @Benchmark
+    public Authentication basicCached() {
+        return cachingProvider.authenticate(credentials());
+    }
+
+    @Benchmark
+    public Authentication bearerToken() {
+        TokenService.TokenClaims claims = tokenService.verify(token);
+        List<SimpleGrantedAuthority> authorities = claims.roles().stream().map(SimpleGrantedAuthority::new).toList();
+        return UsernamePasswordAuthenticationToken.authenticated(claims.sub(), null, authorities);
+    }
+
+    private static UsernamePasswordAuthenticationToken credentials() {
+        return UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD);
+    }
+}
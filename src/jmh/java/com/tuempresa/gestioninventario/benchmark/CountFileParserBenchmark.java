@@ -0,0 +1,59 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.cyclecount.CountFileParser;
+import com.tuempresa.gestioninventario.cyclecount.QuantityTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Lectura y orden de un archivo de conteo de 1.000.000 de líneas (CycleCountService sin la base): mapeo en
+// memoria a QuantityTable y sortAndMerge, con las líneas desordenadas como llegan de varias terminales.
+// Con @OperationsPerInvocation el resultado queda en líneas por segundo, la misma unidad que
+// cycle_count.lines_per_second (que además incluye la lectura de products).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CountFileParserBenchmark {
+
+    private static final int LINES = 1_000_000;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("count-benchmark-", ".csv");
+        SplittableRandom random = new SplittableRandom(42);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            out.write("producto,almacen,cantidad\n");
+            for (int i = 0; i < LINES; i++) {
+                out.write(Long.toString(1 + random.nextInt(5_000_000)));
+                out.write(',');
+                out.write(Integer.toString(1 + random.nextInt(20)));
+                out.write(',');
+                out.write(Integer.toString(random.nextInt(1000)));
+                out.write('\n');
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int parseAndSort() throws IOException {
+        QuantityTable table = CountFileParser.parse(file);
+        table.sortAndMerge();
+        return table.size();
+    }
+}
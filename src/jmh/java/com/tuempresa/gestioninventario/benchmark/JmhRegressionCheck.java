@@ -0,0 +1,86 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compara un resultado JMH (-rf json) con la línea base versionada y termina con código 1
+// si algún benchmark empeoró más del umbral indicado (en %). Un umbral negativo solo imprime la tabla.
+//
+// Uso: JmhRegressionCheck <baseline.json> <result.json> <umbral%>
+public class JmhRegressionCheck {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Uso: JmhRegressionCheck <baseline.json> <result.json> <umbral%>");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        File resultFile = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+
+        if (threshold < 0 || baselineFile.getCanonicalPath().equals(resultFile.getCanonicalPath())) {
+            System.out.println("Chequeo de regresiones desactivado.");
+            return;
+        }
+        if (!baselineFile.exists()) {
+            System.out.println("No hay línea base en " + baselineFile + "; no se comparan resultados.");
+            return;
+        }
+
+        Map<String, Score> baseline = read(baselineFile);
+        Map<String, Score> current = read(resultFile);
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "base", "actual", "cambio");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", after.value, "nuevo");
+                continue;
+            }
+            // Porcentaje de empeoramiento: positivo = peor, sin importar si el modo es thrpt o avgt
+            double worse = after.higherIsBetter
+                    ? (before.value - after.value) / before.value * 100.0
+                    : (after.value - before.value) / before.value * 100.0;
+            boolean regression = worse > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n",
+                    entry.getKey(), before.value, after.value, worse, regression ? "  << REGRESIÓN" : "");
+        }
+
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) empeoraron más de " + threshold + "% respecto a " + baselineFile);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws Exception {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            JsonNode metric = run.get("primaryMetric");
+            boolean higherIsBetter = "thrpt".equals(run.get("mode").asText());
+            scores.put(key.toString(), new Score(metric.get("score").asDouble(), higherIsBetter));
+        }
+        return scores;
+    }
+
+    private record Score(double value, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Serialización Jackson de los grafos que devuelven los controladores:
+// un Product (con su Warehouse), un User con roles y el listado de productos completo.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Product product;
+    private User user;
+    private Warehouse warehouse;
+
+    @Setup
+    public void setUp() {
+        // Mismo builder que usa Spring Boot para el ObjectMapper de los controladores
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        warehouse = new Warehouse(1L, "Almacén Principal", "Calle Central 123", null);
+        product = new Product(1L, "Laptop Gamer", "Potente laptop para juegos",
+                new BigDecimal("1200.99"), 10, "Electrónicos", warehouse);
+
+        Set<Role> roles = new HashSet<>();
+        roles.add(new Role(1L, "ROLE_GERENTE_INVENTARIO"));
+        roles.add(new Role(2L, "ROLE_EMPLEADO_ALMACEN"));
+        user = new User(1L, "john.doe", null, "john.doe@example.com", true, roles);
+    }
+
+    // Listado de productos como el de GET /api/products, parametrizado por tamaño
+    @State(Scope.Benchmark)
+    public static class ProductList {
+
+        @Param({"100", "1000"})
+        public int listSize;
+
+        List<Product> products;
+
+        @Setup
+        public void setUp(JsonSerializationBenchmark benchmark) {
+            products = new ArrayList<>(listSize);
+            for (long i = 1; i <= listSize; i++) {
+                products.add(new Product(i, "Producto " + i, "Descripción del producto " + i,
+                        new BigDecimal("19.99").add(BigDecimal.valueOf(i)), (int) (i % 500), "Categoría " + (i % 20),
+                        benchmark.warehouse));
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeProductList(ProductList list) throws Exception {
+        return objectMapper.writeValueAsBytes(list.products);
+    }
+}
@@ -0,0 +1,49 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.money.Money;
+import com.tuempresa.gestioninventario.money.MoneyMath;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Las mismas operaciones y datos que PriceMathBenchmark, con los precios en centavos (MoneyMath).
+// Correr ambos con -prof gc para comparar tiempo y gc.alloc.rate.norm.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MoneyMathBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    private long[] prices;
+    private int[] quantities;
+    private final BigDecimal increase = new BigDecimal("1.075");
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        prices = new long[size];
+        quantities = new int[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = random.nextLong(1, 10_000_00);
+            quantities[i] = random.nextInt(0, 1_000);
+        }
+    }
+
+    // El total vuelve a la API como BigDecimal, igual que en PriceMathBenchmark
+    @Benchmark
+    public BigDecimal stockValue() {
+        return Money.ofCents(MoneyMath.stockValue(prices, quantities, size)).toBigDecimal();
+    }
+
+    @Benchmark
+    public long[] applyPriceIncrease() {
+        long[] updated = new long[size];
+        MoneyMath.applyFactor(prices, size, increase, RoundingMode.HALF_UP, updated);
+        return updated;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Aritmética de precios con BigDecimal tal como la haría un reporte sobre Product:
+// valor de stock (precio * cantidad) acumulado y un ajuste porcentual de precios con redondeo a 2 decimales.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PriceMathBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    private BigDecimal[] prices;
+    private int[] quantities;
+    private final BigDecimal increase = new BigDecimal("1.075");
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        prices = new BigDecimal[size];
+        quantities = new int[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = BigDecimal.valueOf(random.nextLong(1, 10_000_00), 2);
+            quantities[i] = random.nextInt(0, 1_000);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal stockValue() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < size; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal[] applyPriceIncrease() {
+        BigDecimal[] updated = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            updated[i] = prices[i].multiply(increase).setScale(2, RoundingMode.HALF_UP);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.readmodel.OffHeapProductTable;
+import com.tuempresa.gestioninventario.readmodel.OffHeapProductTable.ProductRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Caché de 1.000.000 de productos en el heap (HashMap<Long, Product> con BigDecimal y String, sin contar
+// los proxies de Hibernate) contra OffHeapProductTable (ProductReadModel). Correr con -prof gc:
+//   lookup: un GET /api/products/{id} sin la serialización; el del heap devuelve el Product guardado y el de
+//           fuera del heap arma uno por lectura (basura joven, barata de juntar)
+//   Al preparar cada fork se imprime el heap retenido por la caché y la pausa de un GC completo
+//   (System.gc()), que crece con los objetos vivos que el GC tiene que recorrer.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ProductReadModelBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int WAREHOUSES = 50;
+
+    @Param({"heap", "offHeap"})
+    public String store;
+
+    private final Map<Long, Warehouse> warehouses = new HashMap<>();
+    private Map<Long, Product> heap;
+    private OffHeapProductTable offHeap;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        for (long w = 1; w <= WAREHOUSES; w++) {
+            warehouses.put(w, new Warehouse(w, "Almacén " + w, "Calle " + w, null));
+        }
+        long before = retainedHeap();
+        if ("heap".equals(store)) {
+            heap = new HashMap<>(PRODUCTS * 2);
+        } else {
+            offHeap = new OffHeapProductTable(PRODUCTS);
+        }
+        SplittableRandom data = new SplittableRandom(7);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            String name = "Producto " + id;
+            String description = "Descripción del producto " + id + " para el punto de venta";
+            long cents = data.nextLong(100, 10_000_000);
+            int quantity = data.nextInt(1000);
+            String category = "Categoría " + data.nextInt(200);
+            long warehouseId = data.nextLong(WAREHOUSES) + 1;
+            if (heap != null) {
+                heap.put(id, new Product(id, name, description, BigDecimal.valueOf(cents, 2), quantity, category,
+                        warehouses.get(warehouseId)));
+            } else {
+                offHeap.put(id, name, description, cents, quantity, category, warehouseId);
+            }
+        }
+        long retained = retainedHeap() - before;
+        long pauseMillis = fullGcMillis();
+        System.out.printf("%n[%s] heap retenido: %d MB, fuera del heap: %d MB, GC completo: %d ms%n", store,
+                retained / (1024 * 1024), offHeap == null ? 0 : offHeap.offHeapBytes() / (1024 * 1024), pauseMillis);
+    }
+
+    @Benchmark
+    public Product lookup() {
+        long id = random.nextLong(PRODUCTS) + 1;
+        if (heap != null) {
+            return heap.get(id);
+        }
+        ProductRecord record = offHeap.get(id);
+        Warehouse warehouse = warehouses.get(record.warehouseId());
+        return new Product(record.id(), record.name(), record.description(), BigDecimal.valueOf(record.priceCents(), 2),
+                record.quantity(), record.category(), warehouse);
+    }
+
+    private static long retainedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Tiempo que informan los colectores durante tres GC completos, promediado
+    private static long fullGcMillis() {
+        long before = gcMillis();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return (gcMillis() - before) / 3;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,70 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.ratelimit.PoolPressure;
+import com.tuempresa.gestioninventario.ratelimit.RateLimitRoute;
+import com.tuempresa.gestioninventario.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Costo del limitador por request (correr con -prof gc para ver que no asigna memoria):
+//   allowed:        cliente con presupuesto de sobra, camino normal (un get del mapa + un CAS)
+//   rateLimited:    presupuesto agotado, camino del 429
+//   manyClients:    1.000 clientes alternados, con el mapa de buckets fuera de la caché L1
+//   routeMatching:  clasificación de la request por método y path, como en RateLimitFilter
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 1000;
+
+    private RateLimiter rateLimiter;
+    private String[] clients;
+    private int next;
+    private String method = "PATCH";
+    private String path = "/api/products/12345/exit";
+
+    @Setup
+    public void setUp() {
+        // Salidas casi sin límite; lote de usuarios con 1 permiso por segundo para ejercitar el rechazo
+        System.setProperty("inventario.ratelimit.routes.stock-exit.permits-per-second", "1e8");
+        System.setProperty("inventario.ratelimit.routes.stock-exit.burst", "1000000");
+        System.setProperty("inventario.ratelimit.routes.user-batch.permits-per-second", "1");
+        System.setProperty("inventario.ratelimit.routes.user-batch.burst", "1");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        rateLimiter = new RateLimiter(new PoolPressure(registry), registry, new StandardEnvironment(),
+                Duration.ofMillis(50), CLIENTS * 2);
+
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "cliente" + i;
+            rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, clients[i]);
+        }
+        rateLimiter.acquire(RateLimitRoute.USER_BATCH, clients[0]);
+    }
+
+    @Benchmark
+    public long allowed() {
+        return rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, clients[0]);
+    }
+
+    @Benchmark
+    public long rateLimited() {
+        return rateLimiter.acquire(RateLimitRoute.USER_BATCH, clients[0]);
+    }
+
+    @Benchmark
+    public long manyClients() {
+        int index = next++ % CLIENTS;
+        return rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, clients[index < 0 ? -index : index]);
+    }
+
+    @Benchmark
+    public RateLimitRoute routeMatching() {
+        return RateLimitRoute.match(method, path);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.reorder.ReorderChunk;
+import com.tuempresa.gestioninventario.reorder.ReorderModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Una corrida de ReorderPointJob sobre 1.000.000 de productos, sin la base: por cada bloque de 10.000 IDs,
+// carga de stock y de 30 salidas por producto (90 días) a los arreglos primitivos y cálculo del modelo,
+// repartido en "threads" hilos como el job (inventario.reorder.parallelism). El tiempo debería bajar casi
+// en proporción a los hilos hasta la cantidad de núcleos. En producción se suma la E/S de cada bloque
+// (lectura de products y audit_log, escritura de product_reorder), que se ve en inventario.reorder.run.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ReorderPointBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int DAYS = 90;
+    private static final int EXITS_PER_PRODUCT = 30;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private final ReorderModel model = new ReorderModel(0.2, 1.65, 7, 7);
+    private ExecutorService workers;
+
+    @Setup
+    public void setUp() {
+        workers = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        workers.shutdownNow();
+    }
+
+    @Benchmark
+    public long run() throws Exception {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (long start = 1; start <= PRODUCTS; start += CHUNK_SIZE) {
+            long chunkStart = start;
+            futures.add(workers.submit(() -> processChunk(chunkStart)));
+        }
+        long suggested = 0;
+        for (Future<Long> future : futures) {
+            suggested += future.get();
+        }
+        return suggested;
+    }
+
+    private long processChunk(long start) {
+        SplittableRandom random = new SplittableRandom(start);
+        ReorderChunk chunk = new ReorderChunk(start, start + CHUNK_SIZE, DAYS);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk.addProduct(start + i, random.nextInt(500));
+        }
+        chunk.seal();
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            for (int e = 0; e < EXITS_PER_PRODUCT; e++) {
+                chunk.addDemand(start + i, random.nextInt(DAYS), 1 + random.nextInt(20));
+            }
+        }
+        model.compute(chunk);
+        long suggested = 0;
+        for (int i = 0; i < chunk.count(); i++) {
+            suggested += chunk.suggestedQuantity()[i];
+        }
+        return suggested;
+    }
+}
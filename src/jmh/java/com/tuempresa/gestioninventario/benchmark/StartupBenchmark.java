@@ -0,0 +1,134 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.GestioninventarioApplication;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.tuempresa.gestioninventario.security.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Arranque en frío, con y sin StartupWarmup (perfil "embedded", H2 con catálogo sembrado):
+//   startupToReady: desde SpringApplication.run hasta ApplicationReadyEvent (readiness en UP); incluye el
+//                   calentamiento cuando está activo
+//   firstRequest:   primer GET /api/products (bearer token, sin bcrypt) con la aplicación recién lista
+// Cada medición es una JVM nueva (SingleShotTime, 1 iteración por fork), como un contenedor que reinicia.
+// AppCDS y AOT dependen de cómo se lanza la JVM y se miden sobre la imagen (ver Dockerfile).
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final int WAREHOUSES = 20;
+    private static final int PRODUCTS_PER_WAREHOUSE = 100;
+
+    @Param({"true", "false"})
+    public boolean warmup;
+
+    private ConfigurableApplicationContext context;
+
+    private ConfigurableApplicationContext start() {
+        // devtools está en el classpath de test: sin esto reinicia el contexto en otro hilo
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(GestioninventarioApplication.class, CatalogSeed.class);
+        application.setAdditionalProfiles("embedded");
+        return application.run(
+                "--server.port=0",
+                "--inventario.warmup.enabled=" + warmup,
+                // AdminBootstrap crea ROLE_ADMIN con todos los permisos (la base embebida arranca vacía)
+                "--inventario.security.bootstrap-admin.username=benchmark",
+                "--inventario.security.bootstrap-admin.password=benchmark-password",
+                "--inventario.ratelimit.enabled=false",
+                "--logging.level.root=WARN");
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startupToReady() {
+        context = start();
+        return context;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Started {
+        ConfigurableApplicationContext context;
+        HttpClient client;
+        HttpRequest request;
+
+        @Setup(Level.Iteration)
+        public void setUp(StartupBenchmark benchmark) {
+            context = benchmark.start();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String token = context.getBean(TokenService.class).issue(1L, "benchmark", List.of("ROLE_ADMIN")).token();
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int firstRequest(Started started) throws Exception {
+        HttpResponse<byte[]> response = started.client.send(started.request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/products respondió " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    // Siembra el catálogo antes del calentamiento (que corre como ApplicationRunner de menor prioridad)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    static class CatalogSeed implements ApplicationRunner {
+        private final WarehouseRepository warehouseRepository;
+        private final ProductRepository productRepository;
+
+        CatalogSeed(WarehouseRepository warehouseRepository, ProductRepository productRepository) {
+            this.warehouseRepository = warehouseRepository;
+            this.productRepository = productRepository;
+        }
+
+        @Override
+        public void run(ApplicationArguments args) {
+            List<Product> products = new ArrayList<>();
+            for (int w = 1; w <= WAREHOUSES; w++) {
+                Warehouse warehouse = warehouseRepository.save(new Warehouse(null, "Almacén " + w, "Calle " + w, null));
+                for (int p = 1; p <= PRODUCTS_PER_WAREHOUSE; p++) {
+                    products.add(new Product("Producto " + w + "-" + p, "Descripción", new BigDecimal("10.00"), 100,
+                            p % 2 == 0 ? "Periféricos" : "Electrónicos", warehouse));
+                }
+            }
+            productRepository.saveAll(products);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Costo de ProductService.validateProductData con un producto válido (camino feliz de create/update).
+// Está en el paquete "service" porque el método es de visibilidad de paquete.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ProductValidationBenchmark {
+
+    private ProductService productService;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        // Los repositorios no se usan en la validación
+        productService = new ProductService(null, null, null, null, null, null, null, null, null, null);
+        Warehouse warehouse = new Warehouse(1L, "Almacén Principal", "Calle Central 123", null);
+        product = new Product(1L, "Laptop Gamer", "Potente laptop para juegos",
+                new BigDecimal("1200.99"), 10, "Electrónicos", warehouse);
+    }
+
+    @Benchmark
+    public Product validateProductData() {
+        productService.validateProductData(product);
+        return product;
+    }
+}
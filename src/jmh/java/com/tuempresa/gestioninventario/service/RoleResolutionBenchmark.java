@@ -0,0 +1,52 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Costo de la conversión roleIds -> Set<Role> de UserService (stream + findById por ID).
+// El repositorio es un stub en memoria, así que se mide solo el trabajo en la JVM, no la base.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RoleResolutionBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int roleCount;
+
+    private UserService userService;
+    private Set<Long> roleIds;
+
+    @Setup
+    public void setUp() {
+        Map<Long, Role> roles = new HashMap<>();
+        roleIds = new LinkedHashSet<>();
+        for (long id = 1; id <= roleCount; id++) {
+            roles.put(id, new Role(id, "ROLE_" + id));
+            roleIds.add(id);
+        }
+        RoleRepository roleRepository = (RoleRepository) Proxy.newProxyInstance(
+                RoleRepository.class.getClassLoader(),
+                new Class<?>[] {RoleRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return Optional.ofNullable(roles.get((Long) args[0]));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        userService = new UserService(null, roleRepository, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Set<Role> resolveRoles() {
+        return userService.resolveRoles(roleIds);
+    }
+}
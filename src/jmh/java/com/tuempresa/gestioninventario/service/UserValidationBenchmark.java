@@ -0,0 +1,41 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+// Costo de UserService.validateUserData, dominado por la expresión regular EMAIL_PATTERN.
+// Se mide con email corto, email largo y sin email (la regex no se evalúa).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UserValidationBenchmark {
+
+    @Param({"short", "long", "none"})
+    public String email;
+
+    private UserService userService;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        userService = new UserService(null, null, null, null, null, null, null, null);
+        user = new User();
+        user.setUsername("john.doe");
+        user.setPassword("password123");
+        user.setRoles(new HashSet<>());
+        switch (email) {
+            case "short" -> user.setEmail("john.doe@example.com");
+            case "long" -> user.setEmail("john.doe+inventario.notificaciones.turno.noche@almacenes-centrales.sucursal-norte.example.com");
+            default -> user.setEmail(null);
+        }
+    }
+
+    @Benchmark
+    public User validateUserDataOnCreate() {
+        userService.validateUserData(user, true);
+        return user;
+    }
+}
@@ -0,0 +1,98 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// Carga el catálogo inicial (almacenes x productos x usuarios) directamente por los repositorios,
+// sin pasar por HTTP, para que el arranque de la prueba sea rápido y determinista.
+class CatalogSeeder {
+
+    private static final String[] CATEGORIES = {"Electrónicos", "Periféricos", "Oficina", "Limpieza", "Herramientas"};
+    private static final int CHUNK = 500;
+
+    private final WarehouseRepository warehouseRepository;
+    private final ProductRepository productRepository;
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    CatalogSeeder(WarehouseRepository warehouseRepository, ProductRepository productRepository,
+                  RoleRepository roleRepository, UserRepository userRepository,
+                  TransactionTemplate transactionTemplate) {
+        this.warehouseRepository = warehouseRepository;
+        this.productRepository = productRepository;
+        this.roleRepository = roleRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Devuelve los IDs de los almacenes y productos creados, usados luego por el generador de carga.
+    SeededCatalog seed(LoadTestConfig config) {
+        List<Warehouse> warehouses = new ArrayList<>(config.warehouses());
+        for (int w = 1; w <= config.warehouses(); w++) {
+            warehouses.add(new Warehouse(null, "Almacén " + w, "Ubicación " + w, null));
+        }
+        warehouses = warehouseRepository.saveAll(warehouses);
+
+        long[] productIds = new long[config.warehouses() * config.productsPerWarehouse()];
+        int next = 0;
+        List<Product> chunk = new ArrayList<>(CHUNK);
+        for (Warehouse warehouse : warehouses) {
+            for (int p = 1; p <= config.productsPerWarehouse(); p++) {
+                chunk.add(new Product("Producto " + warehouse.getId() + "-" + p, "Producto de prueba de carga",
+                        BigDecimal.valueOf(100 + (p % 5000), 2).add(BigDecimal.ONE), 1_000,
+                        CATEGORIES[p % CATEGORIES.length], warehouse));
+                if (chunk.size() == CHUNK) {
+                    next = saveProducts(chunk, productIds, next);
+                }
+            }
+        }
+        next = saveProducts(chunk, productIds, next);
+
+        // Roles y usuarios en una sola transacción: User.roles tiene cascade PERSIST,
+        // así que los roles deben estar gestionados (no "detached") al guardar los usuarios.
+        transactionTemplate.executeWithoutResult(status -> seedUsers(config.users()));
+
+        long[] warehouseIds = warehouses.stream().mapToLong(Warehouse::getId).toArray();
+        return new SeededCatalog(warehouseIds, next == productIds.length ? productIds : Arrays.copyOf(productIds, next));
+    }
+
+    private void seedUsers(int count) {
+        Role manager = roleRepository.save(new Role("ROLE_GERENTE_INVENTARIO"));
+        Role employee = roleRepository.save(new Role("ROLE_EMPLEADO_ALMACEN"));
+        List<User> users = new ArrayList<>(CHUNK);
+        for (int u = 1; u <= count; u++) {
+            users.add(new User(null, "usuario" + u, "password" + u, "usuario" + u + "@example.com", true,
+                    u % 10 == 0 ? Set.of(manager, employee) : Set.of(employee)));
+            if (users.size() == CHUNK) {
+                userRepository.saveAll(users);
+                users.clear();
+            }
+        }
+        userRepository.saveAll(users);
+    }
+
+    private int saveProducts(List<Product> chunk, long[] productIds, int next) {
+        for (Product saved : productRepository.saveAll(chunk)) {
+            productIds[next++] = saved.getId();
+        }
+        chunk.clear();
+        return next;
+    }
+
+    record SeededCatalog(long[] warehouseIds, long[] productIds) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencias (HdrHistogram, en microsegundos) y conteo de errores por endpoint.
+class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    // Descarta lo registrado hasta ahora (fin del calentamiento)
+    void reset() {
+        endpoints.clear();
+    }
+
+    void report(long elapsedNanos, Path csv) throws IOException {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        Map<String, Histogram> histograms = new TreeMap<>();
+        Map<String, Long> errors = new TreeMap<>();
+        endpoints.forEach((name, stats) -> {
+            histograms.put(name, stats.recorder.getIntervalHistogram());
+            errors.put(name, stats.errors.sum());
+        });
+
+        String header = String.format("%-34s %9s %9s %7s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "req/s", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        System.out.println(header);
+        Files.createDirectories(csv.toAbsolutePath().getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+            out.println("endpoint,requests,throughput,errors,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+            long totalErrors = 0;
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                Histogram h = entry.getValue();
+                long endpointErrors = errors.get(entry.getKey());
+                total.add(h);
+                totalErrors += endpointErrors;
+                print(out, entry.getKey(), h, endpointErrors, seconds);
+            }
+            print(out, "TOTAL", total, totalErrors, seconds);
+        }
+    }
+
+    private static void print(PrintWriter out, String name, Histogram h, long errors, double seconds) {
+        long count = h.getTotalCount();
+        double throughput = count / seconds;
+        double p50 = h.getValueAtPercentile(50) / 1000.0;
+        double p90 = h.getValueAtPercentile(90) / 1000.0;
+        double p99 = h.getValueAtPercentile(99) / 1000.0;
+        double p999 = h.getValueAtPercentile(99.9) / 1000.0;
+        double max = h.getMaxValue() / 1000.0;
+        System.out.printf("%-34s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, count, throughput, errors, p50, p90, p99, p999, max);
+        out.printf(java.util.Locale.ROOT, "%s,%d,%.1f,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                name, count, throughput, errors, p50, p90, p99, p999, max);
+    }
+
+    private static final class Endpoint {
+        final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,64 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Generador de carga en la misma JVM.
+//  - Modelo cerrado: "concurrency" usuarios virtuales ejecutan acciones una tras otra, sin pausa.
+//  - Modelo abierto: llegan "rate" acciones por segundo con independencia de cuánto tarde el servidor;
+//    la latencia se mide desde el instante planificado, así que incluye la cola (sin omisión coordinada).
+class LoadGenerator {
+
+    private final Workload workload;
+    private final LoadTestConfig config;
+
+    LoadGenerator(Workload workload, LoadTestConfig config) {
+        this.workload = workload;
+        this.config = config;
+    }
+
+    void run(Duration duration) throws InterruptedException {
+        if (config.openModel()) {
+            runOpen(duration);
+        } else {
+            runClosed(duration);
+        }
+    }
+
+    private void runClosed(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService users = Executors.newFixedThreadPool(config.concurrency());
+        for (int i = 0; i < config.concurrency(); i++) {
+            users.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    workload.runOnce(System.nanoTime());
+                }
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    private void runOpen(Duration duration) throws InterruptedException {
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(config.concurrency(), config.concurrency(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.rate());
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        for (long intended = start; intended < deadline; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = intended;
+            workers.execute(() -> workload.runOnce(intendedStart));
+        }
+        workers.shutdown();
+        workers.awaitTermination(60, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,45 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import java.time.Duration;
+
+// Parámetros de la prueba de carga, leídos de propiedades de sistema (-Dloadtest.*).
+record LoadTestConfig(
+        int warehouses,            // loadtest.warehouses
+        int productsPerWarehouse,  // loadtest.productsPerWarehouse
+        int users,                 // loadtest.users
+        String model,              // loadtest.model: "closed" (N usuarios en bucle) u "open" (tasa fija de llegadas)
+        int concurrency,           // loadtest.concurrency: usuarios virtuales (closed) o hilos máximos (open)
+        int rate,                  // loadtest.rate: requests/s en el modelo abierto
+        Duration warmup,           // loadtest.warmupSeconds
+        Duration duration,         // loadtest.durationSeconds
+        int browseWeight,          // loadtest.mix.browse: GET /api/products y /api/warehouses
+        int getByIdWeight,         // loadtest.mix.getById: GET /api/products/{id}
+        int movementWeight,        // loadtest.mix.movement: ráfagas de entry/exit
+        int crudWeight,            // loadtest.mix.crud: create + update + delete de un producto
+        int movementBurst,         // loadtest.movementBurst: pares entry/exit por ráfaga
+        String auth,               // loadtest.auth: "basic" (cada request se autentica) o "none"
+        String reportFile) {       // loadtest.report
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.warehouses", 10),
+                Integer.getInteger("loadtest.productsPerWarehouse", 200),
+                Integer.getInteger("loadtest.users", 100),
+                System.getProperty("loadtest.model", "closed"),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Integer.getInteger("loadtest.rate", 500),
+                Duration.ofSeconds(Integer.getInteger("loadtest.warmupSeconds", 5)),
+                Duration.ofSeconds(Integer.getInteger("loadtest.durationSeconds", 30)),
+                Integer.getInteger("loadtest.mix.browse", 10),
+                Integer.getInteger("loadtest.mix.getById", 50),
+                Integer.getInteger("loadtest.mix.movement", 30),
+                Integer.getInteger("loadtest.mix.crud", 10),
+                Integer.getInteger("loadtest.movementBurst", 5),
+                System.getProperty("loadtest.auth", "basic"),
+                System.getProperty("loadtest.report", "target/loadtest-report.csv"));
+    }
+
+    boolean openModel() {
+        return "open".equalsIgnoreCase(model);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import com.tuempresa.gestioninventario.GestioninventarioApplication;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Punto de entrada de la prueba de carga (perfil Maven "loadtest"):
+//   1. Levanta la aplicación completa con el perfil "embedded" (H2 en modo MariaDB) en un puerto libre.
+//   2. Siembra el catálogo configurado.
+//   3. Calienta, mide la mezcla de operaciones y reporta throughput y percentiles por endpoint
+//      por consola y en loadtest.report (CSV).
+//
+//   ./mvnw -P loadtest verify -Dloadtest.args="-Dloadtest.model=open -Dloadtest.rate=800 -Dloadtest.durationSeconds=60"
+public class LoadTestRunner {
+
+    private static final String USERNAME = "loadtest";
+    private static final String PASSWORD = "loadtest-password";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        // devtools está en el classpath de test: sin esto reinicia el contexto en otro hilo
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        SpringApplication application = new SpringApplication(GestioninventarioApplication.class, LoadTestSecurityConfig.class);
+        application.setAdditionalProfiles("embedded");
+        ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                // Administrador inicial de AdminBootstrap (la base embebida arranca vacía)
+                "--inventario.security.bootstrap-admin.username=" + USERNAME,
+                "--inventario.security.bootstrap-admin.password=" + PASSWORD,
+                // Un solo cliente genera toda la carga: con su presupuesto por cliente la prueba mediría 429s
+                "--inventario.ratelimit.enabled=false",
+                "--logging.level.root=WARN");
+        int exitCode = 0;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            CatalogSeeder seeder = new CatalogSeeder(
+                    context.getBean(WarehouseRepository.class), context.getBean(ProductRepository.class),
+                    context.getBean(RoleRepository.class), context.getBean(UserRepository.class),
+                    new TransactionTemplate(context.getBean(PlatformTransactionManager.class)));
+            long seedStart = System.nanoTime();
+            CatalogSeeder.SeededCatalog catalog = seeder.seed(config);
+            System.out.printf("Catálogo sembrado: %d almacenes, %d productos, %d usuarios en %d ms%n",
+                    catalog.warehouseIds().length, catalog.productIds().length, config.users(),
+                    Duration.ofNanos(System.nanoTime() - seedStart).toMillis());
+
+            EndpointStats stats = new EndpointStats();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            Workload workload = new Workload(client, "http://localhost:" + port, USERNAME, PASSWORD, config, catalog, stats);
+            LoadGenerator generator = new LoadGenerator(workload, config);
+
+            System.out.printf("Aplicación en http://localhost:%d%n", port);
+            System.out.printf("Modelo %s, %s, auth %s; calentamiento %ds, medición %ds%n", config.model(),
+                    config.openModel() ? config.rate() + " req/s" : config.concurrency() + " usuarios",
+                    config.auth(), config.warmup().toSeconds(), config.duration().toSeconds());
+            generator.run(config.warmup());
+            stats.reset();
+
+            long start = System.nanoTime();
+            generator.run(config.duration());
+            stats.report(System.nanoTime() - start, Path.of(config.reportFile()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,27 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+// Con -Dloadtest.auth=none se antepone a la cadena de SecurityConfig una cadena que deja pasar todo,
+// para medir solo el costo de la aplicación. Con "basic" (por defecto) se mide la seguridad real
+// (usuario en app_users, bcrypt y caché de credenciales).
+@Configuration
+@ConditionalOnProperty(name = "loadtest.auth", havingValue = "none")
+class LoadTestSecurityConfig {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .securityMatcher("/**")
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.tuempresa.gestioninventario.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Mezcla de operaciones que ejecuta cada usuario virtual. Cada acción puede emitir varios requests,
+// y cada request se registra en EndpointStats bajo el nombre de su endpoint (método + ruta plantilla).
+class Workload {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String authorization;
+    private final LoadTestConfig config;
+    private final CatalogSeeder.SeededCatalog catalog;
+    private final EndpointStats stats;
+    private final int totalWeight;
+
+    Workload(HttpClient client, String baseUrl, String username, String password,
+             LoadTestConfig config, CatalogSeeder.SeededCatalog catalog, EndpointStats stats) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.config = config;
+        this.catalog = catalog;
+        this.stats = stats;
+        this.totalWeight = config.browseWeight() + config.getByIdWeight() + config.movementWeight() + config.crudWeight();
+    }
+
+    // Ejecuta una acción elegida según los pesos de la mezcla.
+    // intendedStartNanos permite medir desde el instante planificado (modelo abierto, sin omisión coordinada).
+    void runOnce(long intendedStartNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(totalWeight);
+        if ((pick -= config.browseWeight()) < 0) {
+            if (random.nextInt(4) == 0) {
+                send("GET /api/warehouses", get("/api/warehouses"), intendedStartNanos);
+            } else {
+                send("GET /api/products", get("/api/products"), intendedStartNanos);
+            }
+        } else if ((pick -= config.getByIdWeight()) < 0) {
+            send("GET /api/products/{id}", get("/api/products/" + randomProduct(random)), intendedStartNanos);
+        } else if ((pick -= config.movementWeight()) < 0) {
+            movementBurst(random, intendedStartNanos);
+        } else {
+            crud(random, intendedStartNanos);
+        }
+    }
+
+    // Entradas y salidas alternadas sobre el mismo producto; el stock neto no cambia.
+    private void movementBurst(ThreadLocalRandom random, long intendedStartNanos) {
+        long productId = randomProduct(random);
+        long start = intendedStartNanos;
+        for (int i = 0; i < config.movementBurst(); i++) {
+            int quantity = 1 + random.nextInt(5);
+            send("PATCH /api/products/{id}/entry",
+                    patch("/api/products/" + productId + "/entry?quantity=" + quantity), start);
+            send("PATCH /api/products/{id}/exit",
+                    patch("/api/products/" + productId + "/exit?quantity=" + quantity), System.nanoTime());
+            start = System.nanoTime();
+        }
+    }
+
+    // Alta, modificación y baja de un producto temporal, para no alterar el catálogo sembrado.
+    private void crud(ThreadLocalRandom random, long intendedStartNanos) {
+        long warehouseId = catalog.warehouseIds()[random.nextInt(catalog.warehouseIds().length)];
+        String body = "{\"name\":\"Temporal " + random.nextLong(Long.MAX_VALUE)
+                + "\",\"description\":\"Carga\",\"price\":12.50,\"quantity\":10,\"category\":\"Temporal\"}";
+        String created = send("POST /api/products",
+                json("POST", "/api/products?warehouseId=" + warehouseId, body), intendedStartNanos);
+        if (created == null) {
+            return;
+        }
+        Matcher matcher = ID_PATTERN.matcher(created);
+        if (!matcher.find()) {
+            return;
+        }
+        String id = matcher.group(1);
+        send("PUT /api/products/{id}",
+                json("PUT", "/api/products/" + id + "?warehouseId=" + warehouseId, body.replace("12.50", "13.75")),
+                System.nanoTime());
+        send("DELETE /api/products/{id}",
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/" + id))
+                        .header("Authorization", authorization).DELETE().build(),
+                System.nanoTime());
+    }
+
+    // Devuelve el cuerpo si la respuesta fue 2xx, null en otro caso.
+    private String send(String endpoint, HttpRequest request, long startNanos) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean success = response.statusCode() / 100 == 2;
+            stats.record(endpoint, System.nanoTime() - startNanos, success);
+            return success ? response.body() : null;
+        } catch (IOException e) {
+            stats.record(endpoint, System.nanoTime() - startNanos, false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private long randomProduct(ThreadLocalRandom random) {
+        return catalog.productIds()[random.nextInt(catalog.productIds().length)];
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", authorization).GET().build();
+    }
+
+    private HttpRequest patch(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", authorization)
+                .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest json(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+}
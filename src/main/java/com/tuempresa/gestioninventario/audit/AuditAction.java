@@ -0,0 +1,35 @@
+package com.tuempresa.gestioninventario.audit;
+
+// Cambios auditados, con el tipo de entidad al que se refieren (columna entity_type de audit_log)
+public enum AuditAction {
+    PRODUCT_CREATED("product"),
+    PRODUCT_UPDATED("product"),
+    PRODUCT_DELETED("product"),
+    STOCK_ENTRY("product"),
+    STOCK_EXIT("product"),
+    STOCK_COUNT_ADJUSTED("product"),
+    WAREHOUSE_CREATED("warehouse"),
+    WAREHOUSE_UPDATED("warehouse"),
+    WAREHOUSE_DELETED("warehouse"),
+    USER_CREATED("user"),
+    USER_UPDATED("user"),
+    USER_DELETED("user"),
+    ROLE_CREATED("role"),
+    ROLE_UPDATED("role"),
+    ROLE_DELETED("role");
+
+    private final String entityType;
+
+    AuditAction(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String entityType() {
+        return entityType;
+    }
+
+    // Solo los movimientos de stock llevan cantidad (en un ajuste por conteo, la diferencia con signo)
+    public boolean hasAmount() {
+        return this == STOCK_ENTRY || this == STOCK_EXIT || this == STOCK_COUNT_ADJUSTED;
+    }
+}
@@ -0,0 +1,6 @@
+package com.tuempresa.gestioninventario.audit;
+
+// Evento ya consumido del ring buffer (lado del consumidor y del archivo de desborde).
+// entityId y amount valen 0 cuando no aplican; occurredAt en milisegundos epoch.
+public record AuditEvent(long occurredAt, String actor, AuditAction action, long entityId, long amount, String detail) {
+}
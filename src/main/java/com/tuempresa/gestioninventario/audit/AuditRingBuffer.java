@@ -0,0 +1,101 @@
+package com.tuempresa.gestioninventario.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Ring buffer de eventos de auditoría: muchos productores (hilos de request), un solo consumidor.
+// Los casilleros se reservan al crearlo como arreglos paralelos de campos, así que publicar no crea
+// objetos: un CAS para reservar la secuencia, escribir los campos y marcar el casillero como publicado.
+//
+//   next:      próxima secuencia a reservar
+//   consumed:  secuencias ya leídas por el consumidor; hay lugar mientras next - consumed < capacidad
+//   published: por casillero, la secuencia que contiene; el consumidor solo lee si coincide con la esperada
+public final class AuditRingBuffer {
+
+    private final int mask;
+    private final long[] occurredAt;
+    private final String[] actors;
+    private final AuditAction[] actions;
+    private final long[] entityIds;
+    private final long[] amounts;
+    private final String[] details;
+    private final AtomicLongArray published;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    public AuditRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("La capacidad del buffer de auditoría debe ser al menos 2.");
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1; // potencia de 2 para indexar con una máscara
+        this.mask = capacity - 1;
+        this.occurredAt = new long[capacity];
+        this.actors = new String[capacity];
+        this.actions = new AuditAction[capacity];
+        this.entityIds = new long[capacity];
+        this.amounts = new long[capacity];
+        this.details = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1L);
+        }
+    }
+
+    // false si el buffer está lleno (la política de desborde la decide el llamador)
+    public boolean tryPublish(long timestamp, String actor, AuditAction action, long entityId, long amount, String detail) {
+        long sequence;
+        do {
+            sequence = next.get();
+            if (sequence - consumed.get() > mask) {
+                return false;
+            }
+        } while (!next.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        occurredAt[index] = timestamp;
+        actors[index] = actor;
+        actions[index] = action;
+        entityIds[index] = entityId;
+        amounts[index] = amount;
+        details[index] = detail;
+        published.lazySet(index, sequence); // publica los campos anteriores para el consumidor
+        return true;
+    }
+
+    // Solo desde el hilo consumidor. Copia hasta max eventos publicados, en orden, y libera sus casilleros.
+    public List<AuditEvent> drain(int max) {
+        long start = consumed.get();
+        List<AuditEvent> events = new ArrayList<>(Math.min(max, mask + 1));
+        long sequence = start;
+        while (events.size() < max) {
+            int index = (int) sequence & mask;
+            if (published.get(index) != sequence) {
+                break;
+            }
+            events.add(new AuditEvent(occurredAt[index], actors[index], actions[index],
+                    entityIds[index], amounts[index], details[index]));
+            actors[index] = null;
+            details[index] = null;
+            sequence++;
+        }
+        if (sequence != start) {
+            consumed.lazySet(sequence);
+        }
+        return events;
+    }
+
+    // Secuencias reservadas hasta ahora (publicadas o a punto de publicarse)
+    public long claimed() {
+        return next.get();
+    }
+
+    public int size() {
+        return (int) (next.get() - consumed.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,120 @@
+package com.tuempresa.gestioninventario.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Archivo local de desborde: eventos que no entraron en el buffer o que no se pudieron escribir en la base.
+// Formato binario de registros de largo variable, solo agregado al final; un registro cortado por una caída
+// del proceso se descarta al leer.
+//
+// Reenvío a audit_log (AuditTrail, al arrancar y cuando el consumidor está ocioso): claim() renombra el
+// archivo a <archivo>.replaying y lo devuelve; los append siguientes van a un archivo nuevo. El .replaying
+// se borra recién con completeReplay(), después de insertarlo: un error de la base lo deja (retain() lo
+// recorta a lo que falta) y una caída del proceso también, para el próximo intento. A lo sumo se repiten
+// en audit_log los eventos insertados justo antes de la caída.
+final class AuditSpillFile {
+
+    private static final byte NO_DETAIL = 0;
+    private static final byte WITH_DETAIL = 1;
+
+    private final Path path;
+    private final Path replaying;
+
+    AuditSpillFile(Path path) {
+        this.path = path;
+        this.replaying = path.resolveSibling(path.getFileName() + ".replaying");
+    }
+
+    Path path() {
+        return path;
+    }
+
+    synchronized void append(List<AuditEvent> events) throws IOException {
+        write(path, events, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // Lo pendiente de reenviar: el .replaying de un intento anterior o, si no hay, lo desbordado hasta ahora
+    synchronized List<AuditEvent> claim() throws IOException {
+        if (!Files.exists(replaying)) {
+            if (!Files.exists(path)) {
+                return List.of();
+            }
+            Files.move(path, replaying, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return read(replaying);
+    }
+
+    // Reemplaza el .replaying por los eventos que faltan insertar (escritos aparte y renombrados encima)
+    synchronized void retain(List<AuditEvent> remaining) throws IOException {
+        Path partial = replaying.resolveSibling(replaying.getFileName() + ".tmp");
+        write(partial, remaining, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.move(partial, replaying, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    synchronized void completeReplay() throws IOException {
+        Files.deleteIfExists(replaying);
+    }
+
+    private static void write(Path target, List<AuditEvent> events, StandardOpenOption... options) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream file = Files.newOutputStream(target, options);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (AuditEvent event : events) {
+                out.writeLong(event.occurredAt());
+                out.writeUTF(event.actor());
+                out.writeUTF(event.action().name());
+                out.writeLong(event.entityId());
+                out.writeLong(event.amount());
+                if (event.detail() == null) {
+                    out.writeByte(NO_DETAIL);
+                } else {
+                    out.writeByte(WITH_DETAIL);
+                    out.writeUTF(event.detail());
+                }
+            }
+        }
+    }
+
+    // Lo desbordado que todavía no se tomó para reenviar
+    synchronized List<AuditEvent> readAll() throws IOException {
+        return read(path);
+    }
+
+    private static List<AuditEvent> read(Path source) throws IOException {
+        List<AuditEvent> events = new ArrayList<>();
+        if (!Files.exists(source)) {
+            return events;
+        }
+        try (InputStream file = Files.newInputStream(source);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                try {
+                    long occurredAt = in.readLong();
+                    String actor = in.readUTF();
+                    AuditAction action = AuditAction.valueOf(in.readUTF());
+                    long entityId = in.readLong();
+                    long amount = in.readLong();
+                    String detail = in.readByte() == WITH_DETAIL ? in.readUTF() : null;
+                    events.add(new AuditEvent(occurredAt, actor, action, entityId, amount, detail));
+                } catch (EOFException e) {
+                    return events; // fin del archivo, o último registro incompleto
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.tuempresa.gestioninventario.audit;
+
+import com.tuempresa.gestioninventario.repository.AuditLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Auditoría asíncrona de todos los cambios (productos, stock, almacenes, usuarios y roles).
+//
+// Los servicios llaman a record(...) dentro de su transacción; el evento se publica en AuditRingBuffer
+// después del commit (un rollback no deja rastro). Un único hilo consumidor vacía el buffer en lotes
+// de hasta batch-size eventos y los escribe con un INSERT multi-fila. El hilo de la request solo paga
+// la lectura del SecurityContext y la publicación en el buffer.
+//
+// Sin pérdidas ante fallas: si la base no responde, el lote va al archivo de desborde (AuditSpillFile),
+// que se reenvía a audit_log al arrancar y, sin reiniciar, cuando el consumidor queda ocioso (a lo sumo un
+// intento cada replay-interval mientras la base siga fallando). El buffer lleno se resuelve según OverflowPolicy.
+@Component
+public class AuditTrail implements SmartLifecycle {
+
+    public static final String EVENTS = "inventario.audit.events";
+    public static final String BUFFER_SIZE = "inventario.audit.buffer.size";
+    public static final String FLUSH = "inventario.audit.flush";
+
+    static final String SYSTEM_ACTOR = "system";
+    private static final int MAX_DETAIL_LENGTH = 255;
+    private static final Logger log = LoggerFactory.getLogger(AuditTrail.class);
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditRingBuffer buffer;
+    private final AuditSpillFile spillFile;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long idleParkNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final long replayIntervalNanos;
+    private final Counter published;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    // Eventos del buffer ya escritos (o desbordados) por el consumidor, para flush()
+    private volatile long handled;
+    // Hay eventos en el archivo de desborde sin reenviar; el reenvío lo hace solo el consumidor
+    private volatile boolean spillPending;
+    private long nextReplayNanos; // solo desde el hilo consumidor
+    private Thread consumer;
+
+    @Autowired
+    public AuditTrail(AuditLogRepository auditLogRepository, MeterRegistry registry,
+                      @Value("${inventario.audit.enabled:true}") boolean enabled,
+                      @Value("${inventario.audit.buffer-size:8192}") int bufferSize,
+                      @Value("${inventario.audit.batch-size:256}") int batchSize,
+                      @Value("${inventario.audit.flush-interval:50ms}") Duration flushInterval,
+                      @Value("${inventario.audit.overflow-policy:SPILL}") OverflowPolicy overflowPolicy,
+                      @Value("${inventario.audit.block-timeout:100ms}") Duration blockTimeout,
+                      @Value("${inventario.audit.spill-file:data/audit-spill.bin}") Path spillFile,
+                      @Value("${inventario.audit.replay-interval:10s}") Duration replayInterval) {
+        this.auditLogRepository = auditLogRepository;
+        this.buffer = new AuditRingBuffer(bufferSize);
+        this.spillFile = new AuditSpillFile(spillFile);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.idleParkNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.replayIntervalNanos = replayInterval.toNanos();
+
+        this.published = eventCounter(registry, "published");
+        this.written = eventCounter(registry, "written");
+        this.dropped = eventCounter(registry, "dropped");
+        this.spilled = eventCounter(registry, "spilled");
+        this.flushTimer = Timer.builder(FLUSH)
+                .description("Escritura de un lote de auditoría en audit_log")
+                .register(registry);
+        Gauge.builder(BUFFER_SIZE, buffer, AuditRingBuffer::size)
+                .description("Eventos de auditoría en el buffer, pendientes de escribir")
+                .register(registry);
+    }
+
+    private static Counter eventCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder(EVENTS)
+                .description("Eventos de auditoría según su destino")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    // --- Lado de los servicios ---
+
+    public void record(AuditAction action, Long entityId) {
+        record(action, entityId, 0L, null);
+    }
+
+    public void record(AuditAction action, Long entityId, long amount, String detail) {
+        if (!enabled) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        String actor = currentActor();
+        long id = entityId == null ? 0L : entityId;
+        String boundedDetail = detail != null && detail.length() > MAX_DETAIL_LENGTH
+                ? detail.substring(0, MAX_DETAIL_LENGTH) : detail;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(timestamp, actor, action, id, amount, boundedDetail);
+                }
+            });
+        } else {
+            publish(timestamp, actor, action, id, amount, boundedDetail);
+        }
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? SYSTEM_ACTOR : authentication.getName();
+    }
+
+    void publish(long timestamp, String actor, AuditAction action, long entityId, long amount, String detail) {
+        if (running && buffer.tryPublish(timestamp, actor, action, entityId, amount, detail)) {
+            published.increment();
+            return;
+        }
+        if (!running) {
+            // Antes de arrancar o ya detenido: no hay consumidor, el evento va directo al archivo
+            spill(List.of(new AuditEvent(timestamp, actor, action, entityId, amount, detail)));
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP -> dropped.increment();
+            case BLOCK -> {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while (System.nanoTime() - deadline < 0) {
+                    LockSupport.parkNanos(50_000L);
+                    if (buffer.tryPublish(timestamp, actor, action, entityId, amount, detail)) {
+                        published.increment();
+                        return;
+                    }
+                }
+                spill(List.of(new AuditEvent(timestamp, actor, action, entityId, amount, detail)));
+            }
+            case SPILL -> spill(List.of(new AuditEvent(timestamp, actor, action, entityId, amount, detail)));
+        }
+    }
+
+    // --- Consumidor ---
+
+    private void consume() {
+        while (running) {
+            List<AuditEvent> batch = buffer.drain(batchSize);
+            if (batch.isEmpty() && spillPending && System.nanoTime() - nextReplayNanos >= 0) {
+                if (!replaySpillFile()) {
+                    nextReplayNanos = System.nanoTime() + replayIntervalNanos;
+                }
+            } else if (batch.isEmpty()) {
+                LockSupport.parkNanos(idleParkNanos);
+            } else {
+                write(batch);
+                handled += batch.size();
+            }
+        }
+        // Al detenerse se vacía lo que quedó en el buffer
+        List<AuditEvent> batch;
+        while (!(batch = buffer.drain(batchSize)).isEmpty()) {
+            write(batch);
+            handled += batch.size();
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        long start = System.nanoTime();
+        try {
+            auditLogRepository.insertAll(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo escribir un lote de {} eventos de auditoría; se guarda en {}",
+                    batch.size(), spillFile.path(), e);
+            spill(batch);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void spill(List<AuditEvent> events) {
+        try {
+            spillFile.append(events);
+            spilled.increment(events.size());
+            spillPending = true;
+        } catch (IOException e) {
+            dropped.increment(events.size());
+            log.error("Se perdieron {} eventos de auditoría: no se pudo escribir {}", events.size(), spillFile.path(), e);
+        }
+    }
+
+    // Reenvía a audit_log lo desbordado (de esta ejecución o de una anterior). Los lotes fallidos no se vuelven
+    // a desbordar: quedan en el .replaying para el próximo intento. Devuelve false si hay que reintentar.
+    boolean replaySpillFile() {
+        spillPending = false;
+        List<AuditEvent> events;
+        try {
+            events = spillFile.claim();
+        } catch (IOException e) {
+            log.error("No se pudo leer el archivo de desborde de auditoría {}", spillFile.path(), e);
+            spillPending = true;
+            return false;
+        }
+        for (int from = 0; from < events.size(); from += batchSize) {
+            List<AuditEvent> batch = events.subList(from, Math.min(events.size(), from + batchSize));
+            try {
+                auditLogRepository.insertAll(batch);
+                written.increment(batch.size());
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron reenviar {} eventos de auditoría desde {}; se reintenta más tarde",
+                        events.size() - from, spillFile.path(), e);
+                try {
+                    spillFile.retain(events.subList(from, events.size()));
+                } catch (IOException retainError) {
+                    // Queda el .replaying completo: el próximo intento repite los lotes ya insertados
+                    log.error("No se pudo recortar el archivo de desborde de auditoría {}", spillFile.path(), retainError);
+                }
+                spillPending = true;
+                return false;
+            }
+        }
+        try {
+            spillFile.completeReplay();
+        } catch (IOException e) {
+            // Sin reintento: se volverían a insertar todos. Queda para el próximo arranque (con duplicados)
+            log.error("No se pudo borrar el archivo de desborde de auditoría ya reenviado {}", spillFile.path(), e);
+        }
+        if (!events.isEmpty()) {
+            log.info("Reenviados {} eventos de auditoría desde {}", events.size(), spillFile.path());
+        }
+        return true;
+    }
+
+    // Espera a que lo publicado hasta ahora esté escrito (o desbordado). Para tests y el apagado ordenado.
+    public void flush() {
+        long target = buffer.claimed();
+        while (running && handled < target) {
+            LockSupport.parkNanos(1_000_000L);
+        }
+    }
+
+    // --- Ciclo de vida: arranca antes que el servidor web y se detiene después, para no perder eventos ---
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        boolean replayed = replaySpillFile();
+        // Si la base todavía no responde, el consumidor reintenta pasado replay-interval
+        nextReplayNanos = System.nanoTime() + (replayed ? 0L : replayIntervalNanos);
+        running = true;
+        consumer = new Thread(this::consume, "audit-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,9 @@
+package com.tuempresa.gestioninventario.audit;
+
+// Qué hacer cuando el ring buffer está lleno (el consumidor no alcanza a escribir en la base):
+//   BLOCK: el hilo de la request espera hasta block-timeout a que haya lugar; si no, va al archivo de desborde
+//   DROP:  se descarta el evento (se cuenta en la métrica de descartados)
+//   SPILL: se escribe directo en el archivo de desborde, que se reenvía a la base al arrancar
+public enum OverflowPolicy {
+    BLOCK, DROP, SPILL
+}
@@ -0,0 +1,26 @@
+package com.tuempresa.gestioninventario.cluster;
+
+import java.time.Instant;
+
+// Trabajo programado que ClusterJobRunner ejecuta una sola vez por horario en todo el cluster.
+//
+// El trabajo se divide en partitions() unidades fijas; en cada horario cada partición la ejecuta una sola
+// instancia (la que tiene su lease) y las particiones se reparten entre las instancias vivas.
+public interface ClusterJob {
+
+    // Nombre único del job (clave en job_lease)
+    String name();
+
+    int partitions();
+
+    // Próximo horario posterior a after
+    Instant nextRun(Instant after);
+
+    // Ejecuta la partición lease.partition() de lease.partitions(). Debe cortar cuando lease.isActive() pasa
+    // a false y devolver false (la partición se retoma sin esperar al próximo horario); true si terminó.
+    boolean run(JobLease lease);
+
+    default boolean isEnabled() {
+        return true;
+    }
+}
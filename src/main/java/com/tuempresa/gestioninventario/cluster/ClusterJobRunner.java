@@ -0,0 +1,275 @@
+package com.tuempresa.gestioninventario.cluster;
+
+import com.tuempresa.gestioninventario.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Ejecuta los ClusterJob con leases en la base (job_lease) para que, con varias instancias detrás del
+// balanceador, cada partición de cada horario corra en una sola.
+//
+// Cada poll-interval la instancia busca particiones vencidas y libres y toma las que le tocan: las
+// particiones se reparten por módulo entre las instancias vivas (cluster_node, ordenadas por ID), así un
+// job grande se divide entre todas en lugar de correr N veces. Una partición que su instancia asignada no
+// tomó en una duración de lease (la instancia cayó y las demás todavía no lo ven) la toma cualquiera.
+//
+// Mientras la partición corre, el heartbeat renueva su lease; cada toma incrementa el fencing token, y el
+// job confirma su trabajo con JobLease.fence() para que un dueño anterior (una pausa larga de GC, una red
+// cortada) no pise al nuevo. Al terminar la partición pasa al próximo horario; si falla se libera y se
+// reintenta después de retry-delay en cualquier instancia.
+@Component
+public class ClusterJobRunner implements SmartLifecycle {
+
+    public static final String RUNS = "inventario.cluster.jobs.runs";
+    public static final String LEASES_HELD = "inventario.cluster.leases.held";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterJobRunner.class);
+    private static final Duration NODE_RETENTION = Duration.ofDays(1);
+
+    private final JobLeaseRepository repository;
+    private final List<ClusterJob> jobs;
+    private final MeterRegistry registry;
+    private final Clock clock;
+    private final Executor executor;
+    private final boolean enabled;
+    private final String nodeId;
+    private final int workers;
+    private final Duration leaseDuration;
+    private final long heartbeatIntervalMillis;
+    private final long pollIntervalNanos;
+    private final Duration retryDelay;
+    private final Map<String, JobLease> held = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private boolean partitionsReady; // solo desde el hilo del planificador
+    private long lastHeartbeatMillis = Long.MIN_VALUE;
+    private Thread scheduler;
+
+    @Autowired
+    public ClusterJobRunner(JobLeaseRepository repository, List<ClusterJob> jobs, MeterRegistry registry,
+                            @Value("${inventario.cluster.enabled:true}") boolean enabled,
+                            @Value("${inventario.cluster.node-id:}") String nodeId,
+                            @Value("${inventario.cluster.workers:2}") int workers,
+                            @Value("${inventario.cluster.lease-duration:30s}") Duration leaseDuration,
+                            @Value("${inventario.cluster.heartbeat-interval:10s}") Duration heartbeatInterval,
+                            @Value("${inventario.cluster.poll-interval:1s}") Duration pollInterval,
+                            @Value("${inventario.cluster.retry-delay:1m}") Duration retryDelay) {
+        this(repository, jobs, registry, Clock.systemUTC(), newWorkerPool(workers), enabled,
+                nodeId.isBlank() ? defaultNodeId() : nodeId, workers, leaseDuration, heartbeatInterval, pollInterval,
+                retryDelay);
+    }
+
+    ClusterJobRunner(JobLeaseRepository repository, List<ClusterJob> jobs, MeterRegistry registry, Clock clock,
+                     Executor executor, boolean enabled, String nodeId, int workers, Duration leaseDuration,
+                     Duration heartbeatInterval, Duration pollInterval, Duration retryDelay) {
+        if (workers <= 0 || heartbeatInterval.compareTo(leaseDuration) >= 0) {
+            throw new IllegalArgumentException("workers debe ser positivo y heartbeat-interval menor que lease-duration.");
+        }
+        this.repository = repository;
+        this.jobs = jobs.stream().filter(ClusterJob::isEnabled).toList();
+        this.registry = registry;
+        this.clock = clock;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.workers = workers;
+        this.leaseDuration = leaseDuration;
+        this.heartbeatIntervalMillis = heartbeatInterval.toMillis();
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.retryDelay = retryDelay;
+        Gauge.builder(LEASES_HELD, held, Map::size)
+                .description("Particiones de jobs programados en ejecución en esta instancia")
+                .register(registry);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    // Una vuelta del planificador: heartbeat si corresponde y toma de las particiones vencidas que le tocan
+    void tick() {
+        Instant now = clock.instant();
+        if (!partitionsReady) {
+            for (ClusterJob job : jobs) {
+                repository.ensurePartitions(job.name(), job.partitions(), job.nextRun(now), now);
+            }
+            partitionsReady = true;
+        }
+        if (lastHeartbeatMillis == Long.MIN_VALUE || now.toEpochMilli() - lastHeartbeatMillis >= heartbeatIntervalMillis) {
+            heartbeat();
+        }
+        List<String> nodes = repository.liveNodes(now.minus(leaseDuration));
+        int index = nodes.indexOf(nodeId);
+        for (ClusterJob job : jobs) {
+            for (int partition : repository.findDue(job.name(), now, now)) {
+                if (held.size() >= workers) {
+                    return;
+                }
+                if (held.containsKey(key(job.name(), partition))) {
+                    continue;
+                }
+                boolean assigned = index >= 0 && Math.floorMod(job.name().hashCode() + partition, nodes.size()) == index;
+                Instant dueBefore = assigned ? now : now.minus(leaseDuration);
+                repository.tryAcquire(job.name(), partition, nodeId, now, now.plus(leaseDuration), dueBefore)
+                        .ifPresent(acquired -> launch(job, new JobLease(repository, clock, job.name(), partition,
+                                job.partitions(), acquired.fencingToken(), acquired.scheduledAt(), now.plus(leaseDuration))));
+            }
+        }
+    }
+
+    // Marca la instancia como viva y renueva los leases de las particiones en curso
+    void heartbeat() {
+        Instant now = clock.instant();
+        lastHeartbeatMillis = now.toEpochMilli();
+        repository.heartbeat(nodeId, now);
+        for (JobLease lease : held.values()) {
+            try {
+                if (!lease.renew(now.plus(leaseDuration))) {
+                    log.warn("Se perdió el lease de la partición {} del job {} (token {})",
+                            lease.partition(), lease.jobName(), lease.fencingToken());
+                }
+            } catch (RuntimeException e) {
+                // Si no se logra renovar antes de que venza, el lease deja de estar activo solo
+                log.warn("No se pudo renovar el lease de la partición {} del job {}", lease.partition(), lease.jobName(), e);
+            }
+        }
+        repository.deleteNodesBefore(now.minus(NODE_RETENTION));
+    }
+
+    private void launch(ClusterJob job, JobLease lease) {
+        held.put(key(job.name(), lease.partition()), lease);
+        try {
+            executor.execute(() -> execute(job, lease));
+        } catch (RejectedExecutionException e) {
+            held.remove(key(job.name(), lease.partition()));
+            lease.release(clock.instant(), null);
+        }
+    }
+
+    private void execute(ClusterJob job, JobLease lease) {
+        String outcome;
+        try {
+            boolean completed = job.run(lease);
+            Instant now = clock.instant();
+            // Una partición cortada (instancia detenida) queda para otra sin pasar al próximo horario
+            if (lease.release(now, completed ? job.nextRun(now) : null)) {
+                outcome = completed ? "completed" : "stopped";
+            } else {
+                outcome = "lost";
+            }
+        } catch (RuntimeException e) {
+            outcome = e instanceof LeaseLostException ? "lost" : "failed";
+            log.warn("Falló la partición {} del job {}; se reintenta en {}", lease.partition(), job.name(), retryDelay, e);
+            try {
+                lease.release(clock.instant().plus(retryDelay), null);
+            } catch (RuntimeException releaseError) {
+                log.warn("No se pudo liberar la partición {} del job {}; queda hasta que venza el lease",
+                        lease.partition(), job.name(), releaseError);
+            }
+        } finally {
+            held.remove(key(job.name(), lease.partition()));
+        }
+        Counter.builder(RUNS)
+                .description("Ejecuciones de particiones de jobs programados por resultado")
+                .tag("job", job.name())
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                log.warn("Error en el planificador de jobs; se reintenta", e);
+            }
+            LockSupport.parkNanos(pollIntervalNanos);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        scheduler = new Thread(this::run, "cluster-jobs");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler == null) {
+            return;
+        }
+        try {
+            LockSupport.unpark(scheduler);
+            scheduler.join(TimeUnit.SECONDS.toMillis(5));
+            // Las particiones en curso cortan en su próximo paso y se liberan para otra instancia
+            held.values().forEach(JobLease::requestStop);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!held.isEmpty() && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            // Sin esperar a que venza su heartbeat, las demás reparten ya las particiones entre ellas
+            repository.deleteNode(nodeId);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo quitar la instancia {} de cluster_node", nodeId, e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static String key(String jobName, int partition) {
+        return jobName + '#' + partition;
+    }
+
+    private static Executor newWorkerPool(int workers) {
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("cluster-job-");
+        threads.setDaemon(true);
+        return Executors.newFixedThreadPool(Math.max(1, workers), threads);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "instancia";
+        }
+        // Sufijo por arranque: una instancia reiniciada no hereda la fila (ni las particiones) de la anterior
+        return host + '-' + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
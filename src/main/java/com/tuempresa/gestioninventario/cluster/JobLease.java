@@ -0,0 +1,96 @@
+package com.tuempresa.gestioninventario.cluster;
+
+import com.tuempresa.gestioninventario.repository.JobLeaseRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+
+// Lease de una partición de un ClusterJob en poder de esta instancia. ClusterJobRunner lo renueva en cada
+// heartbeat; si no lo logra antes de que venza, o si otra instancia lo tomó, deja de estar activo.
+public final class JobLease {
+
+    private final JobLeaseRepository repository;
+    private final Clock clock;
+    private final String jobName;
+    private final int partition;
+    private final int partitions;
+    private final long fencingToken;
+    private final Instant scheduledAt;
+
+    private volatile long validUntilMillis;
+    private volatile boolean lost;
+    private volatile boolean stopRequested;
+
+    JobLease(JobLeaseRepository repository, Clock clock, String jobName, int partition, int partitions,
+             long fencingToken, Instant scheduledAt, Instant validUntil) {
+        this.repository = repository;
+        this.clock = clock;
+        this.jobName = jobName;
+        this.partition = partition;
+        this.partitions = partitions;
+        this.fencingToken = fencingToken;
+        this.scheduledAt = scheduledAt;
+        this.validUntilMillis = validUntil.toEpochMilli();
+    }
+
+    public String jobName() {
+        return jobName;
+    }
+
+    public int partition() {
+        return partition;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    // Horario que se está ejecutando: el mismo para todas las particiones de una misma ejecución
+    public Instant scheduledAt() {
+        return scheduledAt;
+    }
+
+    // false si se perdió el lease o la instancia se está deteniendo: el job debe cortar en el próximo paso
+    public boolean isActive() {
+        return !stopRequested && isHeld();
+    }
+
+    // Llamar dentro de la transacción que confirma trabajo de la partición: bloquea la fila del lease hasta
+    // el commit si el token sigue vigente, o lanza LeaseLostException (y la transacción se revierte)
+    public void fence() {
+        if (!isHeld() || !repository.lockIfCurrent(jobName, partition, fencingToken)) {
+            lost = true;
+            throw new LeaseLostException("Se perdió el lease de la partición " + partition + " del job " + jobName
+                    + " (token " + fencingToken + ")");
+        }
+    }
+
+    boolean renew(Instant until) {
+        if (lost) {
+            return false;
+        }
+        if (repository.renew(jobName, partition, fencingToken, until)) {
+            validUntilMillis = until.toEpochMilli();
+            return true;
+        }
+        lost = true;
+        return false;
+    }
+
+    boolean release(Instant availableAt, Instant nextRunAt) {
+        lost = true;
+        return repository.release(jobName, partition, fencingToken, availableAt, nextRunAt);
+    }
+
+    void requestStop() {
+        stopRequested = true;
+    }
+
+    private boolean isHeld() {
+        return !lost && clock.millis() < validUntilMillis;
+    }
+}
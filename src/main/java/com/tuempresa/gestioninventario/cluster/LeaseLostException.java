@@ -0,0 +1,9 @@
+package com.tuempresa.gestioninventario.cluster;
+
+// La instancia ya no tiene el lease de la partición (venció u otra instancia la tomó con un token mayor)
+public class LeaseLostException extends IllegalStateException {
+
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,78 @@
+package com.tuempresa.gestioninventario.config;
+
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import com.tuempresa.gestioninventario.security.Permission;
+import com.tuempresa.gestioninventario.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.tuempresa.gestioninventario.security.Permission.*;
+
+// Con la API protegida hace falta un primer usuario para poder crear los demás.
+// Si app_users está vacía y se configuró inventario.security.bootstrap-admin.*, se crea ese usuario con ROLE_ADMIN.
+//
+// Además, los roles conocidos que todavía no tienen permisos (bases anteriores a roles.permission_mask)
+// reciben sus permisos por defecto. Los roles personalizados se configuran por /api/roles.
+@Component
+public class AdminBootstrap implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminBootstrap.class);
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
+    private static final Map<String, Set<Permission>> DEFAULT_PERMISSIONS = Map.of(
+            ADMIN_ROLE, EnumSet.allOf(Permission.class),
+            "ROLE_GERENTE_INVENTARIO", EnumSet.of(PRODUCT_READ, PRODUCT_WRITE, STOCK_MOVE, WAREHOUSE_READ,
+                    WAREHOUSE_WRITE, USER_READ, ROLE_READ, METRICS_READ),
+            "ROLE_EMPLEADO_ALMACEN", EnumSet.of(PRODUCT_READ, STOCK_MOVE, WAREHOUSE_READ));
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final String username;
+    private final String password;
+
+    public AdminBootstrap(UserService userService, UserRepository userRepository, RoleRepository roleRepository,
+                          @Value("${inventario.security.bootstrap-admin.username:}") String username,
+                          @Value("${inventario.security.bootstrap-admin.password:}") String password) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        DEFAULT_PERMISSIONS.forEach((roleName, permissions) -> roleRepository.findByName(roleName)
+                .filter(role -> role.getPermissionMask() == 0L)
+                .ifPresent(role -> role.setPermissions(permissions)));
+
+        if (!StringUtils.hasText(username) || !StringUtils.hasText(password) || userRepository.count() > 0) {
+            return;
+        }
+        Role admin = roleRepository.findByName(ADMIN_ROLE).orElseGet(() -> {
+            Role role = new Role(ADMIN_ROLE);
+            role.setPermissions(DEFAULT_PERMISSIONS.get(ADMIN_ROLE));
+            return roleRepository.save(role);
+        });
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(password);
+        user.setEnabled(true);
+        userService.createUser(user, Set.of(admin.getId()));
+        log.info("Creado el usuario administrador inicial '{}'", username);
+    }
+}
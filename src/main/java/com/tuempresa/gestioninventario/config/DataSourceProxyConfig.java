@@ -0,0 +1,38 @@
+package com.tuempresa.gestioninventario.config;
+
+import com.tuempresa.gestioninventario.metrics.SlowQueryListener;
+import com.tuempresa.gestioninventario.metrics.SlowQueryRecorder;
+import com.tuempresa.gestioninventario.ratelimit.PoolPressure;
+import com.tuempresa.gestioninventario.ratelimit.PoolWaitTrackingDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Envuelve el DataSource (Hikari) con datasource-proxy para medir cada sentencia JDBC, y por debajo
+// con PoolWaitTrackingDataSource para medir la espera de conexiones (descarga de carga, ver RateLimiter).
+// El DataSource original sigue accesible con dataSource.unwrap(HikariDataSource.class).
+@Configuration
+public class DataSourceProxyConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<SlowQueryRecorder> slowQueryRecorder,
+                                                                 ObjectProvider<PoolPressure> poolPressure) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(new PoolWaitTrackingDataSource(dataSource, poolPressure))
+                            .name(beanName)
+                            .listener(new SlowQueryListener(slowQueryRecorder))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
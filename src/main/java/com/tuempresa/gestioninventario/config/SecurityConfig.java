@@ -0,0 +1,139 @@
+package com.tuempresa.gestioninventario.config;
+
+import com.tuempresa.gestioninventario.ratelimit.RateLimitFilter;
+import com.tuempresa.gestioninventario.ratelimit.RateLimiter;
+import com.tuempresa.gestioninventario.security.AuthenticationCache;
+import com.tuempresa.gestioninventario.security.CachingAuthenticationProvider;
+import com.tuempresa.gestioninventario.security.DatabaseUserDetailsService;
+import com.tuempresa.gestioninventario.security.HashingCapacityExceededException;
+import com.tuempresa.gestioninventario.security.LegacyPlaintextPasswordEncoder;
+import com.tuempresa.gestioninventario.security.PermissionRegistry;
+import com.tuempresa.gestioninventario.security.TokenAuthenticationFilter;
+import com.tuempresa.gestioninventario.security.TokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.tuempresa.gestioninventario.security.Permission.*;
+
+// Seguridad de la API, sin sesión HTTP (cada request trae sus credenciales) y, por lo tanto, sin CSRF:
+//   - Bearer token (POST /api/auth/token): se valida solo con CPU, sin consultar app_users.
+//   - Basic auth contra app_users (DatabaseUserDetailsService), con caché de credenciales.
+@Configuration
+@EnableWebSecurity
+public class SecurityConfig {
+
+    @Bean
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http,
+                                                      DatabaseUserDetailsService userDetailsService,
+                                                      PasswordEncoder passwordEncoder,
+                                                      AuthenticationCache authenticationCache,
+                                                      ExecutorService passwordHashingExecutor,
+                                                      TokenService tokenService,
+                                                      PermissionRegistry permissions,
+                                                      RateLimiter rateLimiter,
+                                                      @Value("${inventario.security.hashing.timeout:5s}") Duration hashingTimeout,
+                                                      @Value("${inventario.ratelimit.enabled:true}") boolean rateLimitEnabled) throws Exception {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider();
+        daoProvider.setUserDetailsService(userDetailsService);
+        daoProvider.setUserDetailsPasswordService(userDetailsService);
+        daoProvider.setPasswordEncoder(passwordEncoder);
+        CachingAuthenticationProvider cachingProvider = new CachingAuthenticationProvider(
+                daoProvider, authenticationCache, passwordHashingExecutor, hashingTimeout);
+
+        AuthenticationEntryPoint entryPoint = entryPoint();
+        if (rateLimitEnabled) {
+            // Presupuestos por cliente en las rutas de movimientos y masivas, ya autenticado y autorizado
+            http.addFilterAfter(new RateLimitFilter(rateLimiter), AuthorizationFilter.class);
+        }
+        return http
+                .authenticationManager(new ProviderManager(cachingProvider))
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // Autorización por permisos (máscara de bits por usuario, ver PermissionRegistry)
+                .authorizeHttpRequests(auth -> auth
+                        // La request original ya se autorizó; el despacho ASYNC del final del stream SSE no trae credenciales
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/**").access(permissions.requires(METRICS_READ))
+                        .requestMatchers(HttpMethod.GET, "/api/products/**", "/api/catalog/**").access(permissions.requires(PRODUCT_READ))
+                        .requestMatchers(HttpMethod.PATCH, "/api/products/*/entry", "/api/products/*/exit").access(permissions.requires(STOCK_MOVE))
+                        .requestMatchers("/api/products/**").access(permissions.requires(PRODUCT_WRITE))
+                        .requestMatchers(HttpMethod.GET, "/api/warehouses/**").access(permissions.requires(WAREHOUSE_READ))
+                        .requestMatchers("/api/warehouses/**").access(permissions.requires(WAREHOUSE_WRITE))
+                        .requestMatchers(HttpMethod.GET, "/api/users/**").access(permissions.requires(USER_READ))
+                        .requestMatchers("/api/users/**").access(permissions.requires(USER_WRITE))
+                        .requestMatchers(HttpMethod.GET, "/api/roles/**").access(permissions.requires(ROLE_READ))
+                        .requestMatchers("/api/roles/**").access(permissions.requires(ROLE_WRITE))
+                        .anyRequest().authenticated())
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
+                .httpBasic(basic -> basic.authenticationEntryPoint(entryPoint))
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(entryPoint))
+                .build();
+    }
+
+    // bcrypt (adaptativo) para todas las contraseñas nuevas, con el prefijo {bcrypt}.
+    // Con legacy-plaintext=true se aceptan las contraseñas guardadas en texto plano antes de este cambio;
+    // al primer login correcto DatabaseUserDetailsService las reemplaza por su hash.
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${inventario.security.bcrypt-strength:10}") int strength,
+                                           @Value("${inventario.security.legacy-plaintext-passwords:false}") boolean legacyPlaintext) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        if (legacyPlaintext) {
+            encoder.setDefaultPasswordEncoderForMatches(new LegacyPlaintextPasswordEncoder());
+        }
+        return encoder;
+    }
+
+    // Pool acotado para las verificaciones bcrypt: hilos fijos y cola finita. Al llenarse se rechaza
+    // (503) en lugar de dejar que las verificaciones ocupen todos los hilos de Tomcat.
+    @Bean
+    public ExecutorService passwordHashingExecutor(@Value("${inventario.security.hashing.threads:2}") int threads,
+                                                   @Value("${inventario.security.hashing.queue-capacity:64}") int queueCapacity,
+                                                   MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hashing");
+    }
+
+    private static AuthenticationEntryPoint entryPoint() {
+        BasicAuthenticationEntryPoint basic = new BasicAuthenticationEntryPoint();
+        basic.setRealmName("inventario");
+        return (request, response, authException) -> {
+            if (authException instanceof HashingCapacityExceededException) {
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), authException.getMessage());
+                return;
+            }
+            basic.commence(request, response, authException);
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package com.tuempresa.gestioninventario.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.service.ProductService;
+import com.tuempresa.gestioninventario.service.WarehouseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Calentamiento antes de aceptar tráfico. Los ApplicationRunner corren antes de ApplicationReadyEvent,
+// que es cuando /actuator/health/readiness pasa a ACCEPTING_TRAFFIC: mientras esto corre, el balanceador
+// todavía no manda requests. Ejercita los caminos de lectura más usados:
+//   - listados y detalle de productos y almacenes: planes de consulta y metadatos de Hibernate, conexiones
+//     del pool y páginas de la base en memoria
+//   - serialización JSON de esas respuestas y de los eventos de stock (serializadores de Jackson)
+//   - ETag en memoria
+// Se repite hasta `iterations` veces para que el JIT compile esos caminos, sin pasar de `max-duration`: el plazo
+// se revisa también entre los pasos de cada vuelta. Los productos se leen en una página de `sample-size`, no el
+// catálogo completo: el camino de consulta y serialización es el mismo y el tiempo de cada vuelta queda acotado.
+// Un error no impide el arranque: se registra y se sigue sin calentar.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE) // Después de AdminBootstrap
+public class StartupWarmup implements ApplicationRunner {
+
+    public static final String WARMUP = "inventario.startup.warmup";
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final ProductService productService;
+    private final WarehouseService warehouseService;
+    private final ObjectMapper objectMapper;
+    private final Timer warmupTimer;
+    private final boolean enabled;
+    private final int iterations;
+    private final int sampleSize;
+    private final long maxDurationNanos;
+
+    @Autowired
+    public StartupWarmup(ProductService productService, WarehouseService warehouseService, ObjectMapper objectMapper,
+                         MeterRegistry registry,
+                         @Value("${inventario.warmup.enabled:true}") boolean enabled,
+                         @Value("${inventario.warmup.iterations:20}") int iterations,
+                         @Value("${inventario.warmup.max-duration:20s}") Duration maxDuration,
+                         @Value("${inventario.warmup.sample-size:100}") int sampleSize) {
+        this.productService = productService;
+        this.warehouseService = warehouseService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.sampleSize = sampleSize;
+        this.maxDurationNanos = maxDuration.toNanos();
+        this.warmupTimer = Timer.builder(WARMUP)
+                .description("Duración del calentamiento previo a la readiness")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || iterations <= 0 || sampleSize <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDurationNanos;
+        int completed = 0;
+        try {
+            while (completed < iterations && !expired(deadline) && warmOnce(deadline) >= 0) {
+                completed++;
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Calentamiento interrumpido tras {} vueltas; se continúa con el arranque", completed, e);
+        }
+        long elapsed = System.nanoTime() - start;
+        warmupTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Calentamiento completado: {} vueltas en {} ms", completed, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    // Devuelve el total de bytes serializados (evita que el JIT descarte el trabajo), o -1 si el plazo
+    // venció a mitad de la vuelta
+    long warmOnce(long deadline) throws JsonProcessingException {
+        long bytes = 0;
+        List<Product> products = productService.getFirstProducts(sampleSize);
+        bytes += objectMapper.writeValueAsBytes(products).length;
+        bytes += productService.getProductsETag().length();
+        if (expired(deadline)) {
+            return -1;
+        }
+        if (!products.isEmpty()) {
+            Long id = products.get(0).getId();
+            productService.getProductById(id).ifPresent(product -> productService.getProductETag(product.getId()));
+            bytes += objectMapper.writeValueAsBytes(products.get(0)).length;
+        }
+        if (expired(deadline)) {
+            return -1;
+        }
+
+        List<Warehouse> warehouses = warehouseService.getAllWarehouses();
+        bytes += objectMapper.writeValueAsBytes(warehouses).length;
+        bytes += warehouseService.getWarehousesETag().length();
+        if (!warehouses.isEmpty()) {
+            warehouseService.getWarehouseById(warehouses.get(0).getId());
+        }
+
+        // Evento de GET /api/products/stream, que no tiene datos hasta el primer cambio
+        bytes += objectMapper.writeValueAsBytes(new StockChangeEvent(0L, ChangeType.UPDATED, 0L, 0L, "warmup", 0,
+                BigDecimal.ZERO, Instant.EPOCH)).length;
+        return bytes;
+    }
+
+    private static boolean expired(long deadline) {
+        return System.nanoTime() - deadline >= 0;
+    }
+}
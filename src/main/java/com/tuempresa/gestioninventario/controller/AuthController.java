@@ -0,0 +1,39 @@
+package com.tuempresa.gestioninventario.controller;
+
+import com.tuempresa.gestioninventario.dto.TokenResponse;
+import com.tuempresa.gestioninventario.security.AppUserDetails;
+import com.tuempresa.gestioninventario.security.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    private final TokenService tokenService;
+
+    @Autowired
+    public AuthController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // POST /api/auth/token - Canjea usuario/contraseña (basic auth) por un token de acceso de vida corta.
+    // Un token no sirve para pedir otro: al vencer hay que volver a presentar la contraseña.
+    @PostMapping("/token")
+    public ResponseEntity<?> issueToken(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AppUserDetails user)) {
+            return ResponseEntity
+                    .status(HttpStatus.FORBIDDEN)
+                    .body("Para obtener un token hay que autenticarse con usuario y contraseña.");
+        }
+        List<String> roles = user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        TokenService.IssuedToken issued = tokenService.issue(user.getId(), user.getUsername(), roles);
+        return ResponseEntity.ok(new TokenResponse(issued.token(), "Bearer", issued.expiresInSeconds()));
+    }
+}
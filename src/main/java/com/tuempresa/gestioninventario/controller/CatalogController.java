@@ -0,0 +1,56 @@
+package com.tuempresa.gestioninventario.controller;
+
+import com.tuempresa.gestioninventario.dto.CatalogProduct;
+import com.tuempresa.gestioninventario.dto.CatalogWarehouse;
+import com.tuempresa.gestioninventario.service.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Catálogo público de solo lectura (productos y almacenes).
+// Los listados se sirven como NDJSON: Spring MVC suscribe el Flux de forma asíncrona,
+// libera el hilo del request y escribe cada elemento a medida que llega, con backpressure.
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    @Autowired
+    public CatalogController(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    // GET /api/catalog/products - Stream de todos los productos
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CatalogProduct> streamProducts(@RequestParam(required = false) String category,
+                                               @RequestParam(required = false) Long warehouseId) {
+        if (category != null) {
+            return catalogService.streamProductsByCategory(category);
+        }
+        if (warehouseId != null) {
+            return catalogService.streamProductsByWarehouse(warehouseId);
+        }
+        return catalogService.streamProducts();
+    }
+
+    // GET /api/catalog/products/{id} - Un producto del catálogo
+    @GetMapping("/products/{id}")
+    public Mono<ResponseEntity<CatalogProduct>> getProduct(@PathVariable Long id) {
+        return catalogService.getProduct(id)
+                .map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST)));
+    }
+
+    // GET /api/catalog/warehouses - Stream de todos los almacenes
+    @GetMapping(value = "/warehouses", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CatalogWarehouse> streamWarehouses() {
+        return catalogService.streamWarehouses();
+    }
+}
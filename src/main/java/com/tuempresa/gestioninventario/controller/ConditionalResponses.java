@@ -0,0 +1,35 @@
+package com.tuempresa.gestioninventario.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+// GET condicional con ETag calculado antes de leer los datos: si el If-None-Match del cliente coincide
+// se responde 304 sin consultar la base ni serializar nada.
+//
+// Cache-Control: no-cache permite al cliente guardar la respuesta pero le obliga a revalidarla siempre
+// (evita además el "no-store" que Spring Security pone por defecto, que impediría guardar el cuerpo).
+final class ConditionalResponses {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ConditionalResponses() {
+    }
+
+    static <T> ResponseEntity<T> conditionalGet(WebRequest request, String eTag, Supplier<ResponseEntity<T>> body) {
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+        }
+        ResponseEntity<T> response = body.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .body(response.getBody());
+    }
+}
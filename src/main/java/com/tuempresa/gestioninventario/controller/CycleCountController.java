@@ -0,0 +1,89 @@
+package com.tuempresa.gestioninventario.controller;
+
+import com.tuempresa.gestioninventario.cyclecount.CycleCountService;
+import com.tuempresa.gestioninventario.dto.CycleCountReport;
+import com.tuempresa.gestioninventario.dto.CycleCountVariance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+
+// Conteos físicos bajo /api/products: subirlos requiere PRODUCT_WRITE y consultarlos PRODUCT_READ (SecurityConfig)
+@RestController
+@RequestMapping("/api/products/cycle-counts")
+public class CycleCountController {
+
+    private final CycleCountService cycleCountService;
+
+    @Autowired
+    public CycleCountController(CycleCountService cycleCountService) {
+        this.cycleCountService = cycleCountService;
+    }
+
+    // El archivo va crudo en el cuerpo (POST /api/products/cycle-counts?fileName=...), no como multipart:
+    // se copia a disco sin pasar por memoria. Devuelve el resumen de la conciliación, en estado REVIEW.
+    @PostMapping(consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> uploadCount(InputStream body, @RequestParam(required = false) String fileName,
+                                         Principal principal) throws IOException {
+        try {
+            CycleCountReport report = cycleCountService.reconcile(body, fileName, principal.getName());
+            return new ResponseEntity<>(report, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getCount(@PathVariable Long id) {
+        try {
+            Optional<CycleCountReport> report = cycleCountService.getCount(id);
+            return report.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                         .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    // Diferencias por páginas: la siguiente se pide con el producto y almacén de la última línea recibida
+    @GetMapping("/{id}/variances")
+    public ResponseEntity<?> getVariances(@PathVariable Long id,
+                                          @RequestParam(defaultValue = "0") long afterProductId,
+                                          @RequestParam(defaultValue = "0") long afterWarehouseId,
+                                          @RequestParam(defaultValue = "500") int limit) {
+        try {
+            Optional<List<CycleCountVariance>> variances =
+                    cycleCountService.getVariances(id, afterProductId, afterWarehouseId, limit);
+            return variances.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                            .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    // Aprueba y aplica las diferencias de cantidad; repetirlo retoma una aplicación interrumpida
+    @PostMapping("/{id}/apply")
+    public ResponseEntity<?> applyCount(@PathVariable Long id, Principal principal) {
+        try {
+            Optional<CycleCountReport> report = cycleCountService.approve(id, principal.getName());
+            return report.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                         .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+}
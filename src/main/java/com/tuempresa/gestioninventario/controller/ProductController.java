@@ -1,12 +1,21 @@
 package com.tuempresa.gestioninventario.controller;
 
+import com.tuempresa.gestioninventario.dto.ReorderSuggestion;
+import com.tuempresa.gestioninventario.dto.StockLevelPoint;
 import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.history.Resolution;
+import com.tuempresa.gestioninventario.outbox.StockEventStream;
 import com.tuempresa.gestioninventario.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +24,12 @@ import java.util.Optional;
 public class ProductController {
 
     private final ProductService productService;
+    private final StockEventStream stockEventStream;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, StockEventStream stockEventStream) {
         this.productService = productService;
+        this.stockEventStream = stockEventStream;
     }
 
     @PostMapping
@@ -33,17 +44,84 @@ public class ProductController {
         }
     }
 
+    // El ETag se toma ANTES de leer: si hay una escritura en medio, el cliente recibe datos más nuevos
+    // con un ETag viejo y simplemente los vuelve a pedir en el siguiente sondeo.
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        return ConditionalResponses.conditionalGet(request, productService.getProductsETag(), () -> {
+            List<Product> products = productService.getAllProducts();
+            return new ResponseEntity<>(products, HttpStatus.OK);
+        });
+    }
+
+    // Búsqueda por categoría (GET /api/products?category=...); con sharding consulta todos los shards en paralelo
+    @GetMapping(params = "category")
+    public ResponseEntity<?> getProductsByCategory(@RequestParam String category) {
+        try {
+            List<Product> products = productService.getProductsByCategory(category);
+            return new ResponseEntity<>(products, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    // Cambios de productos en vivo (Server-Sent Events), en lugar de sondear GET /api/products.
+    // Filtros opcionales por almacén y categoría; con Last-Event-ID (que EventSource reenvía solo al
+    // reconectarse) se reciben primero los cambios perdidos, con el último estado de cada producto.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStockChanges(@RequestParam(required = false) Long warehouseId,
+                                                         @RequestParam(required = false) String category,
+                                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        try {
+            SseEmitter emitter = stockEventStream.subscribe(warehouseId, category, lastEventId);
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalStateException e) {
+            // Sin cuerpo: el tipo de respuesta es el stream (límite de suscriptores alcanzado)
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
-        return product.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
-                      .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.conditionalGet(request, productService.getProductETag(id), () -> {
+            Optional<Product> product = productService.getProductById(id);
+            return product.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                          .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        });
+    }
+
+    // Historia del nivel de stock (GET /api/products/{id}/stock-history?from=...&to=...&resolution=HOUR),
+    // con from/to en ISO-8601 (p. ej. 2024-05-01T00:00:00Z). RAW: cada cambio; HOUR y DAY: mínimo/máximo/último.
+    @GetMapping("/{id}/stock-history")
+    public ResponseEntity<?> getStockHistory(@PathVariable Long id,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                             @RequestParam(defaultValue = "HOUR") Resolution resolution) {
+        try {
+            Optional<List<StockLevelPoint>> history = productService.getStockHistory(id, from, to, resolution);
+            return history.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                          .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    // Punto de reposición y cantidad a pedir sugeridos (se recalculan una vez por día)
+    @GetMapping("/{id}/reorder-suggestion")
+    public ResponseEntity<?> getReorderSuggestion(@PathVariable Long id) {
+        try {
+            Optional<ReorderSuggestion> suggestion = productService.getReorderSuggestion(id);
+            return suggestion.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                             .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
     }
 
     @PutMapping("/{id}")
@@ -1,7 +1,10 @@
 package com.tuempresa.gestioninventario.controller;
 
 // Ya no importamos UserRequest
+import com.tuempresa.gestioninventario.dto.UserBatchRequest;
+import com.tuempresa.gestioninventario.dto.UserBatchResult;
 import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.service.UserBatchService;
 import com.tuempresa.gestioninventario.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -17,10 +20,12 @@ import java.util.Set; // Necesario para los roleIds
 public class UserController {
 
     private final UserService userService;
+    private final UserBatchService userBatchService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserBatchService userBatchService) {
         this.userService = userService;
+        this.userBatchService = userBatchService;
     }
 
     // POST /api/users - Crear un nuevo usuario
@@ -39,6 +44,19 @@ public class UserController {
         }
     }
 
+    // POST /api/users/batch - Alta masiva; las filas inválidas se informan una a una sin frenar al resto
+    @PostMapping("/batch")
+    public ResponseEntity<?> createUsers(@RequestBody List<UserBatchRequest> requests) {
+        try {
+            UserBatchResult result = userBatchService.createUsers(requests);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
     // GET /api/users - Obtener todos los usuarios
     @GetMapping
     public ResponseEntity<List<User>> getAllUsers() {
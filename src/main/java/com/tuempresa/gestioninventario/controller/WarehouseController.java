@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -35,19 +36,23 @@ public class WarehouseController {
         }
     }
 
-    // GET /api/warehouses - Obtener todos los almacenes
+    // GET /api/warehouses - Obtener todos los almacenes (304 si el If-None-Match coincide)
     @GetMapping
-    public ResponseEntity<List<Warehouse>> getAllWarehouses() {
-        List<Warehouse> warehouses = warehouseService.getAllWarehouses();
-        return new ResponseEntity<>(warehouses, HttpStatus.OK);
+    public ResponseEntity<List<Warehouse>> getAllWarehouses(WebRequest request) {
+        return ConditionalResponses.conditionalGet(request, warehouseService.getWarehousesETag(), () -> {
+            List<Warehouse> warehouses = warehouseService.getAllWarehouses();
+            return new ResponseEntity<>(warehouses, HttpStatus.OK);
+        });
     }
 
-    // GET /api/warehouses/{id} - Obtener un almacén por ID
+    // GET /api/warehouses/{id} - Obtener un almacén por ID (304 si el If-None-Match coincide)
     @GetMapping("/{id}")
-    public ResponseEntity<Warehouse> getWarehouseById(@PathVariable Long id) {
-        Optional<Warehouse> warehouse = warehouseService.getWarehouseById(id);
-        return warehouse.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
-                        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    public ResponseEntity<Warehouse> getWarehouseById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.conditionalGet(request, warehouseService.getWarehouseETag(id), () -> {
+            Optional<Warehouse> warehouse = warehouseService.getWarehouseById(id);
+            return warehouse.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                            .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        });
         // Alternativa más corta con orElseThrow (requiere manejo de excepciones global o local)
         // Warehouse warehouse = warehouseService.getWarehouseById(id)
         // .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Almacén no encontrado con id: " + id));
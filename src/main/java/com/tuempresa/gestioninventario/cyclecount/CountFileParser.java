@@ -0,0 +1,136 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Lee un archivo de conteo (exportación de las terminales) mapeado en memoria: una línea por conteo,
+//
+//   producto,almacén,cantidad
+//
+// con separador ',', ';' o tabulación, fin de línea LF o CRLF, líneas vacías ignoradas y una cabecera
+// opcional en la primera línea (si no empieza con un dígito). Los números se leen byte a byte desde el
+// mapeo directo a QuantityTable: no se crean Strings ni objetos por línea.
+//
+// Los archivos de más de 1 GB se mapean por regiones; una línea cortada al final de una región se vuelve
+// a leer al principio de la siguiente.
+public final class CountFileParser {
+
+    private static final long REGION_SIZE = 1L << 30;
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private final QuantityTable table;
+    private long lineNumber;
+    private int position; // solo durante parseLine
+
+    private CountFileParser(QuantityTable table) {
+        this.table = table;
+    }
+
+    public static QuantityTable parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // ~16 bytes por línea en un archivo típico
+            CountFileParser parser = new CountFileParser(new QuantityTable((int) Math.min(size / 16 + 1, 1 << 24)));
+            long offset = 0;
+            while (offset < size) {
+                long length = Math.min(REGION_SIZE, size - offset);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                offset += parser.parseRegion(region, offset + length == size);
+            }
+            return parser.table;
+        }
+    }
+
+    // Lee las líneas completas de la región y devuelve cuántos bytes consumió
+    private int parseRegion(MappedByteBuffer region, boolean last) {
+        int limit = region.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (region.get(i) == '\n') {
+                parseLine(region, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (last && lineStart < limit) {
+            parseLine(region, lineStart, limit); // Última línea sin salto final
+            return limit;
+        }
+        if (lineStart == 0 && limit > 0) {
+            throw new IllegalArgumentException("Línea " + (lineNumber + 1) + ": supera el tamaño máximo de línea.");
+        }
+        return lineStart;
+    }
+
+    private void parseLine(MappedByteBuffer buffer, int start, int end) {
+        lineNumber++;
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end - start > MAX_LINE_LENGTH) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": supera los " + MAX_LINE_LENGTH + " caracteres.");
+        }
+        position = start;
+        skipSpaces(buffer, end);
+        if (position == end) {
+            return; // Línea vacía
+        }
+        if (lineNumber == 1 && !isDigit(buffer.get(position))) {
+            return; // Cabecera
+        }
+        long productId = readNumber(buffer, end, "el ID de producto");
+        skipSeparator(buffer, end);
+        long warehouseId = readNumber(buffer, end, "el ID de almacén");
+        skipSeparator(buffer, end);
+        long quantity = readNumber(buffer, end, "la cantidad contada");
+        skipSpaces(buffer, end);
+        if (position != end) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": se esperaban 3 campos (producto, almacén, cantidad).");
+        }
+        if (productId <= 0 || warehouseId <= 0) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": los IDs de producto y almacén deben ser positivos.");
+        }
+        if (quantity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": la cantidad contada es demasiado grande.");
+        }
+        table.add(productId, warehouseId, (int) quantity);
+    }
+
+    private long readNumber(MappedByteBuffer buffer, int end, String field) {
+        skipSpaces(buffer, end);
+        int start = position;
+        long value = 0;
+        while (position < end && isDigit(buffer.get(position))) {
+            if (position - start == 18) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": " + field + " es demasiado grande.");
+            }
+            value = value * 10 + (buffer.get(position) - '0');
+            position++;
+        }
+        if (position == start) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": " + field + " debe ser un entero no negativo.");
+        }
+        return value;
+    }
+
+    private void skipSeparator(MappedByteBuffer buffer, int end) {
+        skipSpaces(buffer, end);
+        byte separator = position < end ? buffer.get(position) : 0;
+        if (separator != ',' && separator != ';' && separator != '\t') {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": se esperaban 3 campos (producto, almacén, cantidad).");
+        }
+        position++;
+    }
+
+    private void skipSpaces(MappedByteBuffer buffer, int end) {
+        while (position < end && buffer.get(position) == ' ') {
+            position++;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
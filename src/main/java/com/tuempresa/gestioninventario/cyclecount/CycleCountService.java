@@ -0,0 +1,338 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.dto.CycleCountReport;
+import com.tuempresa.gestioninventario.dto.CycleCountVariance;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.history.StockHistory;
+import com.tuempresa.gestioninventario.readmodel.ProductReadModel;
+import com.tuempresa.gestioninventario.repository.CycleCountRepository;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.service.CatalogVersions;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Conteos físicos: concilia un archivo de conteo contra products y, una vez revisadas y aprobadas las
+// diferencias, las aplica.
+//
+// Conciliación: el archivo se mapea en memoria (CountFileParser) a arreglos primitivos, se ordena por
+// producto y se recorre junto con products en orden de ID (merge-join). products se lee por ventanas de
+// scan-window IDs que empiezan en el siguiente producto contado, así un conteo parcial no recorre todo el
+// catálogo y con sharding cada ventana se pide a todos los shards. Solo las diferencias se guardan
+// (cycle_count_line), de a un lote.
+//
+// Aplicación: por lotes de batch-size, cada uno en una transacción con el conteo bloqueado. El UPDATE es
+// condicional a la cantidad vista al conciliar: si el stock se movió desde entonces, la línea queda STALE y
+// no se pisa el movimiento. Si la aplicación se corta, volver a aprobar retoma las líneas pendientes.
+@Service
+public class CycleCountService {
+
+    public static final String LINES = "inventario.cycle-count.lines";
+    public static final String RECONCILE = "inventario.cycle-count.reconcile";
+
+    private static final Logger log = LoggerFactory.getLogger(CycleCountService.class);
+
+    private final CycleCountRepository repository;
+    private final ProductRepository productRepository;
+    private final ShardedProductStore shardedStore;
+    private final CatalogVersions catalogVersions;
+    private final ProductOutboxRepository outboxRepository;
+    private final StockHistory stockHistory;
+    private final AuditTrail auditTrail;
+    private final ProductReadModel productReadModel;
+    private final TransactionTemplate transaction;
+    private final Clock clock;
+    private final long maxFileSize;
+    private final int scanWindow;
+    private final int batchSize;
+    private final Counter linesCounter;
+    private final Timer reconcileTimer;
+
+    @Autowired
+    public CycleCountService(CycleCountRepository repository, ProductRepository productRepository,
+                             ShardedProductStore shardedStore, CatalogVersions catalogVersions,
+                             ProductOutboxRepository outboxRepository, StockHistory stockHistory,
+                             AuditTrail auditTrail, ProductReadModel productReadModel,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry registry,
+                             @Value("${inventario.cycle-count.max-file-size:512MB}") DataSize maxFileSize,
+                             @Value("${inventario.cycle-count.scan-window:10000}") int scanWindow,
+                             @Value("${inventario.cycle-count.batch-size:1000}") int batchSize) {
+        this(repository, productRepository, shardedStore, catalogVersions, outboxRepository, stockHistory,
+                auditTrail, productReadModel, new TransactionTemplate(transactionManager), registry, Clock.systemUTC(),
+                maxFileSize.toBytes(), scanWindow, batchSize);
+    }
+
+    CycleCountService(CycleCountRepository repository, ProductRepository productRepository,
+                      ShardedProductStore shardedStore, CatalogVersions catalogVersions,
+                      ProductOutboxRepository outboxRepository, StockHistory stockHistory, AuditTrail auditTrail,
+                      ProductReadModel productReadModel, TransactionTemplate transaction, MeterRegistry registry,
+                      Clock clock, long maxFileSize, int scanWindow, int batchSize) {
+        if (maxFileSize <= 0 || scanWindow <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("max-file-size, scan-window y batch-size deben ser positivos.");
+        }
+        this.repository = repository;
+        this.productRepository = productRepository;
+        this.shardedStore = shardedStore;
+        this.catalogVersions = catalogVersions;
+        this.outboxRepository = outboxRepository;
+        this.stockHistory = stockHistory;
+        this.auditTrail = auditTrail;
+        this.productReadModel = productReadModel;
+        this.transaction = transaction;
+        this.clock = clock;
+        this.maxFileSize = maxFileSize;
+        this.scanWindow = scanWindow;
+        this.batchSize = batchSize;
+        this.linesCounter = Counter.builder(LINES)
+                .description("Líneas de archivos de conteo conciliadas")
+                .register(registry);
+        this.reconcileTimer = Timer.builder(RECONCILE)
+                .description("Duración de la lectura y conciliación de un archivo de conteo")
+                .register(registry);
+    }
+
+    // --- Conciliación ---
+
+    // El cuerpo de la request se copia a un archivo temporal para poder mapearlo
+    public CycleCountReport reconcile(InputStream upload, String fileName, String actor) throws IOException {
+        Path file = Files.createTempFile("cycle-count-", ".csv");
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int read;
+                while ((read = upload.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxFileSize) {
+                        throw new IllegalArgumentException("El archivo de conteo supera el tamaño máximo de "
+                                + maxFileSize + " bytes.");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            return reconcile(file, fileName, actor);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public CycleCountReport reconcile(Path file, String fileName, String actor) throws IOException {
+        long startNanos = System.nanoTime();
+        QuantityTable counted = CountFileParser.parse(file);
+        long lines = counted.size();
+        if (lines == 0) {
+            throw new IllegalArgumentException("El archivo de conteo no tiene líneas.");
+        }
+        counted.sortAndMerge();
+
+        long countId = repository.createCount(fileName, actor, clock.instant());
+        try {
+            Reconciliation result = mergeJoin(countId, counted);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long linesPerSecond = lines * 1_000_000_000L / Math.max(1, elapsedNanos);
+            repository.finishReconciliation(countId, lines, result.products, result.matched,
+                    result.quantityVariances, result.unknownProducts, result.warehouseMismatches,
+                    result.netVariance, result.absoluteVariance, linesPerSecond);
+            reconcileTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            linesCounter.increment(lines);
+            log.info("Conteo {} ({}) conciliado: {} líneas, {} con diferencia de cantidad, {} productos desconocidos,"
+                            + " {} en otro almacén, {} líneas/s", countId, fileName, lines, result.quantityVariances,
+                    result.unknownProducts, result.warehouseMismatches, linesPerSecond);
+        } catch (RuntimeException e) {
+            repository.markFailed(countId);
+            throw e;
+        }
+        return repository.findCount(countId).orElseThrow();
+    }
+
+    private Reconciliation mergeJoin(long countId, QuantityTable counted) {
+        Reconciliation result = new Reconciliation();
+        QuantityTable window = new QuantityTable(Math.min(scanWindow, 1 << 16));
+        VarianceBatch variances = new VarianceBatch(batchSize);
+        RowCallbackHandler stock = rs -> window.add(rs.getLong(1), rs.getLong(3), rs.getInt(2));
+
+        int line = 0;
+        while (line < counted.size()) {
+            long fromId = counted.productId(line);
+            long toId = fromId + scanWindow;
+            window.clear();
+            if (shardedStore.isEnabled()) {
+                shardedStore.forEachStock(fromId, toId, stock);
+            } else {
+                repository.forEachProduct(fromId, toId, stock);
+            }
+            window.sortAndMerge(); // Con sharding llega un tramo ordenado por shard
+
+            int row = 0;
+            long lastProduct = -1;
+            for (; line < counted.size() && counted.productId(line) < toId; line++) {
+                long productId = counted.productId(line);
+                long warehouseId = counted.warehouseId(line);
+                int quantity = counted.quantity(line);
+                if (productId != lastProduct) {
+                    result.products++;
+                    lastProduct = productId;
+                }
+                row = window.seek(row, productId);
+                if (row == window.size() || window.productId(row) != productId) {
+                    result.unknownProducts++;
+                    variances.add(productId, warehouseId, VarianceKind.UNKNOWN_PRODUCT, -1, quantity);
+                } else if (window.warehouseId(row) != warehouseId) {
+                    result.warehouseMismatches++;
+                    variances.add(productId, warehouseId, VarianceKind.WAREHOUSE_MISMATCH, window.quantity(row), quantity);
+                } else if (window.quantity(row) == quantity) {
+                    result.matched++;
+                } else {
+                    long difference = (long) quantity - window.quantity(row);
+                    result.quantityVariances++;
+                    result.netVariance += difference;
+                    result.absoluteVariance += Math.abs(difference);
+                    variances.add(productId, warehouseId, VarianceKind.QUANTITY, window.quantity(row), quantity);
+                }
+                if (variances.isFull()) {
+                    repository.insertLines(countId, variances);
+                    variances.clear();
+                }
+            }
+        }
+        if (variances.size() > 0) {
+            repository.insertLines(countId, variances);
+        }
+        return result;
+    }
+
+    private static final class Reconciliation {
+        long products;
+        long matched;
+        long quantityVariances;
+        long unknownProducts;
+        long warehouseMismatches;
+        long netVariance;
+        long absoluteVariance;
+    }
+
+    // --- Consulta ---
+
+    public Optional<CycleCountReport> getCount(long countId) {
+        if (countId <= 0) {
+            throw new IllegalArgumentException("El ID del conteo debe ser un número positivo.");
+        }
+        return repository.findCount(countId);
+    }
+
+    // Diferencias del conteo por páginas (keyset): la siguiente página empieza después del último par devuelto
+    public Optional<List<CycleCountVariance>> getVariances(long countId, long afterProductId, long afterWarehouseId,
+                                                           int limit) {
+        if (limit <= 0 || limit > 10_000) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y 10000.");
+        }
+        return getCount(countId).map(count -> repository.findLines(countId, afterProductId, afterWarehouseId, limit));
+    }
+
+    // --- Aplicación ---
+
+    // Vacío si el conteo no existe
+    public Optional<CycleCountReport> approve(long countId, String approvedBy) {
+        Optional<CycleCountReport> count = getCount(countId);
+        if (count.isEmpty()) {
+            return count;
+        }
+        if (!repository.claimForApply(countId, approvedBy, clock.instant())) {
+            throw new IllegalArgumentException("El conteo " + countId + " está en estado " + count.get().status()
+                    + " y no se puede aplicar.");
+        }
+        VarianceBatch batch = new VarianceBatch(batchSize);
+        int applied = 0;
+        int stale = 0;
+        while (true) {
+            int[] result = transaction.execute(status -> applyBatch(countId, batch));
+            if (result == null) {
+                break;
+            }
+            applied += result[0];
+            stale += result[1];
+        }
+        repository.finishApply(countId, clock.instant());
+        log.info("Conteo {} aplicado por {}: {} ajustes, {} líneas con stock modificado desde el conteo",
+                countId, approvedBy, applied, stale);
+        return repository.findCount(countId);
+    }
+
+    // Aplica el siguiente lote pendiente; devuelve {aplicadas, stale} o null si no quedaba ninguno
+    private int[] applyBatch(long countId, VarianceBatch batch) {
+        repository.lockCount(countId);
+        repository.findPending(countId, batch, batchSize);
+        if (batch.size() == 0) {
+            return null;
+        }
+        if (shardedStore.isEnabled()) {
+            shardedStore.compareAndSetQuantities(batch);
+        } else {
+            repository.compareAndSetQuantities(batch);
+        }
+
+        // Se releen los productos en vez de confiar en los conteos del batch: una línea está aplicada si el
+        // producto quedó en su almacén con la cantidad contada. Con sharding el UPDATE se confirma en el
+        // shard aunque esta transacción falle; al reintentar, la relectura la marca como aplicada.
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ids.add(batch.productId(i));
+        }
+        List<Product> products = shardedStore.isEnabled()
+                ? shardedStore.findAllById(ids) : productRepository.findAllById(ids);
+        Map<Long, Product> byId = new HashMap<>(products.size() * 2);
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+        }
+
+        boolean[] applied = new boolean[batch.size()];
+        int appliedCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = byId.get(batch.productId(i));
+            Long warehouseId = product == null || product.getWarehouse() == null ? null : product.getWarehouse().getId();
+            if (product == null || warehouseId == null || warehouseId != batch.warehouseId(i)
+                    || product.getQuantity() != batch.counted(i)) {
+                continue;
+            }
+            applied[i] = true;
+            appliedCount++;
+            productReadModel.productChanged(product, warehouseId);
+            catalogVersions.productChanged(product.getId());
+            outboxRepository.append(ChangeType.UPDATED, product, warehouseId);
+            stockHistory.record(product.getId(), warehouseId, batch.counted(i));
+            auditTrail.record(AuditAction.STOCK_COUNT_ADJUSTED, product.getId(),
+                    (long) batch.counted(i) - batch.systemQuantity(i), "Conteo " + countId);
+        }
+        repository.markLines(countId, batch, applied);
+        repository.addApplied(countId, appliedCount, batch.size() - appliedCount);
+        return new int[]{appliedCount, batch.size() - appliedCount};
+    }
+}
@@ -0,0 +1,164 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+import java.util.Arrays;
+
+// Filas (producto, almacén, cantidad) en arreglos primitivos paralelos: las líneas de un archivo de conteo
+// (CountFileParser) y cada ventana de la lectura de products con la que se concilian. Sin objetos por fila:
+// 20 bytes por línea, unos 200 MB para 10 millones.
+public final class QuantityTable {
+
+    private long[] productIds;
+    private long[] warehouseIds;
+    private int[] quantities;
+    private int size;
+    private boolean sorted = true;
+
+    public QuantityTable(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.productIds = new long[capacity];
+        this.warehouseIds = new long[capacity];
+        this.quantities = new int[capacity];
+    }
+
+    public void add(long productId, long warehouseId, int quantity) {
+        if (size == productIds.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) size * 2);
+            if (capacity == size) {
+                throw new IllegalArgumentException("Demasiadas líneas: el máximo es " + size + ".");
+            }
+            productIds = Arrays.copyOf(productIds, capacity);
+            warehouseIds = Arrays.copyOf(warehouseIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        if (size > 0 && compare(size - 1, productId, warehouseId) > 0) {
+            sorted = false;
+        }
+        productIds[size] = productId;
+        warehouseIds[size] = warehouseId;
+        quantities[size] = quantity;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+        sorted = true;
+    }
+
+    // Ordena por (producto, almacén) y junta las filas repetidas sumando sus cantidades: el mismo producto
+    // contado en varias ubicaciones del almacén (o por dos terminales) es una sola existencia
+    public void sortAndMerge() {
+        if (!sorted) {
+            sort(0, size - 1);
+            sorted = true;
+        }
+        int out = 0;
+        for (int i = 0; i < size; i++) {
+            if (out > 0 && productIds[out - 1] == productIds[i] && warehouseIds[out - 1] == warehouseIds[i]) {
+                quantities[out - 1] = (int) Math.min(Integer.MAX_VALUE, (long) quantities[out - 1] + quantities[i]);
+            } else {
+                productIds[out] = productIds[i];
+                warehouseIds[out] = warehouseIds[i];
+                quantities[out] = quantities[i];
+                out++;
+            }
+        }
+        size = out;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long productId(int index) {
+        return productIds[index];
+    }
+
+    public long warehouseId(int index) {
+        return warehouseIds[index];
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    // Primer índice en [from, size) con producto >= productId (size si no hay)
+    public int seek(int from, long productId) {
+        int low = from;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (productIds[mid] < productId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // --- Ordenamiento en el lugar de los tres arreglos (quicksort con mediana de tres e inserción) ---
+
+    private void sort(int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, low) < 0) {
+                swap(mid, low);
+            }
+            if (compare(high, low) < 0) {
+                swap(high, low);
+            }
+            if (compare(high, mid) < 0) {
+                swap(high, mid);
+            }
+            long pivotProduct = productIds[mid];
+            long pivotWarehouse = warehouseIds[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(i, pivotProduct, pivotWarehouse) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotProduct, pivotWarehouse) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // Recursión sobre la mitad menor: la profundidad de pila queda en O(log n)
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j, j - 1) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        return compare(a, productIds[b], warehouseIds[b]);
+    }
+
+    private int compare(int index, long productId, long warehouseId) {
+        int byProduct = Long.compare(productIds[index], productId);
+        return byProduct != 0 ? byProduct : Long.compare(warehouseIds[index], warehouseId);
+    }
+
+    private void swap(int a, int b) {
+        long product = productIds[a];
+        productIds[a] = productIds[b];
+        productIds[b] = product;
+        long warehouse = warehouseIds[a];
+        warehouseIds[a] = warehouseIds[b];
+        warehouseIds[b] = warehouse;
+        int quantity = quantities[a];
+        quantities[a] = quantities[b];
+        quantities[b] = quantity;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+// Lote de diferencias en arreglos primitivos: las que se van encontrando al conciliar (se guardan de a un
+// lote) y las pendientes que se aplican juntas al aprobar. systemQuantity es -1 si el producto no existe.
+public final class VarianceBatch {
+
+    private static final VarianceKind[] KINDS = VarianceKind.values();
+
+    private final long[] productIds;
+    private final long[] warehouseIds;
+    private final byte[] kinds;
+    private final int[] systemQuantities;
+    private final int[] counted;
+    private int size;
+
+    public VarianceBatch(int capacity) {
+        this.productIds = new long[capacity];
+        this.warehouseIds = new long[capacity];
+        this.kinds = new byte[capacity];
+        this.systemQuantities = new int[capacity];
+        this.counted = new int[capacity];
+    }
+
+    public void add(long productId, long warehouseId, VarianceKind kind, int systemQuantity, int countedQuantity) {
+        productIds[size] = productId;
+        warehouseIds[size] = warehouseId;
+        kinds[size] = (byte) kind.ordinal();
+        systemQuantities[size] = systemQuantity;
+        counted[size] = countedQuantity;
+        size++;
+    }
+
+    public boolean isFull() {
+        return size == productIds.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long productId(int index) {
+        return productIds[index];
+    }
+
+    public long warehouseId(int index) {
+        return warehouseIds[index];
+    }
+
+    public VarianceKind kind(int index) {
+        return KINDS[kinds[index]];
+    }
+
+    public int systemQuantity(int index) {
+        return systemQuantities[index];
+    }
+
+    public int counted(int index) {
+        return counted[index];
+    }
+}
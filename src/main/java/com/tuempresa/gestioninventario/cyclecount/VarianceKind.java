@@ -0,0 +1,11 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+// Tipo de diferencia de una línea de conteo contra products
+public enum VarianceKind {
+    // Cantidad contada distinta de la registrada: se aplica al aprobar el conteo
+    QUANTITY,
+    // El producto no existe (o se borró)
+    UNKNOWN_PRODUCT,
+    // El producto existe pero está registrado en otro almacén
+    WAREHOUSE_MISMATCH
+}
@@ -0,0 +1,16 @@
+package com.tuempresa.gestioninventario.dto;
+
+import java.math.BigDecimal;
+
+// Vista de solo lectura de un producto para el catálogo público.
+// No es una entidad JPA: se llena directamente desde la tabla "products" vía R2DBC,
+// por lo que el almacén se expone solo como ID (sin proxies ni carga perezosa).
+public record CatalogProduct(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        Integer quantity,
+        String category,
+        Long warehouseId) {
+}
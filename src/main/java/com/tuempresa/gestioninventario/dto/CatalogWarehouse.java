@@ -0,0 +1,8 @@
+package com.tuempresa.gestioninventario.dto;
+
+// Vista de solo lectura de un almacén para el catálogo público (tabla "warehouses").
+public record CatalogWarehouse(
+        Long id,
+        String name,
+        String locationDetails) {
+}
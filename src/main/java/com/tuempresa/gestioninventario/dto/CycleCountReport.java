@@ -0,0 +1,30 @@
+package com.tuempresa.gestioninventario.dto;
+
+import java.time.Instant;
+
+// Resumen de un conteo físico (POST/GET /api/products/cycle-counts). Las diferencias línea por línea se
+// leen paginadas en GET /api/products/cycle-counts/{id}/variances.
+//
+// status: REVIEW (conciliado, esperando aprobación), APPLYING, APPLIED o FAILED. Al aplicar, applied son
+// los ajustes hechos y stale los que se saltearon porque el stock cambió después del conteo.
+public record CycleCountReport(
+        long id,
+        String fileName,
+        String status,
+        Instant createdAt,
+        String createdBy,
+        long lines,
+        long products,
+        long matched,
+        long quantityVariances,
+        long unknownProducts,
+        long warehouseMismatches,
+        long netVariance,
+        long absoluteVariance,
+        long linesPerSecond,
+        String approvedBy,
+        Instant approvedAt,
+        Instant appliedAt,
+        long applied,
+        long stale) {
+}
@@ -0,0 +1,14 @@
+package com.tuempresa.gestioninventario.dto;
+
+import com.tuempresa.gestioninventario.cyclecount.VarianceKind;
+
+// Una diferencia de un conteo físico. systemQuantity es null para productos inexistentes; status es PENDING,
+// APPLIED o STALE para las de cantidad y SKIPPED para las que solo se informan.
+public record CycleCountVariance(
+        long productId,
+        long warehouseId,
+        VarianceKind kind,
+        Integer systemQuantity,
+        int counted,
+        String status) {
+}
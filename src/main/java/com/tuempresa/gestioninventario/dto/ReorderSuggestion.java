@@ -0,0 +1,15 @@
+package com.tuempresa.gestioninventario.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Respuesta de GET /api/products/{id}/reorder-suggestion: última sugerencia de ReorderPointJob.
+// suggestedQuantity es 0 mientras el stock esté por encima del punto de reposición.
+public record ReorderSuggestion(
+        long productId,
+        BigDecimal dailyForecast,
+        int safetyStock,
+        int reorderPoint,
+        int suggestedQuantity,
+        Instant computedAt) {
+}
@@ -0,0 +1,18 @@
+package com.tuempresa.gestioninventario.dto;
+
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Evento de GET /api/products/stream: una fila de product_outbox. quantity y price son nulos en DELETED.
+public record StockChangeEvent(
+        long id,
+        ChangeType type,
+        long productId,
+        Long warehouseId,
+        String category,
+        Integer quantity,
+        BigDecimal price,
+        Instant occurredAt) {
+}
@@ -0,0 +1,8 @@
+package com.tuempresa.gestioninventario.dto;
+
+import java.time.Instant;
+
+// Punto de GET /api/products/{id}/stock-history: inicio del bucket (o instante del cambio en RAW) y
+// cantidad mínima, máxima y última dentro de él.
+public record StockLevelPoint(Instant time, int min, int max, int last) {
+}
@@ -0,0 +1,10 @@
+package com.tuempresa.gestioninventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Respuesta de POST /api/auth/token (mismos nombres de campo que OAuth2)
+public record TokenResponse(
+        @JsonProperty("access_token") String accessToken,
+        @JsonProperty("token_type") String tokenType,
+        @JsonProperty("expires_in") long expiresIn) {
+}
@@ -0,0 +1,12 @@
+package com.tuempresa.gestioninventario.dto;
+
+import java.util.Set;
+
+// Una fila de POST /api/users/batch: los mismos datos que POST /api/users más sus roleIds
+public record UserBatchRequest(
+        String username,
+        String password,
+        String email,
+        Boolean enabled,
+        Set<Long> roleIds) {
+}
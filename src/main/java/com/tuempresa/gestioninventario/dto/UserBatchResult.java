@@ -0,0 +1,18 @@
+package com.tuempresa.gestioninventario.dto;
+
+import java.util.List;
+
+// Resultado de POST /api/users/batch. Las filas válidas se crean; las inválidas se informan con su error
+// y su posición (index) en la lista recibida.
+public record UserBatchResult(
+        int created,
+        int failed,
+        List<Row> rows) {
+
+    public record Row(
+            int index,
+            String username,
+            Long id,
+            String error) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.tuempresa.gestioninventario.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Fila de la auditoría (quién cambió qué). La escribe AuditTrail por JDBC en lotes; la tabla la crean las migraciones.
+@Entity
+@Table(name = "audit_log", indexes = {
+        @Index(name = "idx_audit_log_entity", columnList = "entity_type, entity_id"),
+        @Index(name = "idx_audit_log_occurred_at", columnList = "occurred_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt; // En UTC
+
+    @Column(nullable = false, length = 100)
+    private String actor; // Username autenticado, o "system" fuera de una request
+
+    @Column(nullable = false, length = 40)
+    private String action; // AuditAction
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    private Long amount; // Cantidad movida en entradas/salidas de stock
+
+    @Column(length = 255)
+    private String detail; // Dato legible del cambio (p. ej. el username o nombre de rol afectado)
+}
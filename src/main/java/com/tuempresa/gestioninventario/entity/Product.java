@@ -1,17 +1,20 @@
 package com.tuempresa.gestioninventario.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.tuempresa.gestioninventario.money.Money;
+import com.tuempresa.gestioninventario.money.MoneyConverter;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
 
 import java.math.BigDecimal; // Usaremos BigDecimal para el precio para mayor precisión
+import java.math.RoundingMode;
 
 @Entity
 @Table(name = "products")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Product {
 
     @Id
@@ -23,8 +26,10 @@ public class Product {
 
     private String description; // Descripción
 
+    // En memoria en centavos (Money); la API y la base siguen viendo un decimal de dos dígitos
+    @Convert(converter = MoneyConverter.class)
     @Column(nullable = false, precision = 10, scale = 2) // precision: total de dígitos, scale: dígitos después del punto decimal
-    private BigDecimal price; // Precio del producto
+    private Money price; // Precio del producto
 
     @Column(nullable = false)
     private Integer quantity; // Cantidad en stock
@@ -33,15 +38,43 @@ public class Product {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "warehouse_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Campos internos del proxy de Hibernate
     private Warehouse warehouse; // Almacén al que pertenece el producto
 
-    // Constructor simplificado (opcional, Lombok ya provee @AllArgsConstructor)
+    public Product(Long id, String name, String description, BigDecimal price, Integer quantity, String category,
+                   Warehouse warehouse) {
+        this(name, description, price, quantity, category, warehouse);
+        this.id = id;
+    }
+
+    // Constructor simplificado
     public Product(String name, String description, BigDecimal price, Integer quantity, String category, Warehouse warehouse) {
         this.name = name;
         this.description = description;
-        this.price = price;
+        setPrice(price);
         this.quantity = quantity;
         this.category = category;
         this.warehouse = warehouse;
     }
-}
\ No newline at end of file
+
+    public BigDecimal getPrice() {
+        return price == null ? null : price.toBigDecimal();
+    }
+
+    // Un precio con más de dos decimales se redondea como lo hacía la columna DECIMAL(10,2). Un negativo se redondea
+    // alejándose de cero: ProductService valida el precio ya redondeado y -0.004 no puede llegarle como 0.00
+    public void setPrice(BigDecimal price) {
+        this.price = price == null ? null
+                : Money.of(price, price.signum() < 0 ? RoundingMode.UP : RoundingMode.HALF_UP);
+    }
+
+    @JsonIgnore
+    public Money getPriceMoney() {
+        return price;
+    }
+
+    @JsonIgnore
+    public void setPriceMoney(Money price) {
+        this.price = price;
+    }
+}
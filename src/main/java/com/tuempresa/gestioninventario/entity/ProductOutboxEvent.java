@@ -0,0 +1,51 @@
+package com.tuempresa.gestioninventario.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Outbox de cambios de productos: ProductService agrega una fila en la misma transacción que el cambio
+// y StockChangeRelay las lee en orden de ID para emitirlas por SSE. La escribe ProductOutboxRepository
+// por JDBC; la tabla la crean las migraciones (db/migration) y la entidad la describe para la validación.
+@Entity
+@Table(name = "product_outbox", indexes = {
+        @Index(name = "idx_product_outbox_occurred_at", columnList = "occurred_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductOutboxEvent {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Es también el ID del evento SSE (Last-Event-ID)
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt; // En UTC
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR) // VARCHAR y no el ENUM nativo de MariaDB que Hibernate usaría por defecto
+    @Column(name = "change_type", nullable = false, length = 10)
+    private ChangeType changeType;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "warehouse_id")
+    private Long warehouseId;
+
+    private String category;
+
+    private Integer quantity; // Nulo en DELETED
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal price; // Nulo en DELETED
+}
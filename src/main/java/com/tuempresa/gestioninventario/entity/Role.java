@@ -1,9 +1,15 @@
 package com.tuempresa.gestioninventario.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tuempresa.gestioninventario.security.Permission;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.util.Set;
 
 @Entity
 @Table(name = "roles")
@@ -20,8 +26,29 @@ public class Role {
     private String name; // Nombre del rol, ej: "ROLE_GERENTE_INVENTARIO", "ROLE_EMPLEADO_ALMACEN" [cite: 6, 14]
                          // También para roles personalizados como "supervisor de turno" [cite: 35]
 
+    // Permisos del rol compilados en un bit por permiso (ver Permission). En JSON se exponen como "permissions".
+    @JsonIgnore
+    @Column(name = "permission_mask", nullable = false)
+    @ColumnDefault("0")
+    private long permissionMask;
+
     // Constructor útil
     public Role(String name) {
         this.name = name;
     }
-}
\ No newline at end of file
+
+    public Role(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @JsonProperty("permissions")
+    public Set<Permission> getPermissions() {
+        return Permission.fromMask(permissionMask);
+    }
+
+    @JsonProperty("permissions")
+    public void setPermissions(Set<Permission> permissions) {
+        this.permissionMask = Permission.maskOf(permissions);
+    }
+}
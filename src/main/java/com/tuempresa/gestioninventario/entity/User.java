@@ -1,5 +1,6 @@
 package com.tuempresa.gestioninventario.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,8 +22,10 @@ public class User {
     private String username; // Nombre de usuario para login [cite: 6]
 
     @Column(nullable = false)
-    private String password; // Contraseña (se almacenará hasheada)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // Se recibe al crear/actualizar, nunca se devuelve
+    private String password; // Contraseña hasheada con bcrypt ("{bcrypt}..."); UserService la codifica al guardar
 
+    @Column(unique = true)
     private String email; // Email del usuario (para notificaciones, por ejemplo) [cite: 29]
 
     private boolean enabled = true; // Para activar/desactivar la cuenta del usuario
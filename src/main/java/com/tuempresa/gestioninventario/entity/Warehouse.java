@@ -1,9 +1,12 @@
 package com.tuempresa.gestioninventario.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 import java.util.List;
 
 @Entity
@@ -24,6 +27,11 @@ public class Warehouse {
 
     // Un almacén puede tener muchos productos.
     // mappedBy="warehouse" indica que la entidad Product maneja la clave foránea.
+    // No se serializa ni entra en toString/equals: Product.warehouse apunta de vuelta aquí
+    // y se produciría una recursión infinita (además de cargar todos los productos del almacén).
     @OneToMany(mappedBy = "warehouse", cascade = CascadeType.ALL, orphanRemoval = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Product> products; // Lista de productos en este almacén [cite: 19, 40]
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.tuempresa.gestioninventario.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reducción de resolución: puntos {tiempo, mínimo, máximo, último} ordenados por tiempo a un punto por
+// bucket alineado a UTC (solo buckets con datos). Sirve tanto desde RAW como de HOUR a DAY, porque
+// mínimo de mínimos, máximo de máximos y último del último dan el mismo resultado.
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    // Puntos RAW {tiempo, cantidad} como {tiempo, cantidad, cantidad, cantidad}
+    static List<long[]> fromRaw(List<long[]> rawPoints) {
+        List<long[]> points = new ArrayList<>(rawPoints.size());
+        for (long[] raw : rawPoints) {
+            points.add(new long[]{raw[0], raw[1], raw[1], raw[1]});
+        }
+        return points;
+    }
+
+    static List<long[]> aggregate(List<long[]> points, long bucketSeconds) {
+        List<long[]> buckets = new ArrayList<>();
+        long[] current = null;
+        for (long[] point : points) {
+            long bucket = Math.floorDiv(point[0], bucketSeconds) * bucketSeconds;
+            if (current == null || current[0] != bucket) {
+                current = new long[]{bucket, point[1], point[2], point[3]};
+                buckets.add(current);
+            } else {
+                current[1] = Math.min(current[1], point[1]);
+                current[2] = Math.max(current[2], point[2]);
+                current[3] = point[3];
+            }
+        }
+        return buckets;
+    }
+}
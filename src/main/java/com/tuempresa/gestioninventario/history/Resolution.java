@@ -0,0 +1,41 @@
+package com.tuempresa.gestioninventario.history;
+
+import java.time.LocalDate;
+
+// Resoluciones de la historia de stock. Cada una se guarda en segmentos (una fila de stock_history por
+// producto y segmento) con su propio tamaño de bucket:
+//   RAW:  cada cambio de cantidad, un segmento por día UTC; columnas: cantidad
+//   HOUR: mínimo/máximo/último por hora, un segmento por día UTC
+//   DAY:  mínimo/máximo/último por día, un segmento por año UTC
+public enum Resolution {
+    RAW(0, 1),
+    HOUR(3600, 3),
+    DAY(86400, 3);
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final long bucketSeconds;
+    private final int columns;
+
+    Resolution(long bucketSeconds, int columns) {
+        this.bucketSeconds = bucketSeconds;
+        this.columns = columns;
+    }
+
+    public long bucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    // Inicio (segundos epoch) del segmento que contiene el instante dado
+    public long segmentStart(long epochSecond) {
+        long dayStart = Math.floorDiv(epochSecond, SECONDS_PER_DAY) * SECONDS_PER_DAY;
+        if (this != DAY) {
+            return dayStart;
+        }
+        return LocalDate.ofEpochDay(dayStart / SECONDS_PER_DAY).withDayOfYear(1).toEpochDay() * SECONDS_PER_DAY;
+    }
+}
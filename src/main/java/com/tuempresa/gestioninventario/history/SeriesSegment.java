@@ -0,0 +1,130 @@
+package com.tuempresa.gestioninventario.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Segmento comprimido de una serie: puntos (segundo epoch, valores...) en orden de tiempo.
+//
+//   tiempo:  delta-of-delta en segundos (el primer delta se mide desde el inicio del segmento).
+//            Con intervalos parecidos, y siempre en los buckets regulares de HOUR/DAY, es 0: un byte
+//   valores: cada columna como diferencia con el mismo valor del punto anterior
+//
+// Ambos en zigzag + varint (7 bits por byte): un movimiento de menos de 64 unidades ocupa un byte,
+// así que un punto RAW típico son 2 a 4 bytes en lugar de una fila completa.
+final class SeriesSegment {
+
+    private final long start;
+    private final int columns;
+    private final long[] lastValues;
+    private byte[] data = new byte[16];
+    private int size;
+    private int count;
+    private long lastTime;
+    private long lastDelta;
+
+    SeriesSegment(long start, int columns) {
+        this.start = start;
+        this.columns = columns;
+        this.lastValues = new long[columns];
+        this.lastTime = start;
+    }
+
+    // Continúa un segmento guardado: se vuelve a codificar para recuperar el estado del último punto
+    static SeriesSegment resume(long start, int columns, byte[] data, int count) {
+        SeriesSegment segment = new SeriesSegment(start, columns);
+        for (long[] point : decode(start, columns, data, count)) {
+            segment.append(point[0], Arrays.copyOfRange(point, 1, point.length));
+        }
+        return segment;
+    }
+
+    // Un instante anterior al último punto (reloj que retrocede) se toma como el último
+    void append(long time, long... values) {
+        if (values.length != columns) {
+            throw new IllegalArgumentException("Se esperaban " + columns + " valores por punto.");
+        }
+        long delta = Math.max(time, lastTime) - lastTime;
+        writeVarLong(zigzag(delta - lastDelta));
+        lastDelta = delta;
+        lastTime += delta;
+        for (int c = 0; c < columns; c++) {
+            writeVarLong(zigzag(values[c] - lastValues[c]));
+            lastValues[c] = values[c];
+        }
+        count++;
+    }
+
+    long start() {
+        return start;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int sizeInBytes() {
+        return size;
+    }
+
+    // Valor de la columna en el último punto (0 si el segmento está vacío)
+    long lastValue(int column) {
+        return lastValues[column];
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    // Cada punto es {tiempo, valor1, valor2...}
+    static List<long[]> decode(long start, int columns, byte[] data, int count) {
+        List<long[]> points = new ArrayList<>(count);
+        int[] position = {0};
+        long time = start;
+        long delta = 0;
+        long[] values = new long[columns];
+        for (int i = 0; i < count; i++) {
+            delta += unzigzag(readVarLong(data, position));
+            time += delta;
+            long[] point = new long[columns + 1];
+            point[0] = time;
+            for (int c = 0; c < columns; c++) {
+                values[c] += unzigzag(readVarLong(data, position));
+                point[c + 1] = values[c];
+            }
+            points.add(point);
+        }
+        return points;
+    }
+
+    private void writeVarLong(long value) {
+        if (size + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+        }
+        while ((value & ~0x7FL) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    private static long readVarLong(byte[] data, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,437 @@
+package com.tuempresa.gestioninventario.history;
+
+import com.tuempresa.gestioninventario.dto.StockLevelPoint;
+import com.tuempresa.gestioninventario.repository.StockHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Historia del nivel de stock de cada producto (tabla stock_history, ver SeriesSegment y Resolution).
+//
+// ProductService llama a record con la cantidad resultante de cada alta, edición, entrada y salida; después
+// del commit el cambio pasa por una cola a un único hilo, que lo agrega al día abierto del producto (RAW,
+// sin repetir cantidades iguales) y cada flush-interval guarda los días modificados. Al pasar el día UTC
+// el hilo lo cierra: guarda el segmento HOUR (mínimo/máximo/último por hora), reemplaza el día en el
+// segmento DAY del año y recién entonces marca el RAW como cerrado, así que un corte a mitad de camino
+// se repite entero al reintentar. Las retenciones purgan RAW y HOUR viejos; DAY se conserva.
+//
+// Varias instancias pueden escribir el mismo día de un producto: el guardado compara point_count (los
+// días solo crecen) y ante un conflicto se relee la fila y se le suman los puntos propios pendientes.
+//
+// Las consultas leen solo la base, así que lo más nuevo aparece con hasta un flush-interval de demora.
+@Component
+public class StockHistory implements SmartLifecycle {
+
+    public static final String POINTS = "inventario.stock-history.points";
+    public static final String CONFLICTS = "inventario.stock-history.conflicts";
+    public static final String OPEN_SERIES = "inventario.stock-history.open-series";
+    public static final String BYTES_PER_POINT = "inventario.stock-history.bytes-per-point";
+
+    private static final Logger log = LoggerFactory.getLogger(StockHistory.class);
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final StockHistoryRepository repository;
+    private final Clock clock;
+    private final boolean enabled;
+    private final BlockingQueue<Change> queue;
+    private final long flushIntervalMillis;
+    private final Duration rawRetention;
+    private final Duration hourlyRetention;
+    private final Duration maxRawRange;
+    private final Duration maxHourlyRange;
+    private final Counter recorded;
+    private final Counter dropped;
+    private final Counter conflicts;
+    private final DistributionSummary bytesPerPoint;
+
+    // Días abiertos por producto; solo los modifica el hilo escritor (el gauge lee el tamaño)
+    private final Map<Long, OpenDay> open = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private long lastFlushMillis;
+    private long lastPurgeMillis = Long.MIN_VALUE;
+    private Thread worker;
+
+    @Autowired
+    public StockHistory(StockHistoryRepository repository, MeterRegistry registry,
+                        @Value("${inventario.history.enabled:true}") boolean enabled,
+                        @Value("${inventario.history.queue-capacity:65536}") int queueCapacity,
+                        @Value("${inventario.history.flush-interval:10s}") Duration flushInterval,
+                        @Value("${inventario.history.raw-retention:30d}") Duration rawRetention,
+                        @Value("${inventario.history.hourly-retention:400d}") Duration hourlyRetention,
+                        @Value("${inventario.history.max-raw-range:31d}") Duration maxRawRange,
+                        @Value("${inventario.history.max-hourly-range:93d}") Duration maxHourlyRange) {
+        this(repository, registry, Clock.systemUTC(), enabled, queueCapacity, flushInterval, rawRetention,
+                hourlyRetention, maxRawRange, maxHourlyRange);
+    }
+
+    StockHistory(StockHistoryRepository repository, MeterRegistry registry, Clock clock, boolean enabled,
+                 int queueCapacity, Duration flushInterval, Duration rawRetention, Duration hourlyRetention,
+                 Duration maxRawRange, Duration maxHourlyRange) {
+        this.repository = repository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.rawRetention = rawRetention;
+        this.hourlyRetention = hourlyRetention;
+        this.maxRawRange = maxRawRange;
+        this.maxHourlyRange = maxHourlyRange;
+        this.recorded = Counter.builder(POINTS)
+                .description("Cambios de stock encolados para la historia")
+                .tag("outcome", "recorded")
+                .register(registry);
+        this.dropped = Counter.builder(POINTS)
+                .description("Cambios de stock descartados por cola de historia llena")
+                .tag("outcome", "dropped")
+                .register(registry);
+        this.conflicts = Counter.builder(CONFLICTS)
+                .description("Días de historia escritos a la vez por otra instancia y combinados")
+                .register(registry);
+        this.bytesPerPoint = DistributionSummary.builder(BYTES_PER_POINT)
+                .description("Bytes por punto de cada día RAW al cerrarlo")
+                .register(registry);
+        Gauge.builder(OPEN_SERIES, open, Map::size)
+                .description("Productos con un día de historia abierto en memoria")
+                .register(registry);
+    }
+
+    // Se registra después del commit: un rollback no deja puntos en la historia
+    public void record(Long productId, Long warehouseId, int quantity) {
+        if (!enabled || productId == null) {
+            return;
+        }
+        Change change = new Change(productId, warehouseId, clock.instant().getEpochSecond(), quantity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(change);
+                }
+            });
+        } else {
+            offer(change);
+        }
+    }
+
+    private void offer(Change change) {
+        // Nunca bloquea al hilo de la petición: con la cola llena el punto se pierde y se cuenta
+        if (queue.offer(change)) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    // Niveles de stock de un producto en [from, to). RAW devuelve cada cambio (min = max = last);
+    // HOUR y DAY un punto por bucket con datos, incluidos los días aún abiertos (se agregan al vuelo).
+    public List<StockLevelPoint> query(long productId, Instant from, Instant to, Resolution resolution) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("El rango debe tener 'from' anterior a 'to'.");
+        }
+        if (resolution == null) {
+            throw new IllegalArgumentException("La resolución es obligatoria.");
+        }
+        Duration range = Duration.between(from, to);
+        if (resolution == Resolution.RAW && range.compareTo(maxRawRange) > 0) {
+            throw new IllegalArgumentException("El rango máximo en RAW es " + maxRawRange.toDays() + " días; use HOUR o DAY.");
+        }
+        if (resolution == Resolution.HOUR && range.compareTo(maxHourlyRange) > 0) {
+            throw new IllegalArgumentException("El rango máximo en HOUR es " + maxHourlyRange.toDays() + " días; use DAY.");
+        }
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+        long rawFrom = Resolution.RAW.segmentStart(fromSecond);
+        long rawTo = Resolution.RAW.segmentStart(toSecond);
+
+        // Por tiempo de bucket: un día que quedó a medio cerrar aparece en ambos lados y gana el RAW
+        TreeMap<Long, long[]> points = new TreeMap<>();
+        if (resolution == Resolution.RAW) {
+            for (StoredSegment segment : repository.findRange(productId, Resolution.RAW, rawFrom, rawTo)) {
+                Downsampler.fromRaw(decode(segment)).forEach(point -> points.put(point[0], point));
+            }
+        } else {
+            long storedFrom = resolution.segmentStart(fromSecond);
+            long storedTo = resolution.segmentStart(toSecond);
+            for (StoredSegment segment : repository.findRange(productId, resolution, storedFrom, storedTo)) {
+                decode(segment).forEach(point -> points.put(point[0], point));
+            }
+            for (StoredSegment segment : repository.findRange(productId, Resolution.RAW, rawFrom, rawTo)) {
+                if (!segment.sealed()) {
+                    Downsampler.aggregate(Downsampler.fromRaw(decode(segment)), resolution.bucketSeconds())
+                            .forEach(point -> points.put(point[0], point));
+                }
+            }
+        }
+
+        long width = Math.max(resolution.bucketSeconds(), 1L);
+        List<StockLevelPoint> result = new ArrayList<>();
+        for (long[] point : points.subMap(fromSecond - width + 1, true, toSecond, false).values()) {
+            result.add(new StockLevelPoint(Instant.ofEpochSecond(point[0]), (int) point[1], (int) point[2], (int) point[3]));
+        }
+        return result;
+    }
+
+    // --- Hilo escritor ---
+
+    private void apply(Change change) {
+        long dayStart = Resolution.RAW.segmentStart(change.time());
+        OpenDay day = open.get(change.productId());
+        if (day != null && day.start < dayStart) {
+            seal(day);
+            open.remove(change.productId());
+            day = null;
+        }
+        if (day == null) {
+            // Un cambio con la hora de un día ya cerrado (reloj que retrocede) entra en el día que llega
+            day = OpenDay.load(change.productId(), dayStart, repository.find(change.productId(), Resolution.RAW, dayStart));
+            open.put(change.productId(), day);
+        }
+        day.add(change);
+    }
+
+    // Aplica lo encolado, guarda los días modificados y cierra los que ya pasaron. Solo desde el hilo
+    // escritor (o con el hilo detenido, en los tests).
+    void flush() {
+        List<Change> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(this::apply);
+
+        long today = Resolution.RAW.segmentStart(clock.instant().getEpochSecond());
+        Iterator<OpenDay> days = open.values().iterator();
+        while (days.hasNext()) {
+            OpenDay day = days.next();
+            if (day.start < today) {
+                seal(day);
+                days.remove();
+            } else if (day.dirty) {
+                persist(day, false);
+            }
+        }
+        lastFlushMillis = clock.millis();
+        maintainIfDue(today);
+    }
+
+    private void seal(OpenDay day) {
+        // Primero el RAW sin cerrar: combina lo que otra instancia haya escrito del mismo día
+        persist(day, false);
+        List<long[]> raw = day.points();
+        if (!raw.isEmpty()) {
+            List<long[]> hourly = Downsampler.aggregate(Downsampler.fromRaw(raw), Resolution.HOUR.bucketSeconds());
+            SeriesSegment hour = encode(day.start, Resolution.HOUR.columns(), hourly);
+            repository.save(new StoredSegment(day.productId, Resolution.HOUR, day.start, day.warehouseId,
+                    hour.count(), true, hour.toByteArray()));
+            mergeDaily(day, Downsampler.aggregate(hourly, Resolution.DAY.bucketSeconds()).get(0));
+            bytesPerPoint.record((double) day.segment.sizeInBytes() / day.segment.count());
+        }
+        persist(day, true);
+    }
+
+    // Reemplaza (o agrega) el punto del día en el segmento DAY de su año
+    private void mergeDaily(OpenDay day, long[] daily) {
+        long yearStart = Resolution.DAY.segmentStart(daily[0]);
+        List<long[]> points = repository.find(day.productId, Resolution.DAY, yearStart)
+                .map(StockHistory::decode)
+                .orElseGet(ArrayList::new);
+        points.removeIf(point -> point[0] == daily[0]);
+        points.add(daily);
+        points.sort(Comparator.comparingLong(point -> point[0]));
+        SeriesSegment year = encode(yearStart, Resolution.DAY.columns(), points);
+        repository.save(new StoredSegment(day.productId, Resolution.DAY, yearStart, day.warehouseId,
+                year.count(), true, year.toByteArray()));
+    }
+
+    private void persist(OpenDay day, boolean sealed) {
+        for (int attempt = 1; attempt <= MAX_SAVE_ATTEMPTS; attempt++) {
+            if (repository.saveIfCount(day.toStored(sealed), day.persistedCount)) {
+                day.persistedCount = day.segment.count();
+                day.dirty = false;
+                return;
+            }
+            conflicts.increment();
+            day.rebase(repository.find(day.productId, Resolution.RAW, day.start).orElse(null));
+        }
+        throw new IllegalStateException("No se pudo guardar la historia del producto " + day.productId
+                + " tras " + MAX_SAVE_ATTEMPTS + " intentos por escrituras concurrentes");
+    }
+
+    // Cada hora: cierra días que otra ejecución dejó abiertos y aplica las retenciones
+    private void maintainIfDue(long today) {
+        long now = clock.millis();
+        if (lastPurgeMillis != Long.MIN_VALUE && now - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeMillis = now;
+        for (StoredSegment leftover : repository.findUnsealedRawBefore(today)) {
+            if (!open.containsKey(leftover.productId())) {
+                seal(OpenDay.load(leftover.productId(), leftover.segmentStart(), Optional.of(leftover)));
+            }
+        }
+        long nowSecond = clock.instant().getEpochSecond();
+        int purged = repository.deleteSealedBefore(Resolution.RAW,
+                Resolution.RAW.segmentStart(nowSecond - rawRetention.toSeconds()));
+        purged += repository.deleteSealedBefore(Resolution.HOUR,
+                Resolution.HOUR.segmentStart(nowSecond - hourlyRetention.toSeconds()));
+        if (purged > 0) {
+            log.info("Purgados {} segmentos de historia de stock fuera de retención", purged);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Change change = queue.poll(Math.min(flushIntervalMillis, 500L), TimeUnit.MILLISECONDS);
+                if (change != null) {
+                    apply(change);
+                }
+                if (clock.millis() - lastFlushMillis >= flushIntervalMillis) {
+                    flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Error escribiendo la historia de stock; se reintenta", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        // Al detenerse se guardan los días abiertos (sin cerrarlos) para retomarlos al arrancar
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo guardar la historia de stock pendiente al detenerse", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        lastFlushMillis = clock.millis();
+        running = true;
+        worker = new Thread(this::run, "stock-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // --- Auxiliares ---
+
+    private static List<long[]> decode(StoredSegment segment) {
+        return SeriesSegment.decode(segment.segmentStart(), segment.resolution().columns(), segment.data(),
+                segment.pointCount());
+    }
+
+    private static SeriesSegment encode(long start, int columns, List<long[]> points) {
+        SeriesSegment segment = new SeriesSegment(start, columns);
+        for (long[] point : points) {
+            long[] values = new long[columns];
+            System.arraycopy(point, 1, values, 0, columns);
+            segment.append(point[0], values);
+        }
+        return segment;
+    }
+
+    private record Change(long productId, Long warehouseId, long time, int quantity) {
+    }
+
+    // Día RAW de un producto en memoria. persistedCount: puntos que tiene la fila en la base según la
+    // última lectura o escritura propia; los siguientes del segmento son los pendientes de guardar.
+    private static final class OpenDay {
+        private final long productId;
+        private final long start;
+        private Long warehouseId;
+        private SeriesSegment segment;
+        private int persistedCount;
+        private boolean dirty;
+
+        private OpenDay(long productId, long start) {
+            this.productId = productId;
+            this.start = start;
+            this.segment = new SeriesSegment(start, 1);
+        }
+
+        static OpenDay load(long productId, long start, Optional<StoredSegment> stored) {
+            OpenDay day = new OpenDay(productId, start);
+            stored.ifPresent(day::rebase);
+            return day;
+        }
+
+        void add(Change change) {
+            if (change.warehouseId() != null && !change.warehouseId().equals(warehouseId)) {
+                warehouseId = change.warehouseId();
+                dirty = true;
+            }
+            if (segment.count() > 0 && segment.lastValue(0) == change.quantity()) {
+                return;
+            }
+            segment.append(change.time(), change.quantity());
+            dirty = true;
+        }
+
+        List<long[]> points() {
+            return SeriesSegment.decode(start, 1, segment.toByteArray(), segment.count());
+        }
+
+        // Toma la fila guardada y le agrega los puntos propios aún no guardados, en orden de tiempo
+        void rebase(StoredSegment stored) {
+            List<long[]> own = points();
+            List<long[]> merged = stored == null ? new ArrayList<>() : decode(stored);
+            merged.addAll(own.subList(Math.min(persistedCount, own.size()), own.size()));
+            merged.sort(Comparator.comparingLong(point -> point[0]));
+            segment = encode(start, 1, merged);
+            persistedCount = stored == null ? 0 : stored.pointCount();
+            if (stored != null && warehouseId == null) {
+                warehouseId = stored.warehouseId();
+            }
+        }
+
+        StoredSegment toStored(boolean sealed) {
+            return new StoredSegment(productId, Resolution.RAW, start, warehouseId, segment.count(), sealed,
+                    segment.toByteArray());
+        }
+    }
+}
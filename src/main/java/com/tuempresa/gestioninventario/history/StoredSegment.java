@@ -0,0 +1,7 @@
+package com.tuempresa.gestioninventario.history;
+
+// Fila de stock_history: un segmento comprimido (SeriesSegment) de un producto en una resolución.
+// sealed: el día ya se cerró y sus agregados HOUR/DAY están guardados (solo aplica a RAW).
+public record StoredSegment(long productId, Resolution resolution, long segmentStart, Long warehouseId,
+                            int pointCount, boolean sealed, byte[] data) {
+}
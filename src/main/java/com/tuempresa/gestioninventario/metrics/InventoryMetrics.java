@@ -0,0 +1,78 @@
+package com.tuempresa.gestioninventario.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Métricas de negocio del inventario (movimientos de stock y rechazos).
+// Los contadores se crean una sola vez por combinación de tags y se guardan en mapas,
+// así el camino caliente solo hace un get + increment, sin construir Tags ni buscar en el registry.
+@Component
+public class InventoryMetrics {
+
+    public static final String STOCK_MOVEMENTS = "inventario.stock.movements";
+    public static final String STOCK_MOVED_UNITS = "inventario.stock.moved.units";
+    public static final String STOCK_REJECTIONS = "inventario.stock.rejections";
+
+    // Dirección del movimiento, usada como tag "direction"
+    public enum Direction {
+        ENTRY("entry"), EXIT("exit");
+
+        private final String tag;
+
+        Direction(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Long, MovementCounters> entryCounters = new ConcurrentHashMap<>();
+    private final Map<Long, MovementCounters> exitCounters = new ConcurrentHashMap<>();
+    private final Counter insufficientStockRejections;
+
+    public InventoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.insufficientStockRejections = Counter.builder(STOCK_REJECTIONS)
+                .description("Salidas de stock rechazadas")
+                .tag("reason", "insufficient_stock")
+                .register(registry);
+    }
+
+    public void recordMovement(Direction direction, Long warehouseId, int quantity) {
+        Map<Long, MovementCounters> counters = direction == Direction.ENTRY ? entryCounters : exitCounters;
+        long key = warehouseId == null ? 0L : warehouseId; // 0 = producto sin almacén
+        MovementCounters movement = counters.get(key);
+        if (movement == null) {
+            movement = counters.computeIfAbsent(key, id -> new MovementCounters(direction, id));
+        }
+        movement.movements.increment();
+        movement.units.increment(quantity);
+    }
+
+    public void recordInsufficientStock() {
+        insufficientStockRejections.increment();
+    }
+
+    private final class MovementCounters {
+        final Counter movements;
+        final Counter units;
+
+        MovementCounters(Direction direction, long warehouseId) {
+            String warehouse = warehouseId == 0L ? "none" : Long.toString(warehouseId);
+            this.movements = Counter.builder(STOCK_MOVEMENTS)
+                    .description("Movimientos de stock registrados")
+                    .tag("direction", direction.tag)
+                    .tag("warehouse", warehouse)
+                    .register(registry);
+            this.units = Counter.builder(STOCK_MOVED_UNITS)
+                    .description("Unidades movidas en los movimientos de stock")
+                    .baseUnit("units")
+                    .tag("direction", direction.tag)
+                    .tag("warehouse", warehouse)
+                    .register(registry);
+        }
+    }
+}
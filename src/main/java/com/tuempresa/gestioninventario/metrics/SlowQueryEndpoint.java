@@ -0,0 +1,31 @@
+package com.tuempresa.gestioninventario.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET /actuator/slowqueries    - top-N de formas de sentencia por latencia máxima
+// DELETE /actuator/slowqueries - reinicia las estadísticas
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    public SlowQueryEndpoint(SlowQueryRecorder slowQueryRecorder) {
+        this.slowQueryRecorder = slowQueryRecorder;
+    }
+
+    @ReadOperation
+    public List<SlowQueryRecorder.SlowQueryShape> slowQueries() {
+        return slowQueryRecorder.topShapes();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        slowQueryRecorder.reset();
+    }
+}
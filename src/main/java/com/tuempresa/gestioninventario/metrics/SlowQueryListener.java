@@ -0,0 +1,61 @@
+package com.tuempresa.gestioninventario.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Adaptador entre datasource-proxy y SlowQueryRecorder. Se ejecuta en el hilo de la consulta,
+// por eso solo toma la latencia y deja el formateo de parámetros para cuando la sentencia es lenta.
+public class SlowQueryListener implements QueryExecutionListener {
+
+    private final ObjectProvider<SlowQueryRecorder> recorderProvider;
+    private volatile SlowQueryRecorder recorder;
+
+    public SlowQueryListener(ObjectProvider<SlowQueryRecorder> recorderProvider) {
+        this.recorderProvider = recorderProvider;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SlowQueryRecorder target = recorder();
+        if (target == null) {
+            return;
+        }
+        long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+        for (QueryInfo query : queryInfoList) {
+            target.record(query.getQuery(), elapsedNanos, () -> formatParameters(query));
+        }
+    }
+
+    // El recorder se resuelve de forma perezosa: este listener se crea en un BeanPostProcessor,
+    // antes de que el resto de beans esté disponible.
+    private SlowQueryRecorder recorder() {
+        SlowQueryRecorder target = recorder;
+        if (target == null) {
+            target = recorderProvider.getIfAvailable();
+            recorder = target;
+        }
+        return target;
+    }
+
+    private static String formatParameters(QueryInfo query) {
+        return query.getParametersList().stream()
+                .map(parameters -> parameters.stream()
+                        .map(ParameterSetOperation::getArgs)
+                        .filter(args -> args != null && args.length > 1)
+                        .map(args -> String.valueOf(args[1]))
+                        .collect(Collectors.joining(", ", "[", "]")))
+                .collect(Collectors.joining(" "));
+    }
+}
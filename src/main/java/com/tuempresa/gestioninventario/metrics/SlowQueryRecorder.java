@@ -0,0 +1,188 @@
+package com.tuempresa.gestioninventario.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Registra la latencia de cada sentencia SQL agrupada por "forma" (SQL normalizado, sin literales)
+// y escribe en el logger "inventario.sql.slow" solo las que superan el umbral.
+// Las estadísticas se guardan en ventanas de tiempo: la actual y la anterior, para que el top-N
+// refleje lo reciente sin crecer indefinidamente.
+@Component
+public class SlowQueryRecorder {
+
+    private static final Logger SLOW_QUERY_LOG = LoggerFactory.getLogger("inventario.sql.slow");
+    private static final String APP_PACKAGE = "com.tuempresa.gestioninventario.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long thresholdNanos;
+    private final int topN;
+    private final long windowNanos;
+    private final int maxShapes;
+
+    // SQL tal como llega -> forma normalizada. Hibernate reutiliza los mismos textos, así que
+    // la normalización (regex) se hace una vez por sentencia distinta y no en cada ejecución.
+    private final Map<String, String> shapeCache = new ConcurrentHashMap<>();
+    private volatile Window current;
+    private volatile Window previous;
+
+    public SlowQueryRecorder(@Value("${inventario.sql.slow-threshold:200ms}") Duration threshold,
+                             @Value("${inventario.sql.top-n:20}") int topN,
+                             @Value("${inventario.sql.window:15m}") Duration window,
+                             @Value("${inventario.sql.max-shapes:1000}") int maxShapes) {
+        this.thresholdNanos = threshold.toNanos();
+        this.topN = topN;
+        this.windowNanos = window.toNanos();
+        this.maxShapes = maxShapes;
+        this.current = new Window(System.nanoTime());
+        this.previous = null;
+    }
+
+    // Forma agregada de una sentencia dentro de las ventanas actual y anterior
+    public record SlowQueryShape(String shape, long executions, double avgMillis, double maxMillis,
+                                 long slowExecutions, String lastSlowCaller, String lastSlowParameters) {
+    }
+
+    public void record(String sql, long elapsedNanos, Supplier<String> parameters) {
+        Window window = currentWindow();
+        String shape = shapeOf(sql);
+        ShapeStats stats = window.shapes.get(shape);
+        if (stats == null) {
+            if (window.shapes.size() >= maxShapes) {
+                return; // Límite de formas distintas alcanzado en esta ventana
+            }
+            stats = window.shapes.computeIfAbsent(shape, key -> new ShapeStats());
+        }
+        stats.executions.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+
+        if (elapsedNanos >= thresholdNanos) {
+            // Solo las sentencias lentas pagan el recorrido de la pila y el formateo de parámetros
+            String caller = findCaller();
+            String params = parameters.get();
+            stats.slowExecutions.increment();
+            stats.lastSlowCaller = caller;
+            stats.lastSlowParameters = params;
+            SLOW_QUERY_LOG.warn("{} ms en {} | {} | params={}",
+                    elapsedNanos / 1_000_000, caller, sql, params);
+        }
+    }
+
+    public List<SlowQueryShape> topShapes() {
+        Map<String, SlowQueryShape> merged = new HashMap<>();
+        Window older = previous;
+        if (older != null) {
+            older.shapes.forEach((shape, stats) -> merged.put(shape, stats.snapshot(shape)));
+        }
+        current.shapes.forEach((shape, stats) -> merged.merge(shape, stats.snapshot(shape), SlowQueryRecorder::combine));
+        List<SlowQueryShape> result = new ArrayList<>(merged.values());
+        result.sort(Comparator.comparingDouble(SlowQueryShape::maxMillis).reversed());
+        return result.size() > topN ? new ArrayList<>(result.subList(0, topN)) : result;
+    }
+
+    public void reset() {
+        previous = null;
+        current = new Window(System.nanoTime());
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private String shapeOf(String sql) {
+        String shape = shapeCache.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            if (shapeCache.size() < maxShapes) {
+                shapeCache.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    private Window currentWindow() {
+        Window window = current;
+        long now = System.nanoTime();
+        if (now - window.startNanos > windowNanos) {
+            synchronized (this) {
+                if (current == window) {
+                    previous = window;
+                    current = new Window(now);
+                }
+                window = current;
+            }
+        }
+        return window;
+    }
+
+    // Primer método de la aplicación en la pila, saltando esta capa y los proxies CGLIB de Spring
+    private static String findCaller() {
+        Optional<String> caller = STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APP_PACKAGE))
+                .filter(frame -> frame.getDeclaringClass() != SlowQueryRecorder.class
+                        && frame.getDeclaringClass() != SlowQueryListener.class
+                        && !frame.getClassName().startsWith(APP_PACKAGE + "config.")
+                        && !frame.getClassName().contains("$$"))
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName())
+                .findFirst());
+        return caller.orElse("desconocido");
+    }
+
+    private static SlowQueryShape combine(SlowQueryShape a, SlowQueryShape b) {
+        long executions = a.executions() + b.executions();
+        double avg = executions == 0 ? 0 : (a.avgMillis() * a.executions() + b.avgMillis() * b.executions()) / executions;
+        return new SlowQueryShape(a.shape(), executions, avg, Math.max(a.maxMillis(), b.maxMillis()),
+                a.slowExecutions() + b.slowExecutions(),
+                b.lastSlowCaller() != null ? b.lastSlowCaller() : a.lastSlowCaller(),
+                b.lastSlowParameters() != null ? b.lastSlowParameters() : a.lastSlowParameters());
+    }
+
+    private static final class Window {
+        final long startNanos;
+        final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+        Window(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class ShapeStats {
+        final LongAdder executions = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder slowExecutions = new LongAdder();
+        volatile String lastSlowCaller;
+        volatile String lastSlowParameters;
+
+        SlowQueryShape snapshot(String shape) {
+            long count = executions.sum();
+            double avgMillis = count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+            return new SlowQueryShape(shape, count, avgMillis, maxNanos.get() / 1_000_000.0,
+                    slowExecutions.sum(), lastSlowCaller, lastSlowParameters);
+        }
+    }
+}
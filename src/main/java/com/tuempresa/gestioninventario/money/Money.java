@@ -0,0 +1,63 @@
+package com.tuempresa.gestioninventario.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Monto en centavos (escala 2, como products.price DECIMAL(10,2)) sobre un long. Las operaciones
+// fallan con ArithmeticException ante un desborde en lugar de dar la vuelta, y las que redondean piden
+// el RoundingMode explícito: el resultado es el mismo que con BigDecimal y setScale(2, modo).
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0L);
+
+    public static Money ofCents(long cents) {
+        return new Money(cents);
+    }
+
+    // Exacto: un monto con más de dos decimales distintos de cero es un error
+    public static Money of(BigDecimal amount) {
+        return of(amount, RoundingMode.UNNECESSARY);
+    }
+
+    public static Money of(BigDecimal amount, RoundingMode rounding) {
+        return new Money(amount.setScale(SCALE, rounding).unscaledValue().longValueExact());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, other.cents));
+    }
+
+    // Valor de una cantidad de unidades: exacto
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(cents, quantity));
+    }
+
+    // Ajuste por un factor (1.075 = +7,5%) redondeado a centavos
+    public Money times(BigDecimal factor, RoundingMode rounding) {
+        MoneyMath.Factor f = MoneyMath.Factor.of(factor);
+        return new Money(MoneyMath.scale(cents, f, rounding));
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.tuempresa.gestioninventario.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Agregados de precios sobre arreglos primitivos de centavos, para reportes que recorren muchos
+// productos: ni un objeto por multiplicación (BigDecimal crea uno por operación) ni por producto.
+// Toda suma y producto se controla contra desborde (ArithmeticException) y el redondeo de un ajuste
+// por factor es exactamente el de BigDecimal: precio.multiply(factor).setScale(2, modo).
+public final class MoneyMath {
+
+    private MoneyMath() {
+    }
+
+    // Σ precio * cantidad de los primeros count productos, en centavos
+    public static long stockValue(long[] priceCents, int[] quantities, int count) {
+        long total = 0L;
+        for (int i = 0; i < count; i++) {
+            total = Math.addExact(total, Math.multiplyExact(priceCents[i], quantities[i]));
+        }
+        return total;
+    }
+
+    // Lo mismo agrupado (p. ej. por almacén): totals[groups[i]] += precio * cantidad
+    public static void stockValueByGroup(long[] priceCents, int[] quantities, int[] groups, int count, long[] totals) {
+        for (int i = 0; i < count; i++) {
+            int group = groups[i];
+            totals[group] = Math.addExact(totals[group], Math.multiplyExact(priceCents[i], quantities[i]));
+        }
+    }
+
+    // Ajuste de precios por un factor (p. ej. 1.075 para +7,5%); result puede ser el mismo arreglo
+    public static void applyFactor(long[] priceCents, int count, BigDecimal factor, RoundingMode rounding,
+                                   long[] result) {
+        Factor f = Factor.of(factor);
+        for (int i = 0; i < count; i++) {
+            result[i] = scale(priceCents[i], f, rounding);
+        }
+    }
+
+    // cents * numerator / denominator, redondeado a entero con el modo de BigDecimal
+    static long scale(long cents, Factor factor, RoundingMode rounding) {
+        return divide(Math.multiplyExact(cents, factor.numerator()), factor.denominator(), rounding);
+    }
+
+    // dividend / divisor (divisor > 0) redondeado como BigDecimal.divide(..., 0, rounding)
+    static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = dividend < 0 ? -1 : 1;
+        long rest = Math.abs(remainder);
+        // Mitad sin calcular 2 * rest (podría desbordar): compara rest con lo que falta hasta divisor
+        int half = Long.compare(rest, divisor - rest);
+        boolean awayFromZero = switch (rounding) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("El resultado requiere redondeo.");
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    // Factor decimal como fracción numerator / 10^scale, calculada una vez por operación
+    record Factor(long numerator, long denominator) {
+
+        private static final int MAX_SCALE = 18;
+
+        static Factor of(BigDecimal factor) {
+            BigDecimal normalized = factor.stripTrailingZeros();
+            if (normalized.scale() < 0) {
+                normalized = normalized.setScale(0);
+            }
+            if (normalized.scale() > MAX_SCALE) {
+                throw new IllegalArgumentException("El factor admite hasta " + MAX_SCALE + " decimales: " + factor);
+            }
+            return new Factor(normalized.unscaledValue().longValueExact(), pow10(normalized.scale()));
+        }
+
+        private static long pow10(int exponent) {
+            long value = 1L;
+            for (int i = 0; i < exponent; i++) {
+                value *= 10;
+            }
+            return value;
+        }
+    }
+}
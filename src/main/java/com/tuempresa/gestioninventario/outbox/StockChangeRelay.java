@@ -0,0 +1,265 @@
+package com.tuempresa.gestioninventario.outbox;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Lee product_outbox en orden de ID y entrega los eventos nuevos a StockEventStream.
+//
+// Los IDs son AUTO_INCREMENT y se asignan al insertar, no al hacer commit: una transacción que tomó el
+// ID 11 puede confirmar después de la que tomó el 12. Por eso el relay solo avanza sobre IDs consecutivos;
+// ante un hueco espera hasta gap-timeout a que aparezca la fila que falta y luego lo saltea (un rollback
+// deja el hueco para siempre). Cada instancia tiene su propio relay: la tabla es compartida y cada una
+// reparte a sus suscriptores (StockEventStream y ProductReadModel). Las filas más viejas que retention se purgan.
+//
+// Un hueco salteado puede ser una transacción lenta (un lote de conteo físico) que confirma después. Sus IDs
+// se vuelven a buscar cada gap-timeout durante late-window; las filas que aparecen van solo a los
+// suscriptores de eventos tardíos (addLateListener), que no dependen del orden. Pasado late-window el ID
+// se abandona: quien necesita ver todo cambio (ProductReadModel) tiene además su propia reconciliación.
+@Component
+public class StockChangeRelay implements SmartLifecycle {
+
+    public static final String GAPS_SKIPPED = "inventario.stock-events.outbox.gaps.skipped";
+    public static final String LATE_EVENTS = "inventario.stock-events.outbox.late";
+
+    // IDs salteados que se siguen buscando; si un rollback masivo deja más, se abandonan los más viejos
+    static final int MAX_SKIPPED_IDS = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(StockChangeRelay.class);
+
+    private final ProductOutboxRepository outboxRepository;
+    private final Clock clock;
+    private final boolean enabled;
+    private final long pollIntervalNanos;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final Duration retention;
+    private final long purgeIntervalMillis;
+    private final long lateWindowMillis;
+    private final Counter gapsSkipped;
+    private final Counter lateDelivered;
+    private final Counter lateAbandoned;
+
+    private final List<Consumer<List<StockChangeEvent>>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<StockChangeEvent>>> lateListeners = new CopyOnWriteArrayList<>();
+    // ID salteado -> momento en que se salteó; solo desde el hilo del relay
+    private final TreeMap<Long, Long> skipped = new TreeMap<>();
+    private long lastRecheckMillis;
+    private volatile long position;
+    private volatile boolean running;
+    private long gapSinceMillis = -1L; // solo desde el hilo del relay
+    private long lastPurgeMillis;
+    private Thread worker;
+
+    @Autowired
+    public StockChangeRelay(ProductOutboxRepository outboxRepository, MeterRegistry registry,
+                            @Value("${inventario.stock-events.enabled:true}") boolean enabled,
+                            @Value("${inventario.stock-events.poll-interval:100ms}") Duration pollInterval,
+                            @Value("${inventario.stock-events.batch-size:500}") int batchSize,
+                            @Value("${inventario.stock-events.gap-timeout:2s}") Duration gapTimeout,
+                            @Value("${inventario.stock-events.retention:24h}") Duration retention,
+                            @Value("${inventario.stock-events.late-window:10m}") Duration lateWindow) {
+        this(outboxRepository, registry, Clock.systemUTC(), enabled, pollInterval, batchSize, gapTimeout, retention,
+                lateWindow);
+    }
+
+    StockChangeRelay(ProductOutboxRepository outboxRepository, MeterRegistry registry, Clock clock, boolean enabled,
+                     Duration pollInterval, int batchSize, Duration gapTimeout, Duration retention,
+                     Duration lateWindow) {
+        this.outboxRepository = outboxRepository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeout.toMillis();
+        this.retention = retention;
+        this.purgeIntervalMillis = Math.max(60_000L, retention.toMillis() / 24);
+        this.lateWindowMillis = lateWindow.toMillis();
+        this.gapsSkipped = Counter.builder(GAPS_SKIPPED)
+                .description("Huecos de ID en product_outbox salteados tras gap-timeout")
+                .register(registry);
+        this.lateDelivered = Counter.builder(LATE_EVENTS)
+                .description("Eventos de product_outbox confirmados después de saltear su ID")
+                .tag("result", "delivered")
+                .register(registry);
+        this.lateAbandoned = Counter.builder(LATE_EVENTS)
+                .description("IDs salteados de product_outbox que no aparecieron dentro de late-window")
+                .tag("result", "abandoned")
+                .register(registry);
+    }
+
+    // Con los eventos deshabilitados nadie lee product_outbox (ver ProductReadModel)
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Se llaman en orden desde el hilo del relay: no deben bloquearlo
+    public void addListener(Consumer<List<StockChangeEvent>> listener) {
+        listeners.add(listener);
+    }
+
+    // Filas que confirmaron después de saltear su ID, fuera de orden. También desde el hilo del relay
+    public void addLateListener(Consumer<List<StockChangeEvent>> listener) {
+        lateListeners.add(listener);
+    }
+
+    // Último ID entregado; todo evento con ID mayor todavía no llegó a los suscriptores
+    public long position() {
+        return position;
+    }
+
+    // Una vuelta del relay: lee lo nuevo y entrega la parte consecutiva. Devuelve cuántos eventos entregó.
+    int poll() {
+        List<StockChangeEvent> rows = outboxRepository.findAfter(position, batchSize);
+        List<StockChangeEvent> ready = new ArrayList<>(rows.size());
+        long next = position;
+        for (StockChangeEvent row : rows) {
+            if (row.id() != next + 1 && !gapExpired()) {
+                break;
+            }
+            if (row.id() != next + 1) {
+                gapsSkipped.increment();
+                log.warn("Se saltean los IDs {}..{} de product_outbox tras {} ms sin aparecer",
+                        next + 1, row.id() - 1, gapTimeoutMillis);
+                rememberSkipped(next + 1, row.id() - 1);
+            }
+            gapSinceMillis = -1L;
+            ready.add(row);
+            next = row.id();
+        }
+        if (!ready.isEmpty()) {
+            // La posición se actualiza antes de entregar (ver StockEventStream.subscribe)
+            position = next;
+            listeners.forEach(listener -> listener.accept(ready));
+        }
+        return ready.size();
+    }
+
+    private void rememberSkipped(long from, long to) {
+        if (lateWindowMillis <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        for (long id = Math.max(from, to - MAX_SKIPPED_IDS + 1); id <= to; id++) {
+            skipped.put(id, now);
+        }
+        while (skipped.size() > MAX_SKIPPED_IDS) {
+            skipped.pollFirstEntry();
+            lateAbandoned.increment();
+        }
+    }
+
+    // Busca los IDs salteados (cada gap-timeout) y entrega los que aparecieron. Devuelve cuántos entregó.
+    int recheckSkipped() {
+        long now = clock.millis();
+        if (skipped.isEmpty() || now - lastRecheckMillis < gapTimeoutMillis) {
+            return 0;
+        }
+        lastRecheckMillis = now;
+        int abandoned = 0;
+        for (Iterator<Long> it = skipped.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() >= lateWindowMillis) {
+                it.remove();
+                abandoned++;
+            }
+        }
+        if (abandoned > 0) {
+            lateAbandoned.increment(abandoned);
+            log.warn("Se abandonan {} IDs salteados de product_outbox que no aparecieron en {} ms",
+                    abandoned, lateWindowMillis);
+        }
+        List<StockChangeEvent> late = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(skipped.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            late.addAll(outboxRepository.findByIds(ids.subList(from, Math.min(ids.size(), from + batchSize))));
+        }
+        if (!late.isEmpty()) {
+            late.forEach(event -> skipped.remove(event.id()));
+            lateDelivered.increment(late.size());
+            log.info("Se entregan {} eventos de product_outbox confirmados después de saltear su ID", late.size());
+            List<StockChangeEvent> delivered = List.copyOf(late);
+            lateListeners.forEach(listener -> listener.accept(delivered));
+        }
+        return late.size();
+    }
+
+    private boolean gapExpired() {
+        long now = clock.millis();
+        if (gapSinceMillis < 0) {
+            gapSinceMillis = now;
+        }
+        return now - gapSinceMillis >= gapTimeoutMillis;
+    }
+
+    private void purgeIfDue() {
+        long now = clock.millis();
+        if (now - lastPurgeMillis < purgeIntervalMillis) {
+            return;
+        }
+        lastPurgeMillis = now;
+        int purged = outboxRepository.deleteOlderThan(clock.instant().minus(retention));
+        if (purged > 0) {
+            log.info("Purgados {} eventos de product_outbox anteriores a {}", purged, retention);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                purgeIfDue();
+                recheckSkipped();
+                if (poll() < batchSize) {
+                    LockSupport.parkNanos(pollIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Error leyendo product_outbox; se reintenta", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        // Los suscriptores nuevos reciben solo lo posterior al arranque; lo anterior, con Last-Event-ID
+        position = outboxRepository.maxId();
+        lastPurgeMillis = clock.millis();
+        running = true;
+        worker = new Thread(this::run, "stock-outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
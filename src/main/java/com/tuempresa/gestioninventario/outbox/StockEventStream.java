@@ -0,0 +1,356 @@
+package com.tuempresa.gestioninventario.outbox;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Reparto de los cambios de productos por Server-Sent Events (GET /api/products/stream).
+//
+// Cada suscriptor tiene un filtro opcional (almacén, categoría) y un mapa de pendientes por producto:
+// los cambios que llegan dentro de la ventana de coalescing reemplazan al anterior del mismo producto, y
+// como hay a lo sumo un envío en curso por suscriptor, un cliente lento recibe solo el último estado de
+// cada producto en vez de acumular eventos. El ID de cada evento es el de product_outbox: con
+// Last-Event-ID se reanuda desde la tabla (también coalescido por producto).
+//
+// Las filas que el relay entrega tarde (su transacción confirmó después de saltear el ID) llegan fuera de
+// orden: se envían sin ID, así el Last-Event-ID del cliente no retrocede, y nunca reemplazan a un cambio
+// pendiente más nuevo del mismo producto. Los cambios de un mismo producto se serializan por su fila, así
+// que uno tardío no es anterior a lo ya enviado de ese producto.
+//
+// emitter.send escribe en la respuesta y se bloquea si el cliente no lee. Por eso los envíos no corren en el
+// pool que programa (sender-threads) sino en hilos propios, a lo sumo uno por suscriptor en la práctica (el
+// ping se saltea si hay un envío en curso), y un suscriptor con un envío trabado más de send-timeout se
+// descarta: completeWithError cierra la respuesta y libera el hilo.
+@Component
+public class StockEventStream implements DisposableBean {
+
+    public static final String SUBSCRIBERS = "inventario.stock-events.subscribers";
+    public static final String EVENTS = "inventario.stock-events.events";
+    public static final String STALLED = "inventario.stock-events.subscribers.stalled";
+
+    static final String STOCK_EVENT = "stock";
+    // El outbox ya no tiene los eventos pedidos (purgados, o la base es otra): el cliente debe releer todo
+    static final String RESET_EVENT = "reset";
+    private static final int REPLAY_PAGE_SIZE = 1000;
+    private static final Logger log = LoggerFactory.getLogger(StockEventStream.class);
+
+    private final ProductOutboxRepository outboxRepository;
+    private final StockChangeRelay relay;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService writers;
+    private final long sendTimeoutNanos;
+    private final long coalesceWindowMillis;
+    private final long emitterTimeoutMillis;
+    private final int maxSubscribers;
+    private final Counter sent;
+    private final Counter coalesced;
+    private final Counter stalled;
+
+    @Autowired
+    public StockEventStream(ProductOutboxRepository outboxRepository, StockChangeRelay relay, MeterRegistry registry,
+                            @Value("${inventario.stock-events.coalesce-window:250ms}") Duration coalesceWindow,
+                            @Value("${inventario.stock-events.heartbeat-interval:15s}") Duration heartbeatInterval,
+                            @Value("${inventario.stock-events.emitter-timeout:30m}") Duration emitterTimeout,
+                            @Value("${inventario.stock-events.max-subscribers:1000}") int maxSubscribers,
+                            @Value("${inventario.stock-events.sender-threads:2}") int senderThreads,
+                            @Value("${inventario.stock-events.send-timeout:10s}") Duration sendTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.relay = relay;
+        this.coalesceWindowMillis = coalesceWindow.toMillis();
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("stock-events-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newScheduledThreadPool(senderThreads, threads);
+        CustomizableThreadFactory writerThreads = new CustomizableThreadFactory("stock-events-send-");
+        writerThreads.setDaemon(true);
+        this.writers = Executors.newCachedThreadPool(writerThreads);
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        // Comentario periódico: mantiene viva la conexión en proxies y detecta clientes desconectados
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        long stalledCheckMillis = Math.max(10L, sendTimeout.toMillis() / 4);
+        scheduler.scheduleWithFixedDelay(this::dropStalled, stalledCheckMillis, stalledCheckMillis, TimeUnit.MILLISECONDS);
+
+        this.sent = Counter.builder(EVENTS).tag("outcome", "sent")
+                .description("Eventos de stock enviados a suscriptores SSE").register(registry);
+        this.coalesced = Counter.builder(EVENTS).tag("outcome", "coalesced")
+                .description("Eventos de stock reemplazados por uno más nuevo del mismo producto antes de enviarse")
+                .register(registry);
+        this.stalled = Counter.builder(STALLED)
+                .description("Suscriptores descartados por un envío trabado más de send-timeout")
+                .register(registry);
+        Gauge.builder(SUBSCRIBERS, subscribers, Set::size)
+                .description("Suscriptores conectados a GET /api/products/stream")
+                .register(registry);
+        relay.addListener(this::publish);
+        relay.addLateListener(this::publishLate);
+    }
+
+    // lastEventId nulo: solo eventos nuevos. Con valor: primero lo posterior a ese ID que sigue en el outbox.
+    public SseEmitter subscribe(Long warehouseId, String category, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Se alcanzó el máximo de " + maxSubscribers + " suscriptores.");
+        }
+        SseEmitter emitter = newEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, warehouseId, category);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Registrarse antes de leer la posición del relay: todo evento posterior a ella llega en vivo
+        subscribers.add(subscriber);
+        long upTo = relay.position();
+        Map<Long, StockChangeEvent> replayed = new LinkedHashMap<>();
+        if (lastEventId != null && lastEventId < upTo) {
+            long oldest = outboxRepository.minId();
+            if (oldest == 0L || lastEventId < oldest - 1) {
+                sendReset(subscriber);
+            } else {
+                replayed = replay(subscriber, lastEventId, upTo);
+            }
+        } else if (lastEventId != null && lastEventId > upTo) {
+            sendReset(subscriber);
+        }
+        subscriber.startLive(replayed, upTo);
+        return emitter;
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private Map<Long, StockChangeEvent> replay(Subscriber subscriber, long afterId, long upTo) {
+        Map<Long, StockChangeEvent> latest = new LinkedHashMap<>();
+        long cursor = afterId;
+        while (cursor < upTo) {
+            List<StockChangeEvent> page = outboxRepository.findAfter(cursor, REPLAY_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (StockChangeEvent event : page) {
+                if (event.id() > upTo) {
+                    break;
+                }
+                if (subscriber.matches(event)) {
+                    coalesce(latest, event);
+                }
+                cursor = event.id();
+            }
+            if (page.size() < REPLAY_PAGE_SIZE) {
+                break;
+            }
+        }
+        return latest;
+    }
+
+    // Lo llama el relay, en orden de ID
+    void publish(List<StockChangeEvent> events) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(events);
+        }
+    }
+
+    // Lo llama el relay con las filas confirmadas después de saltear su ID
+    void publishLate(List<StockChangeEvent> events) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerLate(events);
+        }
+    }
+
+    private void coalesce(Map<Long, StockChangeEvent> pending, StockChangeEvent event) {
+        // remove + put: el producto pasa al final, así los envíos siguen el orden del último cambio
+        if (pending.remove(event.productId()) != null) {
+            coalesced.increment();
+        }
+        pending.put(event.productId(), event);
+    }
+
+    private void sendReset(Subscriber subscriber) {
+        subscriber.send(SseEmitter.event().name(RESET_EVENT).data("resync"));
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            // Con un envío en curso la conexión no está ociosa, y el ping solo esperaría detrás de él
+            if (subscriber.sendingSince == 0L) {
+                writers.execute(() -> subscriber.send(SseEmitter.event().comment("ping")));
+            }
+        }
+    }
+
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0L && now - since > sendTimeoutNanos) {
+                stalled.increment();
+                subscriber.drop(new IOException("Envío trabado más de " + sendTimeoutNanos / 1_000_000 + " ms"));
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        writers.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long warehouseId;
+        private final String category;
+        // Protegidos por this
+        private Map<Long, StockChangeEvent> pending = new LinkedHashMap<>();
+        private final Set<Long> late = new HashSet<>(); // IDs de pending entregados tarde: van sin ID
+        private boolean live;      // false mientras se lee el outbox para Last-Event-ID
+        private boolean scheduled; // hay un envío programado o en curso
+        private long skipUpTo;     // eventos ya cubiertos por la reanudación
+        // System.nanoTime() al empezar el envío en curso; 0 si no hay ninguno
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, Long warehouseId, String category) {
+            this.emitter = emitter;
+            this.warehouseId = warehouseId;
+            this.category = category;
+        }
+
+        boolean matches(StockChangeEvent event) {
+            return (warehouseId == null || warehouseId.equals(event.warehouseId()))
+                    && (category == null || category.equalsIgnoreCase(Objects.toString(event.category(), "")));
+        }
+
+        synchronized void offer(List<StockChangeEvent> events) {
+            for (StockChangeEvent event : events) {
+                if (event.id() > skipUpTo && matches(event)) {
+                    coalesce(pending, event);
+                }
+            }
+            scheduleFlush(coalesceWindowMillis);
+        }
+
+        synchronized void offerLate(List<StockChangeEvent> events) {
+            for (StockChangeEvent event : events) {
+                if (matches(event) && coalesceLate(pending, event)) {
+                    late.add(event.id());
+                }
+            }
+            scheduleFlush(coalesceWindowMillis);
+        }
+
+        private boolean coalesceLate(Map<Long, StockChangeEvent> target, StockChangeEvent event) {
+            StockChangeEvent current = target.get(event.productId());
+            if (current != null && current.id() > event.id()) {
+                return false;
+            }
+            coalesce(target, event);
+            return true;
+        }
+
+        synchronized void startLive(Map<Long, StockChangeEvent> replayed, long upTo) {
+            Map<Long, StockChangeEvent> merged = replayed;
+            for (StockChangeEvent event : pending.values()) {
+                if (late.contains(event.id())) {
+                    // Tardío: con un ID anterior a upTo, pero no estaba en el outbox cuando se releyó
+                    if (!coalesceLate(merged, event)) {
+                        late.remove(event.id());
+                    }
+                } else if (event.id() > upTo) {
+                    coalesce(merged, event);
+                }
+            }
+            pending = merged;
+            skipUpTo = upTo;
+            live = true;
+            scheduleFlush(0L);
+        }
+
+        private void scheduleFlush(long delayMillis) {
+            if (live && !scheduled && !pending.isEmpty()) {
+                scheduled = true;
+                scheduler.schedule(() -> writers.execute(this::flush), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            List<StockChangeEvent> batch;
+            Set<Long> lateIds;
+            synchronized (this) {
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                // También descarta los IDs de eventos tardíos que reemplazó uno más nuevo
+                lateIds = Set.copyOf(late);
+                late.clear();
+            }
+            for (StockChangeEvent event : batch) {
+                SseEmitter.SseEventBuilder builder = SseEmitter.event();
+                if (!lateIds.contains(event.id())) {
+                    builder.id(Long.toString(event.id()));
+                }
+                if (!send(builder.name(STOCK_EVENT).data(event))) {
+                    return;
+                }
+                sent.increment();
+            }
+            synchronized (this) {
+                // Lo que llegó durante el envío espera otra ventana completa y se coalesce mientras tanto
+                scheduled = false;
+                scheduleFlush(coalesceWindowMillis);
+            }
+        }
+
+        boolean send(SseEmitter.SseEventBuilder event) {
+            sendingSince = System.nanoTime() | 1L; // nunca 0
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emitter ya completado
+                drop(e);
+                return false;
+            } finally {
+                sendingSince = 0L;
+            }
+        }
+
+        void drop(Exception cause) {
+            if (subscribers.remove(this)) {
+                log.debug("Se descarta un suscriptor de eventos de stock: {}", cause.getMessage());
+                emitter.completeWithError(cause);
+            }
+        }
+    }
+}
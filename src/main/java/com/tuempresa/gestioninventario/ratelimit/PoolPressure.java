@@ -0,0 +1,53 @@
+package com.tuempresa.gestioninventario.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Espera reciente para obtener una conexión del pool JDBC: media móvil exponencial (peso 1/8) de lo que
+// tarda cada getConnection, medido por PoolWaitTrackingDataSource. Sin muestras durante STALE_NANOS la
+// espera vuelve a cero: sin tráfico no hay presión.
+@Component
+public class PoolPressure {
+
+    public static final String POOL_WAIT = "inventario.ratelimit.pool.wait";
+
+    private static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong averageWaitNanos = new AtomicLong();
+    private volatile long lastSampleNanos = System.nanoTime() - STALE_NANOS;
+
+    @Autowired
+    public PoolPressure(MeterRegistry registry) {
+        Gauge.builder(POOL_WAIT, this, pressure -> pressure.waitNanos() / 1_000_000.0)
+                .description("Espera media reciente para obtener una conexión JDBC")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    PoolPressure() {
+    }
+
+    public void recordWait(long waitNanos) {
+        long now = System.nanoTime();
+        boolean stale = now - lastSampleNanos > STALE_NANOS;
+        lastSampleNanos = now;
+        long previous;
+        long next;
+        do {
+            previous = averageWaitNanos.get();
+            next = stale ? waitNanos : previous + ((waitNanos - previous) >> 3);
+        } while (!averageWaitNanos.compareAndSet(previous, next));
+    }
+
+    public long waitNanos() {
+        if (System.nanoTime() - lastSampleNanos > STALE_NANOS) {
+            return 0L;
+        }
+        return averageWaitNanos.get();
+    }
+}
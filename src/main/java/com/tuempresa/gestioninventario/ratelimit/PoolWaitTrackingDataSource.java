@@ -0,0 +1,50 @@
+package com.tuempresa.gestioninventario.ratelimit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Mide cuánto tarda el pool en entregar cada conexión y se lo pasa a PoolPressure.
+// Solo intercepta getConnection; unwrap sigue llegando al pool (Hikari) para sus métricas y health.
+public class PoolWaitTrackingDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<PoolPressure> pressureProvider;
+    private volatile PoolPressure pressure;
+
+    public PoolWaitTrackingDataSource(DataSource target, ObjectProvider<PoolPressure> pressureProvider) {
+        super(target);
+        this.pressureProvider = pressureProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        record(System.nanoTime() - start);
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        record(System.nanoTime() - start);
+        return connection;
+    }
+
+    private void record(long waitNanos) {
+        PoolPressure target = pressure;
+        if (target == null) {
+            // El DataSource se crea antes que el registry de métricas: se resuelve en la primera conexión
+            target = pressureProvider.getIfAvailable();
+            if (target == null) {
+                return;
+            }
+            pressure = target;
+        }
+        target.recordWait(waitNanos);
+    }
+}
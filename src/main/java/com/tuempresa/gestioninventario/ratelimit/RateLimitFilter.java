@@ -0,0 +1,55 @@
+package com.tuempresa.gestioninventario.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Aplica RateLimiter a las rutas con presupuesto. Va después de la autorización, así que solo cuenta
+// requests de clientes autenticados y con permiso (la clave es el username de la autenticación).
+//   - presupuesto agotado: 429 con Retry-After = segundos hasta el próximo permiso
+//   - descarga por presión del pool: 503 con Retry-After: 1
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        RateLimitRoute route = authentication == null ? null : RateLimitRoute.match(request.getMethod(), pathOf(request));
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long result = rateLimiter.acquire(route, authentication.getName());
+        if (result == RateLimiter.ALLOWED) {
+            chain.doFilter(request, response);
+        } else if (result == RateLimiter.SHED) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servicio saturado, reintente más tarde.");
+        } else {
+            long retryAfterSeconds = Math.max(1, (result + 999_999_999L) / 1_000_000_000L);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Límite de requests excedido para " + route.key() + ".");
+        }
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        String contextPath = request.getContextPath();
+        String uri = request.getRequestURI();
+        return contextPath.isEmpty() ? uri : uri.substring(contextPath.length());
+    }
+}
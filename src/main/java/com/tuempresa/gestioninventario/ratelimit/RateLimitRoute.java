@@ -0,0 +1,72 @@
+package com.tuempresa.gestioninventario.ratelimit;
+
+// Rutas con presupuesto propio por cliente, con su prioridad ante la descarga de carga.
+// Las salidas de stock son el picking de los almacenes: nunca se descartan por presión del pool,
+// solo las limita el presupuesto del cliente.
+public enum RateLimitRoute {
+
+    STOCK_EXIT("stock-exit", Priority.CRITICAL, 50, 100),
+    STOCK_ENTRY("stock-entry", Priority.NORMAL, 50, 100),
+    PRODUCT_WRITE("product-write", Priority.LOW, 10, 20),
+    USER_BATCH("user-batch", Priority.LOW, 1, 2);
+
+    public enum Priority {
+        CRITICAL, NORMAL, LOW
+    }
+
+    private static final String PRODUCTS = "/api/products";
+    private static final String USER_BATCH_PATH = "/api/users/batch";
+
+    private final String key;
+    private final Priority priority;
+    private final double defaultPermitsPerSecond;
+    private final int defaultBurst;
+
+    RateLimitRoute(String key, Priority priority, double defaultPermitsPerSecond, int defaultBurst) {
+        this.key = key;
+        this.priority = priority;
+        this.defaultPermitsPerSecond = defaultPermitsPerSecond;
+        this.defaultBurst = defaultBurst;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public Priority priority() {
+        return priority;
+    }
+
+    double defaultPermitsPerSecond() {
+        return defaultPermitsPerSecond;
+    }
+
+    int defaultBurst() {
+        return defaultBurst;
+    }
+
+    // Ruta limitada para el método y el path (sin context path), o null si la request no tiene presupuesto.
+    // Solo compara cadenas: no hay regex ni objetos nuevos en el camino de cada request.
+    public static RateLimitRoute match(String method, String path) {
+        if (path.startsWith(PRODUCTS)) {
+            switch (method) {
+                case "PATCH":
+                    if (path.endsWith("/exit")) {
+                        return STOCK_EXIT;
+                    }
+                    if (path.endsWith("/entry")) {
+                        return STOCK_ENTRY;
+                    }
+                    return null;
+                case "POST", "PUT", "DELETE":
+                    return PRODUCT_WRITE;
+                default:
+                    return null;
+            }
+        }
+        if ("POST".equals(method) && path.equals(USER_BATCH_PATH)) {
+            return USER_BATCH;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,161 @@
+package com.tuempresa.gestioninventario.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+// Limitador por cliente autenticado y ruta (RateLimitRoute), más descarga de carga según la espera del pool.
+//
+// Cada cliente tiene un AtomicLongArray con un casillero por ruta. El token bucket se implementa como GCRA:
+// el casillero guarda el "instante teórico de llegada" (TAT) de la próxima request y cada request lo corre
+// un intervalo (1 / permisos por segundo); se acepta si el TAT no adelanta a "ahora" en más de la ráfaga.
+// Es un token bucket exacto con un solo long de estado: un CAS por request, sin locks y sin objetos nuevos
+// salvo el primer acceso de cada cliente.
+//
+// Descarga de carga: si la espera reciente del pool (PoolPressure) supera el umbral se rechazan las rutas
+// LOW; si supera el doble, también las NORMAL. Las CRITICAL (salidas de stock) solo tienen su presupuesto.
+@Component
+public class RateLimiter {
+
+    public static final String REJECTIONS = "inventario.ratelimit.rejections";
+
+    // Resultado de acquire: ALLOWED, SHED o los nanosegundos a esperar (> 0) si se agotó el presupuesto
+    public static final long ALLOWED = 0L;
+    public static final long SHED = -1L;
+
+    private static final RateLimitRoute[] ROUTES = RateLimitRoute.values();
+
+    private final PoolPressure poolPressure;
+    private final LongSupplier nanoClock;
+    private final long[] intervalNanos = new long[ROUTES.length];
+    private final long[] toleranceNanos = new long[ROUTES.length];
+    private final long shedThresholdNanos;
+    private final int maxClients;
+    private final Counter[] rateLimited = new Counter[ROUTES.length];
+    private final Counter[] shed = new Counter[ROUTES.length];
+    private final Map<String, AtomicLongArray> bucketsByClient = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimiter(PoolPressure poolPressure, MeterRegistry registry, Environment environment,
+                       @Value("${inventario.ratelimit.shed.pool-wait-threshold:50ms}") Duration shedThreshold,
+                       @Value("${inventario.ratelimit.max-clients:10000}") int maxClients) {
+        this(poolPressure, registry, System::nanoTime, shedThreshold, maxClients,
+                route -> environment.getProperty("inventario.ratelimit.routes." + route.key() + ".permits-per-second",
+                        Double.class, route.defaultPermitsPerSecond()),
+                route -> environment.getProperty("inventario.ratelimit.routes." + route.key() + ".burst",
+                        Integer.class, route.defaultBurst()));
+    }
+
+    RateLimiter(PoolPressure poolPressure, MeterRegistry registry, LongSupplier nanoClock, Duration shedThreshold,
+                int maxClients, ToDoubleFunction<RateLimitRoute> permitsPerSecond,
+                ToIntFunction<RateLimitRoute> burst) {
+        this.poolPressure = poolPressure;
+        this.nanoClock = nanoClock;
+        this.shedThresholdNanos = shedThreshold.toNanos();
+        this.maxClients = maxClients;
+        for (RateLimitRoute route : ROUTES) {
+            double permits = permitsPerSecond.applyAsDouble(route);
+            int routeBurst = burst.applyAsInt(route);
+            if (permits <= 0 || routeBurst < 1) {
+                throw new IllegalArgumentException("Presupuesto inválido para la ruta " + route.key()
+                        + ": permisos por segundo > 0 y ráfaga >= 1.");
+            }
+            intervalNanos[route.ordinal()] = (long) (1_000_000_000L / permits);
+            toleranceNanos[route.ordinal()] = (routeBurst - 1) * intervalNanos[route.ordinal()];
+            rateLimited[route.ordinal()] = rejectionCounter(registry, route, "rate_limited");
+            shed[route.ordinal()] = rejectionCounter(registry, route, "shed");
+        }
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, RateLimitRoute route, String reason) {
+        return Counter.builder(REJECTIONS)
+                .description("Requests rechazadas por el limitador")
+                .tag("route", route.key())
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    public long acquire(RateLimitRoute route, String client) {
+        int slot = route.ordinal();
+        if (shouldShed(route.priority())) {
+            shed[slot].increment();
+            return SHED;
+        }
+
+        AtomicLongArray buckets = bucketsFor(client);
+        long interval = intervalNanos[slot];
+        long tolerance = toleranceNanos[slot];
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long tat = buckets.get(slot);
+            long start = tat - now > 0 ? tat : now; // bucket lleno: se parte de "ahora"
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                rateLimited[slot].increment();
+                return wait;
+            }
+            if (buckets.compareAndSet(slot, tat, start + interval)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    private boolean shouldShed(RateLimitRoute.Priority priority) {
+        if (priority == RateLimitRoute.Priority.CRITICAL) {
+            return false;
+        }
+        long wait = poolPressure.waitNanos();
+        return priority == RateLimitRoute.Priority.LOW ? wait > shedThresholdNanos : wait > 2 * shedThresholdNanos;
+    }
+
+    private AtomicLongArray bucketsFor(String client) {
+        AtomicLongArray buckets = bucketsByClient.get(client);
+        if (buckets != null) {
+            return buckets;
+        }
+        if (bucketsByClient.size() >= maxClients) {
+            evictIdleClients();
+        }
+        return bucketsByClient.computeIfAbsent(client, key -> newBuckets());
+    }
+
+    private AtomicLongArray newBuckets() {
+        AtomicLongArray buckets = new AtomicLongArray(ROUTES.length);
+        long now = nanoClock.getAsLong();
+        for (int i = 0; i < ROUTES.length; i++) {
+            buckets.set(i, now); // TAT = ahora: todas las rutas arrancan con la ráfaga completa
+        }
+        return buckets;
+    }
+
+    // Un cliente cuyo TAT ya pasó en todas las rutas tiene los buckets llenos: olvidarlo no cambia nada
+    private void evictIdleClients() {
+        long now = nanoClock.getAsLong();
+        bucketsByClient.values().removeIf(buckets -> {
+            for (int i = 0; i < buckets.length(); i++) {
+                if (buckets.get(i) - now > 0) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        if (bucketsByClient.size() >= maxClients) {
+            bucketsByClient.clear();
+        }
+    }
+
+    int trackedClients() {
+        return bucketsByClient.size();
+    }
+}
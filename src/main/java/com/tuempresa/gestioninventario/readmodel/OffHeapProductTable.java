@@ -0,0 +1,451 @@
+package com.tuempresa.gestioninventario.readmodel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+
+// Tabla de productos fuera del heap: tres ByteBuffer directos y unos pocos campos. Millones de productos
+// son un puñado de objetos para el GC, en lugar de millones de Product, BigDecimal y String.
+//
+//   index:   direccionamiento abierto con sondeo lineal, slots de 16 bytes {id long, registro int, relleno}.
+//            id 0 = slot vacío, -1 = borrado (los IDs de producto son positivos). Se rehace al superar
+//            el 60% de ocupación contando los borrados.
+//   records: registros fijos de 40 bytes (ver los offsets R_*), reutilizados por una lista de libres
+//            enlazada dentro de los mismos registros.
+//   strings: pool de textos UTF-8 con prefijo de largo (int). Nombre y descripción se agregan al final y
+//            su versión anterior queda como basura hasta compactar; las categorías son pocas y se
+//            comparten (diccionario en el heap).
+//
+// Las escrituras toman el lock exclusivo; las lecturas son optimistas (StampedLock) y reintentan con el
+// lock de lectura si una escritura se cruzó. Límites: 2 GB por buffer (unos 50 millones de registros) y
+// la memoria directa de la JVM (-XX:MaxDirectMemorySize, por defecto igual a -Xmx).
+public final class OffHeapProductTable {
+
+    static final int SLOT_BYTES = 16;
+    static final int RECORD_BYTES = 40;
+
+    private static final int R_ID = 0;
+    private static final int R_PRICE_CENTS = 8;
+    private static final int R_WAREHOUSE = 16;
+    private static final int R_QUANTITY = 24;
+    private static final int R_NAME = 28;
+    private static final int R_DESCRIPTION = 32;
+    private static final int R_CATEGORY = 36;
+
+    private static final long EMPTY = 0L;
+    private static final long DELETED = -1L;
+    private static final int NO_STRING = -1;
+    private static final int NO_RECORD = -1;
+    private static final int MAX_RECORDS = Integer.MAX_VALUE / RECORD_BYTES;
+    private static final int MIN_POOL_BYTES = 64 * 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    private ByteBuffer index;
+    private int mask;
+    private int filledSlots; // ocupados + borrados
+    private ByteBuffer records;
+    private int recordHighWater;
+    private int freeRecord = NO_RECORD;
+    private ByteBuffer strings;
+    private int stringsUsed;
+    private long garbageBytes;
+    private Map<String, Integer> categories = new HashMap<>();
+    private int size;
+
+    public OffHeapProductTable(int expectedProducts) {
+        if (expectedProducts <= 0) {
+            throw new IllegalArgumentException("La cantidad esperada de productos debe ser positiva.");
+        }
+        int slots = Integer.highestOneBit(Math.max(16, expectedProducts * 2 - 1)) << 1;
+        this.index = ByteBuffer.allocateDirect(Math.multiplyExact(slots, SLOT_BYTES));
+        this.mask = slots - 1;
+        this.records = ByteBuffer.allocateDirect(Math.multiplyExact(Math.min(expectedProducts, MAX_RECORDS), RECORD_BYTES));
+        this.strings = ByteBuffer.allocateDirect(MIN_POOL_BYTES);
+    }
+
+    // --- Lecturas ---
+
+    // null si el producto no está
+    public ProductRecord get(long id) {
+        if (id <= 0) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                ProductRecord record = read(id);
+                if (lock.validate(stamp)) {
+                    return record;
+                }
+            } catch (RuntimeException e) {
+                // Offsets de una escritura a medias: se repite con el lock de lectura
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Memoria directa reservada por los tres buffers
+    public long offHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) index.capacity() + records.capacity() + strings.capacity();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private ProductRecord read(long id) {
+        ByteBuffer index = this.index;
+        ByteBuffer records = this.records;
+        ByteBuffer strings = this.strings;
+        int record = findRecord(index, this.mask, id);
+        if (record == NO_RECORD) {
+            return null;
+        }
+        int base = record * RECORD_BYTES;
+        long priceCents = records.getLong(base + R_PRICE_CENTS);
+        long warehouseId = records.getLong(base + R_WAREHOUSE);
+        int quantity = records.getInt(base + R_QUANTITY);
+        int name = records.getInt(base + R_NAME);
+        int description = records.getInt(base + R_DESCRIPTION);
+        int category = records.getInt(base + R_CATEGORY);
+        return new ProductRecord(id, decode(strings, name), decode(strings, description), priceCents, quantity,
+                decode(strings, category), warehouseId);
+    }
+
+    // --- Escrituras ---
+
+    // Alta o reemplazo completo del producto. warehouseId 0 si no tiene almacén.
+    public void put(long id, String name, String description, long priceCents, int quantity, String category,
+                    long warehouseId) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID del producto debe ser un número positivo.");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(id);
+            int record;
+            if (index.getLong(slot * SLOT_BYTES) == id) {
+                record = index.getInt(slot * SLOT_BYTES + 8);
+                int base = record * RECORD_BYTES;
+                discard(records.getInt(base + R_NAME));
+                discard(records.getInt(base + R_DESCRIPTION));
+            } else {
+                record = allocateRecord();
+                if (index.getLong(slot * SLOT_BYTES) == EMPTY) {
+                    filledSlots++;
+                }
+                index.putLong(slot * SLOT_BYTES, id);
+                index.putInt(slot * SLOT_BYTES + 8, record);
+                size++;
+            }
+            int base = record * RECORD_BYTES;
+            records.putLong(base + R_ID, id);
+            records.putLong(base + R_PRICE_CENTS, priceCents);
+            records.putLong(base + R_WAREHOUSE, warehouseId);
+            records.putInt(base + R_QUANTITY, quantity);
+            // Agregar un texto puede compactar el pool: cada offset se escribe apenas se obtiene, así la
+            // compactación copia lo ya escrito y no los textos viejos (ya contados como basura)
+            records.putInt(base + R_NAME, NO_STRING);
+            records.putInt(base + R_DESCRIPTION, NO_STRING);
+            records.putInt(base + R_CATEGORY, NO_STRING);
+            records.putInt(base + R_NAME, append(name));
+            records.putInt(base + R_DESCRIPTION, append(description));
+            records.putInt(base + R_CATEGORY, category(category));
+            if (filledSlots > (mask + 1) * 6L / 10) {
+                rehash();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long id) {
+        if (id <= 0) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(id);
+            if (index.getLong(slot * SLOT_BYTES) != id) {
+                return false;
+            }
+            index.putLong(slot * SLOT_BYTES, DELETED);
+            freeRecord(index.getInt(slot * SLOT_BYTES + 8));
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Borra los productos del almacén (recorre todos los registros); devuelve cuántos
+    public int removeWarehouse(long warehouseId) {
+        long stamp = lock.writeLock();
+        try {
+            int removed = 0;
+            for (int record = 0; record < recordHighWater; record++) {
+                int base = record * RECORD_BYTES;
+                long id = records.getLong(base + R_ID);
+                if (id > 0 && records.getLong(base + R_WAREHOUSE) == warehouseId) {
+                    index.putLong(findSlot(id) * SLOT_BYTES, DELETED);
+                    freeRecord(record);
+                    size--;
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Borra los productos cuyo ID cumple la condición (recorre todos los registros); devuelve cuántos
+    public int removeIf(LongPredicate condition) {
+        long stamp = lock.writeLock();
+        try {
+            int removed = 0;
+            for (int record = 0; record < recordHighWater; record++) {
+                long id = records.getLong(record * RECORD_BYTES + R_ID);
+                if (id > 0 && condition.test(id)) {
+                    index.putLong(findSlot(id) * SLOT_BYTES, DELETED);
+                    freeRecord(record);
+                    size--;
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- Índice ---
+
+    // Registro del id, o NO_RECORD. También lo usan las lecturas optimistas: acotado a una vuelta
+    private static int findRecord(ByteBuffer index, int mask, long id) {
+        int slot = hash(id) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long key = index.getLong(slot * SLOT_BYTES);
+            if (key == id) {
+                return index.getInt(slot * SLOT_BYTES + 8);
+            }
+            if (key == EMPTY) {
+                return NO_RECORD;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_RECORD;
+    }
+
+    // Slot del id si está; si no, el primero reutilizable (borrado o vacío) de su secuencia de sondeo
+    private int findSlot(long id) {
+        int slot = hash(id) & mask;
+        int firstDeleted = -1;
+        while (true) {
+            long key = index.getLong(slot * SLOT_BYTES);
+            if (key == id) {
+                return slot;
+            }
+            if (key == EMPTY) {
+                return firstDeleted >= 0 ? firstDeleted : slot;
+            }
+            if (key == DELETED && firstDeleted < 0) {
+                firstDeleted = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Con sharding los IDs avanzan de a id-stride: sin mezclar los bits caerían todos en pocos slots
+    private static int hash(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    // Se duplica si los vivos pasan del 30% de los slots; si no, solo se descartan los borrados
+    private void rehash() {
+        int slots = mask + 1;
+        int newSlots = size * 2L > slots * 6L / 10 ? Math.multiplyExact(slots, 2) : slots;
+        ByteBuffer rebuilt = ByteBuffer.allocateDirect(Math.multiplyExact(newSlots, SLOT_BYTES));
+        int newMask = newSlots - 1;
+        for (int slot = 0; slot < slots; slot++) {
+            long key = index.getLong(slot * SLOT_BYTES);
+            if (key > 0) {
+                int target = hash(key) & newMask;
+                while (rebuilt.getLong(target * SLOT_BYTES) != EMPTY) {
+                    target = (target + 1) & newMask;
+                }
+                rebuilt.putLong(target * SLOT_BYTES, key);
+                rebuilt.putInt(target * SLOT_BYTES + 8, index.getInt(slot * SLOT_BYTES + 8));
+            }
+        }
+        index = rebuilt;
+        mask = newMask;
+        filledSlots = size;
+    }
+
+    // --- Registros ---
+
+    // Los registros libres se encadenan por el campo de precio; su ID queda en -1
+    private int allocateRecord() {
+        if (freeRecord != NO_RECORD) {
+            int record = freeRecord;
+            freeRecord = (int) records.getLong(record * RECORD_BYTES + R_PRICE_CENTS);
+            return record;
+        }
+        if ((recordHighWater + 1L) * RECORD_BYTES > records.capacity()) {
+            if (recordHighWater >= MAX_RECORDS) {
+                throw new IllegalStateException("La tabla de productos fuera del heap está llena (" + MAX_RECORDS + ").");
+            }
+            int capacity = (int) Math.min(MAX_RECORDS, Math.max(16L, recordHighWater * 2L));
+            records = grow(records, capacity * RECORD_BYTES);
+        }
+        return recordHighWater++;
+    }
+
+    private void freeRecord(int record) {
+        int base = record * RECORD_BYTES;
+        discard(records.getInt(base + R_NAME));
+        discard(records.getInt(base + R_DESCRIPTION));
+        records.putLong(base + R_ID, DELETED);
+        records.putLong(base + R_PRICE_CENTS, freeRecord);
+        freeRecord = record;
+    }
+
+    // --- Pool de textos ---
+
+    private static String decode(ByteBuffer strings, int offset) {
+        if (offset == NO_STRING) {
+            return null;
+        }
+        int length = strings.getInt(offset);
+        if (length < 0 || length > strings.capacity() - offset - 4) {
+            throw new IllegalStateException("Offset de texto inválido: " + offset);
+        }
+        byte[] bytes = new byte[length];
+        strings.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void discard(int offset) {
+        if (offset != NO_STRING) {
+            garbageBytes += 4L + strings.getInt(offset);
+        }
+    }
+
+    private int append(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        reserve(4 + bytes.length);
+        int offset = stringsUsed;
+        strings.putInt(offset, bytes.length);
+        strings.put(offset + 4, bytes);
+        stringsUsed += 4 + bytes.length;
+        return offset;
+    }
+
+    private int category(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer offset = categories.get(value);
+        if (offset == null) {
+            offset = append(value);
+            categories.put(value, offset);
+        }
+        return offset;
+    }
+
+    private void reserve(int bytes) {
+        if ((long) stringsUsed + bytes <= strings.capacity()) {
+            return;
+        }
+        long live = stringsUsed - garbageBytes;
+        long needed = live + bytes;
+        if (needed > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("El pool de textos fuera del heap superó los 2 GB.");
+        }
+        // Se compacta si al menos la mitad es basura; si no, se duplica (y se compacta de paso)
+        long capacity = garbageBytes * 2 >= stringsUsed ? strings.capacity() : strings.capacity() * 2L;
+        while (capacity < needed) {
+            capacity *= 2;
+        }
+        compact((int) Math.min(capacity, Integer.MAX_VALUE - 8));
+    }
+
+    // Copia a un pool nuevo solo los textos de registros vivos y rehace el diccionario de categorías
+    private void compact(int capacity) {
+        ByteBuffer old = strings;
+        strings = ByteBuffer.allocateDirect(Math.max(MIN_POOL_BYTES, capacity));
+        stringsUsed = 0;
+        garbageBytes = 0;
+        categories = new HashMap<>();
+        Map<Integer, Integer> movedCategories = new HashMap<>();
+        for (int record = 0; record < recordHighWater; record++) {
+            int base = record * RECORD_BYTES;
+            if (records.getLong(base + R_ID) <= 0) {
+                continue;
+            }
+            records.putInt(base + R_NAME, copy(old, records.getInt(base + R_NAME)));
+            records.putInt(base + R_DESCRIPTION, copy(old, records.getInt(base + R_DESCRIPTION)));
+            int category = records.getInt(base + R_CATEGORY);
+            if (category != NO_STRING) {
+                Integer moved = movedCategories.get(category);
+                if (moved == null) {
+                    moved = copy(old, category);
+                    movedCategories.put(category, moved);
+                    categories.put(decode(strings, moved), moved);
+                }
+                records.putInt(base + R_CATEGORY, moved);
+            }
+        }
+    }
+
+    private int copy(ByteBuffer from, int offset) {
+        if (offset == NO_STRING) {
+            return NO_STRING;
+        }
+        int length = 4 + from.getInt(offset);
+        int target = stringsUsed;
+        strings.put(target, from, offset, length);
+        stringsUsed += length;
+        return target;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        grown.put(0, buffer, 0, buffer.capacity());
+        return grown;
+    }
+
+    // Un producto leído de la tabla; el precio en centavos (price tiene escala 2 en la base)
+    public record ProductRecord(long id, String name, String description, long priceCents, int quantity,
+                                String category, long warehouseId) {
+    }
+}
@@ -0,0 +1,434 @@
+package com.tuempresa.gestioninventario.readmodel;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.money.Money;
+import com.tuempresa.gestioninventario.outbox.StockChangeRelay;
+import com.tuempresa.gestioninventario.readmodel.OffHeapProductTable.ProductRecord;
+import com.tuempresa.gestioninventario.repository.ProductReadModelRepository;
+import com.tuempresa.gestioninventario.service.CatalogVersions;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+// Modelo de lectura de productos fuera del heap (opcional, inventario.read-model.enabled=true) para
+// GET /api/products/{id}: responde desde OffHeapProductTable sin JPA ni base. Pensado para las
+// instancias que atienden los puntos de venta, donde tener millones de Product en caché cuesta gigas
+// de heap y pausas largas de GC.
+//
+// Al arrancar un hilo propio carga todos los productos por JDBC (o de cada shard); hasta terminar,
+// y ante un ID que no está, ProductService sigue leyendo de la base. Se mantiene al día por dos vías:
+//
+//   - Escrituras de esta instancia (ProductService, CycleCountService): se aplican después del commit.
+//     Se registran antes que CatalogVersions, así nadie recibe el ETag nuevo con el cuerpo viejo.
+//   - Escrituras de otras instancias: por los eventos de product_outbox que entrega StockChangeRelay,
+//     también los tardíos (ver addLateListener). Sin inventario.stock-events.enabled no arranca. Los IDs
+//     se releen de la base en el hilo propio, así que el último estado gana aunque los eventos lleguen
+//     tarde o repetidos. Recién después de aplicarlos se avisa a CatalogVersions (que, con el modelo
+//     habilitado, no escucha al relay por su cuenta) para que el ETag no se adelante al cuerpo.
+//   - Reconciliación cada rescan-interval: relee todos los productos y quita los que ya no existen.
+//     Corrige lo que el relay no entregó (una transacción que confirmó pasado late-window) e invalida
+//     los ETag de todos los productos.
+//
+// Los almacenes (pocos) se guardan en el heap, se actualizan con WarehouseService y se releen cada
+// warehouse-refresh para ver los cambios de otras instancias; si cambiaron, se invalidan los ETag de
+// los productos (se serializan con su almacén).
+@Component
+public class ProductReadModel implements SmartLifecycle {
+
+    public static final String PRODUCTS = "inventario.read-model.products";
+    public static final String OFF_HEAP_BYTES = "inventario.read-model.off-heap-bytes";
+    public static final String LOOKUPS = "inventario.read-model.lookups";
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReadModel.class);
+
+    private final ProductReadModelRepository repository;
+    private final ShardedProductStore shardedStore;
+    private final StockChangeRelay relay;
+    private final CatalogVersions catalogVersions;
+    private final boolean enabled;
+    private final long warehouseRefreshMillis;
+    private final long rescanMillis;
+    private final OffHeapProductTable table;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Map<Long, Warehouse> warehouses = Map.of();
+    private volatile boolean loaded;
+    // IDs escritos por esta instancia mientras dura la carga: la carga no los pisa con su lectura anterior
+    private Set<Long> writtenDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private ScheduledExecutorService worker;
+
+    @Autowired
+    public ProductReadModel(ProductReadModelRepository repository, ShardedProductStore shardedStore,
+                            StockChangeRelay relay, CatalogVersions catalogVersions, MeterRegistry registry,
+                            @Value("${inventario.read-model.enabled:false}") boolean enabled,
+                            @Value("${inventario.read-model.expected-products:1000000}") int expectedProducts,
+                            @Value("${inventario.read-model.warehouse-refresh:1m}") Duration warehouseRefresh,
+                            @Value("${inventario.read-model.rescan-interval:1h}") Duration rescanInterval) {
+        if (enabled && !relay.isEnabled()) {
+            throw new IllegalStateException("inventario.read-model.enabled requiere inventario.stock-events.enabled:"
+                    + " sin los eventos de product_outbox no ve las escrituras de otras instancias.");
+        }
+        this.repository = repository;
+        this.shardedStore = shardedStore;
+        this.relay = relay;
+        this.catalogVersions = catalogVersions;
+        this.enabled = enabled;
+        this.warehouseRefreshMillis = warehouseRefresh.toMillis();
+        this.rescanMillis = rescanInterval.toMillis();
+        // Deshabilitado no reserva memoria directa
+        this.table = enabled ? new OffHeapProductTable(expectedProducts) : null;
+        this.hits = Counter.builder(LOOKUPS)
+                .description("Lecturas de productos por ID respondidas por el modelo de lectura")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder(LOOKUPS)
+                .description("Lecturas de productos por ID que siguieron a la base (sin cargar o ID ausente)")
+                .tag("result", "miss")
+                .register(registry);
+        if (enabled) {
+            Gauge.builder(PRODUCTS, table, OffHeapProductTable::size)
+                    .description("Productos en el modelo de lectura fuera del heap")
+                    .register(registry);
+            Gauge.builder(OFF_HEAP_BYTES, table, OffHeapProductTable::offHeapBytes)
+                    .description("Memoria directa reservada por el modelo de lectura")
+                    .baseUnit("bytes")
+                    .register(registry);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Vacío si está deshabilitado, si todavía carga o si el ID no está: quien llama sigue a la base
+    public Optional<Product> find(long id) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        ProductRecord record = table.get(id);
+        if (record == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(toProduct(record));
+    }
+
+    // --- Escrituras de esta instancia ---
+
+    // Los valores se toman ahora (dentro de la transacción) y se aplican después del commit
+    public void productChanged(Product product, Long warehouseId) {
+        if (!enabled || product == null || product.getId() == null) {
+            return;
+        }
+        ProductRecord record = new ProductRecord(product.getId(), product.getName(), product.getDescription(),
+                product.getPriceMoney().cents(), product.getQuantity(), product.getCategory(),
+                warehouseId == null ? 0L : warehouseId);
+        afterCommit(() -> applyLocal(record.id(), () -> put(record)));
+    }
+
+    public void productRemoved(Long productId) {
+        if (!enabled || productId == null) {
+            return;
+        }
+        afterCommit(() -> applyLocal(productId, () -> table.remove(productId)));
+    }
+
+    public void warehouseChanged(Warehouse warehouse) {
+        if (!enabled || warehouse == null || warehouse.getId() == null) {
+            return;
+        }
+        Warehouse copy = new Warehouse(warehouse.getId(), warehouse.getName(), warehouse.getLocationDetails(), null);
+        afterCommit(() -> {
+            synchronized (this) {
+                Map<Long, Warehouse> updated = new HashMap<>(warehouses);
+                updated.put(copy.getId(), copy);
+                warehouses = Map.copyOf(updated);
+            }
+        });
+    }
+
+    // JPA borra los productos del almacén junto con él (CascadeType.ALL), sin pasar por ProductService
+    public void warehouseRemoved(Long warehouseId) {
+        if (!enabled || warehouseId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                Map<Long, Warehouse> updated = new HashMap<>(warehouses);
+                updated.remove(warehouseId);
+                warehouses = Map.copyOf(updated);
+                table.removeWarehouse(warehouseId);
+            }
+        });
+    }
+
+    // Corre después del commit: una falla no puede llegar a quien hizo la escritura. Si no se pudo
+    // aplicar, el producto se quita y sus lecturas siguen a la base.
+    private synchronized void applyLocal(long id, Runnable write) {
+        Set<Long> written = writtenDuringLoad;
+        if (written != null) {
+            written.add(id);
+        }
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo actualizar el producto {} en el modelo de lectura", id, e);
+            table.remove(id);
+        }
+    }
+
+    // --- Hilo propio: carga, eventos de otras instancias y almacenes ---
+
+    void load() {
+        long start = System.nanoTime();
+        refreshWarehouses();
+        scan();
+        synchronized (this) {
+            writtenDuringLoad = null;
+        }
+        loaded = true;
+        log.info("Modelo de lectura cargado: {} productos, {} MB fuera del heap, en {} ms", table.size(),
+                table.offHeapBytes() / (1024 * 1024), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Como la carga, sobre lo ya cargado: pisa cada producto con lo leído y quita los que no aparecieron.
+    // Corre en el mismo hilo que refresh, así que los eventos que llegan mientras tanto se aplican después.
+    void rescan() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            writtenDuringLoad = ConcurrentHashMap.newKeySet();
+        }
+        long[] seen = scan();
+        int removed;
+        synchronized (this) {
+            Set<Long> written = writtenDuringLoad;
+            LongPredicate gone = id -> Arrays.binarySearch(seen, id) < 0 && !written.contains(id);
+            removed = table.removeIf(gone);
+            writtenDuringLoad = null;
+        }
+        catalogVersions.productsInvalidated();
+        log.info("Modelo de lectura reconciliado: {} productos releídos y {} quitados, en {} ms", seen.length,
+                removed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Lee todos los productos y devuelve sus IDs ordenados
+    private long[] scan() {
+        IdList seen = new IdList();
+        if (shardedStore.isEnabled()) {
+            shardedStore.forEachProduct(rs -> loadRow(rs, seen));
+        } else {
+            repository.forEachProduct(rs -> loadRow(rs, seen));
+        }
+        return seen.sorted();
+    }
+
+    private synchronized void loadRow(ResultSet rs, IdList seen) throws SQLException {
+        long id = rs.getLong("id");
+        seen.add(id);
+        if (!writtenDuringLoad.contains(id)) {
+            put(toRecord(rs));
+        }
+    }
+
+    // Relee los productos de los eventos (fuera del lock) y los aplica; los que ya no existen se quitan
+    void refresh(List<StockChangeEvent> events) {
+        Set<Long> ids = new LinkedHashSet<>();
+        events.forEach(event -> ids.add(event.productId()));
+        List<ProductRecord> found = new ArrayList<>(ids.size());
+        if (shardedStore.isEnabled()) {
+            for (Product product : shardedStore.findAllById(ids)) {
+                found.add(new ProductRecord(product.getId(), product.getName(), product.getDescription(),
+                        product.getPriceMoney().cents(), product.getQuantity(), product.getCategory(),
+                        product.getWarehouse().getId()));
+            }
+        } else {
+            repository.findAllById(ids, rs -> found.add(toRecord(rs)));
+        }
+        synchronized (this) {
+            for (ProductRecord record : found) {
+                put(record);
+                ids.remove(record.id());
+            }
+            ids.forEach(table::remove);
+        }
+        catalogVersions.remoteProductsChanged(events);
+    }
+
+    void refreshWarehouses() {
+        Map<Long, Warehouse> current = new HashMap<>();
+        repository.findAllWarehouses().forEach(warehouse -> current.put(warehouse.getId(), warehouse));
+        boolean changed;
+        synchronized (this) {
+            for (Long id : warehouses.keySet()) {
+                if (!current.containsKey(id)) {
+                    table.removeWarehouse(id);
+                }
+            }
+            changed = loaded && !current.equals(warehouses);
+            warehouses = Map.copyOf(current);
+        }
+        if (changed) {
+            catalogVersions.productsInvalidated();
+        }
+    }
+
+    private void put(ProductRecord record) {
+        table.put(record.id(), record.name(), record.description(), record.priceCents(), record.quantity(),
+                record.category(), record.warehouseId());
+    }
+
+    private static ProductRecord toRecord(ResultSet rs) throws SQLException {
+        return new ProductRecord(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                cents(rs.getBigDecimal("price")), rs.getInt("quantity"), rs.getString("category"),
+                rs.getLong("warehouse_id"));
+    }
+
+    private void onEvents(List<StockChangeEvent> events) {
+        worker.execute(() -> {
+            try {
+                refresh(events);
+            } catch (RuntimeException e) {
+                // El evento siguiente del mismo producto lo corrige; mientras, puede responder con lo anterior
+                log.warn("No se pudieron releer {} productos para el modelo de lectura", events.size(), e);
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("product-read-model-");
+        threads.setDaemon(true);
+        worker = Executors.newSingleThreadScheduledExecutor(threads);
+        // Un solo hilo: los eventos que llegan durante la carga se releen cuando termina
+        relay.addListener(this::onEvents);
+        relay.addLateListener(this::onEvents);
+        worker.execute(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Falló la carga del modelo de lectura; GET /api/products/{id} sigue leyendo de la base", e);
+            }
+        });
+        worker.scheduleWithFixedDelay(() -> {
+            try {
+                refreshWarehouses();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron releer los almacenes del modelo de lectura", e);
+            }
+        }, warehouseRefreshMillis, warehouseRefreshMillis, TimeUnit.MILLISECONDS);
+        if (rescanMillis > 0) {
+            worker.scheduleWithFixedDelay(() -> {
+                try {
+                    if (loaded) {
+                        rescan();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Falló la reconciliación del modelo de lectura; se reintenta en {} ms", rescanMillis, e);
+                    synchronized (this) {
+                        writtenDuringLoad = null;
+                    }
+                }
+            }, rescanMillis, rescanMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private Product toProduct(ProductRecord record) {
+        Warehouse warehouse = null;
+        if (record.warehouseId() != 0L) {
+            Warehouse cached = warehouses.get(record.warehouseId());
+            // Copia por respuesta: quien la recibe puede modificarla
+            warehouse = cached == null ? new Warehouse(record.warehouseId(), null, null, null)
+                    : new Warehouse(cached.getId(), cached.getName(), cached.getLocationDetails(), null);
+        }
+        return new Product(record.id(), record.name(), record.description(),
+                Money.ofCents(record.priceCents()).toBigDecimal(), record.quantity(), record.category(), warehouse);
+    }
+
+    // price es DECIMAL(10,2); un valor con más decimales la base lo guarda redondeado igual que aquí
+    static long cents(BigDecimal price) {
+        return Money.of(price, RoundingMode.HALF_UP).cents();
+    }
+
+    // IDs leídos en una carga, sin un Long por producto
+    private static final class IdList {
+        private long[] ids = new long[1024];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(ids, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
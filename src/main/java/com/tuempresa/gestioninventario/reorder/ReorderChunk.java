@@ -0,0 +1,126 @@
+package com.tuempresa.gestioninventario.reorder;
+
+import java.util.Arrays;
+
+// Bloque de productos con ID en [start, end) que procesa un hilo del job: stock actual, demanda diaria
+// (fila por producto, columna por día, la más vieja primero) y resultados, todo en arreglos primitivos
+// paralelos indexados por la posición del producto. Con 10.000 productos y 90 días son unos 4 MB.
+public final class ReorderChunk {
+
+    private final long start;
+    private final long end;
+    private final int days;
+    private long[] productIds;
+    private int[] onHand;
+    private int count;
+    private boolean sorted = true;
+    private int[] demand;
+    private double[] dailyForecast;
+    private int[] safetyStock;
+    private int[] reorderPoint;
+    private int[] suggestedQuantity;
+
+    public ReorderChunk(long start, long end, int days) {
+        this.start = start;
+        this.end = end;
+        this.days = days;
+        int capacity = (int) Math.min(end - start, 1024);
+        this.productIds = new long[capacity];
+        this.onHand = new int[capacity];
+    }
+
+    public void addProduct(long productId, int quantity) {
+        if (productId < start || productId >= end) {
+            throw new IllegalArgumentException("El producto " + productId + " no pertenece al bloque [" + start + ", " + end + ").");
+        }
+        if (count == productIds.length) {
+            int capacity = (int) Math.min(end - start, (long) count * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            onHand = Arrays.copyOf(onHand, capacity);
+        }
+        if (count > 0 && productIds[count - 1] > productId) {
+            sorted = false;
+        }
+        productIds[count] = productId;
+        onHand[count] = quantity;
+        count++;
+    }
+
+    // Termina la carga de productos (de una o varias bases, en cualquier orden) y reserva demanda y resultados
+    public void seal() {
+        if (!sorted) {
+            // Desplazamiento en el bloque y cantidad en un long: un solo sort primitivo ordena ambos arreglos
+            long[] packed = new long[count];
+            for (int i = 0; i < count; i++) {
+                packed[i] = (productIds[i] - start) << 32 | (onHand[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < count; i++) {
+                productIds[i] = start + (packed[i] >>> 32);
+                onHand[i] = (int) packed[i];
+            }
+            sorted = true;
+        }
+        demand = new int[Math.multiplyExact(count, days)];
+        dailyForecast = new double[count];
+        safetyStock = new int[count];
+        reorderPoint = new int[count];
+        suggestedQuantity = new int[count];
+    }
+
+    // Suma una salida al día indicado; se ignoran productos fuera del bloque (borrados) y días fuera de la ventana
+    public void addDemand(long productId, int day, long amount) {
+        if (day < 0 || day >= days) {
+            return;
+        }
+        int index = Arrays.binarySearch(productIds, 0, count, productId);
+        if (index >= 0) {
+            int cell = index * days + day;
+            demand[cell] = (int) Math.min(Integer.MAX_VALUE, demand[cell] + amount);
+        }
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long end() {
+        return end;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long[] productIds() {
+        return productIds;
+    }
+
+    public int[] onHand() {
+        return onHand;
+    }
+
+    public int[] demand() {
+        return demand;
+    }
+
+    public double[] dailyForecast() {
+        return dailyForecast;
+    }
+
+    public int[] safetyStock() {
+        return safetyStock;
+    }
+
+    public int[] reorderPoint() {
+        return reorderPoint;
+    }
+
+    public int[] suggestedQuantity() {
+        return suggestedQuantity;
+    }
+}
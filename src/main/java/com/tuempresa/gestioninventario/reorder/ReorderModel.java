@@ -0,0 +1,74 @@
+package com.tuempresa.gestioninventario.reorder;
+
+// Punto de reposición por producto a partir de su demanda diaria (salidas de stock por día).
+//
+//   pronóstico:  suavizado exponencial simple, arrancando del promedio de la primera semana
+//   error:       varianza del error de un paso, suavizada con el mismo alfa (sigma = su raíz)
+//   seguridad:   factor * sigma * raíz(días de reposición)
+//   reposición:  pronóstico * días de reposición + seguridad
+//   sugerido:    si el stock actual está en o bajo el punto de reposición, lo que falta para cubrir
+//                reposición + período de revisión (pronóstico * (entrega + revisión) + seguridad)
+//
+// Trabaja sobre arreglos primitivos de un bloque de productos (ver ReorderChunk) y no guarda estado:
+// cada hilo del job lo usa sobre su propio bloque.
+public final class ReorderModel {
+
+    private static final int WARM_UP_DAYS = 7;
+
+    private final double alpha;
+    private final double safetyFactor;
+    private final int leadTimeDays;
+    private final int reviewPeriodDays;
+
+    public ReorderModel(double alpha, double safetyFactor, int leadTimeDays, int reviewPeriodDays) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("El factor de suavizado debe estar en (0, 1].");
+        }
+        if (safetyFactor < 0 || leadTimeDays < 0 || reviewPeriodDays < 0) {
+            throw new IllegalArgumentException("El factor de seguridad y los plazos no pueden ser negativos.");
+        }
+        this.alpha = alpha;
+        this.safetyFactor = safetyFactor;
+        this.leadTimeDays = leadTimeDays;
+        this.reviewPeriodDays = reviewPeriodDays;
+    }
+
+    public void compute(ReorderChunk chunk) {
+        int days = chunk.days();
+        int[] demand = chunk.demand();
+        double sqrtLeadTime = Math.sqrt(leadTimeDays);
+        for (int p = 0; p < chunk.count(); p++) {
+            int offset = p * days;
+            int warmUp = Math.min(WARM_UP_DAYS, days);
+            double level = 0;
+            for (int d = 0; d < warmUp; d++) {
+                level += demand[offset + d];
+            }
+            level = warmUp == 0 ? 0 : level / warmUp;
+            double variance = 0;
+            for (int d = 0; d < warmUp; d++) {
+                double deviation = demand[offset + d] - level;
+                variance += deviation * deviation;
+            }
+            variance = warmUp == 0 ? 0 : variance / warmUp;
+            for (int d = warmUp; d < days; d++) {
+                double error = demand[offset + d] - level;
+                variance = alpha * error * error + (1 - alpha) * variance;
+                level += alpha * error;
+            }
+
+            int safety = saturate(Math.ceil(safetyFactor * Math.sqrt(variance) * sqrtLeadTime));
+            int reorderPoint = saturate(Math.ceil(level * leadTimeDays) + safety);
+            int orderUpTo = saturate(Math.ceil(level * (leadTimeDays + reviewPeriodDays)) + safety);
+            int onHand = chunk.onHand()[p];
+            chunk.dailyForecast()[p] = level;
+            chunk.safetyStock()[p] = safety;
+            chunk.reorderPoint()[p] = reorderPoint;
+            chunk.suggestedQuantity()[p] = onHand <= reorderPoint ? Math.max(0, orderUpTo - onHand) : 0;
+        }
+    }
+
+    private static int saturate(double value) {
+        return value >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+}
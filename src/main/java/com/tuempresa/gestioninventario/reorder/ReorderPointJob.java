@@ -0,0 +1,310 @@
+package com.tuempresa.gestioninventario.reorder;
+
+import com.tuempresa.gestioninventario.cluster.ClusterJob;
+import com.tuempresa.gestioninventario.cluster.JobLease;
+import com.tuempresa.gestioninventario.repository.ReorderRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Job nocturno de puntos de reposición (tabla product_reorder, ver ReorderModel).
+//
+// Cada corrida fija el rango de IDs de producto y la ventana de demanda (lookback-days hasta el inicio del
+// día) y los reparte en bloques de chunk-size IDs que procesan parallelism hilos: cada hilo lee el stock y
+// las salidas de su bloque (audit_log, STOCK_EXIT) a arreglos primitivos, calcula y confirma las
+// sugerencias junto con la marca del bloque en una transacción. Si la corrida se corta (reinicio, caída,
+// error de base) los bloques confirmados quedan y la siguiente ejecución retoma solo los pendientes.
+//
+// Lo programa ClusterJobRunner: los bloques se reparten por índice en partitions particiones, que corren en
+// distintas instancias sobre la misma corrida (la del horario, reorder_run.scheduled_at). Cada bloque se
+// confirma con el fencing token de su partición y la partición que confirma el último cierra la corrida.
+//
+// Con sharding el stock se lee de cada shard (ShardedProductStore); la demanda y las sugerencias
+// están siempre en la base principal.
+@Component
+public class ReorderPointJob implements ClusterJob {
+
+    public static final String NAME = "reorder-points";
+    public static final String RUN = "inventario.reorder.run";
+    public static final String PRODUCTS = "inventario.reorder.products";
+
+    private static final Logger log = LoggerFactory.getLogger(ReorderPointJob.class);
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final ReorderRepository repository;
+    private final ShardedProductStore shardedStore;
+    private final TransactionTemplate transaction;
+    private final ReorderModel model;
+    private final Clock clock;
+    private final boolean enabled;
+    private final CronExpression cron;
+    private final ZoneId zone;
+    private final int lookbackDays;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int partitions;
+    private final Timer runTimer;
+    private final Counter productsCounter;
+    private final AtomicBoolean inProgress = new AtomicBoolean();
+
+    @Autowired
+    public ReorderPointJob(ReorderRepository repository, ShardedProductStore shardedStore,
+                           PlatformTransactionManager transactionManager, MeterRegistry registry,
+                           @Value("${inventario.reorder.enabled:true}") boolean enabled,
+                           @Value("${inventario.reorder.cron:0 30 2 * * *}") String cron,
+                           @Value("${inventario.reorder.zone:UTC}") ZoneId zone,
+                           @Value("${inventario.reorder.lookback-days:90}") int lookbackDays,
+                           @Value("${inventario.reorder.chunk-size:10000}") int chunkSize,
+                           @Value("${inventario.reorder.parallelism:0}") int parallelism,
+                           @Value("${inventario.reorder.partitions:8}") int partitions,
+                           @Value("${inventario.reorder.smoothing:0.2}") double smoothing,
+                           @Value("${inventario.reorder.safety-factor:1.65}") double safetyFactor,
+                           @Value("${inventario.reorder.lead-time-days:7}") int leadTimeDays,
+                           @Value("${inventario.reorder.review-period-days:7}") int reviewPeriodDays) {
+        this(repository, shardedStore, new TransactionTemplate(transactionManager), registry, Clock.systemUTC(),
+                enabled, CronExpression.parse(cron), zone, lookbackDays, chunkSize,
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), partitions,
+                new ReorderModel(smoothing, safetyFactor, leadTimeDays, reviewPeriodDays));
+    }
+
+    ReorderPointJob(ReorderRepository repository, ShardedProductStore shardedStore, TransactionTemplate transaction,
+                    MeterRegistry registry, Clock clock, boolean enabled, CronExpression cron, ZoneId zone,
+                    int lookbackDays, int chunkSize, int parallelism, int partitions, ReorderModel model) {
+        if (lookbackDays <= 0 || chunkSize <= 0 || partitions <= 0) {
+            throw new IllegalArgumentException("lookback-days, chunk-size y partitions deben ser positivos.");
+        }
+        this.repository = repository;
+        this.shardedStore = shardedStore;
+        this.transaction = transaction;
+        this.model = model;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.cron = cron;
+        this.zone = zone;
+        this.lookbackDays = lookbackDays;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.partitions = partitions;
+        this.runTimer = Timer.builder(RUN)
+                .description("Duración del cálculo de puntos de reposición de una partición o corrida manual")
+                .register(registry);
+        this.productsCounter = Counter.builder(PRODUCTS)
+                .description("Productos con punto de reposición recalculado")
+                .register(registry);
+    }
+
+    // --- ClusterJob ---
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int partitions() {
+        return partitions;
+    }
+
+    @Override
+    public Instant nextRun(Instant after) {
+        return cron.next(after.atZone(zone)).toInstant();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean run(JobLease lease) {
+        long startNanos = System.nanoTime();
+        try {
+            ReorderRun run = currentRun(lease.scheduledAt());
+            if (run == null) {
+                return true;
+            }
+            int products = processPending(run, lease);
+            if (products < 0) {
+                log.info("Partición {} de la corrida {} de puntos de reposición detenida", lease.partition(), run.id());
+                return false;
+            }
+            finishIfComplete(run, products, startNanos);
+            return true;
+        } finally {
+            runTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Ejecuta (o retoma) una corrida completa en esta instancia, sin leases. Devuelve los productos procesados.
+    public int runOnce() {
+        if (!inProgress.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una corrida de puntos de reposición en curso.");
+        }
+        long startNanos = System.nanoTime();
+        try {
+            ReorderRun run = currentRun(null);
+            if (run == null) {
+                return 0;
+            }
+            int products = processPending(run, null);
+            finishIfComplete(run, products, startNanos);
+            return Math.max(products, 0);
+        } finally {
+            runTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            inProgress.set(false);
+        }
+    }
+
+    // La corrida sin terminar, o una nueva para el horario; null si no hay productos o la del horario ya terminó
+    private ReorderRun currentRun(Instant scheduledAt) {
+        Optional<ReorderRun> unfinished = repository.findUnfinishedRun();
+        if (unfinished.isPresent()) {
+            log.info("Se retoma la corrida {} de puntos de reposición", unfinished.get().id());
+            return unfinished.get();
+        }
+        long[] range = shardedStore.isEnabled() ? shardedStore.idRange() : repository.productIdRange();
+        if (range == null) {
+            return null;
+        }
+        Instant asOf = clock.instant().truncatedTo(ChronoUnit.DAYS);
+        try {
+            return repository.startRun(clock.instant(), scheduledAt, asOf, lookbackDays, range[0], range[1], chunkSize);
+        } catch (DuplicateKeyException e) {
+            // Otra partición del mismo horario la creó primero (si ya terminó, no queda nada por hacer)
+            return repository.findUnfinishedRun(scheduledAt).orElse(null);
+        }
+    }
+
+    private void finishIfComplete(ReorderRun run, int products, long startNanos) {
+        long chunks = (run.maxProductId() - run.minProductId()) / run.chunkSize() + 1;
+        if (repository.completedChunks(run.id()).size() < chunks) {
+            return;
+        }
+        Integer stale = transaction.execute(status -> repository.finishRun(run.id(), clock.instant()));
+        if (stale != null && stale >= 0) {
+            log.info("Corrida {} de puntos de reposición terminada ({} productos en esta instancia en {} ms,"
+                            + " {} sugerencias obsoletas borradas)", run.id(), products,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), stale);
+        }
+    }
+
+    // Productos procesados, o -1 si la partición se detuvo antes de terminar. Sin lease, todos los bloques.
+    private int processPending(ReorderRun run, JobLease lease) {
+        Set<Long> done = repository.completedChunks(run.id());
+        List<Long> pending = new ArrayList<>();
+        long index = 0;
+        for (long start = run.minProductId(); start <= run.maxProductId(); start += run.chunkSize(), index++) {
+            boolean mine = lease == null || index % lease.partitions() == lease.partition();
+            if (mine && !done.contains(start)) {
+                pending.add(start);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("reorder-");
+        threads.setDaemon(true);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, pending.size()), threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(pending.size());
+            for (long start : pending) {
+                futures.add(workers.submit(() -> processChunk(run, start, lease)));
+            }
+            int products = 0;
+            boolean stopped = false;
+            RuntimeException failure = null;
+            for (Future<Integer> future : futures) {
+                try {
+                    int processed = future.get();
+                    stopped |= processed < 0;
+                    products += Math.max(processed, 0);
+                } catch (CancellationException e) {
+                    stopped = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException cause ? cause
+                                : new IllegalStateException("Falló un bloque de la corrida " + run.id(), e.getCause());
+                        futures.forEach(pendingChunk -> pendingChunk.cancel(false));
+                    }
+                }
+            }
+            if (failure != null) {
+                // Los bloques que no empezaron quedan cancelados; se espera a los que están confirmando para
+                // que ninguno siga en curso cuando la próxima ejecución retome la corrida
+                workers.shutdown();
+                workers.awaitTermination(5, TimeUnit.MINUTES);
+                throw failure;
+            }
+            return stopped ? -1 : products;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // Un bloque de IDs; -1 si la partición se está deteniendo (o perdió el lease) y no se procesó
+    private int processChunk(ReorderRun run, long start, JobLease lease) {
+        if (lease != null && !lease.isActive()) {
+            return -1;
+        }
+        long end = Math.min(start + run.chunkSize(), run.maxProductId() + 1);
+        ReorderChunk chunk = new ReorderChunk(start, end, run.lookbackDays());
+        RowCallbackHandler stock = rs -> chunk.addProduct(rs.getLong(1), rs.getInt(2));
+        if (shardedStore.isEnabled()) {
+            shardedStore.forEachStock(start, end, stock);
+        } else {
+            repository.forEachStock(start, end, stock);
+        }
+        chunk.seal();
+
+        if (chunk.count() > 0) {
+            Instant since = run.asOf().minus(Duration.ofDays(run.lookbackDays()));
+            long sinceSecond = since.getEpochSecond();
+            repository.forEachExit(start, end, since, run.asOf(), rs -> {
+                long second = rs.getTimestamp(2).toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+                chunk.addDemand(rs.getLong(1), (int) ((second - sinceSecond) / SECONDS_PER_DAY), rs.getLong(3));
+            });
+            model.compute(chunk);
+        }
+        transaction.executeWithoutResult(status -> {
+            if (lease != null) {
+                lease.fence();
+            }
+            repository.saveChunk(run.id(), chunk, clock.instant());
+        });
+        productsCounter.increment(chunk.count());
+        return chunk.count();
+    }
+}
@@ -0,0 +1,8 @@
+package com.tuempresa.gestioninventario.reorder;
+
+import java.time.Instant;
+
+// Fila de reorder_run: la demanda se toma de los lookbackDays días anteriores a asOf y los productos
+// de [minProductId, maxProductId] en bloques de chunkSize IDs.
+public record ReorderRun(long id, Instant asOf, int lookbackDays, long minProductId, long maxProductId, int chunkSize) {
+}
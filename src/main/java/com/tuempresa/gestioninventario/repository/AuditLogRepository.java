@@ -0,0 +1,65 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.audit.AuditEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+// Escritura de audit_log con INSERT multi-fila: un lote de eventos es una sola sentencia y un solo viaje
+// a la base. Sin transacción propia (autocommit): la auditoría no participa de las transacciones de negocio.
+@Repository
+public class AuditLogRepository {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_log (occurred_at, actor, action, entity_type, entity_id, amount, detail) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditLogRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + events.size() * (ROW.length() + 2))
+                .append(INSERT_PREFIX);
+        for (int i = 0; i < events.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW);
+        }
+        jdbcTemplate.update(sql.toString(), (PreparedStatement ps) -> {
+            int column = 1;
+            for (AuditEvent event : events) {
+                column = bind(ps, column, event);
+            }
+        });
+    }
+
+    private static int bind(PreparedStatement ps, int column, AuditEvent event) throws SQLException {
+        ps.setObject(column++, LocalDateTime.ofInstant(Instant.ofEpochMilli(event.occurredAt()), ZoneOffset.UTC));
+        ps.setString(column++, event.actor());
+        ps.setString(column++, event.action().name());
+        ps.setString(column++, event.action().entityType());
+        if (event.entityId() > 0) {
+            ps.setLong(column++, event.entityId());
+        } else {
+            ps.setNull(column++, Types.BIGINT);
+        }
+        if (event.action().hasAmount()) {
+            ps.setLong(column++, event.amount());
+        } else {
+            ps.setNull(column++, Types.BIGINT);
+        }
+        ps.setString(column++, event.detail());
+        return column;
+    }
+}
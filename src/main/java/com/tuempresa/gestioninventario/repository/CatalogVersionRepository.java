@@ -0,0 +1,31 @@
+package com.tuempresa.gestioninventario.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Acceso por JDBC a catalog_version. bump se llama dentro de la transacción de la escritura (el JdbcTemplate
+// usa la misma conexión): otra instancia ve la versión nueva recién cuando la escritura confirmó.
+@Repository
+public class CatalogVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogVersionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void bump(String resource) {
+        jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE resource = ?", resource);
+    }
+
+    public Map<String, Long> findAll() {
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT resource, version FROM catalog_version", rs -> {
+            versions.put(rs.getString("resource"), rs.getLong("version"));
+        });
+        return versions;
+    }
+}
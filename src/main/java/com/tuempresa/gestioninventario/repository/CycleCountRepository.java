@@ -0,0 +1,229 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.cyclecount.VarianceBatch;
+import com.tuempresa.gestioninventario.cyclecount.VarianceKind;
+import com.tuempresa.gestioninventario.dto.CycleCountReport;
+import com.tuempresa.gestioninventario.dto.CycleCountVariance;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+// Acceso por JDBC para CycleCountService: lectura de products por rangos de ID para la conciliación,
+// conteos y sus diferencias, y aplicación de los ajustes por lotes.
+@Repository
+public class CycleCountRepository {
+
+    private static final String COUNT_COLUMNS = "id, file_name, status, created_at, created_by, line_count,"
+            + " product_count, matched, quantity_variances, unknown_products, warehouse_mismatches, net_variance,"
+            + " absolute_variance, lines_per_second, approved_by, approved_at, applied_at, applied, stale";
+
+    private static final RowMapper<CycleCountReport> COUNT_MAPPER = (rs, rowNum) -> new CycleCountReport(
+            rs.getLong("id"),
+            rs.getString("file_name"),
+            rs.getString("status"),
+            instant(rs.getTimestamp("created_at")),
+            rs.getString("created_by"),
+            rs.getLong("line_count"),
+            rs.getLong("product_count"),
+            rs.getLong("matched"),
+            rs.getLong("quantity_variances"),
+            rs.getLong("unknown_products"),
+            rs.getLong("warehouse_mismatches"),
+            rs.getLong("net_variance"),
+            rs.getLong("absolute_variance"),
+            rs.getLong("lines_per_second"),
+            rs.getString("approved_by"),
+            instant(rs.getTimestamp("approved_at")),
+            instant(rs.getTimestamp("applied_at")),
+            rs.getLong("applied"),
+            rs.getLong("stale"));
+
+    private static final RowMapper<CycleCountVariance> LINE_MAPPER = (rs, rowNum) -> new CycleCountVariance(
+            rs.getLong("product_id"),
+            rs.getLong("warehouse_id"),
+            VarianceKind.valueOf(rs.getString("kind")),
+            rs.getObject("system_quantity", Integer.class),
+            rs.getInt("counted"),
+            rs.getString("status"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CycleCountRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // --- Conciliación ---
+
+    // Columnas id, quantity, warehouse_id de los productos con ID en [fromId, toId), en orden de ID
+    public void forEachProduct(long fromId, long toId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, quantity, warehouse_id FROM products WHERE id >= ? AND id < ? ORDER BY id",
+                handler, fromId, toId);
+    }
+
+    public long createCount(String fileName, String createdBy, Instant createdAt) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO cycle_count (file_name, status, created_at,"
+                    + " created_by) VALUES (?, 'RECONCILING', ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, fileName);
+            ps.setTimestamp(2, timestamp(createdAt));
+            ps.setString(3, createdBy);
+            return ps;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    public void insertLines(long countId, VarianceBatch batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO cycle_count_line (count_id, product_id, warehouse_id, kind, system_quantity,"
+                        + " counted, status) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        VarianceKind kind = batch.kind(i);
+                        ps.setLong(1, countId);
+                        ps.setLong(2, batch.productId(i));
+                        ps.setLong(3, batch.warehouseId(i));
+                        ps.setString(4, kind.name());
+                        if (batch.systemQuantity(i) < 0) {
+                            ps.setNull(5, Types.INTEGER);
+                        } else {
+                            ps.setInt(5, batch.systemQuantity(i));
+                        }
+                        ps.setInt(6, batch.counted(i));
+                        ps.setString(7, kind == VarianceKind.QUANTITY ? "PENDING" : "SKIPPED");
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                });
+    }
+
+    public void finishReconciliation(long countId, long lines, long products, long matched, long quantityVariances,
+                                     long unknownProducts, long warehouseMismatches, long netVariance,
+                                     long absoluteVariance, long linesPerSecond) {
+        jdbcTemplate.update("UPDATE cycle_count SET status = 'REVIEW', line_count = ?, product_count = ?, matched = ?,"
+                        + " quantity_variances = ?, unknown_products = ?, warehouse_mismatches = ?, net_variance = ?,"
+                        + " absolute_variance = ?, lines_per_second = ? WHERE id = ?",
+                lines, products, matched, quantityVariances, unknownProducts, warehouseMismatches, netVariance,
+                absoluteVariance, linesPerSecond, countId);
+    }
+
+    // Conciliación fallida: se descartan sus diferencias y el conteo queda como FAILED
+    public void markFailed(long countId) {
+        jdbcTemplate.update("DELETE FROM cycle_count_line WHERE count_id = ?", countId);
+        jdbcTemplate.update("UPDATE cycle_count SET status = 'FAILED' WHERE id = ?", countId);
+    }
+
+    // --- Consulta ---
+
+    public Optional<CycleCountReport> findCount(long countId) {
+        return jdbcTemplate.query("SELECT " + COUNT_COLUMNS + " FROM cycle_count WHERE id = ?", COUNT_MAPPER, countId)
+                .stream().findFirst();
+    }
+
+    // Diferencias en orden de (producto, almacén) a partir de la siguiente a (afterProductId, afterWarehouseId)
+    public List<CycleCountVariance> findLines(long countId, long afterProductId, long afterWarehouseId, int limit) {
+        return jdbcTemplate.query("SELECT product_id, warehouse_id, kind, system_quantity, counted, status"
+                        + " FROM cycle_count_line WHERE count_id = ? AND (product_id > ? OR (product_id = ? AND warehouse_id > ?))"
+                        + " ORDER BY product_id, warehouse_id LIMIT ?",
+                LINE_MAPPER, countId, afterProductId, afterProductId, afterWarehouseId, limit);
+    }
+
+    // --- Aplicación ---
+
+    // REVIEW (o APPLYING, si una aplicación anterior se cortó) pasa a APPLYING; false si no estaba en esos estados
+    public boolean claimForApply(long countId, String approvedBy, Instant approvedAt) {
+        return jdbcTemplate.update("UPDATE cycle_count SET status = 'APPLYING', approved_by = COALESCE(approved_by, ?),"
+                        + " approved_at = COALESCE(approved_at, ?) WHERE id = ? AND status IN ('REVIEW', 'APPLYING')",
+                approvedBy, timestamp(approvedAt), countId) == 1;
+    }
+
+    // Bloquea el conteo hasta el fin de la transacción: dos instancias que aplican el mismo conteo toman
+    // los lotes de a una y nunca el mismo
+    public void lockCount(long countId) {
+        jdbcTemplate.queryForList("SELECT id FROM cycle_count WHERE id = ? FOR UPDATE", Long.class, countId);
+    }
+
+    // Siguiente lote de diferencias de cantidad sin aplicar, en orden de producto
+    public void findPending(long countId, VarianceBatch batch, int limit) {
+        batch.clear();
+        jdbcTemplate.query("SELECT product_id, warehouse_id, system_quantity, counted FROM cycle_count_line"
+                        + " WHERE count_id = ? AND status = 'PENDING' ORDER BY product_id LIMIT ?",
+                (RowCallbackHandler) rs -> batch.add(rs.getLong(1), rs.getLong(2), VarianceKind.QUANTITY,
+                        rs.getInt(3), rs.getInt(4)), countId, limit);
+    }
+
+    // Ajusta la cantidad solo si el producto sigue en el almacén y con la cantidad vista al conciliar. No se
+    // usan los conteos del batch (el driver puede devolver SUCCESS_NO_INFO): quien llama relee los productos.
+    public void compareAndSetQuantities(VarianceBatch batch) {
+        jdbcTemplate.batchUpdate("UPDATE products SET quantity = ? WHERE id = ? AND warehouse_id = ? AND quantity = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setInt(1, batch.counted(i));
+                        ps.setLong(2, batch.productId(i));
+                        ps.setLong(3, batch.warehouseId(i));
+                        ps.setInt(4, batch.systemQuantity(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                });
+    }
+
+    public void markLines(long countId, VarianceBatch batch, boolean[] applied) {
+        jdbcTemplate.batchUpdate("UPDATE cycle_count_line SET status = ? WHERE count_id = ? AND product_id = ?"
+                        + " AND warehouse_id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, applied[i] ? "APPLIED" : "STALE");
+                        ps.setLong(2, countId);
+                        ps.setLong(3, batch.productId(i));
+                        ps.setLong(4, batch.warehouseId(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                });
+    }
+
+    public void addApplied(long countId, int applied, int stale) {
+        jdbcTemplate.update("UPDATE cycle_count SET applied = applied + ?, stale = stale + ? WHERE id = ?",
+                applied, stale, countId);
+    }
+
+    public void finishApply(long countId, Instant appliedAt) {
+        jdbcTemplate.update("UPDATE cycle_count SET status = 'APPLIED', applied_at = ? WHERE id = ? AND status = 'APPLYING'",
+                timestamp(appliedAt), countId);
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,129 @@
+package com.tuempresa.gestioninventario.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+// Acceso por JDBC a job_lease y cluster_node para ClusterJobRunner. Las horas llegan como parámetro (el
+// reloj de la instancia) y no con NOW() de la base, igual que el resto de los repositorios JDBC.
+@Repository
+public class JobLeaseRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JobLeaseRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // --- Instancias ---
+
+    public void heartbeat(String nodeId, Instant now) {
+        int updated = jdbcTemplate.update("UPDATE cluster_node SET heartbeat_at = ? WHERE node_id = ?",
+                timestamp(now), nodeId);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO cluster_node (node_id, started_at, heartbeat_at) VALUES (?, ?, ?)",
+                        nodeId, timestamp(now), timestamp(now));
+            } catch (DuplicateKeyException e) {
+                // Otra llamada de la misma instancia la insertó primero
+            }
+        }
+    }
+
+    // Instancias con heartbeat desde aliveSince, en orden de ID (el mismo orden en todas las instancias)
+    public List<String> liveNodes(Instant aliveSince) {
+        return jdbcTemplate.queryForList("SELECT node_id FROM cluster_node WHERE heartbeat_at >= ? ORDER BY node_id",
+                String.class, timestamp(aliveSince));
+    }
+
+    public int deleteNode(String nodeId) {
+        return jdbcTemplate.update("DELETE FROM cluster_node WHERE node_id = ?", nodeId);
+    }
+
+    public int deleteNodesBefore(Instant heartbeatBefore) {
+        return jdbcTemplate.update("DELETE FROM cluster_node WHERE heartbeat_at < ?", timestamp(heartbeatBefore));
+    }
+
+    // --- Particiones ---
+
+    // Crea las particiones que falten (con el primer horario en firstRunAt) y borra las que sobran y están libres
+    public void ensurePartitions(String jobName, int partitions, Instant firstRunAt, Instant now) {
+        List<Integer> existing = jdbcTemplate.queryForList(
+                "SELECT partition_no FROM job_lease WHERE job_name = ?", Integer.class, jobName);
+        for (int partition = 0; partition < partitions; partition++) {
+            if (existing.contains(partition)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update("INSERT INTO job_lease (job_name, partition_no, owner, lease_until, fencing_token,"
+                        + " next_run_at) VALUES (?, ?, NULL, ?, 0, ?)",
+                        jobName, partition, timestamp(now), timestamp(firstRunAt));
+            } catch (DuplicateKeyException e) {
+                // Otra instancia la creó al mismo tiempo
+            }
+        }
+        jdbcTemplate.update("DELETE FROM job_lease WHERE job_name = ? AND partition_no >= ? AND lease_until < ?",
+                jobName, partitions, timestamp(now));
+    }
+
+    // Particiones con el horario vencido (next_run_at <= dueBefore) y sin lease vigente
+    public List<Integer> findDue(String jobName, Instant dueBefore, Instant now) {
+        return jdbcTemplate.queryForList("SELECT partition_no FROM job_lease WHERE job_name = ? AND next_run_at <= ?"
+                + " AND lease_until < ? ORDER BY partition_no", Integer.class, jobName, timestamp(dueBefore), timestamp(now));
+    }
+
+    // Toma la partición si sigue vencida y libre. Devuelve el fencing token nuevo y el horario que se ejecuta.
+    public Optional<Acquired> tryAcquire(String jobName, int partition, String owner, Instant now, Instant leaseUntil,
+                                         Instant dueBefore) {
+        int updated = jdbcTemplate.update("UPDATE job_lease SET owner = ?, lease_until = ?, fencing_token = fencing_token + 1"
+                        + " WHERE job_name = ? AND partition_no = ? AND lease_until < ? AND next_run_at <= ?",
+                owner, timestamp(leaseUntil), jobName, partition, timestamp(now), timestamp(dueBefore));
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        // Si entre el UPDATE y esta lectura otra instancia la tomó (lease vencido), el dueño ya no coincide
+        return jdbcTemplate.query("SELECT fencing_token, next_run_at FROM job_lease WHERE job_name = ? AND partition_no = ?"
+                        + " AND owner = ?", (rs, rowNum) -> new Acquired(rs.getLong(1),
+                        rs.getTimestamp(2).toLocalDateTime().toInstant(ZoneOffset.UTC)),
+                jobName, partition, owner).stream().findFirst();
+    }
+
+    // Extiende el lease; false si otra instancia lo tomó (cambió el token)
+    public boolean renew(String jobName, int partition, long fencingToken, Instant leaseUntil) {
+        return jdbcTemplate.update("UPDATE job_lease SET lease_until = ? WHERE job_name = ? AND partition_no = ?"
+                + " AND fencing_token = ?", timestamp(leaseUntil), jobName, partition, fencingToken) == 1;
+    }
+
+    // Libera la partición: con nextRunAt pasa al próximo horario; sin él se puede volver a tomar desde availableAt
+    public boolean release(String jobName, int partition, long fencingToken, Instant availableAt, Instant nextRunAt) {
+        if (nextRunAt == null) {
+            return jdbcTemplate.update("UPDATE job_lease SET owner = NULL, lease_until = ? WHERE job_name = ?"
+                    + " AND partition_no = ? AND fencing_token = ?", timestamp(availableAt), jobName, partition,
+                    fencingToken) == 1;
+        }
+        return jdbcTemplate.update("UPDATE job_lease SET owner = NULL, lease_until = ?, next_run_at = ? WHERE job_name = ?"
+                + " AND partition_no = ? AND fencing_token = ?", timestamp(availableAt), timestamp(nextRunAt), jobName,
+                partition, fencingToken) == 1;
+    }
+
+    // Bloquea la fila de la partición hasta el fin de la transacción en curso si el token sigue vigente:
+    // mientras tanto nadie puede tomarla, así que lo que se confirme en esa transacción no pisa a un dueño nuevo
+    public boolean lockIfCurrent(String jobName, int partition, long fencingToken) {
+        return !jdbcTemplate.queryForList("SELECT fencing_token FROM job_lease WHERE job_name = ? AND partition_no = ?"
+                + " AND fencing_token = ? FOR UPDATE", Long.class, jobName, partition, fencingToken).isEmpty();
+    }
+
+    public record Acquired(long fencingToken, Instant scheduledAt) {
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,82 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Acceso por JDBC a product_outbox. append se llama dentro de la transacción de ProductService (el
+// JdbcTemplate usa la misma conexión), así que un rollback también deshace el evento. Las lecturas son
+// del relay y de la reanudación por Last-Event-ID, siempre por rango de ID sobre la clave primaria.
+@Repository
+public class ProductOutboxRepository {
+
+    private static final String COLUMNS =
+            "id, change_type, product_id, warehouse_id, category, quantity, price, occurred_at";
+
+    private static final RowMapper<StockChangeEvent> ROW_MAPPER = (rs, rowNum) -> new StockChangeEvent(
+            rs.getLong("id"),
+            ChangeType.valueOf(rs.getString("change_type")),
+            rs.getLong("product_id"),
+            rs.getObject("warehouse_id", Long.class),
+            rs.getString("category"),
+            rs.getObject("quantity", Integer.class),
+            rs.getBigDecimal("price"),
+            rs.getTimestamp("occurred_at").toLocalDateTime().toInstant(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(ChangeType type, Product product, Long warehouseId) {
+        boolean deleted = type == ChangeType.DELETED;
+        jdbcTemplate.update("INSERT INTO product_outbox (occurred_at, change_type, product_id, warehouse_id, category,"
+                        + " quantity, price) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC)), type.name(), product.getId(), warehouseId,
+                product.getCategory(), deleted ? null : product.getQuantity(), deleted ? null : product.getPrice());
+    }
+
+    // Eventos con ID mayor a afterId, en orden
+    public List<StockChangeEvent> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM product_outbox WHERE id > ? ORDER BY id LIMIT ?",
+                ROW_MAPPER, afterId, limit);
+    }
+
+    // Filas de los IDs dados que ya existen, en orden (ver StockChangeRelay.recheckSkipped)
+    public List<StockChangeEvent> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM product_outbox WHERE id IN ("
+                + String.join(",", Collections.nCopies(ids.size(), "?")) + ") ORDER BY id", ROW_MAPPER, ids.toArray());
+    }
+
+    // 0 si la tabla está vacía
+    public long maxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product_outbox", Long.class);
+        return max == null ? 0L : max;
+    }
+
+    // ID más viejo que se conserva; 0 si la tabla está vacía
+    public long minId() {
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(id) FROM product_outbox", Long.class);
+        return min == null ? 0L : min;
+    }
+
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM product_outbox WHERE occurred_at < ?",
+                Timestamp.valueOf(LocalDateTime.ofInstant(cutoff, ZoneOffset.UTC)));
+    }
+}
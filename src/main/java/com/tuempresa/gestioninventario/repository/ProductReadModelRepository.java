@@ -0,0 +1,51 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Acceso por JDBC para ProductReadModel: carga completa de products al arrancar, relectura por ID de los
+// productos que cambiaron en otras instancias y la lista de almacenes. Sin sharding; con sharding las
+// mismas lecturas las hace ShardedProductStore.
+@Repository
+public class ProductReadModelRepository {
+
+    public static final String COLUMNS = "SELECT id, name, description, price, quantity, category, warehouse_id FROM products";
+
+    // Filas que el driver trae por vez en la carga completa
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+
+    public ProductReadModelRepository(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    // Columnas de COLUMNS, fila por fila y sin orden
+    public void forEachProduct(RowCallbackHandler handler) {
+        streamingTemplate.query(COLUMNS, handler);
+    }
+
+    // Los que no existen no vuelven
+    public void findAllById(Collection<Long> ids, RowCallbackHandler handler) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(COLUMNS + " WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")",
+                handler, ids.toArray());
+    }
+
+    public List<Warehouse> findAllWarehouses() {
+        return jdbcTemplate.query("SELECT id, name, location_details FROM warehouses", (rs, rowNum) ->
+                new Warehouse(rs.getLong("id"), rs.getString("name"), rs.getString("location_details"), null));
+    }
+}
@@ -2,6 +2,8 @@ package com.tuempresa.gestioninventario.repository;
 
 import com.tuempresa.gestioninventario.entity.Product;
 import com.tuempresa.gestioninventario.entity.Warehouse;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -11,9 +13,24 @@ import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    // warehouse es LAZY pero se serializa en las respuestas: se trae en el mismo SELECT
+    // para no disparar una consulta por almacén al escribir el JSON (N+1).
+    @Override
+    @EntityGraph(attributePaths = "warehouse")
+    List<Product> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "warehouse")
+    Optional<Product> findById(Long id);
+
     Optional<Product> findByName(String name); // Sigue siendo útil
+    @EntityGraph(attributePaths = "warehouse")
     List<Product> findByCategory(String category); // Sigue siendo útil
     List<Product> findByWarehouse(Warehouse warehouse); // Sigue siendo útil
 
+    // Primeros productos por ID, acotados (StartupWarmup no necesita el catálogo completo)
+    @EntityGraph(attributePaths = "warehouse")
+    List<Product> findByOrderByIdAsc(Limit limit);
+
     // Métodos como findBySku y findByBarcode ya no aplican y deben ser eliminados si existían.
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.dto.CatalogProduct;
+import com.tuempresa.gestioninventario.dto.CatalogWarehouse;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+// Repositorio de solo lectura y no bloqueante sobre las mismas tablas que usa JPA
+// ("products" y "warehouses"). Las escrituras siguen pasando por ProductRepository/WarehouseRepository.
+//
+// El pool R2DBC se crea aquí dentro y NO se publica como bean de tipo ConnectionFactory:
+// si existiera ese bean, Spring Boot desactivaría la autoconfiguración del DataSource JDBC que usa JPA.
+@Repository
+public class ReactiveCatalogRepository {
+
+    private static final String PRODUCT_COLUMNS =
+            "SELECT id, name, description, price, quantity, category, warehouse_id FROM products";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCatalogRepository(
+            @Value("${inventario.catalog.r2dbc.url}") String url,
+            @Value("${inventario.catalog.r2dbc.username}") String username,
+            @Value("${inventario.catalog.r2dbc.password}") String password,
+            @Value("${inventario.catalog.r2dbc.pool.initial-size:2}") int initialSize,
+            @Value("${inventario.catalog.r2dbc.pool.max-size:10}") int maxSize,
+            @Value("${inventario.catalog.r2dbc.pool.max-acquire-time:5s}") Duration maxAcquireTime) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        // El pool es perezoso: no abre conexiones hasta la primera consulta,
+        // así que el arranque no depende de que la base esté disponible por R2DBC.
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("catalog-r2dbc")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    public Flux<CatalogProduct> findAllProducts() {
+        return databaseClient.sql(PRODUCT_COLUMNS + " ORDER BY id")
+                .map(ReactiveCatalogRepository::toProduct)
+                .all();
+    }
+
+    public Mono<CatalogProduct> findProductById(Long id) {
+        return databaseClient.sql(PRODUCT_COLUMNS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCatalogRepository::toProduct)
+                .one();
+    }
+
+    public Flux<CatalogProduct> findProductsByCategory(String category) {
+        return databaseClient.sql(PRODUCT_COLUMNS + " WHERE category = :category ORDER BY id")
+                .bind("category", category)
+                .map(ReactiveCatalogRepository::toProduct)
+                .all();
+    }
+
+    public Flux<CatalogProduct> findProductsByWarehouseId(Long warehouseId) {
+        return databaseClient.sql(PRODUCT_COLUMNS + " WHERE warehouse_id = :warehouseId ORDER BY id")
+                .bind("warehouseId", warehouseId)
+                .map(ReactiveCatalogRepository::toProduct)
+                .all();
+    }
+
+    public Flux<CatalogWarehouse> findAllWarehouses() {
+        return databaseClient.sql("SELECT id, name, location_details FROM warehouses ORDER BY id")
+                .map(row -> new CatalogWarehouse(
+                        row.get("id", Long.class),
+                        row.get("name", String.class),
+                        row.get("location_details", String.class)))
+                .all();
+    }
+
+    // Métricas del pool (conexiones adquiridas, en espera, etc.) para el benchmark de concurrencia.
+    public Optional<PoolMetrics> getPoolMetrics() {
+        return connectionPool.getMetrics();
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private static CatalogProduct toProduct(Readable row) {
+        return new CatalogProduct(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("price", BigDecimal.class),
+                row.get("quantity", Integer.class),
+                row.get("category", String.class),
+                row.get("warehouse_id", Long.class));
+    }
+}
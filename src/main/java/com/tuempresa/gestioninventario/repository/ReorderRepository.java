@@ -0,0 +1,174 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.dto.ReorderSuggestion;
+import com.tuempresa.gestioninventario.reorder.ReorderChunk;
+import com.tuempresa.gestioninventario.reorder.ReorderRun;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+// Acceso por JDBC para ReorderPointJob: lectura por rangos de ID de products y de las salidas en
+// audit_log, y escritura de product_reorder junto con el avance de la corrida (reorder_run_chunk).
+// Las lecturas de un bloque devuelven filas a un RowCallbackHandler, sin armar entidades.
+@Repository
+public class ReorderRepository {
+
+    private static final String RUN_COLUMNS =
+            "id, as_of, lookback_days, min_product_id, max_product_id, chunk_size";
+
+    private static final RowMapper<ReorderRun> RUN_MAPPER = (rs, rowNum) -> new ReorderRun(
+            rs.getLong("id"),
+            rs.getTimestamp("as_of").toLocalDateTime().toInstant(ZoneOffset.UTC),
+            rs.getInt("lookback_days"),
+            rs.getLong("min_product_id"),
+            rs.getLong("max_product_id"),
+            rs.getInt("chunk_size"));
+
+    private static final RowMapper<ReorderSuggestion> SUGGESTION_MAPPER = (rs, rowNum) -> new ReorderSuggestion(
+            rs.getLong("product_id"),
+            rs.getBigDecimal("daily_forecast"),
+            rs.getInt("safety_stock"),
+            rs.getInt("reorder_point"),
+            rs.getInt("suggested_quantity"),
+            rs.getTimestamp("computed_at").toLocalDateTime().toInstant(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReorderRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // --- Lecturas del job ---
+
+    // {menor, mayor} ID de products en la base principal; null si no hay productos
+    public long[] productIdRange() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM products", (rs, rowNum) ->
+                rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    // Columnas id, quantity de los productos con ID en [fromId, toId), en orden de ID
+    public void forEachStock(long fromId, long toId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, quantity FROM products WHERE id >= ? AND id < ? ORDER BY id",
+                handler, fromId, toId);
+    }
+
+    // Columnas entity_id, occurred_at, amount de las salidas de stock de los productos con ID en [fromId, toId)
+    public void forEachExit(long fromId, long toId, Instant since, Instant until, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT entity_id, occurred_at, amount FROM audit_log"
+                        + " WHERE entity_type = ? AND action = ? AND entity_id >= ? AND entity_id < ?"
+                        + " AND occurred_at >= ? AND occurred_at < ?",
+                handler, AuditAction.STOCK_EXIT.entityType(), AuditAction.STOCK_EXIT.name(), fromId, toId,
+                timestamp(since), timestamp(until));
+    }
+
+    // --- Corridas ---
+
+    public Optional<ReorderRun> findUnfinishedRun() {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM reorder_run WHERE finished_at IS NULL"
+                + " ORDER BY id DESC LIMIT 1", RUN_MAPPER).stream().findFirst();
+    }
+
+    // La corrida del horario si todavía no terminó
+    public Optional<ReorderRun> findUnfinishedRun(Instant scheduledAt) {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM reorder_run WHERE scheduled_at = ?"
+                + " AND finished_at IS NULL", RUN_MAPPER, timestamp(scheduledAt)).stream().findFirst();
+    }
+
+    // Con scheduledAt (corrida programada) lanza DuplicateKeyException si ese horario ya tiene su corrida
+    public ReorderRun startRun(Instant startedAt, Instant scheduledAt, Instant asOf, int lookbackDays,
+                               long minProductId, long maxProductId, int chunkSize) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO reorder_run (started_at, scheduled_at,"
+                    + " as_of, lookback_days, min_product_id, max_product_id, chunk_size) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setTimestamp(1, timestamp(startedAt));
+            ps.setTimestamp(2, scheduledAt == null ? null : timestamp(scheduledAt));
+            ps.setTimestamp(3, timestamp(asOf));
+            ps.setInt(4, lookbackDays);
+            ps.setLong(5, minProductId);
+            ps.setLong(6, maxProductId);
+            ps.setInt(7, chunkSize);
+            return ps;
+        }, keys);
+        return new ReorderRun(keys.getKey().longValue(), asOf, lookbackDays, minProductId, maxProductId, chunkSize);
+    }
+
+    public Set<Long> completedChunks(long runId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT chunk_start FROM reorder_run_chunk WHERE run_id = ?", Long.class, runId));
+    }
+
+    // Sugerencias del bloque y su marca de completado: llamar dentro de una transacción
+    public void saveChunk(long runId, ReorderChunk chunk, Instant computedAt) {
+        Timestamp computed = timestamp(computedAt);
+        jdbcTemplate.batchUpdate("INSERT INTO product_reorder (product_id, run_id, daily_forecast, safety_stock,"
+                        + " reorder_point, suggested_quantity, computed_at) VALUES (?, ?, ?, ?, ?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE run_id = VALUES(run_id), daily_forecast = VALUES(daily_forecast),"
+                        + " safety_stock = VALUES(safety_stock), reorder_point = VALUES(reorder_point),"
+                        + " suggested_quantity = VALUES(suggested_quantity), computed_at = VALUES(computed_at)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, chunk.productIds()[i]);
+                        ps.setLong(2, runId);
+                        ps.setBigDecimal(3, BigDecimal.valueOf(chunk.dailyForecast()[i]).setScale(3, RoundingMode.HALF_UP));
+                        ps.setInt(4, chunk.safetyStock()[i]);
+                        ps.setInt(5, chunk.reorderPoint()[i]);
+                        ps.setInt(6, chunk.suggestedQuantity()[i]);
+                        ps.setTimestamp(7, computed);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.count();
+                    }
+                });
+        jdbcTemplate.update("INSERT INTO reorder_run_chunk (run_id, chunk_start, products) VALUES (?, ?, ?)",
+                runId, chunk.start(), chunk.count());
+    }
+
+    // Cierra la corrida: borra las sugerencias que no reescribió (productos eliminados) y su avance, y da por
+    // cerradas las anteriores que quedaron abiertas (dos particiones que arrancaron corridas a la vez).
+    // Devuelve cuántas sugerencias borró, o -1 si otra partición ya la cerró. Llamar dentro de una transacción.
+    public int finishRun(long runId, Instant finishedAt) {
+        if (jdbcTemplate.update("UPDATE reorder_run SET finished_at = ? WHERE id = ? AND finished_at IS NULL",
+                timestamp(finishedAt), runId) == 0) {
+            return -1;
+        }
+        jdbcTemplate.update("UPDATE reorder_run SET finished_at = ? WHERE id < ? AND finished_at IS NULL",
+                timestamp(finishedAt), runId);
+        jdbcTemplate.update("DELETE FROM reorder_run_chunk WHERE run_id <= ?", runId);
+        return jdbcTemplate.update("DELETE FROM product_reorder WHERE run_id < ?", runId);
+    }
+
+    // --- Consulta ---
+
+    public Optional<ReorderSuggestion> findSuggestion(long productId) {
+        return jdbcTemplate.query("SELECT product_id, daily_forecast, safety_stock, reorder_point, suggested_quantity,"
+                + " computed_at FROM product_reorder WHERE product_id = ?", SUGGESTION_MAPPER, productId)
+                .stream().findFirst();
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,48 @@
+package com.tuempresa.gestioninventario.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+// Acceso por JDBC a security_change. append se llama dentro de la transacción del cambio (el JdbcTemplate usa la
+// misma conexión): las demás instancias lo ven recién cuando confirmó. Las horas son las de la base.
+@Repository
+public class SecurityChangeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SecurityChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // userId nulo: cambió un rol
+    public void append(Long userId) {
+        jdbcTemplate.update("INSERT INTO security_change (occurred_at, user_id) VALUES (LOCALTIMESTAMP(6), ?)", userId);
+    }
+
+    // Tokens del usuario revocados en revokedAt (segundos epoch del reloj de esta instancia)
+    public void appendRevocation(long userId, long revokedAt) {
+        jdbcTemplate.update("INSERT INTO security_change (occurred_at, user_id, revoked_at) VALUES (LOCALTIMESTAMP(6), ?, ?)",
+                userId, revokedAt);
+    }
+
+    // Cambios registrados dentro de la última ventana, en orden
+    public List<SecurityChange> findWithin(Duration window) {
+        return jdbcTemplate.query("SELECT id, user_id, revoked_at FROM security_change"
+                        + " WHERE occurred_at >= TIMESTAMPADD(MICROSECOND, ?, LOCALTIMESTAMP(6)) ORDER BY id",
+                (rs, rowNum) -> new SecurityChange(rs.getLong("id"), rs.getObject("user_id", Long.class),
+                        rs.getObject("revoked_at", Long.class)),
+                -window.toNanos() / 1000);
+    }
+
+    public int deleteOlderThan(Duration age) {
+        return jdbcTemplate.update("DELETE FROM security_change WHERE occurred_at < TIMESTAMPADD(MICROSECOND, ?,"
+                + " LOCALTIMESTAMP(6))", -age.toNanos() / 1000);
+    }
+
+    // revokedAt nulo: el cambio no revoca tokens
+    public record SecurityChange(long id, Long userId, Long revokedAt) {
+    }
+}
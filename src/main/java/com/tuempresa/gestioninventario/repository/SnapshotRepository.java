@@ -0,0 +1,117 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.snapshot.SnapshotTable;
+import com.tuempresa.gestioninventario.snapshot.SnapshotTable.SecondaryIndex;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+// Acceso por JDBC para SnapshotService: lectura completa de cada tabla para exportar y carga masiva en una
+// conexión propia para importar.
+@Repository
+public class SnapshotRepository {
+
+    // Filas que el driver trae por vez al exportar: una tabla de millones de filas no se carga entera
+    private static final int FETCH_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+
+    public SnapshotRepository(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    // Columnas de la tabla en el orden de SnapshotTable.columns(), por clave primaria. Dentro de la
+    // transacción de SnapshotService, así todas las tablas salen de la misma foto de la base.
+    public void forEachRow(SnapshotTable table, RowCallbackHandler handler) {
+        streamingTemplate.query(table.selectSql(), handler);
+    }
+
+    public boolean isEmpty(SnapshotTable table) {
+        return jdbcTemplate.queryForList("SELECT 1 FROM " + table.tableName() + " LIMIT 1").isEmpty();
+    }
+
+    public BulkLoadSession openBulkLoadSession() throws SQLException {
+        return new BulkLoadSession(dataSource.getConnection());
+    }
+
+    // Conexión exclusiva para la importación, sin autocommit y con los chequeos de FK apagados (y los de
+    // unicidad en MariaDB): son variables de la sesión, por eso no se usa una conexión del pool compartida
+    // entre transacciones. close() las restaura antes de devolver la conexión.
+    public static final class BulkLoadSession implements AutoCloseable {
+
+        private final Connection connection;
+        private final JdbcTemplate session;
+        private final boolean mariaDb;
+
+        private BulkLoadSession(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+            this.mariaDb = product.contains("mariadb") || product.contains("mysql");
+            try {
+                connection.setAutoCommit(false);
+                session.execute("SET FOREIGN_KEY_CHECKS = 0");
+                if (mariaDb) {
+                    session.execute("SET UNIQUE_CHECKS = 0");
+                }
+            } catch (RuntimeException | SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        public void dropSecondaryIndexes(SnapshotTable table) {
+            for (SecondaryIndex index : table.secondaryIndexes()) {
+                session.execute("DROP INDEX " + index.name() + " ON " + table.tableName());
+            }
+        }
+
+        // Después de cargar: InnoDB arma cada índice de una vez, ordenando, en lugar de fila por fila
+        public void createSecondaryIndexes(SnapshotTable table) {
+            for (SecondaryIndex index : table.secondaryIndexes()) {
+                session.execute("CREATE INDEX " + index.name() + " ON " + table.tableName() + " (" + index.columns() + ")");
+            }
+        }
+
+        public void insert(SnapshotTable table, BatchPreparedStatementSetter rows) {
+            session.batchUpdate(table.insertSql(), rows);
+        }
+
+        public void deleteAll(SnapshotTable table) {
+            session.update("DELETE FROM " + table.tableName());
+        }
+
+        public void commit() throws SQLException {
+            connection.commit();
+        }
+
+        public void rollback() throws SQLException {
+            connection.rollback();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (mariaDb) {
+                    session.execute("SET UNIQUE_CHECKS = 1");
+                }
+                session.execute("SET FOREIGN_KEY_CHECKS = 1");
+                connection.setAutoCommit(true);
+            } finally {
+                connection.close();
+            }
+        }
+    }
+}
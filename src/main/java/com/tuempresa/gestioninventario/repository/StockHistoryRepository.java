@@ -0,0 +1,95 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.history.Resolution;
+import com.tuempresa.gestioninventario.history.StoredSegment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+// Acceso por JDBC a stock_history. Solo escribe el hilo de StockHistory (fuera de las transacciones de
+// ProductService); las lecturas por producto van por la clave primaria y las de mantenimiento por
+// idx_stock_history_sealed.
+@Repository
+public class StockHistoryRepository {
+
+    private static final String COLUMNS =
+            "product_id, resolution, segment_start, warehouse_id, point_count, sealed, data";
+
+    private static final RowMapper<StoredSegment> ROW_MAPPER = (rs, rowNum) -> new StoredSegment(
+            rs.getLong("product_id"),
+            Resolution.valueOf(rs.getString("resolution")),
+            rs.getLong("segment_start"),
+            rs.getObject("warehouse_id", Long.class),
+            rs.getInt("point_count"),
+            rs.getBoolean("sealed"),
+            rs.getBytes("data"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<StoredSegment> find(long productId, Resolution resolution, long segmentStart) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM stock_history"
+                        + " WHERE product_id = ? AND resolution = ? AND segment_start = ?",
+                ROW_MAPPER, productId, resolution.name(), segmentStart).stream().findFirst();
+    }
+
+    // Segmentos de un producto que empiezan entre fromStart y toStart (ambos incluidos), en orden
+    public List<StoredSegment> findRange(long productId, Resolution resolution, long fromStart, long toStart) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM stock_history"
+                        + " WHERE product_id = ? AND resolution = ? AND segment_start BETWEEN ? AND ?"
+                        + " ORDER BY segment_start",
+                ROW_MAPPER, productId, resolution.name(), fromStart, toStart);
+    }
+
+    // Días RAW anteriores a beforeStart que quedaron sin cerrar (la instancia se detuvo antes del cambio de día)
+    public List<StoredSegment> findUnsealedRawBefore(long beforeStart) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM stock_history"
+                        + " WHERE sealed = ? AND resolution = ? AND segment_start < ?",
+                ROW_MAPPER, false, Resolution.RAW.name(), beforeStart);
+    }
+
+    // Agregados HOUR/DAY (se reemplazan enteros): UPDATE y, si no existía, INSERT
+    public void save(StoredSegment segment) {
+        int updated = jdbcTemplate.update("UPDATE stock_history SET warehouse_id = ?, point_count = ?, sealed = ?,"
+                        + " data = ? WHERE product_id = ? AND resolution = ? AND segment_start = ?",
+                segment.warehouseId(), segment.pointCount(), segment.sealed(), segment.data(),
+                segment.productId(), segment.resolution().name(), segment.segmentStart());
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO stock_history (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    segment.productId(), segment.resolution().name(), segment.segmentStart(),
+                    segment.warehouseId(), segment.pointCount(), segment.sealed(), segment.data());
+        }
+    }
+
+    // Guarda un día RAW solo si la fila sigue con expectedPointCount puntos (0: la fila no debe existir).
+    // false si otra instancia la modificó mientras tanto.
+    public boolean saveIfCount(StoredSegment segment, int expectedPointCount) {
+        if (expectedPointCount == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO stock_history (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        segment.productId(), segment.resolution().name(), segment.segmentStart(),
+                        segment.warehouseId(), segment.pointCount(), segment.sealed(), segment.data());
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        return jdbcTemplate.update("UPDATE stock_history SET warehouse_id = ?, point_count = ?, sealed = ?, data = ?"
+                        + " WHERE product_id = ? AND resolution = ? AND segment_start = ? AND point_count = ?",
+                segment.warehouseId(), segment.pointCount(), segment.sealed(), segment.data(),
+                segment.productId(), segment.resolution().name(), segment.segmentStart(), expectedPointCount) == 1;
+    }
+
+    // Segmentos cerrados que empiezan antes de beforeStart
+    public int deleteSealedBefore(Resolution resolution, long beforeStart) {
+        return jdbcTemplate.update("DELETE FROM stock_history WHERE sealed = ? AND resolution = ? AND segment_start < ?",
+                true, resolution.name(), beforeStart);
+    }
+}
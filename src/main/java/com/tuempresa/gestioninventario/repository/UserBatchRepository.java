@@ -0,0 +1,60 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Inserción masiva de usuarios por JDBC. User usa IDENTITY, y con IDENTITY Hibernate no puede agrupar
+// los INSERT en lotes (necesita el ID de cada fila al persistir). Aquí se insertan app_users y user_roles
+// con batchUpdate de a batch-size filas y los IDs se recuperan con un solo SELECT ... IN.
+// Debe llamarse dentro de una transacción de escritura (UserBatchService).
+@Repository
+public class UserBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final int batchSize;
+
+    public UserBatchRepository(JdbcTemplate jdbcTemplate,
+                               @Value("${inventario.users.batch.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.batchSize = batchSize;
+    }
+
+    // Devuelve username -> ID generado
+    public Map<String, Long> insertUsers(List<User> users) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO app_users (username, password, email, enabled) VALUES (?, ?, ?, ?)",
+                users, batchSize, (ps, user) -> {
+                    ps.setString(1, user.getUsername());
+                    ps.setString(2, user.getPassword());
+                    ps.setString(3, user.getEmail());
+                    ps.setBoolean(4, user.isEnabled());
+                });
+
+        Map<String, Long> ids = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, username FROM app_users WHERE username IN (:usernames)",
+                new MapSqlParameterSource("usernames", users.stream().map(User::getUsername).toList()),
+                row -> {
+                    ids.put(row.getString("username"), row.getLong("id"));
+                });
+        return ids;
+    }
+
+    // Cada par es {userId, roleId}
+    public void insertUserRoles(List<long[]> userRoles) {
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)",
+                userRoles, batchSize, (ps, pair) -> {
+                    ps.setLong(1, pair[0]);
+                    ps.setLong(2, pair[1]);
+                });
+    }
+}
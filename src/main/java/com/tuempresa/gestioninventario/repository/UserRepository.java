@@ -1,14 +1,54 @@
 package com.tuempresa.gestioninventario.repository;
 
 import com.tuempresa.gestioninventario.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // roles es EAGER: sin el entity graph, findAll hace un SELECT extra de roles por cada usuario (N+1)
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
+
+    // Se usa en cada login: usuario y roles en una sola consulta
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username); // [cite: 6]
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    // Unicidad de un lote completo en una sola consulta por campo (POST /api/users/batch)
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // IDs de usuarios deshabilitados, para la lista de revocación de tokens
+    @Query("SELECT u.id FROM User u WHERE u.enabled = false")
+    List<Long> findIdsByEnabledFalse();
+
+    // Recorrido completo de usernames y emails para construir UserUniquenessFilter sin cargar
+    // app_users en memoria. Debe consumirse dentro de una transacción y cerrarse al terminar.
+    @Query("SELECT u.username AS username, u.email AS email FROM User u")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<UsernameAndEmail> streamUsernamesAndEmails();
+
+    interface UsernameAndEmail {
+        String getUsername();
+        String getEmail();
+    }
 }
\ No newline at end of file
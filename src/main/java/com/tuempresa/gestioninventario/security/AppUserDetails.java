@@ -0,0 +1,23 @@
+package com.tuempresa.gestioninventario.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// UserDetails con el ID de app_users: lo necesita el endpoint de tokens para emitir el claim "uid"
+// sin volver a consultar la base.
+public class AppUserDetails extends User {
+
+    private final Long id;
+
+    public AppUserDetails(Long id, String username, String password, boolean enabled,
+                          Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tuempresa.gestioninventario.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Caché corta de credenciales ya verificadas. Los clientes de la API mandan basic auth en cada request;
+// sin esta caché cada llamada paga una consulta a app_users y una verificación bcrypt (decenas de ms de CPU).
+//
+// No se guarda la contraseña: solo un HMAC-SHA256 de usuario+contraseña con una clave aleatoria del proceso,
+// junto con el principal y sus authorities. Solo se cachean autenticaciones correctas.
+// UserService invalida la entrada al cambiar contraseña, roles, estado o al borrar el usuario.
+@Component
+public class AuthenticationCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final SecretKeySpec key;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public AuthenticationCache(@Value("${inventario.security.auth-cache.ttl:60s}") Duration ttl,
+                               @Value("${inventario.security.auth-cache.max-entries:10000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+    }
+
+    // Devuelve una autenticación nueva (ya autenticada) si las credenciales coinciden con una entrada vigente
+    public Authentication lookup(String username, String rawPassword) {
+        if (ttlNanos <= 0) {
+            return null;
+        }
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(username, entry);
+            return null;
+        }
+        if (!MessageDigest.isEqual(entry.digest(), digest(username, rawPassword))) {
+            return null;
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(entry.principal(), null, entry.authorities());
+    }
+
+    public void put(String username, String rawPassword, Authentication authenticated) {
+        if (ttlNanos <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> now - entry.expiresAt() > 0);
+            if (entries.size() >= maxEntries) {
+                return; // Llena de entradas vigentes: esta autenticación simplemente no se cachea
+            }
+        }
+        entries.put(username, new Entry(digest(username, rawPassword), authenticated.getPrincipal(),
+                authenticated.getAuthorities(), System.nanoTime() + ttlNanos));
+    }
+
+    // Se invalida ya y otra vez tras el commit: así una autenticación concurrente que leyó el estado
+    // anterior a la transacción no deja una entrada vieja en la caché.
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        entries.remove(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(username);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        entries.clear();
+    }
+
+    private byte[] digest(String username, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+
+    private record Entry(byte[] digest, Object principal, Collection<? extends GrantedAuthority> authorities,
+                         long expiresAt) {
+    }
+}
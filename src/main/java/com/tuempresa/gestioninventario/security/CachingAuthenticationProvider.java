@@ -0,0 +1,82 @@
+package com.tuempresa.gestioninventario.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Autenticación usuario/contraseña en dos niveles:
+//   1. AuthenticationCache: si las mismas credenciales se verificaron hace poco, no hay consulta ni bcrypt.
+//   2. Si no, el delegado (DaoAuthenticationProvider: consulta + bcrypt) corre en un pool acotado y dedicado.
+//      El hilo del request espera el resultado, pero como mucho N hilos queman CPU en bcrypt a la vez y,
+//      con la cola llena, el request se rechaza enseguida en vez de acumular trabajo.
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final AuthenticationCache authenticationCache;
+    private final ExecutorService hashingExecutor;
+    private final Duration timeout;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, AuthenticationCache authenticationCache,
+                                         ExecutorService hashingExecutor, Duration timeout) {
+        this.delegate = delegate;
+        this.authenticationCache = authenticationCache;
+        this.hashingExecutor = hashingExecutor;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        if (!(authentication.getCredentials() instanceof String rawPassword)) {
+            return delegate.authenticate(authentication);
+        }
+
+        Authentication cached = authenticationCache.lookup(username, rawPassword);
+        if (cached != null) {
+            return cached;
+        }
+
+        Future<Authentication> verification;
+        try {
+            verification = hashingExecutor.submit(() -> delegate.authenticate(authentication));
+        } catch (RejectedExecutionException e) {
+            throw new HashingCapacityExceededException("Demasiadas verificaciones de contraseña en curso.");
+        }
+
+        Authentication result;
+        try {
+            result = verification.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthenticationException authenticationException) {
+                throw authenticationException;
+            }
+            throw new AuthenticationServiceException("Error al verificar las credenciales.", e.getCause());
+        } catch (TimeoutException e) {
+            verification.cancel(true);
+            throw new HashingCapacityExceededException("La verificación de la contraseña superó " + timeout.toMillis() + " ms.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Verificación de credenciales interrumpida.", e);
+        }
+
+        if (result != null && result.isAuthenticated()) {
+            authenticationCache.put(username, rawPassword, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
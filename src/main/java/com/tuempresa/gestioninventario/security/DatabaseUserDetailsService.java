@@ -0,0 +1,54 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Usuarios de app_users para Spring Security. Los nombres de rol ("ROLE_...") se usan tal cual como authorities.
+// Como UserDetailsPasswordService, re-hashea la contraseña tras un login correcto si su formato quedó viejo
+// (hash legado o costo de bcrypt menor al configurado).
+@Service
+public class DatabaseUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    public DatabaseUserDetailsService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userRepository.findByUsername(username)
+                .map(DatabaseUserDetailsService::toUserDetails)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return userRepository.findByUsername(user.getUsername())
+                .map(existingUser -> {
+                    existingUser.setPassword(newPassword);
+                    return toUserDetails(existingUser);
+                })
+                .orElse(user);
+    }
+
+    private static UserDetails toUserDetails(User user) {
+        List<SimpleGrantedAuthority> authorities = user.getRoles() == null ? List.of()
+                : user.getRoles().stream().map(Role::getName).map(SimpleGrantedAuthority::new).toList();
+        return new AppUserDetails(user.getId(), user.getUsername(), user.getPassword(), user.isEnabled(), authorities);
+    }
+}
@@ -0,0 +1,12 @@
+package com.tuempresa.gestioninventario.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+// El pool de verificación de contraseñas está saturado (cola llena o espera agotada).
+// SecurityConfig la traduce a 503 + Retry-After en lugar de un 401: las credenciales no se llegaron a evaluar.
+public class HashingCapacityExceededException extends AuthenticationServiceException {
+
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
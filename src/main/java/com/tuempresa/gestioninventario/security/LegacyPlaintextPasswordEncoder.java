@@ -0,0 +1,26 @@
+package com.tuempresa.gestioninventario.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Solo para verificar las contraseñas guardadas en texto plano antes de bcrypt (sin prefijo {id}).
+// Reemplaza a NoOpPasswordEncoder (deprecado): compara en tiempo constante y nunca codifica,
+// porque toda contraseña nueva o migrada se guarda con el codificador por defecto.
+public final class LegacyPlaintextPasswordEncoder implements PasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        throw new UnsupportedOperationException("Las contraseñas en texto plano solo se verifican, no se generan.");
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                encodedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+}
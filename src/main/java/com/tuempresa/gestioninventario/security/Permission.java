@@ -0,0 +1,55 @@
+package com.tuempresa.gestioninventario.security;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Permisos de la API. Cada uno ocupa un bit fijo de un long: el conjunto de permisos de un rol se guarda
+// compilado en roles.permission_mask y la comprobación por request es un único AND.
+// El bit es explícito (no el ordinal) para que reordenar o agregar constantes no cambie las máscaras guardadas.
+public enum Permission {
+    PRODUCT_READ(0),
+    PRODUCT_WRITE(1),
+    STOCK_MOVE(2),
+    WAREHOUSE_READ(3),
+    WAREHOUSE_WRITE(4),
+    USER_READ(5),
+    USER_WRITE(6),
+    ROLE_READ(7),
+    ROLE_WRITE(8),
+    METRICS_READ(9);
+
+    private final long bit;
+
+    Permission(int bitIndex) {
+        this.bit = 1L << bitIndex;
+    }
+
+    public long bit() {
+        return bit;
+    }
+
+    public static long maskOf(Collection<Permission> permissions) {
+        long mask = 0L;
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                mask |= permission.bit;
+            }
+        }
+        return mask;
+    }
+
+    public static long allMask() {
+        return maskOf(EnumSet.allOf(Permission.class));
+    }
+
+    public static Set<Permission> fromMask(long mask) {
+        Set<Permission> permissions = EnumSet.noneOf(Permission.class);
+        for (Permission permission : values()) {
+            if ((mask & permission.bit) != 0) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
+}
@@ -0,0 +1,212 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Máscaras de permisos en memoria para autorizar sin tocar la base:
+//   - nombre de rol -> máscara del rol (la tabla roles es chica: se carga entera al arrancar)
+//   - ID de usuario -> unión de las máscaras de sus roles, calculada en la primera request del usuario
+//
+// Las authorities de la autenticación (basic o token) son los nombres de rol; con la unión ya cacheada,
+// autorizar es buscar el ID en un mapa, comprobar que sus roles sean los de la request y hacer un AND.
+// RoleService y UserService avisan de los cambios y solo se recalculan las uniones de los usuarios
+// afectados, después del commit. Cada cambio queda además en security_change, de donde SecurityChangeFeed
+// lo aplica en las demás instancias.
+@Component
+public class PermissionRegistry {
+
+    private final RoleRepository roleRepository;
+    private final SecurityChangeRepository changeRepository;
+    private final int maxCachedUsers;
+    private final Map<String, Long> maskByRoleName = new ConcurrentHashMap<>();
+    private final Map<Long, UserMask> maskByUserId = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PermissionRegistry(RoleRepository roleRepository, SecurityChangeRepository changeRepository,
+                              @Value("${inventario.security.permissions.max-cached-users:50000}") int maxCachedUsers) {
+        this.roleRepository = roleRepository;
+        this.changeRepository = changeRepository;
+        this.maxCachedUsers = maxCachedUsers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        maskByRoleName.clear();
+        for (Role role : roleRepository.findAll()) {
+            maskByRoleName.put(role.getName(), role.getPermissionMask());
+        }
+        maskByUserId.clear();
+    }
+
+    public boolean hasPermission(Authentication authentication, Permission permission) {
+        return (maskOf(authentication) & permission.bit()) != 0;
+    }
+
+    // Regla para authorizeHttpRequests: la request pasa si la unión de permisos del usuario incluye el pedido
+    public AuthorizationManager<RequestAuthorizationContext> requires(Permission permission) {
+        return (authentication, context) -> new AuthorizationDecision(hasPermission(authentication.get(), permission));
+    }
+
+    public long maskOf(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return 0L;
+        }
+        Long userId = userIdOf(authentication.getPrincipal());
+        if (userId != null) {
+            UserMask cached = maskByUserId.get(userId);
+            // Con otros roles (quitados o agregados desde otra instancia) la unión cacheada ya no vale
+            if (cached != null && sameRoles(cached.authorities(), authentication.getAuthorities())) {
+                return cached.mask();
+            }
+        }
+        Set<String> roleNames = new HashSet<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            roleNames.add(authority.getAuthority());
+        }
+        long mask = union(roleNames);
+        if (userId != null) {
+            if (maskByUserId.size() >= maxCachedUsers) {
+                maskByUserId.clear();
+            }
+            maskByUserId.put(userId, new UserMask(roleNames, roleNames, mask));
+        }
+        return mask;
+    }
+
+    // --- Cambios (llamados dentro de las transacciones de RoleService/UserService) ---
+
+    public void roleSaved(String previousName, Role role) {
+        String name = role.getName();
+        long mask = role.getPermissionMask();
+        changeRepository.append(null);
+        afterCommit(() -> {
+            if (previousName != null && !previousName.equals(name)) {
+                maskByRoleName.remove(previousName);
+                renameInCachedUsers(previousName, name);
+            }
+            maskByRoleName.put(name, mask);
+            recomputeUsersWith(name);
+        });
+    }
+
+    public void roleDeleted(String name) {
+        changeRepository.append(null);
+        afterCommit(() -> {
+            maskByRoleName.remove(name);
+            recomputeUsersWith(name);
+        });
+    }
+
+    public void userRolesChanged(Long userId, Set<Role> roles) {
+        if (userId == null) {
+            return;
+        }
+        Set<String> roleNames = new HashSet<>();
+        if (roles != null) {
+            roles.forEach(role -> roleNames.add(role.getName()));
+        }
+        changeRepository.append(userId);
+        afterCommit(() -> {
+            synchronized (this) {
+                maskByUserId.put(userId, new UserMask(roleNames, roleNames, union(roleNames)));
+            }
+        });
+    }
+
+    public void userRemoved(Long userId) {
+        changeRepository.append(userId);
+        afterCommit(() -> evictUser(userId));
+    }
+
+    // --- Cambios de otras instancias (SecurityChangeFeed) ---
+
+    // La próxima request del usuario recalcula su unión con las authorities que traiga
+    public void evictUser(Long userId) {
+        maskByUserId.remove(userId);
+    }
+
+    private synchronized void recomputeUsersWith(String roleName) {
+        maskByUserId.replaceAll((userId, userMask) -> userMask.roleNames().contains(roleName)
+                ? new UserMask(userMask.authorities(), userMask.roleNames(), union(userMask.roleNames()))
+                : userMask);
+    }
+
+    private synchronized void renameInCachedUsers(String previousName, String name) {
+        maskByUserId.replaceAll((userId, userMask) -> {
+            if (!userMask.roleNames().contains(previousName)) {
+                return userMask;
+            }
+            Set<String> renamed = new HashSet<>(userMask.roleNames());
+            renamed.remove(previousName);
+            renamed.add(name);
+            return new UserMask(userMask.authorities(), renamed, userMask.mask());
+        });
+    }
+
+    private static boolean sameRoles(Set<String> roleNames, Collection<? extends GrantedAuthority> authorities) {
+        if (roleNames.size() != authorities.size()) {
+            return false;
+        }
+        for (GrantedAuthority authority : authorities) {
+            if (!roleNames.contains(authority.getAuthority())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long union(Set<String> roleNames) {
+        long mask = 0L;
+        for (String roleName : roleNames) {
+            mask |= maskByRoleName.getOrDefault(roleName, 0L);
+        }
+        return mask;
+    }
+
+    private static Long userIdOf(Object principal) {
+        if (principal instanceof AppUserDetails user) {
+            return user.getId();
+        }
+        if (principal instanceof TokenPrincipal token) {
+            return token.userId();
+        }
+        return null;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // authorities: las de la request que calculó la unión (la clave); roleNames: los nombres actuales de esos
+    // roles (un rol renombrado cambia aquí y no en los tokens ya emitidos)
+    private record UserMask(Set<String> authorities, Set<String> roleNames, long mask) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository;
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository.SecurityChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Aplica en esta instancia los cambios de roles y usuarios hechos en cualquiera (tabla security_change):
+// PermissionRegistry guarda las máscaras en memoria y, sin esto, otra instancia seguiría otorgando los
+// permisos quitados hasta reiniciarse.
+//
+// Cada poll-interval relee las filas de la última ventana (window) y aplica las que no vio: un rol recarga
+// todas las máscaras; un usuario descarta la suya. Se relee una ventana y no "desde el último ID" porque un ID
+// menor puede confirmar después que uno mayor; una transacción que tarde más que window en confirmar desde
+// que registró el cambio no se ve aquí (sí al reiniciar). Lo propio también vuelve y se aplica dos veces,
+// sin efecto. Las filas más viejas que retention se borran.
+//
+// Una fila con revoked_at además revoca los tokens del usuario con ese instante (TokenRevocationList). Esas sí se
+// aplican desde la primera lectura, que relee la vida del token y no solo la ventana: un token emitido por otra
+// instancia antes del arranque de esta puede seguir vigente. retention tiene que cubrir esa vida.
+@Component
+public class SecurityChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityChangeFeed.class);
+
+    private final SecurityChangeRepository repository;
+    private final PermissionRegistry permissionRegistry;
+    private final TokenRevocationList tokenRevocationList;
+    private final long pollIntervalMillis;
+    private final Duration window;
+    private final Duration firstWindow;
+    private final Duration retention;
+
+    // IDs de la ventana ya aplicados; null hasta la primera lectura. Solo desde el hilo propio
+    private Set<Long> seen;
+    private long lastPurgeNanos;
+    private volatile boolean running;
+    private ScheduledExecutorService poller;
+
+    @Autowired
+    public SecurityChangeFeed(SecurityChangeRepository repository, PermissionRegistry permissionRegistry,
+                              TokenRevocationList tokenRevocationList,
+                              @Value("${inventario.security.changes.poll-interval:2s}") Duration pollInterval,
+                              @Value("${inventario.security.changes.window:1m}") Duration window,
+                              @Value("${inventario.security.changes.retention:1h}") Duration retention,
+                              @Value("${inventario.security.token.ttl:15m}") Duration tokenTtl) {
+        this.repository = repository;
+        this.permissionRegistry = permissionRegistry;
+        this.tokenRevocationList = tokenRevocationList;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.window = window;
+        this.firstWindow = tokenTtl.compareTo(window) > 0 ? tokenTtl : window;
+        this.retention = retention;
+    }
+
+    // Una vuelta: devuelve cuántos cambios de permisos nuevos aplicó. La primera solo toma nota de los que ya
+    // había (PermissionRegistry acaba de cargarse con ese estado) y aplica las revocaciones.
+    int poll() {
+        List<SecurityChange> changes = repository.findWithin(seen == null ? firstWindow : window);
+        Set<Long> current = new HashSet<>();
+        boolean rolesChanged = false;
+        Set<Long> users = new LinkedHashSet<>();
+        for (SecurityChange change : changes) {
+            current.add(change.id());
+            if (seen != null && seen.contains(change.id())) {
+                continue;
+            }
+            if (change.revokedAt() != null) {
+                tokenRevocationList.revokeAt(change.userId(), change.revokedAt());
+            }
+            if (seen == null) {
+                continue;
+            }
+            if (change.userId() == null) {
+                rolesChanged = true;
+            } else {
+                users.add(change.userId());
+            }
+        }
+        boolean first = seen == null;
+        // Lo que salió de la ventana no vuelve a aparecer
+        seen = current;
+        if (first) {
+            return 0;
+        }
+        if (rolesChanged) {
+            permissionRegistry.reload();
+        } else {
+            users.forEach(permissionRegistry::evictUser);
+        }
+        return (rolesChanged ? 1 : 0) + users.size();
+    }
+
+    private void purge() {
+        long now = System.nanoTime();
+        if (now - lastPurgeNanos < TimeUnit.MINUTES.toNanos(1)) {
+            return;
+        }
+        lastPurgeNanos = now;
+        repository.deleteOlderThan(retention);
+    }
+
+    @Override
+    public void start() {
+        if (running || pollIntervalMillis <= 0) {
+            return;
+        }
+        running = true;
+        lastPurgeNanos = System.nanoTime();
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("security-changes-");
+        threads.setDaemon(true);
+        poller = Executors.newSingleThreadScheduledExecutor(threads);
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+                purge();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron leer los cambios de seguridad de otras instancias", e);
+            }
+        }, 0L, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tuempresa.gestioninventario.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// "Authorization: Bearer <token>": valida el token con TokenService (solo CPU) y deja la autenticación
+// en el SecurityContext. Sin cabecera Bearer no hace nada y la request sigue hacia basic auth.
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        TokenService.TokenClaims claims;
+        try {
+            claims = tokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+        } catch (AuthenticationException e) {
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), e.getMessage());
+            return;
+        }
+
+        List<SimpleGrantedAuthority> authorities = claims.roles() == null ? List.of()
+                : claims.roles().stream().map(SimpleGrantedAuthority::new).toList();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new TokenPrincipal(claims.uid(), claims.sub()), null, authorities));
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+}
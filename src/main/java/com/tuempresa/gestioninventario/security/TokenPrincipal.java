@@ -0,0 +1,12 @@
+package com.tuempresa.gestioninventario.security;
+
+import java.security.Principal;
+
+// Principal de una request autenticada con token: solo lo que viaja en el token, sin entidad User detrás
+public record TokenPrincipal(Long userId, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
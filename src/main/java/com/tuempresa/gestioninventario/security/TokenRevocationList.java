@@ -0,0 +1,85 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revocación de tokens por usuario, en memoria: userId -> instante de revocación (segundos).
+// Un token emitido en o antes de ese instante se rechaza. Cada entrada solo hace falta mientras pueda existir
+// un token previo vigente (la vida del token), así que la lista se mantiene del tamaño de los cambios recientes.
+//
+// UserService revoca al deshabilitar, modificar o borrar un usuario. La revocación se registra además en
+// security_change, dentro de la transacción del cambio, y SecurityChangeFeed la aplica en las demás instancias con
+// el mismo instante: hasta su siguiente lectura (poll-interval) esas instancias siguen aceptando los tokens previos.
+// Al arrancar se revocan los usuarios deshabilitados, por si otra instancia (con el mismo secreto) les emitió
+// tokens todavía vigentes.
+@Component
+public class TokenRevocationList {
+
+    private final UserRepository userRepository;
+    private final SecurityChangeRepository changeRepository;
+    private final Clock clock;
+    private final long ttlSeconds;
+    private final Map<Long, Long> revokedAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenRevocationList(UserRepository userRepository, SecurityChangeRepository changeRepository,
+                               @Value("${inventario.security.token.ttl:15m}") Duration ttl) {
+        this(userRepository, changeRepository, Clock.systemUTC(), ttl);
+    }
+
+    TokenRevocationList(UserRepository userRepository, SecurityChangeRepository changeRepository, Clock clock,
+                        Duration ttl) {
+        this.userRepository = userRepository;
+        this.changeRepository = changeRepository;
+        this.clock = clock;
+        this.ttlSeconds = ttl.toSeconds();
+    }
+
+    // Cada instancia lo hace al arrancar: no se registra en security_change
+    @EventListener(ApplicationReadyEvent.class)
+    public void revokeDisabledUsers() {
+        long now = clock.millis() / 1000;
+        userRepository.findIdsByEnabledFalse().forEach(userId -> revokeAt(userId, now));
+    }
+
+    public void revoke(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = clock.millis() / 1000;
+        revokeAt(userId, now);
+        changeRepository.appendRevocation(userId, now);
+    }
+
+    // Revocación ya registrada (la de otra instancia, vía SecurityChangeFeed): solo se aplica aquí.
+    // Una anterior a la que ya hay no la adelanta
+    public void revokeAt(Long userId, long epochSecond) {
+        long now = clock.millis() / 1000;
+        if (userId == null || epochSecond < now - ttlSeconds) {
+            return;
+        }
+        revokedAt.merge(userId, epochSecond, Math::max);
+        // Las entradas más viejas que la vida del token ya no pueden afectar a ningún token vigente
+        revokedAt.values().removeIf(at -> at < now - ttlSeconds);
+    }
+
+    // "iat" tiene resolución de segundos: un token emitido en el mismo segundo que la revocación también se rechaza
+    public boolean isRevoked(Long userId, long issuedAt) {
+        Long at = revokedAt.get(userId);
+        return at != null && issuedAt <= at;
+    }
+
+    int size() {
+        return revokedAt.size();
+    }
+}
@@ -0,0 +1,184 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tokens de acceso firmados (formato JWT compacto, HS256) con el ID de usuario y sus roles.
+// Validarlos solo cuesta un HMAC y parsear ~200 bytes de JSON: no hay consulta a app_users.
+//
+// Rotación de claves sin estado compartido: el tiempo se divide en períodos de key-rotation y cada período
+// tiene su clave, derivada del secreto maestro con HMAC(secreto, kid). Se aceptan el período actual y el
+// anterior, así que la vida del token no puede superar un período. Con el mismo secreto
+// (inventario.security.token.secret) todas las instancias derivan las mismas claves; sin secreto se usa
+// uno aleatorio por proceso y los tokens dejan de valer al reiniciar.
+@Service
+public class TokenService {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ObjectMapper objectMapper;
+    private final TokenRevocationList revocationList;
+    private final Clock clock;
+    private final Duration ttl;
+    private final long rotationMillis;
+    private final byte[] masterSecret;
+    private final Map<Long, SecretKeySpec> keysByPeriod = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenService(ObjectMapper objectMapper, TokenRevocationList revocationList,
+                        @Value("${inventario.security.token.ttl:15m}") Duration ttl,
+                        @Value("${inventario.security.token.key-rotation:1h}") Duration keyRotation,
+                        @Value("${inventario.security.token.secret:}") String secret) {
+        this(objectMapper, revocationList, Clock.systemUTC(), ttl, keyRotation, secret);
+    }
+
+    TokenService(ObjectMapper objectMapper, TokenRevocationList revocationList, Clock clock,
+                 Duration ttl, Duration keyRotation, String secret) {
+        if (ttl.compareTo(keyRotation) > 0) {
+            throw new IllegalArgumentException("La vida del token (" + ttl + ") no puede superar el período de rotación de claves (" + keyRotation + ").");
+        }
+        this.objectMapper = objectMapper;
+        this.revocationList = revocationList;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.rotationMillis = keyRotation.toMillis();
+        if (StringUtils.hasText(secret)) {
+            this.masterSecret = Base64.getDecoder().decode(secret);
+            if (masterSecret.length < 32) {
+                throw new IllegalArgumentException("inventario.security.token.secret debe tener al menos 32 bytes (en Base64).");
+            }
+        } else {
+            this.masterSecret = new byte[32];
+            new SecureRandom().nextBytes(masterSecret);
+        }
+    }
+
+    public IssuedToken issue(Long userId, String username, List<String> roles) {
+        long now = clock.millis();
+        long period = now / rotationMillis;
+        long issuedAt = now / 1000;
+        long expiresAt = issuedAt + ttl.toSeconds();
+
+        String header = encodeJson(new TokenHeader("HS256", "JWT", Long.toString(period)));
+        String payload = encodeJson(new TokenClaims(username, userId, roles, issuedAt, expiresAt));
+        String signingInput = header + "." + payload;
+        String token = signingInput + "." + ENCODER.encodeToString(sign(keyFor(period), signingInput));
+        return new IssuedToken(token, ttl.toSeconds());
+    }
+
+    // Devuelve los claims de un token íntegro, vigente y no revocado; si no, BadCredentialsException
+    public TokenClaims verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot || lastDot == token.length() - 1) {
+            throw new BadCredentialsException("Token mal formado.");
+        }
+
+        long now = clock.millis();
+        TokenHeader header = decodeJson(token.substring(0, firstDot), TokenHeader.class);
+        long period = parsePeriod(header);
+        long currentPeriod = now / rotationMillis;
+        if (period != currentPeriod && period != currentPeriod - 1) {
+            throw new BadCredentialsException("Token firmado con una clave retirada.");
+        }
+
+        byte[] expected = sign(keyFor(period), token.substring(0, lastDot));
+        byte[] actual;
+        try {
+            actual = DECODER.decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Firma del token mal codificada.");
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new BadCredentialsException("Firma del token inválida.");
+        }
+
+        TokenClaims claims = decodeJson(token.substring(firstDot + 1, lastDot), TokenClaims.class);
+        if (claims.exp() <= now / 1000) {
+            throw new BadCredentialsException("Token vencido.");
+        }
+        if (revocationList.isRevoked(claims.uid(), claims.iat())) {
+            throw new BadCredentialsException("Token revocado.");
+        }
+        return claims;
+    }
+
+    private long parsePeriod(TokenHeader header) {
+        if (!"HS256".equals(header.alg()) || header.kid() == null) {
+            throw new BadCredentialsException("Cabecera del token no soportada.");
+        }
+        try {
+            return Long.parseLong(header.kid());
+        } catch (NumberFormatException e) {
+            throw new BadCredentialsException("Identificador de clave inválido.");
+        }
+    }
+
+    private SecretKeySpec keyFor(long period) {
+        SecretKeySpec key = keysByPeriod.get(period);
+        if (key != null) {
+            return key;
+        }
+        // Solo viven el período actual y el anterior; las claves más viejas se descartan al derivar una nueva
+        keysByPeriod.keySet().removeIf(p -> p < period - 1);
+        byte[] derived = sign(new SecretKeySpec(masterSecret, ALGORITHM),
+                "inventario-token-key:" + period);
+        return keysByPeriod.computeIfAbsent(period, p -> new SecretKeySpec(derived, ALGORITHM));
+    }
+
+    private static byte[] sign(SecretKeySpec key, String data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+
+    private String encodeJson(Object value) {
+        try {
+            return ENCODER.encodeToString(objectMapper.writeValueAsBytes(value));
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo serializar el token", e);
+        }
+    }
+
+    private <T> T decodeJson(String part, Class<T> type) {
+        try {
+            return objectMapper.readValue(DECODER.decode(part), type);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Token mal formado.");
+        }
+    }
+
+    public record IssuedToken(String token, long expiresInSeconds) {
+    }
+
+    record TokenHeader(String alg, String typ, String kid) {
+    }
+
+    // Claims estándar sub/iat/exp (segundos) más el ID de usuario y los nombres de rol
+    public record TokenClaims(String sub, Long uid, List<String> roles, long iat, long exp) {
+    }
+}
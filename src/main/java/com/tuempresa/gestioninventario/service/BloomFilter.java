@@ -0,0 +1,89 @@
+package com.tuempresa.gestioninventario.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom de cadenas, seguro para hilos sin locks: los bits viven en un AtomicLongArray y
+// put hace un OR con CAS. Sin falsos negativos; la tasa de falsos positivos depende de cuántos bits
+// quedaron encendidos. No admite borrados.
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    private BloomFilter(long bits, int hashes) {
+        this.bits = bits;
+        this.hashes = hashes;
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+    }
+
+    // Tamaño óptimo para expectedEntries elementos con la tasa de falsos positivos pedida:
+    //   m = -n·ln(p) / ln(2)²   y   k = m/n · ln(2)
+    static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1, expectedEntries);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new BloomFilter(m, k);
+    }
+
+    void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Probabilidad de falso positivo con la ocupación actual: (bits encendidos / bits)^k
+    double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bits, hashes);
+    }
+
+    long bitSize() {
+        return bits;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    // FNV-1a de 64 bits sobre UTF-8 con la mezcla final de MurmurHash3, para repartir bien ambas mitades
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
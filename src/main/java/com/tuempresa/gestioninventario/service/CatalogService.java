@@ -0,0 +1,56 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.dto.CatalogProduct;
+import com.tuempresa.gestioninventario.dto.CatalogWarehouse;
+import com.tuempresa.gestioninventario.repository.ReactiveCatalogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Servicio de lectura del catálogo público. No es transaccional ni usa JPA:
+// cada consulta es un Flux que se emite fila a fila y respeta la demanda del consumidor.
+@Service
+public class CatalogService {
+
+    private final ReactiveCatalogRepository catalogRepository;
+    private final int prefetch; // Filas pedidas a la base por cada lote (backpressure)
+
+    @Autowired
+    public CatalogService(ReactiveCatalogRepository catalogRepository,
+                          @Value("${inventario.catalog.prefetch:256}") int prefetch) {
+        this.catalogRepository = catalogRepository;
+        this.prefetch = prefetch;
+    }
+
+    public Flux<CatalogProduct> streamProducts() {
+        return catalogRepository.findAllProducts().limitRate(prefetch);
+    }
+
+    public Mono<CatalogProduct> getProduct(Long id) {
+        if (id == null || id <= 0) {
+            return Mono.error(new IllegalArgumentException("El ID del producto debe ser un número positivo."));
+        }
+        return catalogRepository.findProductById(id);
+    }
+
+    public Flux<CatalogProduct> streamProductsByCategory(String category) {
+        if (!StringUtils.hasText(category)) {
+            return Flux.error(new IllegalArgumentException("La categoría es obligatoria."));
+        }
+        return catalogRepository.findProductsByCategory(category).limitRate(prefetch);
+    }
+
+    public Flux<CatalogProduct> streamProductsByWarehouse(Long warehouseId) {
+        if (warehouseId == null || warehouseId <= 0) {
+            return Flux.error(new IllegalArgumentException("El ID del almacén debe ser un número positivo."));
+        }
+        return catalogRepository.findProductsByWarehouseId(warehouseId).limitRate(prefetch);
+    }
+
+    public Flux<CatalogWarehouse> streamWarehouses() {
+        return catalogRepository.findAllWarehouses().limitRate(prefetch);
+    }
+}
@@ -0,0 +1,282 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.outbox.StockChangeRelay;
+import com.tuempresa.gestioninventario.repository.CatalogVersionRepository;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Contadores de versión en memoria para productos y almacenes. Respaldan los ETag de los GET
+// (/api/products, /api/warehouses y sus /{id}) sin consultar ni serializar los datos.
+//
+// Todas las versiones salen de una única secuencia creciente, así que un valor nunca se repite:
+// un ETag viejo no puede volver a coincidir tras borrar y recrear un recurso. El prefijo "epoch"
+// cambia en cada arranque, por lo que los ETag emitidos por otra instancia/arranque nunca validan.
+//
+// Los servicios llaman a los métodos "changed" dentro de sus transacciones; el incremento se aplica
+// después del commit para que nadie lea la versión nueva con datos viejos. Los contadores son de cada
+// instancia, así que también se incrementan con lo que escriben las demás:
+//   - Productos: por los eventos de product_outbox que entrega StockChangeRelay (también los tardíos).
+//     Con inventario.read-model.enabled los recibe de ProductReadModel una vez aplicados, para no
+//     anunciar el ETag nuevo mientras el modelo todavía responde con el cuerpo viejo.
+//     Con los eventos deshabilitados se relee MAX(id) de product_outbox y un cambio invalida todos.
+//   - Almacenes y escrituras sin outbox (importación de un snapshot): por catalog_version, que esas
+//     escrituras incrementan en su transacción y esta clase relee cada poll-interval.
+// Un cambio de otra instancia puede tardar hasta poll-interval (o lo que tarde el relay) en invalidar
+// el ETag. Las escrituras propias se cuentan dos veces (ahora y al volver por el relay o la relectura):
+// a lo sumo el cliente descarga una vez de más.
+@Component
+public class CatalogVersions implements SmartLifecycle {
+
+    // Filas de catalog_version
+    public static final String PRODUCTS = "products";
+    public static final String WAREHOUSES = "warehouses";
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogVersions.class);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Versions products = new Versions();
+    private final Versions warehouses = new Versions();
+
+    private final CatalogVersionRepository repository;
+    private final ProductOutboxRepository outboxRepository;
+    private final StockChangeRelay relay;
+    private final boolean readModelEnabled;
+    private final long pollIntervalMillis;
+
+    // Último estado compartido visto; solo desde el hilo de relectura
+    private Map<String, Long> sharedVersions;
+    private long outboxMaxId = -1L;
+    private volatile boolean running;
+    private ScheduledExecutorService poller;
+
+    @Autowired
+    public CatalogVersions(CatalogVersionRepository repository, ProductOutboxRepository outboxRepository,
+                           StockChangeRelay relay,
+                           @Value("${inventario.read-model.enabled:false}") boolean readModelEnabled,
+                           @Value("${inventario.catalog-versions.poll-interval:2s}") Duration pollInterval) {
+        this.repository = repository;
+        this.outboxRepository = outboxRepository;
+        this.relay = relay;
+        this.readModelEnabled = readModelEnabled;
+        this.pollIntervalMillis = pollInterval.toMillis();
+    }
+
+    // Solo contadores locales, sin base ni relay
+    CatalogVersions() {
+        this(null, null, null, false, Duration.ZERO);
+    }
+
+    public void productChanged(Long productId) {
+        afterCommit(() -> products.bump(productId, sequence.incrementAndGet()));
+    }
+
+    // Al borrar queda una lápida: la entrada del ID con una versión nueva, así el 404 tiene un ETag
+    // distinto de cualquiera que se haya emitido para el producto (si se quitara la entrada, el ID
+    // volvería a la versión "all" de antes y un If-None-Match viejo daría 304 sobre el borrado).
+    public void productRemoved(Long productId) {
+        afterCommit(() -> products.remove(productId, sequence.incrementAndGet()));
+    }
+
+    // Todos los productos a la vez (p. ej. ProductReadModel después de reconciliarse con la base)
+    public void productsInvalidated() {
+        afterCommit(() -> products.bumpAll(sequence.incrementAndGet()));
+    }
+
+    public void warehouseChanged(Long warehouseId) {
+        bumpShared(WAREHOUSES);
+        afterCommit(() -> {
+            warehouses.bump(warehouseId, sequence.incrementAndGet());
+            // Cada producto se serializa con su almacén embebido: cambia la representación de todos
+            products.bumpAll(sequence.incrementAndGet());
+        });
+    }
+
+    public void warehouseRemoved(Long warehouseId) {
+        bumpShared(WAREHOUSES);
+        afterCommit(() -> {
+            warehouses.remove(warehouseId, sequence.incrementAndGet());
+            products.bumpAll(sequence.incrementAndGet());
+        });
+    }
+
+    // Escrituras masivas que no pasan por los servicios ni por el outbox (importación de un snapshot)
+    public void catalogReplaced() {
+        bumpShared(PRODUCTS);
+        bumpShared(WAREHOUSES);
+        afterCommit(this::invalidateAll);
+    }
+
+    public String productsETag() {
+        return eTag("products", products.collectionVersion());
+    }
+
+    public String productETag(Long productId) {
+        return eTag("product-" + productId, products.versionOf(productId));
+    }
+
+    public String warehousesETag() {
+        return eTag("warehouses", warehouses.collectionVersion());
+    }
+
+    public String warehouseETag(Long warehouseId) {
+        return eTag("warehouse-" + warehouseId, warehouses.versionOf(warehouseId));
+    }
+
+    // ETag fuerte (entre comillas, sin W/): la misma versión implica el mismo cuerpo byte a byte
+    private String eTag(String resource, long version) {
+        return "\"" + resource + "-" + epoch + "-" + version + "\"";
+    }
+
+    private void bumpShared(String resource) {
+        if (repository != null) {
+            repository.bump(resource);
+        }
+    }
+
+    private void invalidateAll() {
+        warehouses.bumpAll(sequence.incrementAndGet());
+        products.bumpAll(sequence.incrementAndGet());
+    }
+
+    // --- Escrituras de otras instancias ---
+
+    // Desde el hilo del relay (o de ProductReadModel), después del commit de quien escribió
+    public void remoteProductsChanged(List<StockChangeEvent> events) {
+        for (StockChangeEvent event : events) {
+            if (event.type() == ChangeType.DELETED) {
+                products.remove(event.productId(), sequence.incrementAndGet());
+            } else {
+                products.bump(event.productId(), sequence.incrementAndGet());
+            }
+        }
+    }
+
+    // Relee catalog_version (y MAX(id) de product_outbox sin relay) e invalida lo que cambió
+    void pollShared() {
+        Map<String, Long> current = repository.findAll();
+        if (sharedVersions != null) {
+            if (!Objects.equals(current.get(WAREHOUSES), sharedVersions.get(WAREHOUSES))) {
+                invalidateAll();
+            } else if (!Objects.equals(current.get(PRODUCTS), sharedVersions.get(PRODUCTS))) {
+                products.bumpAll(sequence.incrementAndGet());
+            }
+        }
+        sharedVersions = current;
+        if (!relay.isEnabled()) {
+            long maxId = outboxRepository.maxId();
+            if (outboxMaxId >= 0 && maxId != outboxMaxId) {
+                products.bumpAll(sequence.incrementAndGet());
+            }
+            outboxMaxId = maxId;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running || repository == null) {
+            return;
+        }
+        running = true;
+        if (relay.isEnabled() && !readModelEnabled) {
+            relay.addListener(this::remoteProductsChanged);
+            relay.addLateListener(this::remoteProductsChanged);
+        }
+        if (pollIntervalMillis <= 0) {
+            return;
+        }
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("catalog-versions-");
+        threads.setDaemon(true);
+        poller = Executors.newSingleThreadScheduledExecutor(threads);
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                pollShared();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron releer las versiones compartidas del catálogo", e);
+            }
+        }, 0L, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static void afterCommit(Runnable bump) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    // Versión de la colección + versión por ID. "all" invalida todos los IDs a la vez.
+    private static final class Versions {
+        private final AtomicLong collection = new AtomicLong();
+        private final AtomicLong all = new AtomicLong();
+        private final Map<Long, Long> byId = new ConcurrentHashMap<>();
+
+        void bump(Long id, long version) {
+            if (id != null) {
+                byId.merge(id, version, Math::max);
+            }
+            collection.accumulateAndGet(version, Math::max);
+        }
+
+        // Lápida (ver productRemoved): igual que un cambio
+        void remove(Long id, long version) {
+            bump(id, version);
+        }
+
+        // Las entradas que quedan por debajo de "all" ya no cambian versionOf: se descartan, así las
+        // lápidas no crecen sin límite. remove(clave, valor) no toca una entrada que subió mientras tanto.
+        void bumpAll(long version) {
+            all.accumulateAndGet(version, Math::max);
+            collection.accumulateAndGet(version, Math::max);
+            long floor = all.get();
+            byId.entrySet().removeIf(entry -> entry.getValue() <= floor);
+        }
+
+        long collectionVersion() {
+            return collection.get();
+        }
+
+        long versionOf(Long id) {
+            return Math.max(all.get(), byId.getOrDefault(id, 0L));
+        }
+    }
+}
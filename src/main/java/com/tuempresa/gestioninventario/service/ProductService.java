@@ -1,15 +1,29 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.dto.ReorderSuggestion;
+import com.tuempresa.gestioninventario.dto.StockLevelPoint;
 import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
 import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.history.Resolution;
+import com.tuempresa.gestioninventario.history.StockHistory;
+import com.tuempresa.gestioninventario.metrics.InventoryMetrics;
+import com.tuempresa.gestioninventario.readmodel.ProductReadModel;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
 import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.repository.ReorderRepository;
 import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 // Ya no necesitamos LocalDateTime para entry/exit dates en los métodos de stock.
@@ -19,15 +33,36 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final WarehouseRepository warehouseRepository;
+    private final InventoryMetrics inventoryMetrics;
+    private final CatalogVersions catalogVersions;
+    private final AuditTrail auditTrail;
+    private final ProductOutboxRepository outboxRepository;
+    private final ShardedProductStore shardedStore;
+    private final StockHistory stockHistory;
+    private final ReorderRepository reorderRepository;
+    private final ProductReadModel productReadModel;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, WarehouseRepository warehouseRepository) {
+    public ProductService(ProductRepository productRepository, WarehouseRepository warehouseRepository,
+                          InventoryMetrics inventoryMetrics, CatalogVersions catalogVersions,
+                          AuditTrail auditTrail, ProductOutboxRepository outboxRepository,
+                          ShardedProductStore shardedStore, StockHistory stockHistory,
+                          ReorderRepository reorderRepository, ProductReadModel productReadModel) {
         this.productRepository = productRepository;
         this.warehouseRepository = warehouseRepository;
+        this.inventoryMetrics = inventoryMetrics;
+        this.catalogVersions = catalogVersions;
+        this.auditTrail = auditTrail;
+        this.outboxRepository = outboxRepository;
+        this.shardedStore = shardedStore;
+        this.stockHistory = stockHistory;
+        this.reorderRepository = reorderRepository;
+        this.productReadModel = productReadModel;
     }
 
     // --- Métodos de Validación Privados ---
-    private void validateProductData(Product product) {
+    // Visibilidad de paquete para poder medirlo en los benchmarks JMH (src/jmh/java)
+    void validateProductData(Product product) {
         if (product == null) {
             throw new IllegalArgumentException("El objeto producto no puede ser nulo.");
         }
@@ -48,15 +83,44 @@ public class ProductService {
     // --- Métodos de Servicio ---
     @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return shardedStore.isEnabled() ? shardedStore.findAll() : productRepository.findAll();
     }
 
+    // Los primeros productos por ID; limit acota filas y memoria en lecturas que no necesitan todo el catálogo
     @Transactional(readOnly = true)
+    public List<Product> getFirstProducts(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero.");
+        }
+        return shardedStore.isEnabled() ? shardedStore.findFirst(limit) : productRepository.findByOrderByIdAsc(Limit.of(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByCategory(String category) {
+        if (!StringUtils.hasText(category)) {
+            throw new IllegalArgumentException("La categoría es obligatoria.");
+        }
+        return shardedStore.isEnabled() ? shardedStore.findByCategory(category) : productRepository.findByCategory(category);
+    }
+
+    // ETag del listado y de cada producto: salen de contadores en memoria, sin tocar la base.
+    // Todo método que modifique productos debe avisar a productReadModel y, después, a catalogVersions.
+    public String getProductsETag() {
+        return catalogVersions.productsETag();
+    }
+
+    public String getProductETag(Long id) {
+        return catalogVersions.productETag(id);
+    }
+
+    // Sin @Transactional: con el modelo de lectura cargado (ProductReadModel) no se abre transacción ni se
+    // toma una conexión; si no, findById/ShardedProductStore abren la suya
     public Optional<Product> getProductById(Long id) {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("El ID del producto debe ser un número positivo.");
         }
-        return productRepository.findById(id);
+        Optional<Product> cached = productReadModel.find(id);
+        return cached.isPresent() ? cached : findProduct(id);
     }
 
     @Transactional
@@ -72,7 +136,13 @@ public class ProductService {
         product.setWarehouse(warehouse);
         // Ya no se setea entryDate aquí
 
-        return productRepository.save(product);
+        Product saved = shardedStore.isEnabled() ? shardedStore.insert(product) : productRepository.save(product);
+        productReadModel.productChanged(saved, warehouseId);
+        catalogVersions.productChanged(saved.getId());
+        outboxRepository.append(ChangeType.CREATED, saved, warehouseId);
+        stockHistory.record(saved.getId(), warehouseId, saved.getQuantity());
+        auditTrail.record(AuditAction.PRODUCT_CREATED, saved.getId(), 0L, saved.getName());
+        return saved;
     }
 
     @Transactional
@@ -82,7 +152,7 @@ public class ProductService {
         }
         validateProductData(productDetails); // Validaciones generales del producto
 
-        return productRepository.findById(id)
+        return findProduct(id)
             .map(existingProduct -> {
                 if (warehouseId == null || warehouseId <= 0) {
                     throw new IllegalArgumentException("El ID del almacén es obligatorio y debe ser positivo para la actualización.");
@@ -97,7 +167,13 @@ public class ProductService {
                 existingProduct.setCategory(productDetails.getCategory());
                 existingProduct.setWarehouse(warehouse);
 
-                return productRepository.save(existingProduct);
+                Product saved = saveProduct(existingProduct);
+                productReadModel.productChanged(saved, warehouseId);
+                catalogVersions.productChanged(id);
+                outboxRepository.append(ChangeType.UPDATED, saved, warehouseId);
+                stockHistory.record(id, warehouseId, saved.getQuantity());
+                auditTrail.record(AuditAction.PRODUCT_UPDATED, id);
+                return saved;
             });
     }
 
@@ -106,8 +182,26 @@ public class ProductService {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("El ID del producto a eliminar debe ser un número positivo.");
         }
+        if (shardedStore.isEnabled()) {
+            Optional<Product> product = shardedStore.findById(id);
+            if (product.isEmpty() || !shardedStore.delete(id)) {
+                return false;
+            }
+            productReadModel.productRemoved(id);
+            catalogVersions.productRemoved(id);
+            outboxRepository.append(ChangeType.DELETED, product.get(), warehouseIdOf(product.get()));
+            auditTrail.record(AuditAction.PRODUCT_DELETED, id);
+            return true;
+        }
         if (productRepository.existsById(id)) {
+            // Se carga antes de borrar para el evento del outbox (almacén y categoría, para los filtros);
+            // deleteById la toma del contexto de persistencia sin otro SELECT
+            Optional<Product> product = productRepository.findById(id);
             productRepository.deleteById(id);
+            productReadModel.productRemoved(id);
+            catalogVersions.productRemoved(id);
+            product.ifPresent(deleted -> outboxRepository.append(ChangeType.DELETED, deleted, warehouseIdOf(deleted)));
+            auditTrail.record(AuditAction.PRODUCT_DELETED, id);
             return true;
         }
         return false;
@@ -121,11 +215,18 @@ public class ProductService {
         if (quantityToAdd <= 0) {
             throw new IllegalArgumentException("La cantidad para registrar entrada debe ser positiva.");
         }
-        return productRepository.findById(productId)
+        return findProduct(productId)
             .map(product -> {
                 product.setQuantity(product.getQuantity() + quantityToAdd);
                 // Ya no se actualiza entryDate
-                return productRepository.save(product);
+                Product saved = saveProduct(product);
+                productReadModel.productChanged(saved, warehouseIdOf(product));
+                catalogVersions.productChanged(productId);
+                outboxRepository.append(ChangeType.UPDATED, saved, warehouseIdOf(product));
+                stockHistory.record(productId, warehouseIdOf(product), saved.getQuantity());
+                inventoryMetrics.recordMovement(InventoryMetrics.Direction.ENTRY, warehouseIdOf(product), quantityToAdd);
+                auditTrail.record(AuditAction.STOCK_ENTRY, productId, quantityToAdd, null);
+                return saved;
             });
     }
 
@@ -137,14 +238,54 @@ public class ProductService {
         if (quantityToSubtract <= 0) {
             throw new IllegalArgumentException("La cantidad para registrar salida debe ser positiva.");
         }
-        return productRepository.findById(productId)
+        return findProduct(productId)
             .map(product -> {
                 if (product.getQuantity() < quantityToSubtract) {
+                    inventoryMetrics.recordInsufficientStock();
                     throw new IllegalArgumentException("Stock insuficiente ("+ product.getQuantity() +") para el producto: " + product.getName() + " al intentar sacar " + quantityToSubtract);
                 }
                 product.setQuantity(product.getQuantity() - quantityToSubtract);
                 // Ya no se actualiza exitDate
-                return productRepository.save(product);
+                Product saved = saveProduct(product);
+                productReadModel.productChanged(saved, warehouseIdOf(product));
+                catalogVersions.productChanged(productId);
+                outboxRepository.append(ChangeType.UPDATED, saved, warehouseIdOf(product));
+                stockHistory.record(productId, warehouseIdOf(product), saved.getQuantity());
+                inventoryMetrics.recordMovement(InventoryMetrics.Direction.EXIT, warehouseIdOf(product), quantityToSubtract);
+                auditTrail.record(AuditAction.STOCK_EXIT, productId, quantityToSubtract, null);
+                return saved;
             });
     }
+
+    // Niveles de stock del producto en [from, to); vacío si el producto no existe
+    @Transactional(readOnly = true)
+    public Optional<List<StockLevelPoint>> getStockHistory(Long id, Instant from, Instant to, Resolution resolution) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException("El ID del producto debe ser un número positivo.");
+        }
+        return findProduct(id).map(product -> stockHistory.query(id, from, to, resolution));
+    }
+
+    // Última sugerencia del job nocturno (ReorderPointJob); vacío si el producto todavía no tiene
+    @Transactional(readOnly = true)
+    public Optional<ReorderSuggestion> getReorderSuggestion(Long id) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException("El ID del producto debe ser un número positivo.");
+        }
+        return reorderRepository.findSuggestion(id);
+    }
+
+    // Con sharding, el producto vive en el shard de su almacén (ShardedProductStore); si no, en la base principal
+    private Optional<Product> findProduct(Long id) {
+        return shardedStore.isEnabled() ? shardedStore.findById(id) : productRepository.findById(id);
+    }
+
+    private Product saveProduct(Product product) {
+        return shardedStore.isEnabled() ? shardedStore.update(product) : productRepository.save(product);
+    }
+
+    // Solo lee el ID: en el proxy perezoso de Hibernate no dispara la carga del almacén
+    private static Long warehouseIdOf(Product product) {
+        return product.getWarehouse() == null ? null : product.getWarehouse().getId();
+    }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
 import com.tuempresa.gestioninventario.entity.Role;
 import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.security.PermissionRegistry;
 // Importar UserRepository si vas a validar si un rol está en uso
 // import com.tuempresa.gestioninventario.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +19,17 @@ import java.util.Optional;
 public class RoleService {
 
     private final RoleRepository roleRepository;
+    private final PermissionRegistry permissionRegistry;
+    private final AuditTrail auditTrail;
     // Descomenta si añades la validación de roles en uso
     // private final UserRepository userRepository;
 
     @Autowired
-    public RoleService(RoleRepository roleRepository) { // Añade UserRepository aquí si es necesario
+    public RoleService(RoleRepository roleRepository, PermissionRegistry permissionRegistry,
+                       AuditTrail auditTrail) { // Añade UserRepository aquí si es necesario
         this.roleRepository = roleRepository;
+        this.permissionRegistry = permissionRegistry;
+        this.auditTrail = auditTrail;
         // this.userRepository = userRepository;
     }
 
@@ -57,7 +65,10 @@ public class RoleService {
         if (roleRepository.findByName(role.getName()).isPresent()) {
             throw new IllegalArgumentException("Ya existe un rol con el nombre: " + role.getName());
         }
-        return roleRepository.save(role);
+        Role saved = roleRepository.save(role);
+        permissionRegistry.roleSaved(null, saved);
+        auditTrail.record(AuditAction.ROLE_CREATED, saved.getId(), 0L, saved.getName());
+        return saved;
     }
 
     @Transactional
@@ -74,8 +85,14 @@ public class RoleService {
                     roleRepository.findByName(roleDetails.getName()).isPresent()) {
                     throw new IllegalArgumentException("Ya existe otro rol con el nombre: " + roleDetails.getName());
                 }
+                String previousName = existingRole.getName();
                 existingRole.setName(roleDetails.getName());
-                return roleRepository.save(existingRole);
+                existingRole.setPermissionMask(roleDetails.getPermissionMask()); // PUT: reemplaza los permisos
+                Role saved = roleRepository.save(existingRole);
+                // Solo se recalculan las máscaras de los usuarios con este rol
+                permissionRegistry.roleSaved(previousName, saved);
+                auditTrail.record(AuditAction.ROLE_UPDATED, id, 0L, saved.getName());
+                return saved;
             });
     }
 
@@ -97,6 +114,10 @@ public class RoleService {
         //     throw new IllegalStateException("No se puede eliminar el rol porque está asignado a " + userCountWithRole + " usuario(s).");
         // }
 
+        roleRepository.findById(id).ifPresent(role -> {
+            permissionRegistry.roleDeleted(role.getName());
+            auditTrail.record(AuditAction.ROLE_DELETED, id, 0L, role.getName());
+        });
         roleRepository.deleteById(id);
         return true;
     }
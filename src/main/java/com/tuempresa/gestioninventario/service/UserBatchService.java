@@ -0,0 +1,300 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.dto.UserBatchRequest;
+import com.tuempresa.gestioninventario.dto.UserBatchResult;
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.UserBatchRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Alta masiva de usuarios (POST /api/users/batch). Mismas reglas que UserService.createUser, pero con un
+// número de consultas fijo para todo el lote:
+//   - unicidad: un SELECT ... IN para los usernames y otro para los emails, solo con los valores que
+//     UserUniquenessFilter no descarta (si los descarta todos, no hay consulta)
+//   - roles: un único findAllById con todos los roleIds del lote
+//   - inserción: INSERT por lotes JDBC (UserBatchRepository)
+// Las filas inválidas no detienen al resto: se informan con su índice y su error.
+//
+// bcrypt domina el costo del lote (decenas de ms por usuario) y corre antes de abrir la transacción, en el
+// pool de hashing de los logins (SecurityConfig.passwordHashingExecutor): la transacción solo cubre los
+// INSERT. Si entre el chequeo y el INSERT otra alta toma un username o email, el UNIQUE rechaza el lote
+// entero; entonces se reintenta fila por fila y solo la fila en conflicto queda con su error.
+@Service
+public class UserBatchService {
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final UserBatchRepository userBatchRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final AuditTrail auditTrail;
+    private final ExecutorService hashingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+
+    // Hashes del lote encolados a la vez: el resto de la cola queda para los logins, que se intercalan
+    private static final int HASHING_IN_FLIGHT = 2;
+
+    @Autowired
+    public UserBatchService(UserService userService, UserRepository userRepository, RoleRepository roleRepository,
+                            UserBatchRepository userBatchRepository, PasswordEncoder passwordEncoder,
+                            UserUniquenessFilter uniquenessFilter, AuditTrail auditTrail,
+                            ExecutorService passwordHashingExecutor, PlatformTransactionManager transactionManager,
+                            @Value("${inventario.users.batch.max-size:5000}") int maxBatchSize) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.userBatchRepository = userBatchRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.uniquenessFilter = uniquenessFilter;
+        this.auditTrail = auditTrail;
+        this.hashingExecutor = passwordHashingExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public UserBatchResult createUsers(List<UserBatchRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote de usuarios no puede estar vacío.");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxBatchSize + " usuarios.");
+        }
+
+        String[] errors = new String[requests.size()];
+        List<User> users = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            users.add(toUser(requests.get(i)));
+            try {
+                userService.validateUserData(users.get(i), true);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        checkUniqueness(users, errors);
+        Map<Long, Role> roles = loadRoles(requests);
+        for (int i = 0; i < requests.size(); i++) {
+            if (errors[i] == null) {
+                errors[i] = missingRoleError(requests.get(i).roleIds(), roles);
+            }
+        }
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (errors[i] == null) {
+                valid.add(i);
+            }
+        }
+        hashPasswords(valid.stream().map(users::get).toList());
+
+        valid.forEach(i -> uniquenessFilter.userSaved(users.get(i)));
+        Map<String, Long> ids;
+        try {
+            ids = valid.isEmpty() ? Map.of() : transactionTemplate.execute(status -> insert(requests, users, valid));
+        } catch (DataIntegrityViolationException e) {
+            ids = insertOneByOne(requests, users, valid, errors);
+        }
+
+        List<UserBatchResult.Row> rows = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String username = users.get(i).getUsername();
+            rows.add(new UserBatchResult.Row(i, username, errors[i] == null ? ids.get(username) : null, errors[i]));
+        }
+        return new UserBatchResult(valid.size(), requests.size() - valid.size(), rows);
+    }
+
+    // A lo sumo HASHING_IN_FLIGHT tareas del lote en el pool a la vez. Si la cola está llena de logins,
+    // la fila se hashea en el hilo de la petición en lugar de esperar.
+    private void hashPasswords(List<User> users) {
+        CompletionService<User> completion = new ExecutorCompletionService<>(hashingExecutor);
+        int next = 0;
+        int inFlight = 0;
+        try {
+            while (next < users.size() || inFlight > 0) {
+                while (inFlight < HASHING_IN_FLIGHT && next < users.size()) {
+                    User user = users.get(next++);
+                    try {
+                        completion.submit(() -> hash(user));
+                        inFlight++;
+                    } catch (RejectedExecutionException e) {
+                        hash(user);
+                    }
+                }
+                if (inFlight > 0) {
+                    completion.take().get();
+                    inFlight--;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió el hash de las contraseñas del lote.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("No se pudo calcular el hash de una contraseña del lote.", e.getCause());
+        }
+    }
+
+    private User hash(User user) {
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        return user;
+    }
+
+    // Usuarios, roles y auditoría de las filas indicadas, en la transacción en curso. Devuelve username -> ID.
+    private Map<String, Long> insert(List<UserBatchRequest> requests, List<User> users, List<Integer> rows) {
+        Map<String, Long> ids = userBatchRepository.insertUsers(rows.stream().map(users::get).toList());
+        List<long[]> userRoles = new ArrayList<>();
+        for (int i : rows) {
+            Long userId = ids.get(users.get(i).getUsername());
+            Set<Long> roleIds = requests.get(i).roleIds();
+            if (roleIds != null) {
+                roleIds.forEach(roleId -> userRoles.add(new long[] {userId, roleId}));
+            }
+        }
+        if (!userRoles.isEmpty()) {
+            userBatchRepository.insertUserRoles(userRoles);
+        }
+        for (int i : rows) {
+            String username = users.get(i).getUsername();
+            auditTrail.record(AuditAction.USER_CREATED, ids.get(username), 0L, username);
+        }
+        return ids;
+    }
+
+    // Después de un conflicto de UNIQUE con otra alta concurrente: una transacción por fila, y las que
+    // chocan salen de valid con el mismo error que daría el chequeo previo
+    private Map<String, Long> insertOneByOne(List<UserBatchRequest> requests, List<User> users, List<Integer> valid,
+                                             String[] errors) {
+        Map<String, Long> ids = new HashMap<>();
+        for (Iterator<Integer> rows = valid.iterator(); rows.hasNext(); ) {
+            int i = rows.next();
+            try {
+                ids.putAll(transactionTemplate.execute(status -> insert(requests, users, List.of(i))));
+            } catch (DataIntegrityViolationException e) {
+                String message = UserService.duplicateMessage(e, users.get(i));
+                if (message == null) {
+                    throw e;
+                }
+                errors[i] = message;
+                rows.remove();
+            }
+        }
+        return ids;
+    }
+
+    // Duplicados dentro del lote y contra la base. La comparación ignora mayúsculas, como la collation de MariaDB.
+    private void checkUniqueness(List<User> users, String[] errors) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            User user = users.get(i);
+            if (!usernames.add(lower(user.getUsername()))) {
+                errors[i] = "El nombre de usuario está repetido en el lote: " + user.getUsername();
+            } else if (StringUtils.hasText(user.getEmail()) && !emails.add(lower(user.getEmail()))) {
+                errors[i] = "El email está repetido en el lote: " + user.getEmail();
+            }
+        }
+
+        Set<String> takenUsernames = uniquenessFilter.takenUsernames(
+                valuesOf(users, errors, User::getUsername), userRepository::findExistingUsernames);
+        Set<String> takenEmails = uniquenessFilter.takenEmails(
+                valuesOf(users, errors, User::getEmail), userRepository::findExistingEmails);
+        for (int i = 0; i < users.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            User user = users.get(i);
+            if (takenUsernames.contains(lower(user.getUsername()))) {
+                errors[i] = "El nombre de usuario ya está en uso: " + user.getUsername();
+            } else if (StringUtils.hasText(user.getEmail()) && takenEmails.contains(lower(user.getEmail()))) {
+                errors[i] = "El email ya está en uso: " + user.getEmail();
+            }
+        }
+    }
+
+    private Map<Long, Role> loadRoles(List<UserBatchRequest> requests) {
+        Set<Long> roleIds = requests.stream()
+                .map(UserBatchRequest::roleIds)
+                .filter(Objects::nonNull)
+                .flatMap(Set::stream)
+                .filter(roleId -> roleId != null && roleId > 0)
+                .collect(Collectors.toSet());
+        if (roleIds.isEmpty()) {
+            return Map.of();
+        }
+        return roleRepository.findAllById(roleIds).stream()
+                .collect(Collectors.toMap(Role::getId, Function.identity()));
+    }
+
+    private static String missingRoleError(Set<Long> roleIds, Map<Long, Role> roles) {
+        if (roleIds == null) {
+            return null;
+        }
+        for (Long roleId : roleIds) {
+            if (roleId == null || roleId <= 0) {
+                return "El ID del rol proporcionado es inválido.";
+            }
+            if (!roles.containsKey(roleId)) {
+                return "Rol no encontrado con ID: " + roleId;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> valuesOf(List<User> users, String[] errors, Function<User, String> field) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            String value = field.apply(users.get(i));
+            if (errors[i] == null && StringUtils.hasText(value)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static User toUser(UserBatchRequest request) {
+        User user = new User();
+        if (request != null) {
+            user.setUsername(request.username());
+            user.setPassword(request.password());
+            user.setEmail(StringUtils.hasText(request.email()) ? request.email() : null);
+            user.setEnabled(request.enabled() == null || request.enabled());
+        }
+        return user;
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
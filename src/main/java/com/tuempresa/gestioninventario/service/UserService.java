@@ -1,16 +1,24 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
 import com.tuempresa.gestioninventario.entity.Role;
 import com.tuempresa.gestioninventario.entity.User;
 import com.tuempresa.gestioninventario.repository.RoleRepository;
 import com.tuempresa.gestioninventario.repository.UserRepository;
+import com.tuempresa.gestioninventario.security.AuthenticationCache;
+import com.tuempresa.gestioninventario.security.PermissionRegistry;
+import com.tuempresa.gestioninventario.security.TokenRevocationList;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils; // Para validar cadenas
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern; // Para validación de email
@@ -21,17 +29,33 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final AuthenticationCache authenticationCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final PermissionRegistry permissionRegistry;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final AuditTrail auditTrail;
 
     // Patrón simple para validación de email
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository,
+                       PasswordEncoder passwordEncoder, AuthenticationCache authenticationCache,
+                       TokenRevocationList tokenRevocationList, PermissionRegistry permissionRegistry,
+                       UserUniquenessFilter uniquenessFilter, AuditTrail auditTrail) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.authenticationCache = authenticationCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.permissionRegistry = permissionRegistry;
+        this.uniquenessFilter = uniquenessFilter;
+        this.auditTrail = auditTrail;
     }
 
-    private void validateUserData(User user, boolean isCreateOperation) {
+    // Visibilidad de paquete para poder medirlo en los benchmarks JMH (src/jmh/java)
+    void validateUserData(User user, boolean isCreateOperation) {
         if (user == null) {
             throw new IllegalArgumentException("El objeto usuario no puede ser nulo.");
         }
@@ -62,6 +86,22 @@ public class UserService {
     }
 
 
+    // Convierte los IDs de rol recibidos en entidades Role. Un Set nulo o vacío produce un Set vacío.
+    Set<Role> resolveRoles(Set<Long> roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return roleIds.stream()
+                .map(roleId -> {
+                    if (roleId == null || roleId <= 0) {
+                        throw new IllegalArgumentException("El ID del rol proporcionado es inválido.");
+                    }
+                    return roleRepository.findById(roleId)
+                        .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado con ID: " + roleId));
+                })
+                .collect(Collectors.toSet());
+    }
+
     @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -79,31 +119,24 @@ public class UserService {
     public User createUser(User user, Set<Long> roleIds) {
         validateUserData(user, true); // Validar datos del usuario para creación
 
-        if (userRepository.existsByUsername(user.getUsername())) {
+        // El filtro descarta sin ir a la base los valores que seguro no existen
+        if (uniquenessFilter.usernameTaken(user.getUsername(), userRepository::existsByUsername)) {
             throw new IllegalArgumentException("El nombre de usuario ya está en uso: " + user.getUsername());
         }
-        if (StringUtils.hasText(user.getEmail()) && userRepository.existsByEmail(user.getEmail())) {
+        if (StringUtils.hasText(user.getEmail()) && uniquenessFilter.emailTaken(user.getEmail(), userRepository::existsByEmail)) {
             throw new IllegalArgumentException("El email ya está en uso: " + user.getEmail());
         }
 
-        // La contraseña ya viene en el objeto 'user' y se validó en validateUserData
+        // La contraseña se validó en texto plano (validateUserData); se guarda solo su hash
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-        Set<Role> assignedRoles = new HashSet<>();
-        if (roleIds != null && !roleIds.isEmpty()) {
-            assignedRoles = roleIds.stream()
-                    .map(roleId -> {
-                        if (roleId == null || roleId <= 0) {
-                            throw new IllegalArgumentException("El ID del rol proporcionado es inválido.");
-                        }
-                        return roleRepository.findById(roleId)
-                            .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado con ID: " + roleId));
-                    })
-                    .collect(Collectors.toSet());
-        }
-        user.setRoles(assignedRoles);
+        user.setRoles(resolveRoles(roleIds));
         // user.setEnabled(true); // 'enabled' debería venir en el objeto user o establecerse aquí si es un valor por defecto.
 
-        return userRepository.save(user);
+        uniquenessFilter.userSaved(user);
+        User saved = saveUnique(user);
+        auditTrail.record(AuditAction.USER_CREATED, saved.getId(), 0L, saved.getUsername());
+        return saved;
     }
 
     @Transactional
@@ -115,9 +148,14 @@ public class UserService {
 
         return userRepository.findById(id)
             .map(existingUser -> {
+                // Cualquier cambio (contraseña, roles, enabled, username) invalida las credenciales cacheadas
+                // y los tokens emitidos, que llevan username y roles en sus claims
+                authenticationCache.evict(existingUser.getUsername());
+                tokenRevocationList.revoke(existingUser.getId());
+
                 // Validar cambio de username
                 if (!existingUser.getUsername().equalsIgnoreCase(userDetails.getUsername()) &&
-                    userRepository.existsByUsername(userDetails.getUsername())) {
+                    uniquenessFilter.usernameTaken(userDetails.getUsername(), userRepository::existsByUsername)) {
                     throw new IllegalArgumentException("El nuevo nombre de usuario ya está en uso: " + userDetails.getUsername());
                 }
                 existingUser.setUsername(userDetails.getUsername());
@@ -125,7 +163,7 @@ public class UserService {
                 // Validar cambio de email
                 if (StringUtils.hasText(userDetails.getEmail())) {
                     if (existingUser.getEmail() == null || !existingUser.getEmail().equalsIgnoreCase(userDetails.getEmail())) {
-                        if (userRepository.existsByEmail(userDetails.getEmail())) {
+                        if (uniquenessFilter.emailTaken(userDetails.getEmail(), userRepository::existsByEmail)) {
                              throw new IllegalArgumentException("El nuevo email ya está en uso: " + userDetails.getEmail());
                         }
                      }
@@ -136,30 +174,55 @@ public class UserService {
 
                 // Si se proporciona una nueva contraseña, actualizarla
                 if (StringUtils.hasText(userDetails.getPassword())) {
-                    existingUser.setPassword(userDetails.getPassword());
+                    existingUser.setPassword(passwordEncoder.encode(userDetails.getPassword()));
                 }
                 // Si no se envía contraseña en userDetails.getPassword(), se mantiene la actual.
 
-                Set<Role> assignedRoles = new HashSet<>();
                 if (roleIds != null) { // Permitir un Set vacío para quitar todos los roles
-                    assignedRoles = roleIds.stream()
-                            .map(roleId -> {
-                                if (roleId == null || roleId <= 0) {
-                                    throw new IllegalArgumentException("El ID del rol proporcionado es inválido.");
-                                }
-                                return roleRepository.findById(roleId)
-                                    .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado con ID: " + roleId));
-                            })
-                            .collect(Collectors.toSet());
-                    existingUser.setRoles(assignedRoles);
+                    existingUser.setRoles(resolveRoles(roleIds));
+                    permissionRegistry.userRolesChanged(existingUser.getId(), existingUser.getRoles());
                 }
                 // Si roleIds es null, no se modifican los roles existentes.
 
                 existingUser.setEnabled(userDetails.isEnabled());
-                return userRepository.save(existingUser);
+                uniquenessFilter.userSaved(existingUser);
+                User saved = saveUnique(existingUser);
+                auditTrail.record(AuditAction.USER_UPDATED, id, 0L, saved.getUsername());
+                return saved;
             });
     }
 
+    // Los chequeos previos no ven lo que otra instancia o una transacción concurrente guardó después:
+    // el UNIQUE de username y email es la garantía, y su violación se informa como un error de validación.
+    // flush() para que también la de una edición salte aquí y no en el commit.
+    private User saveUnique(User user) {
+        try {
+            User saved = userRepository.save(user);
+            userRepository.flush();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String message = duplicateMessage(e, user);
+            if (message == null) {
+                throw e;
+            }
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
+    // Mensaje para la violación de uk_app_users_username o uk_app_users_email; null si es otra restricción.
+    // Se busca el nombre en el mensaje del driver, que lo incluye tanto en MariaDB ("for key 'uk_app_users_email'")
+    // como en H2
+    static String duplicateMessage(DataIntegrityViolationException e, User user) {
+        String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        if (cause.contains("uk_app_users_username")) {
+            return "El nombre de usuario ya está en uso: " + user.getUsername();
+        }
+        if (cause.contains("uk_app_users_email")) {
+            return "El email ya está en uso: " + user.getEmail();
+        }
+        return null;
+    }
+
     @Transactional
     public boolean deleteUser(Long id) {
         if (id == null || id <= 0) {
@@ -169,6 +232,12 @@ public class UserService {
             return false; // O lanzar UserNotFoundException
         }
         userRepository.deleteById(id);
+        tokenRevocationList.revoke(id);
+        permissionRegistry.userRemoved(id);
+        auditTrail.record(AuditAction.USER_DELETED, id);
+        // El filtro de unicidad no admite borrados: el username queda como falso positivo hasta reconstruirlo
+        // Sin el username a mano se vacía toda la caché: los borrados son raros y solo cuesta re-verificar
+        authenticationCache.evictAll();
         return true;
     }
 }
\ No newline at end of file
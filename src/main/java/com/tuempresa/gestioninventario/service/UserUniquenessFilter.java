@@ -0,0 +1,278 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Pre-chequeo en memoria de unicidad de username y email (filtro de Bloom sobre los valores normalizados).
+//   - "no está" en el filtro: seguro que no existe, se evita el existsBy... contra la base
+//   - "puede estar": se consulta la base, que es la autoridad (username y email además tienen UNIQUE)
+//
+// Se construye al arrancar con un recorrido en streaming de app_users, dimensionado con el número de
+// usuarios, y UserService/UserBatchService agregan cada username/email guardado (antes del commit: si la
+// transacción se revierte solo queda un falso positivo). Un filtro de Bloom no admite borrados: lo borrado
+// o renombrado sigue dando "puede estar" hasta la próxima reconstrucción, que se lanza en segundo plano
+// cuando las altas superan la capacidad para la que se dimensionó. Tampoco ve las altas de otras instancias:
+// ese "no está" puede equivocarse, y entonces es el UNIQUE el que rechaza el duplicado (UserService lo
+// informa como cualquier otro error de validación).
+@Component
+public class UserUniquenessFilter {
+
+    public static final String CHECKS = "inventario.users.uniqueness.checks";
+    public static final String EXPECTED_FALSE_POSITIVE_RATE = "inventario.users.uniqueness.filter.expected.fpp";
+    public static final String OBSERVED_FALSE_POSITIVE_RATE = "inventario.users.uniqueness.filter.observed.fpp";
+
+    private static final Logger log = LoggerFactory.getLogger(UserUniquenessFilter.class);
+    // Username + email por usuario, con margen para duplicar la base antes de reconstruir
+    private static final int ENTRIES_PER_USER = 2;
+    private static final int HEADROOM = 2;
+
+    private enum Field {
+        USERNAME("username", "u:"), EMAIL("email", "e:");
+
+        private final String tag;
+        private final String prefix;
+
+        Field(String tag, String prefix) {
+            this.tag = tag;
+            this.prefix = prefix;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double falsePositiveRate;
+    private final long minEntries;
+    private final CustomizableThreadFactory rebuildThreads = new CustomizableThreadFactory("uniqueness-filter-");
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Counter[] skipped = new Counter[Field.values().length];
+    private final Counter[] confirmed = new Counter[Field.values().length];
+    private final Counter[] falsePositives = new Counter[Field.values().length];
+
+    // null hasta la primera construcción: mientras tanto todo "puede estar" y se consulta la base
+    private volatile Generation current;
+    // Valores agregados durante una reconstrucción, para volcarlos al filtro nuevo antes de publicarlo
+    private List<String> pendingDuringRebuild;
+
+    @Autowired
+    public UserUniquenessFilter(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                                MeterRegistry registry,
+                                @Value("${inventario.users.uniqueness-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${inventario.users.uniqueness-filter.min-entries:10000}") long minEntries) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1 (exclusivo).");
+        }
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.falsePositiveRate = falsePositiveRate;
+        this.minEntries = minEntries;
+        rebuildThreads.setDaemon(true);
+
+        for (Field field : Field.values()) {
+            skipped[field.ordinal()] = checkCounter(registry, field, "skipped");
+            confirmed[field.ordinal()] = checkCounter(registry, field, "exists");
+            falsePositives[field.ordinal()] = checkCounter(registry, field, "false_positive");
+        }
+        Gauge.builder(EXPECTED_FALSE_POSITIVE_RATE, this, UserUniquenessFilter::expectedFalsePositiveRate)
+                .description("Probabilidad de falso positivo del filtro con su ocupación actual")
+                .register(registry);
+        Gauge.builder(OBSERVED_FALSE_POSITIVE_RATE, this, UserUniquenessFilter::observedFalsePositiveRate)
+                .description("Fracción de valores ausentes en la base que el filtro dio como posibles")
+                .register(registry);
+    }
+
+    private static Counter checkCounter(MeterRegistry registry, Field field, String result) {
+        return Counter.builder(CHECKS)
+                .description("Chequeos de unicidad de usuarios según la respuesta del filtro y de la base")
+                .tag("field", field.tag)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long capacity = Math.max(minEntries, userRepository.count() * ENTRIES_PER_USER * HEADROOM);
+            Generation next = new Generation(BloomFilter.create(capacity, falsePositiveRate), capacity);
+            synchronized (this) {
+                pendingDuringRebuild = new ArrayList<>();
+            }
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserRepository.UsernameAndEmail> rows = userRepository.streamUsernamesAndEmails()) {
+                    rows.forEach(row -> {
+                        next.put(key(Field.USERNAME, row.getUsername()));
+                        if (StringUtils.hasText(row.getEmail())) {
+                            next.put(key(Field.EMAIL, row.getEmail()));
+                        }
+                    });
+                }
+            });
+            synchronized (this) {
+                pendingDuringRebuild.forEach(next::put);
+                pendingDuringRebuild = null;
+                current = next;
+            }
+            log.info("Filtro de unicidad de usuarios construido: {} valores, {} bits, {} hashes, {} ms",
+                    next.entries.get(), next.bloom.bitSize(), next.bloom.hashCount(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+            // Sin filtro nuevo se sigue con el anterior (o consultando siempre la base)
+            log.warn("No se pudo construir el filtro de unicidad de usuarios", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // --- Chequeos: query es la consulta autoritativa (existsByUsername, findExistingEmails, ...) ---
+
+    public boolean usernameTaken(String username, Predicate<String> query) {
+        return taken(Field.USERNAME, username, query);
+    }
+
+    public boolean emailTaken(String email, Predicate<String> query) {
+        return taken(Field.EMAIL, email, query);
+    }
+
+    // Versión de lote: solo se consultan los valores que el filtro no descarta (ninguno, si no queda ninguno).
+    // Devuelve los valores existentes en minúsculas.
+    public Set<String> takenUsernames(Collection<String> usernames, Function<Collection<String>, List<String>> query) {
+        return taken(Field.USERNAME, usernames, query);
+    }
+
+    public Set<String> takenEmails(Collection<String> emails, Function<Collection<String>, List<String>> query) {
+        return taken(Field.EMAIL, emails, query);
+    }
+
+    public void userSaved(User user) {
+        add(Field.USERNAME, user.getUsername());
+        if (StringUtils.hasText(user.getEmail())) {
+            add(Field.EMAIL, user.getEmail());
+        }
+    }
+
+    private boolean taken(Field field, String value, Predicate<String> query) {
+        Generation generation = current;
+        if (generation != null && !generation.bloom.mightContain(key(field, value))) {
+            skipped[field.ordinal()].increment();
+            return false;
+        }
+        boolean exists = query.test(value);
+        if (generation != null) {
+            (exists ? confirmed : falsePositives)[field.ordinal()].increment();
+        }
+        return exists;
+    }
+
+    private Set<String> taken(Field field, Collection<String> values, Function<Collection<String>, List<String>> query) {
+        Generation generation = current;
+        List<String> candidates = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (generation == null || generation.bloom.mightContain(key(field, value))) {
+                candidates.add(value);
+            } else {
+                skipped[field.ordinal()].increment();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> existing = query.apply(candidates).stream()
+                .map(value -> value.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        if (generation != null) {
+            for (String candidate : candidates) {
+                boolean exists = existing.contains(candidate.toLowerCase(Locale.ROOT));
+                (exists ? confirmed : falsePositives)[field.ordinal()].increment();
+            }
+        }
+        return existing;
+    }
+
+    private void add(Field field, String value) {
+        String key = key(field, value);
+        Generation generation;
+        // Sincronizado con el cambio de generación para que ningún valor quede fuera del filtro nuevo
+        synchronized (this) {
+            generation = current;
+            if (generation != null) {
+                generation.put(key);
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(key);
+            }
+        }
+        if (generation != null && generation.entries.get() > generation.capacity && !rebuilding.get()) {
+            rebuildThreads.newThread(this::rebuild).start();
+        }
+    }
+
+    // Misma normalización para construir y consultar: sin mayúsculas (la collation de MariaDB no las
+    // distingue) y sin espacios en los extremos (PAD SPACE ignora los finales)
+    private static String key(Field field, String value) {
+        return field.prefix + value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private double expectedFalsePositiveRate() {
+        Generation generation = current;
+        return generation == null ? Double.NaN : generation.bloom.expectedFalsePositiveRate();
+    }
+
+    private double observedFalsePositiveRate() {
+        double positives = 0;
+        double negatives = 0;
+        for (Field field : Field.values()) {
+            positives += falsePositives[field.ordinal()].count();
+            negatives += skipped[field.ordinal()].count();
+        }
+        return positives + negatives == 0 ? 0.0 : positives / (positives + negatives);
+    }
+
+    private static final class Generation {
+        final BloomFilter bloom;
+        final long capacity;
+        final AtomicLong entries = new AtomicLong();
+
+        Generation(BloomFilter bloom, long capacity) {
+            this.bloom = bloom;
+            this.capacity = capacity;
+        }
+
+        void put(String key) {
+            bloom.put(key);
+            entries.incrementAndGet();
+        }
+    }
+}
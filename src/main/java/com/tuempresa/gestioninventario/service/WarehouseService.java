@@ -1,7 +1,15 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
 import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.readmodel.ProductReadModel;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
 import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Importante para operaciones de escritura
@@ -13,10 +21,33 @@ import java.util.Optional;
 public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
+    private final ProductRepository productRepository;
+    private final CatalogVersions catalogVersions;
+    private final AuditTrail auditTrail;
+    private final ProductReadModel productReadModel;
+    private final ShardedProductStore shardedStore;
+    private final ProductOutboxRepository outboxRepository;
 
     @Autowired
-    public WarehouseService(WarehouseRepository warehouseRepository) {
+    public WarehouseService(WarehouseRepository warehouseRepository, ProductRepository productRepository,
+                            CatalogVersions catalogVersions, AuditTrail auditTrail, ProductReadModel productReadModel,
+                            ShardedProductStore shardedStore, ProductOutboxRepository outboxRepository) {
         this.warehouseRepository = warehouseRepository;
+        this.productRepository = productRepository;
+        this.catalogVersions = catalogVersions;
+        this.auditTrail = auditTrail;
+        this.productReadModel = productReadModel;
+        this.shardedStore = shardedStore;
+        this.outboxRepository = outboxRepository;
+    }
+
+    // ETag calculados en memoria (ver CatalogVersions); cada escritura de abajo los invalida
+    public String getWarehousesETag() {
+        return catalogVersions.warehousesETag();
+    }
+
+    public String getWarehouseETag(Long id) {
+        return catalogVersions.warehouseETag(id);
     }
 
     @Transactional(readOnly = true) // Es buena práctica marcar las transacciones de solo lectura
@@ -37,7 +68,11 @@ public class WarehouseService {
             // Podrías lanzar una excepción personalizada aquí
             throw new IllegalArgumentException("Ya existe un almacén con el nombre: " + warehouse.getName());
         }
-        return warehouseRepository.save(warehouse);
+        Warehouse saved = warehouseRepository.save(warehouse);
+        productReadModel.warehouseChanged(saved);
+        catalogVersions.warehouseChanged(saved.getId());
+        auditTrail.record(AuditAction.WAREHOUSE_CREATED, saved.getId(), 0L, saved.getName());
+        return saved;
     }
 
     @Transactional
@@ -48,7 +83,11 @@ public class WarehouseService {
                 existingWarehouse.setLocationDetails(warehouseDetails.getLocationDetails());
                 // Si tienes más campos, actualízalos aquí
                 // existingWarehouse.setProducts(warehouseDetails.getProducts()); // Cuidado con manejar colecciones directamente
-                return warehouseRepository.save(existingWarehouse);
+                Warehouse saved = warehouseRepository.save(existingWarehouse);
+                productReadModel.warehouseChanged(saved);
+                catalogVersions.warehouseChanged(id);
+                auditTrail.record(AuditAction.WAREHOUSE_UPDATED, id, 0L, saved.getName());
+                return saved;
             });
     }
 
@@ -64,7 +103,21 @@ public class WarehouseService {
             // Si los productos deben ser reasignados o la eliminación debe prevenirse si tiene productos,
             // necesitarás añadir esa lógica.
             // Para un CRUD simple, la eliminación directa es el primer paso.
+            // Los productos del almacén se borran sin pasar por ProductService: cada uno deja aquí su evento
+            // DELETED para las demás instancias (productReadModel.warehouseRemoved los quita de esta).
+            //   - con sharding están en el shard del almacén, fuera del cascade de JPA: se borran allí
+            //     (en autocommit, ver ShardedProductStore)
+            //   - sin sharding los borra el cascade de Warehouse.products junto con el almacén: se leen antes
+            List<Product> removed = shardedStore.isEnabled()
+                    ? shardedStore.deleteByWarehouse(id)
+                    : productRepository.findByWarehouse(warehouseRepository.getReferenceById(id));
+            for (Product product : removed) {
+                outboxRepository.append(ChangeType.DELETED, product, id);
+            }
             warehouseRepository.deleteById(id);
+            productReadModel.warehouseRemoved(id);
+            catalogVersions.warehouseRemoved(id);
+            auditTrail.record(AuditAction.WAREHOUSE_DELETED, id);
             return true;
         }
         return false;
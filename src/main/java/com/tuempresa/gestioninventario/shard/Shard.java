@@ -0,0 +1,8 @@
+package com.tuempresa.gestioninventario.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Una base de productos. El ordinal (1..id-stride) fija el inicio de su secuencia de IDs y no debe
+// cambiar una vez que el shard tiene datos: es su posición en inventario.sharding.shards.
+public record Shard(String name, int ordinal, JdbcTemplate jdbcTemplate) {
+}
@@ -0,0 +1,71 @@
+package com.tuempresa.gestioninventario.shard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// A qué shard va cada producto. La clave de partición es el almacén: todos los productos de un almacén
+// viven en el mismo shard, así que las altas, ediciones y movimientos tocan una sola base.
+//
+//   - Asignación explícita: inventario.sharding.warehouses.<warehouseId>=<nombre del shard>
+//   - Sin asignación: floorMod(warehouseId, cantidad de shards). Al agregar un shard cambia el módulo,
+//     así que antes hay que fijar los almacenes existentes en la asignación explícita.
+//
+// Los IDs de producto salen de una secuencia por shard que empieza en su ordinal y avanza de a id-stride
+// (shard 1: 1, 1025, 2049...; shard 2: 2, 1026...). El shard de un producto se deduce de su ID sin consultar.
+public final class ShardMap {
+
+    private final List<Shard> shards;
+    private final Map<Long, Shard> pinnedWarehouses = new HashMap<>();
+    private final Shard[] shardsByOrdinal;
+    private final int idStride;
+
+    public ShardMap(List<Shard> shards, Map<Long, String> pinnedWarehouses, int idStride) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("El sharding de productos necesita al menos un shard.");
+        }
+        if (shards.size() > idStride) {
+            throw new IllegalArgumentException("Hay más shards (" + shards.size() + ") que el salto de IDs (" + idStride + ").");
+        }
+        this.shards = List.copyOf(shards);
+        this.idStride = idStride;
+        this.shardsByOrdinal = new Shard[idStride + 1];
+        Map<String, Shard> byName = new HashMap<>();
+        for (Shard shard : shards) {
+            if (shard.ordinal() < 1 || shard.ordinal() > idStride || shardsByOrdinal[shard.ordinal()] != null) {
+                throw new IllegalArgumentException("Ordinal de shard inválido o repetido: " + shard.ordinal());
+            }
+            shardsByOrdinal[shard.ordinal()] = shard;
+            byName.put(shard.name(), shard);
+        }
+        pinnedWarehouses.forEach((warehouseId, shardName) -> {
+            Shard shard = byName.get(shardName);
+            if (shard == null) {
+                throw new IllegalArgumentException("El almacén " + warehouseId + " está asignado a un shard inexistente: " + shardName);
+            }
+            this.pinnedWarehouses.put(warehouseId, shard);
+        });
+    }
+
+    public Shard shardForWarehouse(long warehouseId) {
+        Shard pinned = pinnedWarehouses.get(warehouseId);
+        return pinned != null ? pinned : shards.get(Math.floorMod(warehouseId, shards.size()));
+    }
+
+    // Vacío si el ID no puede pertenecer a ningún shard configurado
+    public Optional<Shard> shardForProduct(long productId) {
+        if (productId <= 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shardsByOrdinal[(int) ((productId - 1) % idStride) + 1]);
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    public int idStride() {
+        return idStride;
+    }
+}
@@ -0,0 +1,400 @@
+package com.tuempresa.gestioninventario.shard;
+
+import com.tuempresa.gestioninventario.cyclecount.VarianceBatch;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Productos repartidos por almacén en varias bases (opcional, inventario.sharding.enabled=true).
+// Deshabilitado, ProductService sigue usando ProductRepository sobre la base principal.
+//
+// Cada shard tiene su pool Hikari, su esquema (db/shard, migrado con Flyway al arrancar) y se accede por JDBC:
+// la base principal conserva almacenes, usuarios, outbox y auditoría, y los productos de cada respuesta
+// se completan con sus almacenes en una sola consulta a la principal.
+//
+//   - Por ID, alta, edición, movimientos y baja: solo el shard dueño (ver ShardMap)
+//   - Baja de un almacén: sus productos, del shard del almacén (el cascade de JPA solo ve la principal)
+//   - Listado completo y búsqueda por categoría: una consulta por shard en paralelo, ordenada por ID,
+//     y mezcla de los resultados ya ordenados (merge de k listas)
+//
+// Cada operación de escritura es una sentencia en autocommit sobre el shard, fuera de la transacción de
+// la base principal: si el commit de la principal falla después, el cambio del producto queda y solo se
+// pierde su evento del outbox (los clientes del stream se resincronizan con el evento "reset").
+@Component
+public class ShardedProductStore implements DisposableBean {
+
+    public static final String SCATTER = "inventario.sharding.scatter";
+
+    // Productos por tanda al borrar un almacén (ver deleteByWarehouse)
+    private static final int DELETE_BATCH = 1_000;
+
+    private static final String COLUMNS =
+            "SELECT id, name, description, price, quantity, category, warehouse_id FROM products";
+    private static final RowMapper<Product> ROW_MAPPER = (rs, rowNum) -> new Product(
+            rs.getLong("id"), rs.getString("name"), rs.getString("description"), rs.getBigDecimal("price"),
+            rs.getInt("quantity"), rs.getString("category"),
+            // Almacén provisional con solo el ID; attachWarehouses lo reemplaza por el de la base principal
+            new Warehouse(rs.getLong("warehouse_id"), null, null, null));
+
+    private final ShardMap shardMap; // null si el sharding está deshabilitado
+    private final WarehouseRepository warehouseRepository;
+    private final long scatterTimeoutMillis;
+    private final List<HikariDataSource> pools;
+    private final ExecutorService executor;
+    private final Timer scatterTimer;
+
+    @Autowired
+    public ShardedProductStore(WarehouseRepository warehouseRepository, MeterRegistry registry, Environment environment,
+                               @Value("${inventario.sharding.enabled:false}") boolean enabled,
+                               @Value("${inventario.sharding.shards:}") List<String> shardNames,
+                               @Value("${inventario.sharding.id-stride:1024}") int idStride,
+                               @Value("${inventario.sharding.pool-size:10}") int poolSize,
+                               @Value("${inventario.sharding.scatter-timeout:5s}") Duration scatterTimeout) {
+        this.warehouseRepository = warehouseRepository;
+        this.scatterTimeoutMillis = scatterTimeout.toMillis();
+        this.scatterTimer = scatterTimer(registry);
+        if (!enabled) {
+            this.shardMap = null;
+            this.pools = List.of();
+            this.executor = null;
+            return;
+        }
+        if (shardNames.isEmpty()) {
+            throw new IllegalArgumentException("inventario.sharding.enabled=true requiere inventario.sharding.shards.");
+        }
+        List<HikariDataSource> created = new ArrayList<>();
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < shardNames.size(); i++) {
+            String name = shardNames.get(i).trim();
+            String prefix = "inventario.sharding.shard." + name + ".";
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + name);
+            pool.setJdbcUrl(environment.getRequiredProperty(prefix + "url"));
+            pool.setUsername(environment.getProperty(prefix + "username", environment.getProperty("spring.datasource.username")));
+            pool.setPassword(environment.getProperty(prefix + "password", environment.getProperty("spring.datasource.password")));
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            created.add(pool);
+            migrate(pool, i + 1, idStride);
+            shards.add(new Shard(name, i + 1, new JdbcTemplate(pool)));
+        }
+        Map<Long, String> pinned = Binder.get(environment)
+                .bind("inventario.sharding.warehouses", Bindable.mapOf(Long.class, String.class))
+                .orElse(Map.of());
+        this.shardMap = new ShardMap(shards, pinned, idStride);
+        this.pools = List.copyOf(created);
+        this.executor = newExecutor(shards.size());
+    }
+
+    ShardedProductStore(ShardMap shardMap, WarehouseRepository warehouseRepository, MeterRegistry registry,
+                        Duration scatterTimeout) {
+        this.shardMap = shardMap;
+        this.warehouseRepository = warehouseRepository;
+        this.scatterTimeoutMillis = scatterTimeout.toMillis();
+        this.scatterTimer = scatterTimer(registry);
+        this.pools = List.of();
+        this.executor = newExecutor(shardMap.shards().size());
+    }
+
+    private static Timer scatterTimer(MeterRegistry registry) {
+        return Timer.builder(SCATTER)
+                .description("Lecturas de productos repartidas entre todos los shards")
+                .register(registry);
+    }
+
+    private static ExecutorService newExecutor(int shards) {
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("product-shards-");
+        threads.setDaemon(true);
+        // Dos lecturas simultáneas por shard antes de encolar
+        return Executors.newFixedThreadPool(shards * 2, threads);
+    }
+
+    // Esquema de un shard; el ordinal fija el inicio de su secuencia de IDs
+    static void migrate(DataSource dataSource, int ordinal, int idStride) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/shard")
+                .placeholders(Map.of("shard_ordinal", Integer.toString(ordinal), "id_stride", Integer.toString(idStride)))
+                .load()
+                .migrate();
+    }
+
+    public boolean isEnabled() {
+        return shardMap != null;
+    }
+
+    // --- Lecturas ---
+
+    public List<Product> findAll() {
+        return attachWarehouses(scatter(COLUMNS + " ORDER BY id"));
+    }
+
+    // Cada shard devuelve como mucho limit filas; tras la mezcla por ID se recorta al total pedido
+    public List<Product> findFirst(int limit) {
+        List<Product> merged = scatter(COLUMNS + " ORDER BY id LIMIT ?", limit);
+        return attachWarehouses(merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged);
+    }
+
+    public List<Product> findByCategory(String category) {
+        return attachWarehouses(scatter(COLUMNS + " WHERE category = ? ORDER BY id", category));
+    }
+
+    public Optional<Product> findById(long id) {
+        return shardMap.shardForProduct(id)
+                .flatMap(shard -> shard.jdbcTemplate().query(COLUMNS + " WHERE id = ?", ROW_MAPPER, id).stream().findFirst())
+                .map(product -> attachWarehouses(List.of(product)).get(0));
+    }
+
+    // --- Lecturas por bloques de ID (ReorderPointJob, CycleCountService), shard por shard en el hilo que llama ---
+
+    // {menor, mayor} ID de producto entre todos los shards; null si no hay productos
+    public long[] idRange() {
+        long[] range = null;
+        for (Shard shard : shardMap.shards()) {
+            long[] shardRange = shard.jdbcTemplate().queryForObject("SELECT MIN(id), MAX(id) FROM products",
+                    (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+            if (shardRange != null) {
+                range = range == null ? shardRange
+                        : new long[]{Math.min(range[0], shardRange[0]), Math.max(range[1], shardRange[1])};
+            }
+        }
+        return range;
+    }
+
+    // Columnas id, quantity, warehouse_id de los productos con ID en [fromId, toId); ordenados por ID dentro
+    // de cada shard
+    public void forEachStock(long fromId, long toId, RowCallbackHandler handler) {
+        for (Shard shard : shardMap.shards()) {
+            shard.jdbcTemplate().query("SELECT id, quantity, warehouse_id FROM products WHERE id >= ? AND id < ? ORDER BY id",
+                    handler, fromId, toId);
+        }
+    }
+
+    // Todas las columnas de todos los productos, shard por shard y sin orden (carga de ProductReadModel)
+    public void forEachProduct(RowCallbackHandler handler) {
+        for (Shard shard : shardMap.shards()) {
+            shard.jdbcTemplate().query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(COLUMNS);
+                ps.setFetchSize(10_000);
+                return ps;
+            }, handler);
+        }
+    }
+
+    // Productos por ID (los que no existen no vuelven), con una consulta por shard y el almacén provisional
+    public List<Product> findAllById(Collection<Long> ids) {
+        Map<Shard, List<Long>> byShard = new HashMap<>();
+        for (Long id : ids) {
+            shardMap.shardForProduct(id).ifPresent(shard -> byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(id));
+        }
+        List<Product> products = new ArrayList<>(ids.size());
+        byShard.forEach((shard, shardIds) -> products.addAll(shard.jdbcTemplate().query(
+                COLUMNS + " WHERE id IN (" + String.join(",", Collections.nCopies(shardIds.size(), "?")) + ")",
+                ROW_MAPPER, shardIds.toArray())));
+        return products;
+    }
+
+    // --- Ajustes de conteo (CycleCountService) ---
+
+    // Un batch por shard con el mismo UPDATE condicional que CycleCountRepository.compareAndSetQuantities
+    public void compareAndSetQuantities(VarianceBatch batch) {
+        Map<Shard, List<Integer>> byShard = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int index = i;
+            shardMap.shardForProduct(batch.productId(i))
+                    .ifPresent(shard -> byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(index));
+        }
+        byShard.forEach((shard, indexes) -> shard.jdbcTemplate().batchUpdate(
+                "UPDATE products SET quantity = ? WHERE id = ? AND warehouse_id = ? AND quantity = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        int index = indexes.get(i);
+                        ps.setInt(1, batch.counted(index));
+                        ps.setLong(2, batch.productId(index));
+                        ps.setLong(3, batch.warehouseId(index));
+                        ps.setInt(4, batch.systemQuantity(index));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return indexes.size();
+                    }
+                }));
+    }
+
+    // --- Escrituras (el almacén del producto ya viene resuelto por ProductService) ---
+
+    public Product insert(Product product) {
+        Shard shard = shardMap.shardForWarehouse(product.getWarehouse().getId());
+        JdbcTemplate jdbc = shard.jdbcTemplate();
+        Long id = jdbc.queryForObject("SELECT NEXT VALUE FOR product_id_seq", Long.class);
+        jdbc.update("INSERT INTO products (id, name, description, price, quantity, category, warehouse_id)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, product.getName(), product.getDescription(), product.getPrice(), product.getQuantity(),
+                product.getCategory(), product.getWarehouse().getId());
+        product.setId(id);
+        return product;
+    }
+
+    // El ID fija el shard: un producto no puede pasar a un almacén de otro shard (habría que cambiarle el ID)
+    public Product update(Product product) {
+        Shard shard = shardMap.shardForProduct(product.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + product.getId()));
+        Long warehouseId = product.getWarehouse().getId();
+        if (shardMap.shardForWarehouse(warehouseId) != shard) {
+            throw new IllegalArgumentException("El almacén " + warehouseId + " está en otro shard ("
+                    + shardMap.shardForWarehouse(warehouseId).name() + "): no se puede mover el producto allí.");
+        }
+        shard.jdbcTemplate().update("UPDATE products SET name = ?, description = ?, price = ?, quantity = ?,"
+                        + " category = ?, warehouse_id = ? WHERE id = ?",
+                product.getName(), product.getDescription(), product.getPrice(), product.getQuantity(),
+                product.getCategory(), warehouseId, product.getId());
+        return product;
+    }
+
+    public boolean delete(long id) {
+        return shardMap.shardForProduct(id)
+                .map(shard -> shard.jdbcTemplate().update("DELETE FROM products WHERE id = ?", id) > 0)
+                .orElse(false);
+    }
+
+    // Borra los productos del almacén en su shard, por tandas, y devuelve los borrados (con el almacén
+    // provisional) para sus eventos. Sigue hasta no encontrar ninguno: también se lleva los que se
+    // dieron de alta en el almacén mientras tanto.
+    public List<Product> deleteByWarehouse(long warehouseId) {
+        JdbcTemplate jdbc = shardMap.shardForWarehouse(warehouseId).jdbcTemplate();
+        List<Product> deleted = new ArrayList<>();
+        List<Product> batch;
+        do {
+            batch = jdbc.query(COLUMNS + " WHERE warehouse_id = ? ORDER BY id LIMIT ?", ROW_MAPPER, warehouseId,
+                    DELETE_BATCH);
+            if (!batch.isEmpty()) {
+                jdbc.update("DELETE FROM products WHERE id IN ("
+                        + String.join(",", Collections.nCopies(batch.size(), "?")) + ")",
+                        batch.stream().map(Product::getId).toArray());
+                deleted.addAll(batch);
+            }
+        } while (!batch.isEmpty());
+        return deleted;
+    }
+
+    // --- Scatter-gather ---
+
+    // Misma consulta en todos los shards a la vez; cada resultado viene ordenado por ID
+    private List<Product> scatter(String sql, Object... args) {
+        long start = System.nanoTime();
+        List<CompletableFuture<List<Product>>> futures = new ArrayList<>();
+        for (Shard shard : shardMap.shards()) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.jdbcTemplate().query(sql, ROW_MAPPER, args), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(scatterTimeoutMillis, TimeUnit.MILLISECONDS);
+            List<List<Product>> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<List<Product>> future : futures) {
+                results.add(future.join());
+            }
+            return mergeById(results);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Falló la lectura de un shard de productos", e.getCause());
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Los shards de productos no respondieron en " + scatterTimeoutMillis + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lectura de shards interrumpida", e);
+        } finally {
+            scatterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Mezcla de listas ya ordenadas por ID: O(n log k) con un heap de una posición por lista
+    static List<Product> mergeById(List<List<Product>> sortedLists) {
+        int total = 0;
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> Long.compare(sortedLists.get(a[0]).get(a[1]).getId(), sortedLists.get(b[0]).get(b[1]).getId()));
+        for (int i = 0; i < sortedLists.size(); i++) {
+            total += sortedLists.get(i).size();
+            if (!sortedLists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        List<Product> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Product> list = sortedLists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Reemplaza los almacenes provisionales por los de la base principal, con una sola consulta
+    private List<Product> attachWarehouses(List<Product> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        Set<Long> ids = new HashSet<>();
+        products.forEach(product -> ids.add(product.getWarehouse().getId()));
+        Map<Long, Warehouse> warehouses = new HashMap<>();
+        warehouseRepository.findAllById(ids).forEach(warehouse -> warehouses.put(warehouse.getId(), warehouse));
+        for (Product product : products) {
+            Warehouse warehouse = warehouses.get(product.getWarehouse().getId());
+            if (warehouse != null) {
+                product.setWarehouse(warehouse);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        pools.forEach(HikariDataSource::close);
+    }
+}
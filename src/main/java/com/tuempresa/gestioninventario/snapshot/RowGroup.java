@@ -0,0 +1,317 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+// Grupo de hasta CAPACITY filas de una tabla, por columnas: lo que se lee de la base y se escribe como un
+// grupo del archivo, y lo que se lee del archivo y se inserta como un batch.
+//
+// Codificación de cada columna (antes del Deflate opcional de SnapshotWriter):
+//   nulos:     0, o 1 seguido de un bitmap de filas nulas
+//   numéricas: diferencia con el valor anterior no nulo, en zigzag + varint. Los IDs ordenados quedan en
+//              un byte por fila; DECIMAL va como entero sin escala y BOOLEAN como 0/1
+//   STRING:    largo en varint y los bytes UTF-8 de cada valor no nulo
+final class RowGroup {
+
+    static final int CAPACITY = 65_536;
+
+    private final List<SnapshotColumn> columns;
+    private final long[][] numbers;   // null en las columnas STRING
+    private final String[][] strings; // null en las numéricas
+    private final boolean[][] nulls;
+    private int size;
+
+    RowGroup(List<SnapshotColumn> columns) {
+        this.columns = columns;
+        this.numbers = new long[columns.size()][];
+        this.strings = new String[columns.size()][];
+        this.nulls = new boolean[columns.size()][CAPACITY];
+        for (int c = 0; c < columns.size(); c++) {
+            if (columns.get(c).isNumeric()) {
+                numbers[c] = new long[CAPACITY];
+            } else {
+                strings[c] = new String[CAPACITY];
+            }
+        }
+    }
+
+    List<SnapshotColumn> columns() {
+        return columns;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    void clear() {
+        for (String[] values : strings) {
+            if (values != null) {
+                Arrays.fill(values, 0, size, null);
+            }
+        }
+        size = 0;
+    }
+
+    // --- Base de datos ---
+
+    // Agrega la fila actual del ResultSet (columnas en el orden de la tabla)
+    void readRow(ResultSet rs) throws SQLException {
+        int row = size++;
+        for (int c = 0; c < columns.size(); c++) {
+            SnapshotColumn column = columns.get(c);
+            int index = c + 1;
+            long value = 0;
+            switch (column.type()) {
+                case LONG -> value = rs.getLong(index);
+                case INT -> value = rs.getInt(index);
+                case BOOLEAN -> value = rs.getBoolean(index) ? 1 : 0;
+                case DECIMAL -> {
+                    BigDecimal decimal = rs.getBigDecimal(index);
+                    value = decimal == null ? 0
+                            : decimal.setScale(column.scale(), RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                }
+                case STRING -> strings[c][row] = rs.getString(index);
+            }
+            nulls[c][row] = rs.wasNull();
+            if (numbers[c] != null) {
+                numbers[c][row] = value;
+            }
+        }
+    }
+
+    void bindRow(PreparedStatement ps, int row) throws SQLException {
+        for (int c = 0; c < columns.size(); c++) {
+            SnapshotColumn column = columns.get(c);
+            int index = c + 1;
+            if (nulls[c][row]) {
+                ps.setNull(index, switch (column.type()) {
+                    case LONG -> Types.BIGINT;
+                    case INT -> Types.INTEGER;
+                    case BOOLEAN -> Types.BOOLEAN;
+                    case DECIMAL -> Types.DECIMAL;
+                    case STRING -> Types.VARCHAR;
+                });
+                continue;
+            }
+            switch (column.type()) {
+                case LONG -> ps.setLong(index, numbers[c][row]);
+                case INT -> ps.setInt(index, (int) numbers[c][row]);
+                case BOOLEAN -> ps.setBoolean(index, numbers[c][row] != 0);
+                case DECIMAL -> ps.setBigDecimal(index, BigDecimal.valueOf(numbers[c][row], column.scale()));
+                case STRING -> ps.setString(index, strings[c][row]);
+            }
+        }
+    }
+
+    // Valor de una celda para las pruebas (null si es nulo)
+    Object value(int column, int row) {
+        if (nulls[column][row]) {
+            return null;
+        }
+        return switch (columns.get(column).type()) {
+            case LONG -> numbers[column][row];
+            case INT -> (int) numbers[column][row];
+            case BOOLEAN -> numbers[column][row] != 0;
+            case DECIMAL -> BigDecimal.valueOf(numbers[column][row], columns.get(column).scale());
+            case STRING -> strings[column][row];
+        };
+    }
+
+    // --- Archivo ---
+
+    void encode(int column, ByteSink out) {
+        out.clear();
+        boolean[] columnNulls = nulls[column];
+        boolean hasNulls = false;
+        for (int row = 0; row < size && !hasNulls; row++) {
+            hasNulls = columnNulls[row];
+        }
+        out.writeByte(hasNulls ? 1 : 0);
+        if (hasNulls) {
+            for (int row = 0; row < size; row += 8) {
+                int bits = 0;
+                for (int bit = 0; bit < 8 && row + bit < size; bit++) {
+                    if (columnNulls[row + bit]) {
+                        bits |= 1 << bit;
+                    }
+                }
+                out.writeByte(bits);
+            }
+        }
+        if (numbers[column] != null) {
+            long[] values = numbers[column];
+            long previous = 0;
+            for (int row = 0; row < size; row++) {
+                if (!columnNulls[row]) {
+                    out.writeVarLong(zigzag(values[row] - previous));
+                    previous = values[row];
+                }
+            }
+        } else {
+            String[] values = strings[column];
+            for (int row = 0; row < size; row++) {
+                if (!columnNulls[row]) {
+                    byte[] bytes = values[row].getBytes(StandardCharsets.UTF_8);
+                    out.writeVarLong(bytes.length);
+                    out.writeBytes(bytes, 0, bytes.length);
+                }
+            }
+        }
+    }
+
+    // Reemplaza el contenido por rows filas; cada columna se decodifica después con decode
+    void reset(int rows) {
+        clear();
+        size = rows;
+    }
+
+    void decode(int column, byte[] data, int length) {
+        ByteSource in = new ByteSource(data, length);
+        boolean[] columnNulls = nulls[column];
+        if (in.readByte() != 0) {
+            for (int row = 0; row < size; row += 8) {
+                int bits = in.readByte();
+                for (int bit = 0; bit < 8 && row + bit < size; bit++) {
+                    columnNulls[row + bit] = (bits & (1 << bit)) != 0;
+                }
+            }
+        } else {
+            Arrays.fill(columnNulls, 0, size, false);
+        }
+        if (numbers[column] != null) {
+            long[] values = numbers[column];
+            long previous = 0;
+            for (int row = 0; row < size; row++) {
+                if (!columnNulls[row]) {
+                    previous += unzigzag(in.readVarLong());
+                }
+                values[row] = columnNulls[row] ? 0 : previous;
+            }
+        } else {
+            String[] values = strings[column];
+            for (int row = 0; row < size; row++) {
+                if (!columnNulls[row]) {
+                    int stringLength = (int) in.readVarLong();
+                    values[row] = in.readString(stringLength);
+                }
+            }
+        }
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException("Snapshot dañado: la columna " + columns.get(column).name()
+                    + " tiene bytes de más.");
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Bytes de una columna codificada, reutilizado entre columnas y grupos
+    static final class ByteSink {
+
+        private byte[] data = new byte[64 * 1024];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        byte[] data() {
+            return data;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, data, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (size + bytes > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + bytes));
+            }
+        }
+    }
+
+    private static final class ByteSource {
+
+        private final byte[] data;
+        private final int length;
+        private int position;
+
+        ByteSource(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        int readByte() {
+            check(1);
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Snapshot dañado: varint demasiado largo.");
+        }
+
+        String readString(int stringLength) {
+            if (stringLength < 0) {
+                throw new IllegalArgumentException("Snapshot dañado: largo de texto inválido.");
+            }
+            check(stringLength);
+            String value = new String(data, position, stringLength, StandardCharsets.UTF_8);
+            position += stringLength;
+            return value;
+        }
+
+        int remaining() {
+            return length - position;
+        }
+
+        private void check(int bytes) {
+            if (bytes > length - position) {
+                throw new IllegalArgumentException("Snapshot dañado: columna truncada.");
+            }
+        }
+    }
+}
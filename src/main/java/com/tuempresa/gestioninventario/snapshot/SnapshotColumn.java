@@ -0,0 +1,18 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+// Columna de una tabla del snapshot. scale solo se usa en DECIMAL: el valor se guarda como entero sin escala
+// (precio 10.25 con scale 2 = 1025).
+public record SnapshotColumn(String name, Type type, int scale) {
+
+    public enum Type {
+        LONG, INT, DECIMAL, BOOLEAN, STRING
+    }
+
+    static SnapshotColumn of(String name, Type type) {
+        return new SnapshotColumn(name, type, 0);
+    }
+
+    boolean isNumeric() {
+        return type != Type.STRING;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+// Exportación o importación de un snapshot al arrancar, para usar la aplicación como herramienta:
+//
+//   java -jar inventario.jar --inventario.snapshot.export=/respaldos/inventario.snap
+//   java -jar inventario.jar --inventario.snapshot.import=/respaldos/inventario.snap
+//
+// Corre antes que AdminBootstrap (que crearía el administrador en la base vacía que necesita la importación)
+// y, con exit-when-done, la aplicación termina al finalizar con código 0, o 1 si falló.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SnapshotCommand implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotCommand.class);
+
+    private final SnapshotService snapshotService;
+    private final ApplicationContext context;
+    private final String exportFile;
+    private final String importFile;
+    private final boolean exitWhenDone;
+
+    public SnapshotCommand(SnapshotService snapshotService, ApplicationContext context,
+                           @Value("${inventario.snapshot.export:}") String exportFile,
+                           @Value("${inventario.snapshot.import:}") String importFile,
+                           @Value("${inventario.snapshot.exit-when-done:true}") boolean exitWhenDone) {
+        this.snapshotService = snapshotService;
+        this.context = context;
+        this.exportFile = exportFile;
+        this.importFile = importFile;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!StringUtils.hasText(exportFile) && !StringUtils.hasText(importFile)) {
+            return;
+        }
+        if (StringUtils.hasText(exportFile) && StringUtils.hasText(importFile)) {
+            throw new IllegalArgumentException("inventario.snapshot.export e inventario.snapshot.import son excluyentes.");
+        }
+        int exitCode = 0;
+        try {
+            if (StringUtils.hasText(importFile)) {
+                snapshotService.importFrom(Path.of(importFile));
+            } else {
+                snapshotService.export(Path.of(exportFile));
+            }
+        } catch (Exception e) {
+            if (!exitWhenDone) {
+                throw e;
+            }
+            log.error("Falló el snapshot", e);
+            exitCode = 1;
+        }
+        if (exitWhenDone) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+// Formato del snapshot (todo big-endian):
+//
+//   archivo := MAGIC versión:int creado:long(epoch ms) tabla* 'Z' crc:int
+//   tabla   := 'T' nombre columnas:byte (nombre tipo:byte escala:byte)* grupo* 'E' filas:long
+//   grupo   := 'G' filas:int bloque{columnas}
+//   bloque  := codificación:byte largo:int guardado:int crc:int datos[guardado]
+//   nombre  := largo:short UTF-8
+//
+// Cada grupo tiene hasta RowGroup.CAPACITY filas guardadas por columna (ver RowGroup para la codificación
+// de cada tipo). Un bloque se guarda comprimido con Deflate (codificación DEFLATE) solo si así ocupa
+// bastante menos; largo es el tamaño sin comprimir. El crc de cada bloque es CRC32C de sus datos tal como
+// están en el archivo y el del final, CRC32C de todos los bytes anteriores.
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'I', 'N', 'V', 'S', 'N', 'A', 'P', 0};
+    static final int VERSION = 1;
+
+    static final byte TABLE = 'T';
+    static final byte GROUP = 'G';
+    static final byte TABLE_END = 'E';
+    static final byte FILE_END = 'Z';
+
+    static final byte PLAIN = 0;
+    static final byte DEFLATE = 1;
+
+    // Un bloque de más no es un snapshot válido (protege de reservar memoria con un largo dañado)
+    static final int MAX_BLOCK_SIZE = 256 * 1024 * 1024;
+
+    private SnapshotFormat() {
+    }
+}
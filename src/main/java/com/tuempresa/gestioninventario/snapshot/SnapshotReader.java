@@ -0,0 +1,216 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.tuempresa.gestioninventario.snapshot.SnapshotFormat.*;
+
+// Lee un snapshot en orden por un buffer directo de 1 MB, verificando el CRC de cada bloque antes de
+// decodificarlo y el del archivo al llegar al final. Cualquier diferencia con el formato es una
+// IllegalArgumentException "Snapshot dañado/inválido". No cierra el canal.
+final class SnapshotReader {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long checksumOffset; // Los últimos 4 bytes son el CRC del archivo
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32C fileCrc = new CRC32C();
+    private final CRC32C blockCrc = new CRC32C();
+    private final Inflater inflater = new Inflater();
+    private final long createdAtMillis;
+    private long readOffset;
+    private byte[] stored = new byte[64 * 1024];
+    private byte[] decoded = new byte[64 * 1024];
+    private SnapshotTable table;
+    private long tableRows;
+
+    SnapshotReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.checksumOffset = channel.size() - 4;
+        buffer.limit(0);
+        byte[] magic = new byte[MAGIC.length];
+        readBytes(magic, magic.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Snapshot inválido: el archivo no es un snapshot del inventario.");
+        }
+        int version = require(4).getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Snapshot inválido: versión " + version + " no soportada.");
+        }
+        this.createdAtMillis = require(8).getLong();
+    }
+
+    long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    // Siguiente tabla, o null al final del archivo (ya verificado)
+    SnapshotTable nextTable() throws IOException {
+        byte marker = require(1).get();
+        if (marker == FILE_END) {
+            finish();
+            return null;
+        }
+        if (marker != TABLE) {
+            throw corrupt("se esperaba una tabla");
+        }
+        table = SnapshotTable.byName(readName());
+        int columns = require(1).get();
+        boolean matches = columns == table.columns().size();
+        for (int c = 0; c < columns; c++) {
+            String name = readName();
+            ByteBuffer header = require(2);
+            int type = header.get();
+            int scale = header.get();
+            if (matches) {
+                SnapshotColumn expected = table.columns().get(c);
+                matches = name.equals(expected.name()) && type == expected.type().ordinal() && scale == expected.scale();
+            }
+        }
+        if (!matches) {
+            throw new IllegalArgumentException("Snapshot inválido: las columnas de " + table.tableName()
+                    + " no coinciden con el esquema actual.");
+        }
+        tableRows = 0;
+        return table;
+    }
+
+    // Carga el siguiente grupo de la tabla actual; false al final de la tabla
+    boolean nextGroup(RowGroup group) throws IOException {
+        byte marker = require(1).get();
+        if (marker == TABLE_END) {
+            long rows = require(8).getLong();
+            if (rows != tableRows) {
+                throw corrupt(table.tableName() + " declara " + rows + " filas y tiene " + tableRows);
+            }
+            return false;
+        }
+        if (marker != GROUP) {
+            throw corrupt("se esperaba un grupo de filas de " + table.tableName());
+        }
+        int rows = require(4).getInt();
+        if (rows <= 0 || rows > RowGroup.CAPACITY) {
+            throw corrupt("grupo de " + rows + " filas");
+        }
+        group.reset(rows);
+        for (int c = 0; c < table.columns().size(); c++) {
+            int length = readBlock();
+            group.decode(c, decoded, length);
+        }
+        tableRows += rows;
+        return true;
+    }
+
+    // Lee un bloque a decoded y devuelve su largo sin comprimir
+    private int readBlock() throws IOException {
+        ByteBuffer header = require(13);
+        byte encoding = header.get();
+        int length = header.getInt();
+        int storedLength = header.getInt();
+        int crc = header.getInt();
+        if (length < 0 || length > MAX_BLOCK_SIZE || storedLength < 0 || storedLength > MAX_BLOCK_SIZE
+                || (encoding != PLAIN && encoding != DEFLATE)) {
+            throw corrupt("cabecera de bloque inválida");
+        }
+        if (stored.length < storedLength) {
+            stored = new byte[storedLength];
+        }
+        readBytes(stored, storedLength);
+        blockCrc.reset();
+        blockCrc.update(stored, 0, storedLength);
+        if ((int) blockCrc.getValue() != crc) {
+            throw corrupt("CRC de bloque de " + table.tableName() + " incorrecto");
+        }
+        if (encoding == PLAIN) {
+            if (length != storedLength) {
+                throw corrupt("largo de bloque inválido");
+            }
+            byte[] swap = decoded;
+            decoded = stored;
+            stored = swap;
+            return length;
+        }
+        if (decoded.length < length) {
+            decoded = new byte[length];
+        }
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            if (inflater.inflate(decoded, 0, length) != length || !inflater.finished()) {
+                throw corrupt("bloque comprimido con largo incorrecto");
+            }
+        } catch (DataFormatException e) {
+            throw corrupt("bloque comprimido inválido");
+        }
+        return length;
+    }
+
+    private void finish() throws IOException {
+        if (readOffset - buffer.remaining() != checksumOffset) {
+            throw corrupt("bytes de más antes del CRC del archivo");
+        }
+        int expected = (int) fileCrc.getValue();
+        if (require(4).getInt() != expected) {
+            throw corrupt("CRC del archivo incorrecto");
+        }
+        inflater.end();
+    }
+
+    private String readName() throws IOException {
+        int length = require(2).getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        readBytes(bytes, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readBytes(byte[] target, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                fill(1);
+            }
+            int chunk = Math.min(length - offset, buffer.remaining());
+            buffer.get(target, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    // El buffer con al menos bytes bytes disponibles
+    private ByteBuffer require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            fill(bytes);
+        }
+        return buffer;
+    }
+
+    private void fill(int bytes) throws IOException {
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int start = buffer.position();
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw corrupt("archivo truncado");
+            }
+            // El CRC del archivo cubre todo menos sus propios 4 bytes finales
+            long crcBytes = Math.max(0, Math.min(read, checksumOffset - readOffset));
+            if (crcBytes > 0) {
+                ByteBuffer slice = buffer.duplicate();
+                slice.position(start).limit(start + (int) crcBytes);
+                fileCrc.update(slice);
+            }
+            readOffset += read;
+        }
+        buffer.flip();
+    }
+
+    private static IllegalArgumentException corrupt(String detail) {
+        return new IllegalArgumentException("Snapshot dañado: " + detail + ".");
+    }
+}
@@ -0,0 +1,292 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import com.tuempresa.gestioninventario.repository.SnapshotRepository;
+import com.tuempresa.gestioninventario.repository.SnapshotRepository.BulkLoadSession;
+import com.tuempresa.gestioninventario.service.CatalogVersions;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Snapshot binario del inventario (warehouses, roles, app_users, user_roles y products) para clonar
+// producción en staging o reconstruir una instancia sin pasar por un dump SQL. Formato en SnapshotFormat.
+//
+// Exportar: una transacción de solo lectura REPEATABLE READ (todas las tablas de la misma foto), cada tabla
+// leída por clave primaria con fetch size y escrita por grupos de filas en columnas.
+//
+// Importar: solo en una base migrada y vacía. Primero se lee el archivo completo verificando los CRC; recién
+// entonces se carga en una conexión propia, con los chequeos de FK apagados, sin los índices secundarios
+// (se vuelven a crear al final) y un batch + commit por grupo de filas. Si la carga falla se borra lo
+// cargado, así la base queda vacía otra vez. Al terminar invalida los ETag del catálogo en todas las
+// instancias (CatalogVersions): la carga no pasa por los servicios ni por product_outbox.
+//
+// Con sharding los productos están en los shards: el snapshot cubre solo la base principal y se rechaza.
+@Service
+public class SnapshotService {
+
+    public static final String EXPORT = "inventario.snapshot.export";
+    public static final String IMPORT = "inventario.snapshot.import";
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final SnapshotRepository repository;
+    private final ShardedProductStore shardedStore;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate readTransaction;
+    private final Clock clock;
+    private final Timer exportTimer;
+    private final Timer importTimer;
+
+    @Autowired
+    public SnapshotService(SnapshotRepository repository, ShardedProductStore shardedStore,
+                           CatalogVersions catalogVersions, PlatformTransactionManager transactionManager,
+                           MeterRegistry registry) {
+        this(repository, shardedStore, catalogVersions, new TransactionTemplate(transactionManager), registry,
+                Clock.systemUTC());
+    }
+
+    SnapshotService(SnapshotRepository repository, ShardedProductStore shardedStore, CatalogVersions catalogVersions,
+                    TransactionTemplate readTransaction, MeterRegistry registry, Clock clock) {
+        this.repository = repository;
+        this.shardedStore = shardedStore;
+        this.catalogVersions = catalogVersions;
+        this.readTransaction = readTransaction;
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.clock = clock;
+        this.exportTimer = Timer.builder(EXPORT)
+                .description("Duración de la exportación de un snapshot")
+                .register(registry);
+        this.importTimer = Timer.builder(IMPORT)
+                .description("Duración de la importación de un snapshot (verificación y carga)")
+                .register(registry);
+    }
+
+    // --- Exportación ---
+
+    // Se escribe a un archivo temporal al lado y se renombra al terminar: un snapshot a medias nunca
+    // queda con el nombre final
+    public SnapshotSummary export(Path file) throws IOException {
+        requireNotSharded();
+        long startNanos = System.nanoTime();
+        Instant createdAt = clock.instant();
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        Map<String, Long> rows = new LinkedHashMap<>();
+        long bytes;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SnapshotWriter writer = new SnapshotWriter(channel, createdAt.toEpochMilli());
+            try {
+                readTransaction.executeWithoutResult(status -> {
+                    for (SnapshotTable table : SnapshotTable.values()) {
+                        rows.put(table.tableName(), exportTable(table, writer));
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            bytes = writer.bytesWritten();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        exportTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        SnapshotSummary summary = new SnapshotSummary(createdAt, rows, bytes, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("Snapshot exportado a {}: {} filas {} en {} bytes, {} ms", file, summary.totalRows(), rows, bytes,
+                summary.millis());
+        return summary;
+    }
+
+    private long exportTable(SnapshotTable table, SnapshotWriter writer) {
+        RowGroup group = new RowGroup(table.columns());
+        long[] rows = new long[1];
+        try {
+            writer.startTable(table);
+            repository.forEachRow(table, rs -> {
+                group.readRow(rs);
+                rows[0]++;
+                if (group.isFull()) {
+                    writeGroup(writer, group);
+                }
+            });
+            if (group.size() > 0) {
+                writeGroup(writer, group);
+            }
+            writer.endTable(rows[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows[0];
+    }
+
+    private static void writeGroup(SnapshotWriter writer, RowGroup group) {
+        try {
+            writer.writeGroup(group);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        group.clear();
+    }
+
+    // --- Verificación ---
+
+    // Lee el archivo completo comprobando el formato y los CRC, sin tocar la base
+    public SnapshotSummary verify(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SnapshotReader reader = new SnapshotReader(channel);
+            Map<String, Long> rows = readTables(reader, (table, group) -> { });
+            return new SnapshotSummary(Instant.ofEpochMilli(reader.createdAtMillis()), rows, channel.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    // --- Importación ---
+
+    public SnapshotSummary importFrom(Path file) throws IOException, SQLException {
+        requireNotSharded();
+        long startNanos = System.nanoTime();
+        SnapshotSummary verified = verify(file);
+        for (SnapshotTable table : SnapshotTable.values()) {
+            if (!repository.isEmpty(table)) {
+                throw new IllegalArgumentException("La tabla " + table.tableName() + " no está vacía: el snapshot"
+                        + " solo se importa en una base migrada y sin datos.");
+            }
+        }
+
+        try (BulkLoadSession session = repository.openBulkLoadSession();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<SnapshotTable> withoutIndexes = new ArrayList<>();
+            try {
+                for (SnapshotTable table : SnapshotTable.values()) {
+                    session.dropSecondaryIndexes(table);
+                    withoutIndexes.add(table);
+                }
+                readTables(new SnapshotReader(channel), (table, group) -> {
+                    session.insert(table, rowsOf(group));
+                    commit(session);
+                });
+            } catch (IOException | RuntimeException e) {
+                discard(session, e);
+                throw e;
+            } finally {
+                for (SnapshotTable table : withoutIndexes) {
+                    session.createSecondaryIndexes(table);
+                }
+            }
+        }
+        catalogVersions.catalogReplaced();
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        importTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        SnapshotSummary summary = new SnapshotSummary(verified.createdAt(), verified.rows(), verified.bytes(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("Snapshot {} del {} importado: {} filas {}, {} ms", file, summary.createdAt(), summary.totalRows(),
+                summary.rows(), summary.millis());
+        return summary;
+    }
+
+    // Vuelve a dejar vacías las tablas (estaban vacías antes de empezar)
+    private static void discard(BulkLoadSession session, Exception cause) {
+        try {
+            session.rollback();
+            List<SnapshotTable> tables = new ArrayList<>(List.of(SnapshotTable.values()));
+            Collections.reverse(tables);
+            for (SnapshotTable table : tables) {
+                session.deleteAll(table);
+            }
+            session.commit();
+        } catch (SQLException | RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void commit(BulkLoadSession session) {
+        try {
+            session.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo confirmar el lote importado.", e);
+        }
+    }
+
+    private static BatchPreparedStatementSetter rowsOf(RowGroup group) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                group.bindRow(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return group.size();
+            }
+        };
+    }
+
+    // --- Comunes ---
+
+    private interface GroupHandler {
+        void accept(SnapshotTable table, RowGroup group);
+    }
+
+    // Recorre todas las tablas del archivo (tienen que ser exactamente las de SnapshotTable, en orden) y
+    // devuelve las filas de cada una
+    private static Map<String, Long> readTables(SnapshotReader reader, GroupHandler handler) throws IOException {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        int expected = 0;
+        SnapshotTable table;
+        while ((table = reader.nextTable()) != null) {
+            if (expected >= SnapshotTable.values().length || table != SnapshotTable.values()[expected]) {
+                throw new IllegalArgumentException("Snapshot inválido: tabla " + table.tableName() + " fuera de orden.");
+            }
+            expected++;
+            long tableRows = 0;
+            RowGroup group = new RowGroup(table.columns());
+            while (reader.nextGroup(group)) {
+                handler.accept(table, group);
+                tableRows += group.size();
+            }
+            rows.put(table.tableName(), tableRows);
+        }
+        if (expected != SnapshotTable.values().length) {
+            throw new IllegalArgumentException("Snapshot inválido: faltan tablas.");
+        }
+        return rows;
+    }
+
+    private void requireNotSharded() {
+        if (shardedStore.isEnabled()) {
+            throw new IllegalArgumentException("Con sharding habilitado el snapshot no incluiría los productos de"
+                    + " los shards; exporte cada base por separado.");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Resultado de exportar, verificar o importar un snapshot: filas por tabla, tamaño del archivo y duración
+public record SnapshotSummary(Instant createdAt, Map<String, Long> rows, long bytes, long millis) {
+
+    public long totalRows() {
+        return rows.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,89 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.tuempresa.gestioninventario.snapshot.SnapshotColumn.Type.*;
+
+// Tablas del snapshot, en el orden en que se escriben y se cargan (primero las referenciadas por FK).
+// Las columnas tienen que coincidir con las del esquema (migraciones de db/migration): un archivo con otras
+// columnas se rechaza al importar.
+//
+// secondaryIndexes son los índices que la importación borra antes de cargar y vuelve a crear al final. No
+// están los que respaldan una FK (idx_products_warehouse, idx_user_roles_user): InnoDB no deja borrarlos.
+// Tampoco los de un UNIQUE (uk_app_users_username, uk_app_users_email), que son restricciones y no índices sueltos.
+public enum SnapshotTable {
+
+    WAREHOUSES("warehouses", "id",
+            List.of(SnapshotColumn.of("id", LONG), SnapshotColumn.of("name", STRING),
+                    SnapshotColumn.of("location_details", STRING)),
+            List.of()),
+    ROLES("roles", "id",
+            List.of(SnapshotColumn.of("id", LONG), SnapshotColumn.of("name", STRING),
+                    SnapshotColumn.of("permission_mask", LONG)),
+            List.of()),
+    APP_USERS("app_users", "id",
+            List.of(SnapshotColumn.of("id", LONG), SnapshotColumn.of("username", STRING),
+                    SnapshotColumn.of("password", STRING), SnapshotColumn.of("email", STRING),
+                    SnapshotColumn.of("enabled", BOOLEAN)),
+            List.of(new SecondaryIndex("idx_app_users_enabled", "enabled"))),
+    USER_ROLES("user_roles", "user_id, role_id",
+            List.of(SnapshotColumn.of("user_id", LONG), SnapshotColumn.of("role_id", LONG)),
+            List.of()),
+    PRODUCTS("products", "id",
+            List.of(SnapshotColumn.of("id", LONG), SnapshotColumn.of("name", STRING),
+                    SnapshotColumn.of("description", STRING), new SnapshotColumn("price", DECIMAL, 2),
+                    SnapshotColumn.of("quantity", INT), SnapshotColumn.of("category", STRING),
+                    SnapshotColumn.of("warehouse_id", LONG)),
+            List.of(new SecondaryIndex("idx_products_name", "name"),
+                    new SecondaryIndex("idx_products_category", "category")));
+
+    public record SecondaryIndex(String name, String columns) {
+    }
+
+    private final String tableName;
+    private final String orderBy;
+    private final List<SnapshotColumn> columns;
+    private final List<SecondaryIndex> secondaryIndexes;
+
+    SnapshotTable(String tableName, String orderBy, List<SnapshotColumn> columns, List<SecondaryIndex> secondaryIndexes) {
+        this.tableName = tableName;
+        this.orderBy = orderBy;
+        this.columns = columns;
+        this.secondaryIndexes = secondaryIndexes;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public List<SnapshotColumn> columns() {
+        return columns;
+    }
+
+    public List<SecondaryIndex> secondaryIndexes() {
+        return secondaryIndexes;
+    }
+
+    public String selectSql() {
+        return "SELECT " + columnList() + " FROM " + tableName + " ORDER BY " + orderBy;
+    }
+
+    public String insertSql() {
+        return "INSERT INTO " + tableName + " (" + columnList() + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    private String columnList() {
+        return String.join(", ", columns.stream().map(SnapshotColumn::name).toList());
+    }
+
+    static SnapshotTable byName(String tableName) {
+        for (SnapshotTable table : values()) {
+            if (table.tableName.equals(tableName)) {
+                return table;
+            }
+        }
+        throw new IllegalArgumentException("Snapshot inválido: tabla desconocida " + tableName + ".");
+    }
+}
@@ -0,0 +1,138 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+import static com.tuempresa.gestioninventario.snapshot.SnapshotFormat.*;
+
+// Escribe un snapshot (formato en SnapshotFormat) en orden, de a un grupo de filas, por un buffer directo
+// de 1 MB: el canal solo recibe escrituras secuenciales grandes. No cierra el canal.
+final class SnapshotWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // Deflate solo si el bloque queda en menos del 90%: las columnas de IDs ya van en un byte por fila
+    private static final double MIN_DEFLATE_RATIO = 0.9;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32C fileCrc = new CRC32C();
+    private final CRC32C blockCrc = new CRC32C();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final RowGroup.ByteSink encoded = new RowGroup.ByteSink();
+    private byte[] compressed = new byte[64 * 1024];
+    private long bytesWritten;
+
+    SnapshotWriter(FileChannel channel, long createdAtMillis) throws IOException {
+        this.channel = channel;
+        writeBytes(MAGIC, 0, MAGIC.length);
+        buffer().putInt(VERSION);
+        buffer().putLong(createdAtMillis);
+    }
+
+    void startTable(SnapshotTable table) throws IOException {
+        buffer().put(TABLE);
+        writeName(table.tableName());
+        buffer().put((byte) table.columns().size());
+        for (SnapshotColumn column : table.columns()) {
+            writeName(column.name());
+            buffer().put((byte) column.type().ordinal());
+            buffer().put((byte) column.scale());
+        }
+    }
+
+    void writeGroup(RowGroup group) throws IOException {
+        buffer().put(GROUP);
+        buffer().putInt(group.size());
+        for (int c = 0; c < group.columns().size(); c++) {
+            group.encode(c, encoded);
+            writeBlock(encoded.data(), encoded.size());
+        }
+    }
+
+    void endTable(long rows) throws IOException {
+        buffer().put(TABLE_END);
+        buffer().putLong(rows);
+    }
+
+    // Cierra el archivo con el CRC de todo lo anterior y lo baja a disco
+    void finish() throws IOException {
+        buffer().put(FILE_END);
+        flush();
+        ByteBuffer checksum = ByteBuffer.allocate(4).putInt((int) fileCrc.getValue()).flip();
+        while (checksum.hasRemaining()) {
+            bytesWritten += channel.write(checksum);
+        }
+        channel.force(true);
+        deflater.end();
+    }
+
+    long bytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    private void writeBlock(byte[] data, int length) throws IOException {
+        byte encoding = PLAIN;
+        byte[] stored = data;
+        int storedLength = length;
+        if (length > 64) {
+            if (compressed.length < length) {
+                compressed = new byte[Math.max(length, compressed.length * 2)];
+            }
+            deflater.reset();
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            int deflated = deflater.deflate(compressed, 0, (int) (length * MIN_DEFLATE_RATIO));
+            if (deflater.finished()) {
+                encoding = DEFLATE;
+                stored = compressed;
+                storedLength = deflated;
+            }
+        }
+        blockCrc.reset();
+        blockCrc.update(stored, 0, storedLength);
+        buffer().put(encoding);
+        buffer().putInt(length);
+        buffer().putInt(storedLength);
+        buffer().putInt((int) blockCrc.getValue());
+        writeBytes(stored, 0, storedLength);
+    }
+
+    private void writeName(String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer().putShort((short) bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    // El buffer con lugar para al menos un campo de tamaño fijo (hasta 16 bytes)
+    private ByteBuffer buffer() throws IOException {
+        if (buffer.remaining() < 16) {
+            flush();
+        }
+        return buffer;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        fileCrc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,5 @@
+-- Revocación de tokens para las demás instancias (TokenRevocationList, SecurityChangeFeed): segundos epoch en que
+-- la instancia que hizo el cambio revocó los tokens del usuario. Es su reloj, el mismo que fija el "iat" de los
+-- tokens que emite; así las demás rechazan exactamente los emitidos hasta ese instante y no los posteriores.
+-- Nulo: el cambio no revoca tokens (roles).
+ALTER TABLE security_change ADD COLUMN revoked_at BIGINT;
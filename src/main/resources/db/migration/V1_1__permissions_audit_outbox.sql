@@ -0,0 +1,37 @@
+-- Permisos por rol, auditoría y outbox de productos: se agregaron a las entidades cuando el esquema todavía lo
+-- creaba ddl-auto=update. Una base marcada en la versión 1 puede tener todo, parte o nada de esto según
+-- la versión con la que se creó, así que cada sentencia es idempotente.
+
+ALTER TABLE roles ADD COLUMN IF NOT EXISTS permission_mask BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS audit_log (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    occurred_at DATETIME(6)  NOT NULL,
+    actor       VARCHAR(100) NOT NULL,
+    action      VARCHAR(40)  NOT NULL,
+    entity_type VARCHAR(20)  NOT NULL,
+    entity_id   BIGINT,
+    amount      BIGINT,
+    detail      VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_entity ON audit_log (entity_type, entity_id);
+CREATE INDEX IF NOT EXISTS idx_audit_log_occurred_at ON audit_log (occurred_at);
+
+CREATE TABLE IF NOT EXISTS product_outbox (
+    id           BIGINT         NOT NULL AUTO_INCREMENT,
+    occurred_at  DATETIME(6)    NOT NULL,
+    change_type  VARCHAR(10)    NOT NULL,
+    product_id   BIGINT         NOT NULL,
+    warehouse_id BIGINT,
+    category     VARCHAR(255),
+    quantity     INTEGER,
+    price        DECIMAL(10, 2),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX IF NOT EXISTS idx_product_outbox_occurred_at ON product_outbox (occurred_at);
+
+-- Bases creadas por ddl-auto=update: Hibernate 6 generaba un ENUM nativo para change_type
+ALTER TABLE product_outbox MODIFY change_type VARCHAR(10) NOT NULL;
@@ -0,0 +1,50 @@
+-- Esquema base: el que generaba spring.jpa.hibernate.ddl-auto=update antes de las migraciones, con las
+-- entidades originales (almacenes, productos, roles y usuarios).
+-- Las bases ya creadas por Hibernate no ejecutan este script: Flyway las marca en la versión 1
+-- (spring.flyway.baseline-on-migrate) y aplica solo las migraciones siguientes. Lo que se agregó a las
+-- entidades después (permisos, auditoría, outbox) está en V1_1, que también sirve a esas bases.
+
+CREATE TABLE warehouses (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    name             VARCHAR(255) NOT NULL,
+    location_details VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_warehouses_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE products (
+    id           BIGINT         NOT NULL AUTO_INCREMENT,
+    name         VARCHAR(255)   NOT NULL,
+    description  VARCHAR(255),
+    price        DECIMAL(10, 2) NOT NULL,
+    quantity     INTEGER        NOT NULL,
+    category     VARCHAR(255),
+    warehouse_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_products_warehouse FOREIGN KEY (warehouse_id) REFERENCES warehouses (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE roles (
+    id   BIGINT       NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE app_users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    email    VARCHAR(255),
+    enabled  BIT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_app_users_username UNIQUE (username)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES app_users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+) ENGINE = InnoDB;
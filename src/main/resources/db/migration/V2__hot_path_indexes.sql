@@ -0,0 +1,19 @@
+-- Índices secundarios para las consultas de los repositorios (verificados con EXPLAIN en RepositoryQueryPlanTest).
+-- En InnoDB cada índice secundario guarda también la clave primaria, así que los que terminan en la columna
+-- buscada cubren las consultas que solo devuelven id (existsBy..., findIdsByEnabledFalse).
+
+-- ProductRepository.findByName
+CREATE INDEX idx_products_name ON products (name);
+-- ProductRepository.findByCategory y el catálogo reactivo (WHERE category = ? ORDER BY id)
+CREATE INDEX idx_products_category ON products (category);
+-- findByWarehouse y el catálogo por almacén; reemplaza al índice implícito de la FK (MariaDB lo descarta solo)
+CREATE INDEX idx_products_warehouse ON products (warehouse_id);
+
+-- existsByEmail en cada alta/edición y findExistingEmails en el alta por lotes (el username ya tiene su UNIQUE)
+CREATE INDEX idx_app_users_email ON app_users (email);
+-- findIdsByEnabledFalse al recargar la lista de revocación de tokens: pocos usuarios deshabilitados
+CREATE INDEX idx_app_users_enabled ON app_users (enabled);
+
+-- Roles de un usuario (login y findAll con entity graph): la PK (role_id, user_id) solo sirve en el otro sentido.
+-- Cubre la consulta sin volver a la tabla; reemplaza al índice implícito de la FK a app_users.
+CREATE INDEX idx_user_roles_user ON user_roles (user_id, role_id);
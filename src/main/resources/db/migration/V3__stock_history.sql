@@ -0,0 +1,17 @@
+-- Historia de niveles de stock (StockHistory): una fila por producto, resolución y segmento, con los puntos
+-- comprimidos en data (delta-of-delta + varint, ver SeriesSegment). RAW y HOUR tienen un segmento por día UTC
+-- y DAY uno por año, así que un producto con movimientos todos los días suma unas 30 + 400 + 1 filas vivas
+-- con las retenciones por defecto, en lugar de una fila por movimiento.
+CREATE TABLE stock_history (
+    product_id BIGINT NOT NULL,
+    resolution VARCHAR(4) NOT NULL,
+    segment_start BIGINT NOT NULL,
+    warehouse_id BIGINT,
+    point_count INT NOT NULL,
+    sealed BIT NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    CONSTRAINT pk_stock_history PRIMARY KEY (product_id, resolution, segment_start)
+) ENGINE = InnoDB;
+
+-- Días sin cerrar al arrancar y purga por retención (WHERE sealed = ? AND resolution = ? AND segment_start < ?)
+CREATE INDEX idx_stock_history_sealed ON stock_history (sealed, resolution, segment_start);
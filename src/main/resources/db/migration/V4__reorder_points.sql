@@ -0,0 +1,41 @@
+-- Puntos de reposición sugeridos por ReorderPointJob, uno por producto. En una tabla aparte y no en products:
+-- el job los reescribe todos en cada corrida y así no toca las filas (ni los ETags) del catálogo.
+CREATE TABLE product_reorder (
+    product_id         BIGINT        NOT NULL,
+    run_id             BIGINT        NOT NULL,
+    daily_forecast     DECIMAL(14, 3) NOT NULL,
+    safety_stock       INT           NOT NULL,
+    reorder_point      INT           NOT NULL,
+    suggested_quantity INT           NOT NULL,
+    computed_at        DATETIME(6)   NOT NULL,
+    CONSTRAINT pk_product_reorder PRIMARY KEY (product_id)
+) ENGINE = InnoDB;
+
+-- Al terminar una corrida se borran las sugerencias de productos que ya no existen (run_id anterior)
+CREATE INDEX idx_product_reorder_run ON product_reorder (run_id);
+
+-- Corridas del job: rango de IDs y ventana de demanda fijos, para que una corrida interrumpida se retome igual
+CREATE TABLE reorder_run (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    started_at     DATETIME(6) NOT NULL,
+    finished_at    DATETIME(6),
+    as_of          DATETIME(6) NOT NULL,
+    lookback_days  INT         NOT NULL,
+    min_product_id BIGINT      NOT NULL,
+    max_product_id BIGINT      NOT NULL,
+    chunk_size     INT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_reorder_run_finished ON reorder_run (finished_at);
+
+-- Bloques de IDs ya confirmados de una corrida (se escriben en la misma transacción que sus sugerencias)
+CREATE TABLE reorder_run_chunk (
+    run_id      BIGINT NOT NULL,
+    chunk_start BIGINT NOT NULL,
+    products    INT    NOT NULL,
+    CONSTRAINT pk_reorder_run_chunk PRIMARY KEY (run_id, chunk_start)
+) ENGINE = InnoDB;
+
+-- Salidas de stock por rango de productos y fecha (la demanda que lee el job)
+CREATE INDEX idx_audit_log_movements ON audit_log (entity_type, action, entity_id, occurred_at);
@@ -0,0 +1,28 @@
+-- Leases de los jobs programados (ClusterJobRunner): una fila por job y partición. Una instancia toma la
+-- partición con UPDATE ... WHERE lease_until < ahora y la renueva mientras trabaja; cada toma incrementa
+-- fencing_token, con el que el dueño anterior deja de poder renovar o confirmar trabajo.
+CREATE TABLE job_lease (
+    job_name      VARCHAR(64)  NOT NULL,
+    partition_no  INT          NOT NULL,
+    owner         VARCHAR(128),
+    lease_until   DATETIME(6)  NOT NULL,
+    fencing_token BIGINT       NOT NULL,
+    next_run_at   DATETIME(6)  NOT NULL,
+    CONSTRAINT pk_job_lease PRIMARY KEY (job_name, partition_no)
+) ENGINE = InnoDB;
+
+-- Instancias vivas: cada una actualiza su fila en cada heartbeat y las particiones se reparten entre las
+-- que lo hicieron dentro de la duración del lease
+CREATE TABLE cluster_node (
+    node_id      VARCHAR(128) NOT NULL,
+    started_at   DATETIME(6)  NOT NULL,
+    heartbeat_at DATETIME(6)  NOT NULL,
+    CONSTRAINT pk_cluster_node PRIMARY KEY (node_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_cluster_node_heartbeat ON cluster_node (heartbeat_at);
+
+-- Corrida de ReorderPointJob por horario programado: las particiones de un mismo horario, en distintas
+-- instancias, comparten una sola corrida (NULL en las corridas manuales)
+ALTER TABLE reorder_run ADD COLUMN scheduled_at DATETIME(6);
+CREATE UNIQUE INDEX uq_reorder_run_scheduled ON reorder_run (scheduled_at);
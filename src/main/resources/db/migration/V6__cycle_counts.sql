@@ -0,0 +1,40 @@
+-- Conteos físicos (CycleCountService): un archivo de conteo conciliado contra products, con sus
+-- diferencias para revisar y, una vez aprobado, aplicar.
+CREATE TABLE cycle_count (
+    id                   BIGINT       NOT NULL AUTO_INCREMENT,
+    file_name            VARCHAR(255),
+    status               VARCHAR(12)  NOT NULL,
+    created_at           DATETIME(6)  NOT NULL,
+    created_by           VARCHAR(100) NOT NULL,
+    line_count           BIGINT       NOT NULL DEFAULT 0,
+    product_count        BIGINT       NOT NULL DEFAULT 0,
+    matched              BIGINT       NOT NULL DEFAULT 0,
+    quantity_variances   BIGINT       NOT NULL DEFAULT 0,
+    unknown_products     BIGINT       NOT NULL DEFAULT 0,
+    warehouse_mismatches BIGINT       NOT NULL DEFAULT 0,
+    net_variance         BIGINT       NOT NULL DEFAULT 0,
+    absolute_variance    BIGINT       NOT NULL DEFAULT 0,
+    lines_per_second     BIGINT       NOT NULL DEFAULT 0,
+    approved_by          VARCHAR(100),
+    approved_at          DATETIME(6),
+    applied_at           DATETIME(6),
+    applied              BIGINT       NOT NULL DEFAULT 0,
+    stale                BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Solo las líneas con diferencia: cantidad distinta (QUANTITY, se aplica al aprobar), producto inexistente
+-- o producto de otro almacén (se informan y no se aplican)
+CREATE TABLE cycle_count_line (
+    count_id        BIGINT      NOT NULL,
+    product_id      BIGINT      NOT NULL,
+    warehouse_id    BIGINT      NOT NULL,
+    kind            VARCHAR(20) NOT NULL,
+    system_quantity INT,
+    counted         INT         NOT NULL,
+    status          VARCHAR(10) NOT NULL,
+    CONSTRAINT pk_cycle_count_line PRIMARY KEY (count_id, product_id, warehouse_id)
+) ENGINE = InnoDB;
+
+-- Aplicación por lotes de las diferencias pendientes, en orden de producto
+CREATE INDEX idx_cycle_count_line_status ON cycle_count_line (count_id, status, product_id);
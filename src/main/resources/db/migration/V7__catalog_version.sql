@@ -0,0 +1,10 @@
+-- Versiones compartidas del catálogo (CatalogVersions): cada instancia las lee periódicamente y, si cambiaron,
+-- invalida sus ETag. Las incrementan las escrituras que no pasan por product_outbox: altas, cambios y bajas
+-- de almacenes (que cambian el almacén embebido de cada producto) y la importación de un snapshot.
+CREATE TABLE catalog_version (
+    resource VARCHAR(32) NOT NULL,
+    version  BIGINT      NOT NULL,
+    CONSTRAINT pk_catalog_version PRIMARY KEY (resource)
+) ENGINE = InnoDB;
+
+INSERT INTO catalog_version (resource, version) VALUES ('products', 0), ('warehouses', 0);
@@ -0,0 +1,11 @@
+-- Cambios de roles y de usuarios para las demás instancias (SecurityChangeFeed): cada una guarda en memoria
+-- las máscaras de permisos (PermissionRegistry) y las relee cuando aparece una fila nueva. user_id nulo: cambió
+-- un rol. occurred_at es la hora de la base, así las instancias comparan contra el mismo reloj.
+CREATE TABLE security_change (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    occurred_at DATETIME(6) NOT NULL,
+    user_id     BIGINT,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_security_change_occurred_at ON security_change (occurred_at);
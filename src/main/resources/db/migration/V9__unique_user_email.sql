@@ -0,0 +1,14 @@
+-- El email pasa a ser único como el username. UserUniquenessFilter solo conoce las altas de su instancia y
+-- el existsByEmail previo no cubre dos altas simultáneas: la base es la única que puede garantizarlo.
+-- UserService y UserBatchService traducen la violación a un error de validación.
+
+-- Los duplicados anteriores conservan el email en el usuario más antiguo; a los demás se les quita
+-- (el email es opcional). La tabla derivada evita leer y actualizar app_users en la misma sentencia.
+UPDATE app_users SET email = NULL
+WHERE id IN (SELECT id FROM (SELECT newer.id
+                             FROM app_users newer
+                             JOIN app_users older ON older.email = newer.email AND older.id < newer.id) duplicated);
+
+-- El índice del UNIQUE reemplaza a idx_app_users_email para existsByEmail y findExistingEmails
+ALTER TABLE app_users ADD CONSTRAINT uk_app_users_email UNIQUE (email);
+DROP INDEX idx_app_users_email ON app_users;
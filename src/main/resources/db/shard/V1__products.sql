@@ -0,0 +1,20 @@
+-- Esquema de cada shard de productos (ShardedProductStore lo migra al arrancar, con placeholders por shard).
+-- Sin FK a warehouses: los almacenes viven en la base principal. warehouse_id es la clave de partición.
+
+CREATE TABLE products (
+    id           BIGINT         NOT NULL,
+    name         VARCHAR(255)   NOT NULL,
+    description  VARCHAR(255),
+    price        DECIMAL(10, 2) NOT NULL,
+    quantity     INTEGER        NOT NULL,
+    category     VARCHAR(255),
+    warehouse_id BIGINT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_products_name ON products (name);
+CREATE INDEX idx_products_category ON products (category);
+CREATE INDEX idx_products_warehouse ON products (warehouse_id);
+
+-- IDs globales: este shard entrega ordinal, ordinal + stride, ordinal + 2 * stride... (ver ShardMap)
+CREATE SEQUENCE product_id_seq START WITH ${shard_ordinal} INCREMENT BY ${id_stride};
@@ -0,0 +1,378 @@
+package com.tuempresa.gestioninventario;
+
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent;
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.tuempresa.gestioninventario.security.Permission;
+import com.tuempresa.gestioninventario.security.PermissionRegistry;
+import com.tuempresa.gestioninventario.security.TokenService;
+import com.tuempresa.gestioninventario.service.ProductService;
+import com.tuempresa.gestioninventario.service.UserService;
+import com.tuempresa.gestioninventario.service.UserUniquenessFilter;
+import com.tuempresa.gestioninventario.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Presupuestos de sentencias SQL para los flujos principales, contra H2 en modo MariaDB.
+// Si un cambio introduce un N+1 (p. ej. quitar un entity graph), el conteo sube y el test falla.
+// Se cuenta en la capa JDBC: entran también el outbox, la auditoría y los inserts por lotes. Los procesos
+// que consultan la base por su cuenta (relay del outbox, jobs en cluster, historia, versiones del catálogo,
+// cambios de seguridad) se apagan para que el conteo sea solo el del flujo; la auditoría se vacía dentro
+// de cada flujo que escribe.
+@SpringBootTest(properties = {
+        "inventario.stock-events.enabled=false",
+        "inventario.cluster.enabled=false",
+        "inventario.history.enabled=false",
+        "inventario.catalog-versions.poll-interval=0",
+        "inventario.security.changes.poll-interval=0"})
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class SqlStatementBudgetTest {
+
+    private static final int USERS = 500;
+    private static final int WAREHOUSES = 10;
+    private static final int PRODUCTS_PER_WAREHOUSE = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+    @Autowired
+    private UserUniquenessFilter uniquenessFilter;
+    @Autowired
+    private AuditTrail auditTrail;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        // En una transacción: User.roles tiene cascade PERSIST y los roles deben estar gestionados
+        transactionTemplate.executeWithoutResult(status -> {
+            Role admin = new Role("ROLE_ADMIN");
+            admin.setPermissions(EnumSet.allOf(Permission.class));
+            admin = roleRepository.save(admin);
+            Role employee = new Role("ROLE_EMPLEADO_ALMACEN");
+            employee.setPermissions(EnumSet.of(Permission.PRODUCT_READ, Permission.STOCK_MOVE));
+            employee = roleRepository.save(employee);
+            List<User> users = new ArrayList<>();
+            for (int i = 1; i <= USERS; i++) {
+                users.add(new User(null, "usuario" + i, "password" + i, "usuario" + i + "@example.com", true,
+                        i % 2 == 0 ? Set.of(admin, employee) : Set.of(employee)));
+            }
+            userRepository.saveAll(users);
+        });
+        // Los roles y usuarios se sembraron por el repositorio, sin pasar por RoleService/UserService
+        permissionRegistry.reload();
+        uniquenessFilter.rebuild();
+
+        List<Product> products = new ArrayList<>();
+        for (int w = 1; w <= WAREHOUSES; w++) {
+            Warehouse warehouse = warehouseRepository.save(new Warehouse(null, "Almacén " + w, "Calle " + w, null));
+            for (int p = 1; p <= PRODUCTS_PER_WAREHOUSE; p++) {
+                products.add(new Product("Producto " + w + "-" + p, "Descripción", new BigDecimal("10.00"), 100,
+                        p % 2 == 0 ? "Periféricos" : "Electrónicos", warehouse));
+            }
+        }
+        productId = productRepository.saveAll(products).get(0).getId();
+        SqlStatementCounter.attach(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementCounter.detach(dataSource);
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+    }
+
+    @Test
+    void getAllUsers_endpoint_shouldUseOneStatementForAllUsersAndRoles() throws Throwable {
+        SqlStatementCounter.assertStatements(1, () -> mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS)));
+    }
+
+    @Test
+    void getAllUsers_service_shouldUseOneStatement() throws Throwable {
+        List<User> users = SqlStatementCounter.assertStatements(1, () -> userService.getAllUsers());
+        assertEquals(USERS, users.size());
+    }
+
+    @Test
+    void getUserById_endpoint_shouldUseOneStatement() throws Throwable {
+        Long userId = userRepository.findByUsername("usuario2").orElseThrow().getId();
+        SqlStatementCounter.assertStatements(1, () -> mockMvc.perform(get("/api/users/" + userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles.length()").value(2)));
+    }
+
+    @Test
+    void getAllProducts_endpoint_shouldUseOneStatementIncludingWarehouses() throws Throwable {
+        SqlStatementCounter.assertStatements(1, () -> mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(WAREHOUSES * PRODUCTS_PER_WAREHOUSE))
+                .andExpect(jsonPath("$[0].warehouse.name").exists()));
+    }
+
+    @Test
+    void getProductById_endpoint_shouldUseOneStatement() throws Throwable {
+        SqlStatementCounter.assertStatements(1, () -> mockMvc.perform(get("/api/products/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.warehouse.name").exists()));
+    }
+
+    @Test
+    void getProductsByCategory_service_shouldUseOneStatement() throws Throwable {
+        List<Product> products = SqlStatementCounter.assertStatements(1, () -> {
+            List<Product> found = productRepository.findByCategory("Periféricos");
+            found.forEach(product -> product.getWarehouse().getName()); // Como al serializar
+            return found;
+        });
+        assertEquals(WAREHOUSES * PRODUCTS_PER_WAREHOUSE / 2, products.size());
+    }
+
+    @Test
+    void getAllWarehouses_endpoint_shouldUseOneStatement() throws Throwable {
+        SqlStatementCounter.assertStatements(1, () -> mockMvc.perform(get("/api/warehouses"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(WAREHOUSES)));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void getProductById_withBearerToken_shouldNotLookUpTheUser() throws Throwable {
+        String token = tokenService.issue(1L, "usuario1", List.of("ROLE_EMPLEADO_ALMACEN")).token();
+        SqlStatementCounter.assertStatements(1, () -> mockMvc.perform(get("/api/products/" + productId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void getProductById_withTamperedBearerToken_shouldAnswer401WithoutStatements() throws Throwable {
+        String token = tokenService.issue(1L, "usuario1", List.of("ROLE_EMPLEADO_ALMACEN")).token();
+        SqlStatementCounter.assertStatements(0, () -> mockMvc.perform(get("/api/products/" + productId)
+                        .header("Authorization", "Bearer " + token + "x"))
+                .andExpect(status().isUnauthorized()));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void deleteProduct_withoutPermission_shouldAnswer403WithoutStatements() throws Throwable {
+        Long employeeId = userRepository.findByUsername("usuario1").orElseThrow().getId();
+        String token = tokenService.issue(employeeId, "usuario1", List.of("ROLE_EMPLEADO_ALMACEN")).token();
+        SqlStatementCounter.assertStatements(0, () -> mockMvc.perform(delete("/api/products/" + productId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden()));
+    }
+
+    @Test
+    void getAllProducts_withMatchingETag_shouldAnswer304WithoutStatements() throws Throwable {
+        String eTag = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(eTag);
+
+        SqlStatementCounter.assertStatements(0, () -> mockMvc.perform(get("/api/products").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag)));
+    }
+
+    @Test
+    void getProductById_afterStockMovement_shouldChangeETag() throws Throwable {
+        String eTag = mockMvc.perform(get("/api/products/" + productId))
+                .andReturn().getResponse().getHeader("ETag");
+
+        productService.recordEntry(productId, 1);
+
+        mockMvc.perform(get("/api/products/" + productId).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(101));
+    }
+
+    @Test
+    void getAllWarehouses_withMatchingETag_shouldAnswer304WithoutStatements() throws Throwable {
+        String eTag = mockMvc.perform(get("/api/warehouses"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        SqlStatementCounter.assertStatements(0, () -> mockMvc.perform(get("/api/warehouses").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified()));
+    }
+
+    // SELECT, INSERT en el outbox, UPDATE y, después del commit, el INSERT de auditoría
+    @Test
+    void recordEntry_endpoint_shouldUseSelectOutboxUpdateAndAudit() throws Throwable {
+        SqlStatementCounter.assertStatements(4, withAudit(() -> mockMvc.perform(
+                        patch("/api/products/" + productId + "/entry").param("quantity", "5").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(105))));
+    }
+
+    @Test
+    void recordExit_service_shouldUseSelectOutboxUpdateAndAudit() throws Throwable {
+        SqlStatementCounter.assertStatements(4, withAudit(() -> productService.recordExit(productId, 5)));
+    }
+
+    // El evento del outbox va por JDBC en la misma transacción: un rollback lo deshace
+    @Test
+    void recordEntry_service_shouldAppendToTheOutboxInTheSameTransaction() throws Throwable {
+        long before = outboxRepository.maxId();
+        SqlStatementCounter.assertStatements(4, withAudit(() -> productService.recordEntry(productId, 3)));
+
+        List<StockChangeEvent> events = outboxRepository.findAfter(before, 10);
+        assertEquals(1, events.size());
+        assertEquals(ProductOutboxEvent.ChangeType.UPDATED, events.get(0).type());
+        assertEquals(productId, events.get(0).productId());
+        assertEquals(103, events.get(0).quantity());
+
+        long committed = outboxRepository.maxId();
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.recordEntry(productId, 3);
+            status.setRollbackOnly();
+        });
+        assertEquals(committed, outboxRepository.maxId());
+    }
+
+    @Test
+    void streamStockChanges_endpoint_shouldOpenAnEventStream() throws Throwable {
+        mockMvc.perform(get("/api/products/stream").param("category", "Periféricos")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    // La auditoría se escribe por JDBC desde su propio hilo, después del commit
+    @Test
+    void recordExit_endpoint_shouldBeAuditedAfterCommit() throws Throwable {
+        SqlStatementCounter.assertStatements(4, withAudit(() -> mockMvc.perform(
+                        patch("/api/products/" + productId + "/exit").param("quantity", "7").with(csrf()))
+                .andExpect(status().isOk())));
+
+        List<Long> amounts = jdbcTemplate.queryForList(
+                "SELECT amount FROM audit_log WHERE action = 'STOCK_EXIT' AND entity_type = 'product'"
+                        + " AND entity_id = ? AND actor = 'user'", Long.class, productId);
+        assertEquals(List.of(7L), amounts);
+    }
+
+    // Unicidad y roles con una consulta por campo para todo el lote. Los emails nuevos los descarta el
+    // filtro de unicidad (no hay consulta de emails) y "usuario1" sí llega a la base. Después, un lote de
+    // INSERT de usuarios, una consulta de sus IDs, un lote de INSERT de roles y un INSERT de auditoría.
+    @Test
+    void createUsersBatch_endpoint_shouldUseOneQueryPerCheckRegardlessOfBatchSize() throws Throwable {
+        Long roleId = roleRepository.findAll().get(0).getId();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 1; i <= 20; i++) {
+            body.append(i > 1 ? "," : "")
+                    .append("{\"username\":\"lote").append(i).append("\",\"password\":\"secreto").append(i)
+                    .append("\",\"email\":\"lote").append(i).append("@example.com\",\"roleIds\":[").append(roleId).append("]}");
+        }
+        // Una fila repetida contra la base: se informa sin frenar al resto
+        body.append(",{\"username\":\"usuario1\",\"password\":\"secreto\"}]");
+
+        SqlStatementCounter.assertStatements(6, withAudit(() -> mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(20))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.rows[20].error").value("El nombre de usuario ya está en uso: usuario1"))));
+
+        User created = userRepository.findByUsername("lote7").orElseThrow();
+        assertEquals(1, created.getRoles().size());
+        assertTrue(created.getPassword().startsWith("{bcrypt}"));
+    }
+
+    // Username y email nuevos: el filtro los descarta y el alta no consulta existsBy... antes del INSERT
+    // (solo el INSERT del usuario y el de auditoría)
+    @Test
+    void createUser_service_shouldSkipUniquenessQueriesForNewValues() throws Throwable {
+        User user = new User(null, "nuevo.usuario", "secreto123", "nuevo@example.com", true, null);
+        SqlStatementCounter.assertStatements(2, withAudit(() -> transactionTemplate.execute(status -> userService.createUser(user, null))));
+    }
+
+    // Un cliente que agota su presupuesto recibe 429 sin que la request llegue a la base
+    @Test
+    @WithMockUser(username = "integracion", roles = "ADMIN")
+    void createUsersBatch_overBudget_shouldAnswer429WithoutStatements() throws Throwable {
+        String body = "[{\"username\":\"x\",\"password\":\"123\"}]";
+        for (int i = 0; i < 2; i++) { // ráfaga de user-batch: 2
+            mockMvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk());
+        }
+        SqlStatementCounter.assertStatements(0, () -> mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After")));
+    }
+
+    // La auditoría la escribe su hilo después del commit: se espera a que termine para contarla en el flujo
+    private <T> ThrowingSupplier<T> withAudit(ThrowingSupplier<T> action) {
+        return () -> {
+            T result = action.get();
+            auditTrail.flush();
+            return result;
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.tuempresa.gestioninventario.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    @Test
+    void constructor_shouldRoundTheCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new AuditRingBuffer(5).capacity());
+        assertEquals(8, new AuditRingBuffer(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(1));
+    }
+
+    @Test
+    void drain_shouldReturnEventsInPublicationOrder() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        assertTrue(buffer.tryPublish(10L, "ana", AuditAction.STOCK_EXIT, 7L, 3L, null));
+        assertTrue(buffer.tryPublish(11L, "beto", AuditAction.PRODUCT_DELETED, 8L, 0L, "detalle"));
+
+        List<AuditEvent> events = buffer.drain(10);
+
+        assertEquals(List.of(
+                new AuditEvent(10L, "ana", AuditAction.STOCK_EXIT, 7L, 3L, null),
+                new AuditEvent(11L, "beto", AuditAction.PRODUCT_DELETED, 8L, 0L, "detalle")), events);
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.drain(10).isEmpty());
+    }
+
+    @Test
+    void tryPublish_shouldRejectWhenFullAndAcceptAgainAfterDraining() {
+        AuditRingBuffer buffer = new AuditRingBuffer(2);
+        assertTrue(buffer.tryPublish(1L, "ana", AuditAction.STOCK_ENTRY, 1L, 1L, null));
+        assertTrue(buffer.tryPublish(2L, "ana", AuditAction.STOCK_ENTRY, 2L, 1L, null));
+        assertFalse(buffer.tryPublish(3L, "ana", AuditAction.STOCK_ENTRY, 3L, 1L, null));
+
+        assertEquals(1, buffer.drain(1).size());
+        // El casillero liberado se reutiliza (vuelta completa del anillo)
+        assertTrue(buffer.tryPublish(3L, "ana", AuditAction.STOCK_ENTRY, 3L, 1L, null));
+        List<AuditEvent> events = buffer.drain(10);
+        assertEquals(List.of(2L, 3L), events.stream().map(AuditEvent::entityId).toList());
+    }
+
+    @Test
+    void tryPublish_shouldNotLoseEventsWithConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 10_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.tryPublish(0L, "ana", AuditAction.STOCK_EXIT, base + i, 1L, null)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        List<AuditEvent> received = new ArrayList<>();
+        while (received.size() < producers * perProducer) {
+            received.addAll(buffer.drain(256));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(producers * perProducer, received.stream().mapToLong(AuditEvent::entityId).distinct().count());
+    }
+}
@@ -0,0 +1,210 @@
+package com.tuempresa.gestioninventario.audit;
+
+import com.tuempresa.gestioninventario.repository.AuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditTrailTest {
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry registry;
+    private final List<AuditTrail> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(AuditTrail::stop);
+    }
+
+    private AuditTrail auditTrail(int bufferSize, OverflowPolicy policy) {
+        registry = new SimpleMeterRegistry();
+        return new AuditTrail(auditLogRepository, registry, true, bufferSize, 16, Duration.ofMillis(1),
+                policy, Duration.ofMillis(10), tempDir.resolve("audit-spill.bin"), Duration.ofMillis(20));
+    }
+
+    private AuditTrail start(AuditTrail auditTrail) {
+        auditTrail.start();
+        started.add(auditTrail);
+        return auditTrail;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Tiempo de espera agotado");
+            Thread.sleep(5);
+        }
+    }
+
+    private double events(String outcome) {
+        return registry.get(AuditTrail.EVENTS).tag("outcome", outcome).counter().count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AuditEvent> writtenEvents() {
+        ArgumentCaptor<List<AuditEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(auditLogRepository, atLeastOnce()).insertAll(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    void record_shouldWriteTheEventInTheBackgroundWithTheSystemActor() {
+        AuditTrail auditTrail = start(auditTrail(8, OverflowPolicy.SPILL));
+
+        auditTrail.record(AuditAction.STOCK_EXIT, 7L, 3L, null);
+        auditTrail.flush();
+
+        List<AuditEvent> written = writtenEvents();
+        assertEquals(1, written.size());
+        assertEquals(AuditAction.STOCK_EXIT, written.get(0).action());
+        assertEquals(7L, written.get(0).entityId());
+        assertEquals(3L, written.get(0).amount());
+        assertEquals(AuditTrail.SYSTEM_ACTOR, written.get(0).actor());
+        assertEquals(1, events("written"));
+    }
+
+    @Test
+    void record_shouldPublishOnlyAfterTheTransactionCommits() {
+        AuditTrail auditTrail = start(auditTrail(8, OverflowPolicy.SPILL));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            auditTrail.record(AuditAction.PRODUCT_DELETED, 5L);
+            auditTrail.flush();
+            verifyNoInteractions(auditLogRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        auditTrail.flush();
+
+        assertEquals(AuditAction.PRODUCT_DELETED, writtenEvents().get(0).action());
+    }
+
+    @Test
+    void write_shouldSpillTheBatchWhenTheDatabaseFailsAndReplayItOnTheNextStart() throws Exception {
+        doThrow(new DataAccessResourceFailureException("sin conexión")).when(auditLogRepository).insertAll(anyList());
+        AuditTrail failing = start(auditTrail(8, OverflowPolicy.SPILL));
+        failing.record(AuditAction.USER_DELETED, 9L);
+        failing.record(AuditAction.ROLE_CREATED, 2L, 0L, "ROLE_AUDITOR");
+        failing.flush();
+        failing.stop();
+        assertEquals(2, events("spilled"));
+
+        reset(auditLogRepository);
+        AuditTrail restarted = start(auditTrail(8, OverflowPolicy.SPILL));
+
+        List<AuditEvent> replayed = writtenEvents();
+        assertEquals(List.of(AuditAction.USER_DELETED, AuditAction.ROLE_CREATED),
+                replayed.stream().map(AuditEvent::action).toList());
+        assertEquals("ROLE_AUDITOR", replayed.get(1).detail());
+        // El archivo se consume al reenviarlo
+        assertTrue(new AuditSpillFile(tempDir.resolve("audit-spill.bin")).readAll().isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("audit-spill.bin.replaying")));
+        assertTrue(restarted.isRunning());
+    }
+
+    @Test
+    void consumer_shouldReplayTheSpillFileOnceTheDatabaseRecovers() throws Exception {
+        doThrow(new DataAccessResourceFailureException("sin conexión")).when(auditLogRepository).insertAll(anyList());
+        AuditTrail auditTrail = start(auditTrail(8, OverflowPolicy.SPILL));
+        auditTrail.record(AuditAction.USER_DELETED, 9L);
+        auditTrail.record(AuditAction.ROLE_CREATED, 2L, 0L, "ROLE_AUDITOR");
+        auditTrail.flush();
+        assertEquals(2, events("spilled"));
+
+        // Sin reiniciar: el consumidor ocioso reintenta cada replay-interval
+        reset(auditLogRepository);
+        await(() -> !Files.exists(tempDir.resolve("audit-spill.bin.replaying"))
+                && !Files.exists(tempDir.resolve("audit-spill.bin")));
+
+        assertEquals(List.of(AuditAction.USER_DELETED, AuditAction.ROLE_CREATED),
+                writtenEvents().stream().map(AuditEvent::action).toList());
+        assertEquals(2, events("written"));
+    }
+
+    @Test
+    void replaySpillFile_whenABatchFails_shouldKeepOnlyTheEventsNotInserted() throws Exception {
+        AuditSpillFile spillFile = new AuditSpillFile(tempDir.resolve("audit-spill.bin"));
+        List<AuditEvent> spilled = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            spilled.add(new AuditEvent(0L, "admin", AuditAction.STOCK_ENTRY, id, 1L, null));
+        }
+        spillFile.append(spilled);
+        // Primer lote (16) escrito, el segundo falla
+        doNothing().doThrow(new DataAccessResourceFailureException("sin conexión"))
+                .when(auditLogRepository).insertAll(anyList());
+
+        assertFalse(auditTrail(8, OverflowPolicy.SPILL).replaySpillFile());
+
+        // El archivo tomado no se borra: queda con los 4 que faltan para el próximo intento
+        List<AuditEvent> remaining = new AuditSpillFile(tempDir.resolve("audit-spill.bin.replaying")).readAll();
+        assertEquals(List.of(17L, 18L, 19L, 20L), remaining.stream().map(AuditEvent::entityId).toList());
+        assertTrue(spillFile.readAll().isEmpty());
+    }
+
+    @Test
+    void publish_shouldDropWhenTheBufferIsFullAndThePolicyIsDrop() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(auditLogRepository).insertAll(anyList());
+        AuditTrail auditTrail = start(auditTrail(2, OverflowPolicy.DROP));
+
+        // El primer evento deja al consumidor bloqueado en la base; los dos siguientes llenan el buffer
+        auditTrail.record(AuditAction.STOCK_ENTRY, 1L, 1L, null);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        auditTrail.record(AuditAction.STOCK_ENTRY, 2L, 1L, null);
+        auditTrail.record(AuditAction.STOCK_ENTRY, 3L, 1L, null);
+        auditTrail.record(AuditAction.STOCK_ENTRY, 4L, 1L, null);
+        release.countDown();
+        auditTrail.flush();
+
+        assertEquals(1, events("dropped"));
+        assertEquals(3, events("published"));
+        assertEquals(List.of(1L, 2L, 3L), writtenEvents().stream().map(AuditEvent::entityId).toList());
+    }
+
+    @Test
+    void publish_shouldSpillWhileTheConsumerIsNotRunning() throws Exception {
+        AuditTrail auditTrail = auditTrail(8, OverflowPolicy.SPILL);
+
+        auditTrail.record(AuditAction.WAREHOUSE_CREATED, 4L, 0L, "Central");
+
+        verifyNoInteractions(auditLogRepository);
+        List<AuditEvent> spilled = new AuditSpillFile(tempDir.resolve("audit-spill.bin")).readAll();
+        assertEquals(1, spilled.size());
+        assertEquals("Central", spilled.get(0).detail());
+    }
+}
@@ -0,0 +1,106 @@
+package com.tuempresa.gestioninventario.benchmark;
+
+import com.tuempresa.gestioninventario.GestioninventarioApplication;
+import com.tuempresa.gestioninventario.repository.ReactiveCatalogRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Benchmark de concurrencia del catálogo: compara el listado bloqueante (/api/products, JPA + Hikari)
+// con el stream reactivo (/api/catalog/products, R2DBC) para distintos niveles de requests en vuelo.
+// Para cada nivel reporta el pico de hilos vivos de la JVM y de conexiones en uso de cada pool.
+//
+// No es un test JUnit (no lo ejecuta surefire). Requiere la base MariaDB de application.properties:
+//   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=com.tuempresa.gestioninventario.benchmark.CatalogFanInBenchmark \
+//       -Dexec.args="50 200 800"
+public class CatalogFanInBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = args.length == 0 ? new int[] {50, 200, 800} : parseLevels(args);
+
+        ConfigurableApplicationContext context = SpringApplication.run(
+                GestioninventarioApplication.class, "--server.port=0", "--spring.jpa.show-sql=false");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            // El DataSource está envuelto por el proxy de métricas JDBC
+            HikariDataSource hikari = context.getBean(DataSource.class).unwrap(HikariDataSource.class);
+            ReactiveCatalogRepository catalogRepository = context.getBean(ReactiveCatalogRepository.class);
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(4))
+                    .build();
+
+            System.out.printf("%-26s %10s %10s %12s %12s %10s%n",
+                    "endpoint", "in-flight", "threads", "jdbc-conns", "r2dbc-conns", "ms");
+            for (int inFlight : levels) {
+                run(client, port, "/api/products", "application/json", inFlight,
+                        () -> hikari.getHikariPoolMXBean().getActiveConnections(),
+                        () -> catalogRepository.getPoolMetrics().map(m -> m.acquiredSize()).orElse(0));
+                run(client, port, "/api/catalog/products", "application/x-ndjson", inFlight,
+                        () -> hikari.getHikariPoolMXBean().getActiveConnections(),
+                        () -> catalogRepository.getPoolMetrics().map(m -> m.acquiredSize()).orElse(0));
+            }
+        } finally {
+            context.close();
+            System.exit(0);
+        }
+    }
+
+    private static void run(HttpClient client, int port, String path, String accept, int inFlight,
+                            IntProbe jdbcConnections, IntProbe r2dbcConnections) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        AtomicInteger peakJdbc = new AtomicInteger();
+        AtomicInteger peakR2dbc = new AtomicInteger();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakJdbc.accumulateAndGet(jdbcConnections.read(), Math::max);
+            peakR2dbc.accumulateAndGet(r2dbcConnections.read(), Math::max);
+        }, 0, 5, TimeUnit.MILLISECONDS);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .build();
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        sampler.shutdownNow();
+
+        System.out.printf("%-26s %10d %10d %12d %12d %10d%n",
+                path, inFlight, threads.getPeakThreadCount(), peakJdbc.get(), peakR2dbc.get(), elapsedMs);
+    }
+
+    private static int[] parseLevels(String[] args) {
+        int[] levels = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            levels[i] = Integer.parseInt(args[i]);
+        }
+        return levels;
+    }
+
+    @FunctionalInterface
+    private interface IntProbe {
+        int read();
+    }
+}
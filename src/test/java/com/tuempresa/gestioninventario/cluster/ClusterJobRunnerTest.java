@@ -0,0 +1,325 @@
+package com.tuempresa.gestioninventario.cluster;
+
+import com.tuempresa.gestioninventario.reorder.ReorderPointJob;
+import com.tuempresa.gestioninventario.repository.JobLeaseRepository;
+import com.tuempresa.gestioninventario.repository.ReorderRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Varias instancias en la misma JVM contra una H2 (modo MariaDB) con las migraciones de producción.
+// Cada "instancia" es un ClusterJobRunner con su propio ID y su propio job; las particiones corren en el
+// hilo del test (Runnable::run) y el reloj compartido simula el paso del tiempo.
+@ExtendWith(MockitoExtension.class)
+class ClusterJobRunnerTest {
+
+    private static final Instant START = Instant.parse("2024-05-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @Mock
+    private ShardedProductStore shardedStore; // Deshabilitado: productos en la base principal
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JobLeaseRepository repository;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:cluster_jobs;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new JobLeaseRepository(jdbcTemplate);
+        clock = new MutableClock(START);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void tick_withThreeNodes_shouldRunEachPartitionOncePerScheduleAcrossNodes() {
+        List<RecordingJob> jobs = List.of(new RecordingJob(6), new RecordingJob(6), new RecordingJob(6));
+        List<ClusterJobRunner> nodes = List.of(node("a", jobs.get(0)), node("b", jobs.get(1)), node("c", jobs.get(2)));
+        nodes.forEach(ClusterJobRunner::heartbeat);
+        nodes.forEach(ClusterJobRunner::tick); // 00:00: crea las particiones, la primera ejecución es a la 01:00
+
+        clock.advance(Duration.ofHours(1));
+        nodes.forEach(ClusterJobRunner::heartbeat);
+        nodes.forEach(ClusterJobRunner::tick);
+        nodes.forEach(ClusterJobRunner::tick);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), sortedPartitions(jobs));
+        jobs.forEach(job -> assertEquals(2, job.runs.size(), "las particiones se reparten entre las tres"));
+
+        clock.advance(Duration.ofHours(1));
+        nodes.forEach(ClusterJobRunner::heartbeat);
+        nodes.forEach(ClusterJobRunner::tick);
+
+        assertEquals(12, jobs.stream().mapToInt(job -> job.runs.size()).sum());
+        assertEquals(6, count("SELECT COUNT(*) FROM job_lease WHERE next_run_at = ?",
+                Timestamp.valueOf("2024-05-01 03:00:00")));
+    }
+
+    @Test
+    void tick_whenANodeStopsHeartbeating_shouldSpreadItsPartitionsAmongTheOthers() {
+        RecordingJob jobA = new RecordingJob(6);
+        RecordingJob jobB = new RecordingJob(6);
+        ClusterJobRunner a = node("a", jobA);
+        ClusterJobRunner b = node("b", jobB);
+        ClusterJobRunner c = node("c", new RecordingJob(6));
+        Stream.of(a, b, c).forEach(ClusterJobRunner::heartbeat);
+        Stream.of(a, b, c).forEach(ClusterJobRunner::tick);
+
+        // c cae: su último heartbeat queda a las 00:00
+        clock.advance(Duration.ofHours(1));
+        a.heartbeat();
+        b.heartbeat();
+        a.tick();
+        b.tick();
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), sortedPartitions(List.of(jobA, jobB)));
+        assertEquals(3, jobA.runs.size());
+        assertEquals(3, jobB.runs.size());
+    }
+
+    @Test
+    void tick_whenTheAssignedNodeDoesNotTakeItsPartitions_shouldTakeThemOverAfterALease() {
+        RecordingJob jobA = new RecordingJob(6);
+        ClusterJobRunner a = node("a", jobA);
+        ClusterJobRunner hung = node("b", new RecordingJob(6));
+        Stream.of(a, hung).forEach(ClusterJobRunner::heartbeat);
+        Stream.of(a, hung).forEach(ClusterJobRunner::tick);
+
+        // b sigue con heartbeat (sigue viva para las demás) pero no ejecuta sus particiones
+        clock.advance(Duration.ofHours(1));
+        hung.heartbeat();
+        a.tick();
+        assertEquals(3, jobA.runs.size());
+
+        clock.advance(LEASE.plusSeconds(1));
+        hung.heartbeat();
+        a.tick();
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), sortedPartitions(List.of(jobA)));
+    }
+
+    @Test
+    void heartbeat_shouldRenewTheLeaseOfALongRunningPartition() {
+        RecordingJob jobB = new RecordingJob(1);
+        ClusterJobRunner b = node("b", jobB);
+        RecordingJob jobA = new RecordingJob(1);
+        ClusterJobRunner a = node("a", jobA);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jobA.body = lease -> {
+            clock.advance(Duration.ofSeconds(20));
+            a.heartbeat();
+            clock.advance(Duration.ofSeconds(20)); // 40 s: sin la renovación el lease habría vencido
+            b.tick();
+            assertTrue(lease.isActive());
+            transaction.executeWithoutResult(status -> lease.fence());
+            return true;
+        };
+        a.tick();
+        b.tick();
+        clock.advance(Duration.ofHours(1));
+
+        a.tick();
+
+        assertEquals(1, jobA.runs.size());
+        assertTrue(jobB.runs.isEmpty(), "b no puede tomar la partición mientras a renueva el lease");
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT fencing_token FROM job_lease", Long.class));
+    }
+
+    @Test
+    void lease_takenOverByAnotherNode_shouldFenceTheFormerOwner() {
+        RecordingJob jobB = new RecordingJob(1);
+        SimpleMeterRegistry registryA = new SimpleMeterRegistry();
+        ClusterJobRunner b = node("b", jobB, new SimpleMeterRegistry());
+        RecordingJob jobA = new RecordingJob(1);
+        ClusterJobRunner a = node("a", jobA, registryA);
+        List<Boolean> fencedOut = new ArrayList<>();
+        jobA.body = lease -> {
+            // Pausa larga sin heartbeat (GC, red cortada): el lease vence y b toma la partición
+            clock.advance(LEASE.plusSeconds(1));
+            b.tick();
+            assertFalse(lease.isActive());
+            fencedOut.add(assertThrows(LeaseLostException.class, lease::fence) != null);
+            return true;
+        };
+        a.tick();
+        b.tick();
+        clock.advance(Duration.ofHours(1));
+
+        a.tick();
+
+        assertEquals(List.of(true), fencedOut);
+        assertEquals(1, jobB.runs.size());
+        assertEquals(2L, jobB.runs.get(0).fencingToken());
+        assertFalse(repository.lockIfCurrent(RecordingJob.NAME, 0, 1L));
+        assertEquals(1.0, registryA.find(ClusterJobRunner.RUNS).tag("outcome", "lost").counter().count());
+        // b terminó la partición: pasa al próximo horario y no vuelve a correr en este
+        assertEquals(Timestamp.valueOf("2024-05-01 02:00:00"),
+                jdbcTemplate.queryForObject("SELECT next_run_at FROM job_lease", Timestamp.class));
+    }
+
+    @Test
+    void tick_afterAFailedPartition_shouldRetryItAfterTheRetryDelay() {
+        RecordingJob job = new RecordingJob(1);
+        job.body = lease -> {
+            if (job.runs.size() == 1) {
+                throw new IllegalStateException("falla transitoria");
+            }
+            return true;
+        };
+        ClusterJobRunner a = node("a", job);
+        a.tick();
+        clock.advance(Duration.ofHours(1));
+
+        a.tick();
+        a.tick();
+        assertEquals(1, job.runs.size());
+
+        clock.advance(Duration.ofMinutes(1).plusSeconds(1));
+        a.tick();
+
+        assertEquals(2, job.runs.size());
+        assertEquals(job.runs.get(0).scheduledAt(), job.runs.get(1).scheduledAt());
+    }
+
+    @Test
+    void reorderJob_onTwoNodes_shouldShareOneRunPerSchedule() {
+        jdbcTemplate.update("INSERT INTO warehouses (id, name, location_details) VALUES (1, 'Central', 'Calle 1')");
+        for (int i = 1; i <= 25; i++) {
+            jdbcTemplate.update("INSERT INTO products (name, price, quantity, category, warehouse_id)"
+                    + " VALUES (?, 10.00, 100, 'General', 1)", "Producto " + i);
+        }
+        ClusterJobRunner a = node("a", reorderJob());
+        ClusterJobRunner b = node("b", reorderJob());
+        Stream.of(a, b).forEach(ClusterJobRunner::heartbeat);
+        Stream.of(a, b).forEach(ClusterJobRunner::tick);
+
+        clock.advance(Duration.ofHours(2).plusMinutes(30));
+        a.heartbeat();
+        b.heartbeat();
+        a.tick();
+        b.tick();
+
+        assertEquals(1, count("SELECT COUNT(*) FROM reorder_run"));
+        assertEquals(1, count("SELECT COUNT(*) FROM reorder_run WHERE finished_at IS NOT NULL AND scheduled_at = ?",
+                Timestamp.valueOf("2024-05-01 02:30:00")));
+        assertEquals(25, count("SELECT COUNT(*) FROM product_reorder"));
+        assertEquals(0, count("SELECT COUNT(*) FROM reorder_run_chunk"));
+    }
+
+    private ReorderPointJob reorderJob() {
+        // 25 productos en bloques de 10: tres bloques repartidos en tres particiones
+        return new ReorderPointJob(new ReorderRepository(jdbcTemplate), shardedStore,
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(), true, "0 30 2 * * *",
+                ZoneOffset.UTC, 30, 10, 1, 3, 0.2, 1.65, 7, 7);
+    }
+
+    private ClusterJobRunner node(String nodeId, ClusterJob job) {
+        return node(nodeId, job, new SimpleMeterRegistry());
+    }
+
+    private ClusterJobRunner node(String nodeId, ClusterJob job, SimpleMeterRegistry registry) {
+        return new ClusterJobRunner(repository, List.of(job), registry, clock, Runnable::run, true, nodeId, 10,
+                LEASE, Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofMinutes(1));
+    }
+
+    private static List<Integer> sortedPartitions(List<RecordingJob> jobs) {
+        return jobs.stream().flatMap(job -> job.runs.stream()).map(JobLease::partition).sorted().toList();
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    // Job de prueba con ejecución cada hora en punto que registra las particiones que le tocaron
+    private static final class RecordingJob implements ClusterJob {
+        static final String NAME = "inventory-report";
+
+        private final int partitions;
+        private final List<JobLease> runs = new ArrayList<>();
+        private Predicate<JobLease> body = lease -> true;
+
+        RecordingJob(int partitions) {
+            this.partitions = partitions;
+        }
+
+        @Override
+        public String name() {
+            return NAME;
+        }
+
+        @Override
+        public int partitions() {
+            return partitions;
+        }
+
+        @Override
+        public Instant nextRun(Instant after) {
+            return after.truncatedTo(ChronoUnit.HOURS).plus(Duration.ofHours(1));
+        }
+
+        @Override
+        public boolean run(JobLease lease) {
+            runs.add(lease);
+            return body.test(lease);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
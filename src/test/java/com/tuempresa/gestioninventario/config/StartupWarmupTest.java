@@ -0,0 +1,99 @@
+package com.tuempresa.gestioninventario.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.service.ProductService;
+import com.tuempresa.gestioninventario.service.WarehouseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmupTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private WarehouseService warehouseService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private StartupWarmup warmup(boolean enabled, int iterations) {
+        return new StartupWarmup(productService, warehouseService, objectMapper, registry, enabled, iterations,
+                Duration.ofSeconds(10), 50);
+    }
+
+    @Test
+    void run_shouldExerciseProductAndWarehouseReadsForEachIteration() {
+        Warehouse warehouse = new Warehouse(1L, "Central", "Calle 1", null);
+        Product product = new Product("Teclado", "Mecánico", new BigDecimal("10.00"), 5, "Periféricos", warehouse);
+        product.setId(7L);
+        when(productService.getFirstProducts(50)).thenReturn(List.of(product));
+        when(productService.getProductsETag()).thenReturn("\"p\"");
+        when(productService.getProductById(7L)).thenReturn(Optional.of(product));
+        when(warehouseService.getAllWarehouses()).thenReturn(List.of(warehouse));
+        when(warehouseService.getWarehousesETag()).thenReturn("\"w\"");
+
+        warmup(true, 3).run(new DefaultApplicationArguments());
+
+        verify(productService, times(3)).getFirstProducts(50);
+        verify(productService, never()).getAllProducts();
+        verify(productService, times(3)).getProductById(7L);
+        verify(warehouseService, times(3)).getAllWarehouses();
+        verify(warehouseService, times(3)).getWarehouseById(1L);
+        assertEquals(1, registry.get(StartupWarmup.WARMUP).timer().count());
+    }
+
+    @Test
+    void run_whenDisabled_shouldNotTouchTheServices() {
+        warmup(false, 3).run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(productService, warehouseService);
+    }
+
+    @Test
+    void run_whenAReadFails_shouldNotAbortTheStartup() {
+        when(productService.getFirstProducts(50)).thenThrow(new IllegalStateException("sin conexión"));
+
+        assertDoesNotThrow(() -> warmup(true, 3).run(new DefaultApplicationArguments()));
+
+        verify(productService, times(1)).getFirstProducts(50);
+    }
+
+    @Test
+    void run_whenTheDeadlinePassesMidIteration_shouldSkipTheRemainingReads() {
+        StartupWarmup warmup = new StartupWarmup(productService, warehouseService, objectMapper, registry, true, 20,
+                Duration.ofMillis(50), 50);
+        when(productService.getFirstProducts(50)).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return List.of();
+        });
+        when(productService.getProductsETag()).thenReturn("\"p\"");
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verify(productService, times(1)).getFirstProducts(50);
+        verifyNoInteractions(warehouseService);
+        assertEquals(1, registry.get(StartupWarmup.WARMUP).timer().count());
+    }
+}
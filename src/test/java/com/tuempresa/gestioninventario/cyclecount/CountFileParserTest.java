@@ -0,0 +1,83 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountFileParserTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void parse_shouldAcceptHeaderSeparatorsCrlfAndBlankLines() throws IOException {
+        QuantityTable table = parse("producto,almacen,cantidad\r\n7,1,30\r\n\r\n3;2;0\n 5\t1\t 12 \n9,1,4");
+
+        assertEquals(4, table.size());
+        assertRow(table, 0, 7, 1, 30);
+        assertRow(table, 1, 3, 2, 0);
+        assertRow(table, 2, 5, 1, 12);
+        assertRow(table, 3, 9, 1, 4); // Última línea sin salto final
+    }
+
+    @Test
+    void parse_withInvalidLines_shouldReportTheLineNumber() {
+        IllegalArgumentException missingField = assertThrows(IllegalArgumentException.class, () -> parse("1,1,5\n2,1\n"));
+        assertTrue(missingField.getMessage().startsWith("Línea 2:"), missingField.getMessage());
+
+        IllegalArgumentException negative = assertThrows(IllegalArgumentException.class, () -> parse("1,1,-5\n"));
+        assertTrue(negative.getMessage().contains("la cantidad contada"), negative.getMessage());
+
+        IllegalArgumentException zeroId = assertThrows(IllegalArgumentException.class, () -> parse("0,1,5\n"));
+        assertTrue(zeroId.getMessage().contains("positivos"), zeroId.getMessage());
+
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class, () -> parse("1,1,3000000000\n"));
+        assertTrue(tooLarge.getMessage().contains("demasiado grande"), tooLarge.getMessage());
+
+        IllegalArgumentException header = assertThrows(IllegalArgumentException.class, () -> parse("1,1,5\nproducto,1,5\n"));
+        assertTrue(header.getMessage().startsWith("Línea 2:"), header.getMessage());
+    }
+
+    @Test
+    void sortAndMerge_shouldOrderByProductAndWarehouseAndSumRepeatedRows() {
+        QuantityTable table = new QuantityTable(4);
+        long[][] rows = {{50, 1, 5}, {3, 2, 1}, {50, 1, 7}, {3, 1, 2}, {20, 1, 9}};
+        for (int i = 0; i < 200; i++) { // Suficientes filas para pasar por el quicksort
+            for (long[] row : rows) {
+                table.add(row[0] + i * 100L, row[1], (int) row[2]);
+            }
+        }
+
+        table.sortAndMerge();
+
+        assertEquals(200 * 4, table.size());
+        for (int i = 1; i < table.size(); i++) {
+            assertTrue(table.productId(i - 1) < table.productId(i)
+                    || (table.productId(i - 1) == table.productId(i) && table.warehouseId(i - 1) < table.warehouseId(i)));
+        }
+        assertRow(table, 0, 3, 1, 2);
+        assertRow(table, 1, 3, 2, 1);
+        assertRow(table, 2, 20, 1, 9);
+        assertRow(table, 3, 50, 1, 12);
+        assertEquals(4, table.seek(0, 50 + 1));
+        assertEquals(table.size(), table.seek(0, Long.MAX_VALUE));
+    }
+
+    private QuantityTable parse(String content) throws IOException {
+        Path file = dir.resolve("conteo.csv");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return CountFileParser.parse(file);
+    }
+
+    private static void assertRow(QuantityTable table, int index, long productId, long warehouseId, int quantity) {
+        assertEquals(productId, table.productId(index));
+        assertEquals(warehouseId, table.warehouseId(index));
+        assertEquals(quantity, table.quantity(index));
+    }
+}
@@ -0,0 +1,216 @@
+package com.tuempresa.gestioninventario.cyclecount;
+
+import com.tuempresa.gestioninventario.audit.AuditAction;
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.dto.CycleCountReport;
+import com.tuempresa.gestioninventario.dto.CycleCountVariance;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.history.StockHistory;
+import com.tuempresa.gestioninventario.readmodel.ProductReadModel;
+import com.tuempresa.gestioninventario.repository.CycleCountRepository;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.service.CatalogVersions;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// H2 en memoria (modo MariaDB) con las migraciones de producción: 30 productos en el almacén 1 con 100
+// unidades cada uno y ventanas de lectura de 10 IDs
+@ExtendWith(MockitoExtension.class)
+class CycleCountServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private ShardedProductStore shardedStore; // Deshabilitado: productos en la base principal
+    @Mock
+    private CatalogVersions catalogVersions;
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+    @Mock
+    private StockHistory stockHistory;
+    @Mock
+    private AuditTrail auditTrail;
+    @Mock
+    private ProductReadModel productReadModel;
+
+    @TempDir
+    private Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private CycleCountRepository repository;
+    private CycleCountService service;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:cycle_count;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new CycleCountRepository(jdbcTemplate);
+        service = new CycleCountService(repository, productRepository, shardedStore, catalogVersions,
+                outboxRepository, stockHistory, auditTrail, productReadModel,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), new SimpleMeterRegistry(),
+                Clock.fixed(NOW, ZoneOffset.UTC), 1024 * 1024, 10, 2);
+
+        jdbcTemplate.update("INSERT INTO warehouses (id, name, location_details) VALUES (1, 'Central', 'Calle 1')");
+        jdbcTemplate.update("INSERT INTO warehouses (id, name, location_details) VALUES (2, 'Norte', 'Calle 2')");
+        for (int i = 1; i <= 30; i++) {
+            jdbcTemplate.update("INSERT INTO products (name, price, quantity, category, warehouse_id)"
+                    + " VALUES (?, 10.00, 100, 'General', 1)", "Producto " + i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void reconcile_shouldClassifyEveryLineAndStoreOnlyTheVariances() throws IOException {
+        // Sin orden, con el producto 4 contado en dos ubicaciones y productos en tres ventanas distintas
+        CycleCountReport report = reconcile("producto,almacen,cantidad\n"
+                + "25,1,100\n4,1,60\n2,1,100\n4,1,30\n999,1,5\n17,2,100\n3,1,120\n");
+
+        assertEquals("REVIEW", report.status());
+        assertEquals(7, report.lines());
+        assertEquals(6, report.products());
+        assertEquals(2, report.matched());           // 2 y 25
+        assertEquals(2, report.quantityVariances()); // 4 (60 + 30 = 90) y 3
+        assertEquals(1, report.unknownProducts());   // 999
+        assertEquals(1, report.warehouseMismatches()); // 17 está en el almacén 1
+        assertEquals(10, report.netVariance());      // -10 + 20
+        assertEquals(30, report.absoluteVariance());
+        assertTrue(report.linesPerSecond() > 0);
+
+        List<CycleCountVariance> variances = service.getVariances(report.id(), 0, 0, 10).orElseThrow();
+        assertEquals(List.of(
+                new CycleCountVariance(3, 1, VarianceKind.QUANTITY, 100, 120, "PENDING"),
+                new CycleCountVariance(4, 1, VarianceKind.QUANTITY, 100, 90, "PENDING"),
+                new CycleCountVariance(17, 2, VarianceKind.WAREHOUSE_MISMATCH, 100, 100, "SKIPPED"),
+                new CycleCountVariance(999, 1, VarianceKind.UNKNOWN_PRODUCT, null, 5, "SKIPPED")), variances);
+        assertEquals(variances.subList(2, 4), service.getVariances(report.id(), 4, 1, 10).orElseThrow());
+        assertEquals(100, quantity(3)); // Nada se aplica antes de aprobar
+    }
+
+    @Test
+    void reconcile_withAnInvalidFile_shouldNotCreateACount() {
+        assertThrows(IllegalArgumentException.class, () -> reconcile("1,1,5\n2,x,5\n"));
+        assertThrows(IllegalArgumentException.class, () -> reconcile("producto,almacen,cantidad\n"));
+        assertThrows(IllegalArgumentException.class, () -> service.reconcile(
+                new ByteArrayInputStream(new byte[2 * 1024 * 1024]), "grande.csv", "admin"));
+        assertEquals(0, count("SELECT COUNT(*) FROM cycle_count"));
+    }
+
+    @Test
+    void approve_shouldApplyInBatchesAndSkipStockThatMovedSinceTheCount() throws IOException {
+        stubProductLoading();
+        CycleCountReport report = reconcile("1,1,90\n2,1,110\n3,1,0\n4,1,100\n5,1,95\n");
+        // Una salida del producto 2 después del conteo: su ajuste ya no corresponde
+        jdbcTemplate.update("UPDATE products SET quantity = 97 WHERE id = 2");
+
+        CycleCountReport applied = service.approve(report.id(), "supervisor").orElseThrow();
+
+        assertEquals("APPLIED", applied.status());
+        assertEquals("supervisor", applied.approvedBy());
+        assertEquals(NOW, applied.appliedAt());
+        assertEquals(3, applied.applied());
+        assertEquals(1, applied.stale());
+        assertEquals(90, quantity(1));
+        assertEquals(97, quantity(2));
+        assertEquals(0, quantity(3));
+        assertEquals(95, quantity(5));
+        assertEquals(1, count("SELECT COUNT(*) FROM cycle_count_line WHERE status = 'STALE' AND product_id = 2"));
+        verify(auditTrail).record(AuditAction.STOCK_COUNT_ADJUSTED, 1L, -10L, "Conteo " + report.id());
+        verify(auditTrail).record(AuditAction.STOCK_COUNT_ADJUSTED, 3L, -100L, "Conteo " + report.id());
+        verify(auditTrail, never()).record(eq(AuditAction.STOCK_COUNT_ADJUSTED), eq(2L), anyLong(), any());
+        verify(outboxRepository, times(3)).append(eq(ChangeType.UPDATED), any(Product.class), eq(1L));
+        verify(stockHistory).record(5L, 1L, 95);
+        verify(catalogVersions).productChanged(3L);
+
+        // Un conteo aplicado no se vuelve a aplicar
+        assertThrows(IllegalArgumentException.class, () -> service.approve(report.id(), "supervisor"));
+        assertTrue(service.approve(12345L, "supervisor").isEmpty());
+    }
+
+    @Test
+    void approve_afterAnInterruptedApply_shouldResumeThePendingLines() throws IOException {
+        CycleCountReport report = reconcile("1,1,90\n2,1,80\n3,1,70\n");
+        // Primer lote aplicado y la instancia se cae antes de seguir
+        repository.claimForApply(report.id(), "supervisor", NOW);
+        jdbcTemplate.update("UPDATE products SET quantity = 90 WHERE id = 1");
+        jdbcTemplate.update("UPDATE cycle_count_line SET status = 'APPLIED' WHERE product_id = 1");
+        repository.addApplied(report.id(), 1, 0);
+        stubProductLoading();
+
+        CycleCountReport applied = service.approve(report.id(), "otro").orElseThrow();
+
+        assertEquals("APPLIED", applied.status());
+        assertEquals("supervisor", applied.approvedBy());
+        assertEquals(3, applied.applied());
+        assertEquals(80, quantity(2));
+        assertEquals(70, quantity(3));
+        verify(auditTrail, never()).record(eq(AuditAction.STOCK_COUNT_ADJUSTED), eq(1L), anyLong(), any());
+    }
+
+    private CycleCountReport reconcile(String content) throws IOException {
+        Path file = dir.resolve("conteo.csv");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return service.reconcile(file, "conteo.csv", "admin");
+    }
+
+    // productRepository es JPA: se simula leyendo la misma base
+    private void stubProductLoading() {
+        when(productRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<Product> products = new ArrayList<>();
+            for (Long id : ids) {
+                products.addAll(jdbcTemplate.query("SELECT id, quantity, warehouse_id FROM products WHERE id = ?",
+                        (rs, rowNum) -> new Product(rs.getLong(1), "Producto", null, null, rs.getInt(2), "General",
+                                new Warehouse(rs.getLong(3), null, null, null)), id));
+            }
+            return products;
+        });
+    }
+
+    private int quantity(long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.tuempresa.gestioninventario.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeriesSegmentTest {
+
+    private static final long DAY = Instant.parse("2024-05-01T00:00:00Z").getEpochSecond();
+
+    @Test
+    void appendAndDecode_shouldRoundTripIrregularPointsAndNegativeDeltas() {
+        SeriesSegment segment = new SeriesSegment(DAY, 1);
+        long[][] points = {{DAY + 5, 100}, {DAY + 65, 97}, {DAY + 125, 40}, {DAY + 9000, 1_000_000}, {DAY + 9001, 0}};
+        for (long[] point : points) {
+            segment.append(point[0], point[1]);
+        }
+
+        List<long[]> decoded = SeriesSegment.decode(DAY, 1, segment.toByteArray(), segment.count());
+
+        assertEquals(points.length, decoded.size());
+        for (int i = 0; i < points.length; i++) {
+            assertArrayEquals(points[i], decoded.get(i));
+        }
+        assertEquals(0, segment.lastValue(0));
+    }
+
+    @Test
+    void append_withTimeGoingBackwards_shouldClampToTheLastPoint() {
+        SeriesSegment segment = new SeriesSegment(DAY, 1);
+        segment.append(DAY + 100, 5);
+        segment.append(DAY + 50, 6);
+
+        List<long[]> decoded = SeriesSegment.decode(DAY, 1, segment.toByteArray(), segment.count());
+
+        assertEquals(DAY + 100, decoded.get(1)[0]);
+        assertEquals(6, decoded.get(1)[1]);
+    }
+
+    @Test
+    void resume_shouldContinueEncodingWhereTheStoredSegmentEnded() {
+        SeriesSegment original = new SeriesSegment(DAY, 3);
+        original.append(DAY, 1, 5, 3);
+        original.append(DAY + 3600, 2, 9, 9);
+
+        SeriesSegment resumed = SeriesSegment.resume(DAY, 3, original.toByteArray(), original.count());
+        resumed.append(DAY + 7200, 0, 4, 4);
+
+        List<long[]> decoded = SeriesSegment.decode(DAY, 3, resumed.toByteArray(), resumed.count());
+        assertArrayEquals(new long[]{DAY + 7200, 0, 4, 4}, decoded.get(2));
+        assertEquals(3, decoded.size());
+    }
+
+    @Test
+    void rawDayOfTypicalMovements_shouldTakeFewBytesPerPoint() {
+        // Un movimiento cada ~2 minutos con variación de ±20 unidades: 720 puntos en el día
+        Random random = new Random(42);
+        SeriesSegment segment = new SeriesSegment(DAY, 1);
+        long time = DAY;
+        long quantity = 500;
+        for (int i = 0; i < 720; i++) {
+            time += 110 + random.nextInt(20);
+            quantity = Math.max(0, quantity + random.nextInt(41) - 20);
+            segment.append(time, quantity);
+        }
+
+        double bytesPerPoint = (double) segment.sizeInBytes() / segment.count();
+        assertTrue(bytesPerPoint < 3.0, "bytes por punto: " + bytesPerPoint);
+    }
+
+    @Test
+    void hourlyAggregates_shouldTakeAboutOneByteForTheTimestamp() {
+        SeriesSegment segment = new SeriesSegment(DAY, 3);
+        for (int hour = 0; hour < 24; hour++) {
+            segment.append(DAY + hour * 3600L, 100 - hour, 110 + hour, 105);
+        }
+
+        // Desde el tercer punto: 1 byte de tiempo (delta-of-delta 0) + 1 por cada diferencia pequeña
+        assertEquals(100, segment.sizeInBytes());
+    }
+
+    @Test
+    void downsampler_shouldKeepMinMaxAndLastPerBucket() {
+        List<long[]> raw = new ArrayList<>();
+        raw.add(new long[]{DAY + 10, 50});
+        raw.add(new long[]{DAY + 600, 20});
+        raw.add(new long[]{DAY + 1200, 70});
+        raw.add(new long[]{DAY + 1800, 60});
+        raw.add(new long[]{DAY + 7300, 65});
+
+        List<long[]> hourly = Downsampler.aggregate(Downsampler.fromRaw(raw), 3600);
+        List<long[]> daily = Downsampler.aggregate(hourly, 86400);
+
+        assertEquals(2, hourly.size());
+        assertArrayEquals(new long[]{DAY, 20, 70, 60}, hourly.get(0));
+        assertArrayEquals(new long[]{DAY + 7200, 65, 65, 65}, hourly.get(1));
+        assertArrayEquals(new long[]{DAY, 20, 70, 65}, daily.get(0));
+    }
+
+    @Test
+    void resolution_segmentStart_shouldAlignToUtcDayOrYear() {
+        long instant = Instant.parse("2024-05-01T13:45:10Z").getEpochSecond();
+
+        assertEquals(DAY, Resolution.RAW.segmentStart(instant));
+        assertEquals(DAY, Resolution.HOUR.segmentStart(instant));
+        assertEquals(Instant.parse("2024-01-01T00:00:00Z").getEpochSecond(), Resolution.DAY.segmentStart(instant));
+    }
+}
@@ -0,0 +1,224 @@
+package com.tuempresa.gestioninventario.history;
+
+import com.tuempresa.gestioninventario.dto.StockLevelPoint;
+import com.tuempresa.gestioninventario.repository.StockHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// H2 en memoria (modo MariaDB) con las migraciones de producción; el hilo escritor no se arranca y
+// los tests llaman a flush() directamente con un reloj controlado.
+class StockHistoryTest {
+
+    private static final Instant MAY_1 = Instant.parse("2024-05-01T00:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private StockHistoryRepository repository;
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private StockHistory history;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:stock_history;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new StockHistoryRepository(jdbcTemplate);
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock(MAY_1.plus(Duration.ofHours(9)));
+        history = newHistory(1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void flush_shouldPersistTheOpenDaySkippingRepeatedQuantities() {
+        recordAt("09:00:00", 10);
+        recordAt("09:05:00", 10); // Misma cantidad (p. ej. edición sin cambio de stock): no es un punto nuevo
+        recordAt("09:10:00", 7);
+        history.flush();
+
+        StoredSegment raw = repository.find(1L, Resolution.RAW, MAY_1.getEpochSecond()).orElseThrow();
+        assertEquals(2, raw.pointCount());
+        assertFalse(raw.sealed());
+        assertEquals(3L, raw.warehouseId());
+
+        List<StockLevelPoint> points = history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(1)), Resolution.RAW);
+        assertEquals(List.of(point("09:00:00", 10, 10, 10), point("09:10:00", 7, 7, 7)), points);
+    }
+
+    @Test
+    void query_hourlyOnAnOpenDay_shouldAggregateTheRawPointsOnTheFly() {
+        recordAt("09:00:00", 10);
+        recordAt("09:20:00", 4);
+        recordAt("09:40:00", 6);
+        recordAt("11:15:00", 12);
+        history.flush();
+
+        List<StockLevelPoint> points = history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(1)), Resolution.HOUR);
+
+        assertEquals(List.of(point("09:00:00", 4, 10, 6), point("11:00:00", 12, 12, 12)), points);
+    }
+
+    @Test
+    void flush_afterTheDayEnds_shouldSealItIntoHourlyAndDailySegments() {
+        recordAt("09:00:00", 10);
+        recordAt("09:30:00", 2);
+        recordAt("18:00:00", 8);
+        history.flush();
+
+        clock.set(MAY_1.plus(Duration.ofDays(1)).plusSeconds(60));
+        history.flush();
+
+        assertTrue(repository.find(1L, Resolution.RAW, MAY_1.getEpochSecond()).orElseThrow().sealed());
+        assertEquals(2, repository.find(1L, Resolution.HOUR, MAY_1.getEpochSecond()).orElseThrow().pointCount());
+        Instant until = MAY_1.plus(Duration.ofDays(2));
+        assertEquals(List.of(point("09:00:00", 2, 10, 2), point("18:00:00", 8, 8, 8)),
+                history.query(1L, MAY_1, until, Resolution.HOUR));
+        assertEquals(List.of(new StockLevelPoint(MAY_1, 2, 10, 8)), history.query(1L, MAY_1, until, Resolution.DAY));
+        assertEquals(1.0, registry.get(StockHistory.BYTES_PER_POINT).summary().count());
+    }
+
+    @Test
+    void sealing_shouldReplaceTheDayInTheYearlySegment() {
+        recordAt("09:00:00", 10);
+        history.flush();
+        clock.set(MAY_1.plus(Duration.ofDays(1)).plus(Duration.ofHours(8)));
+        history.record(1L, 3L, 20); // El cambio del día siguiente cierra el anterior al aplicarse
+        history.flush();
+        clock.set(MAY_1.plus(Duration.ofDays(2)));
+        history.flush();
+
+        StoredSegment year = repository.find(1L, Resolution.DAY, Instant.parse("2024-01-01T00:00:00Z").getEpochSecond()).orElseThrow();
+        assertEquals(2, year.pointCount());
+        assertEquals(List.of(new StockLevelPoint(MAY_1, 10, 10, 10), new StockLevelPoint(MAY_1.plus(Duration.ofDays(1)), 20, 20, 20)),
+                history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(3)), Resolution.DAY));
+    }
+
+    @Test
+    void twoInstancesWritingTheSameDay_shouldMergeTheirPoints() {
+        StockHistory other = newHistory(1024);
+        recordAt("09:00:00", 10);
+        history.flush();
+        clock.set(MAY_1.plus(Duration.ofHours(10)));
+        other.record(1L, 3L, 8);
+        other.flush();
+        clock.set(MAY_1.plus(Duration.ofHours(11)));
+        history.record(1L, 3L, 5); // Esta instancia no conoce el punto de las 10:00
+        history.flush();
+
+        List<StockLevelPoint> points = history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(1)), Resolution.RAW);
+
+        assertEquals(List.of(point("09:00:00", 10, 10, 10), point("10:00:00", 8, 8, 8), point("11:00:00", 5, 5, 5)), points);
+        assertEquals(1.0, registry.get(StockHistory.CONFLICTS).counter().count());
+    }
+
+    @Test
+    void flush_inANewInstance_shouldSealDaysLeftOpenByAPreviousRun() {
+        recordAt("09:00:00", 10);
+        history.flush();
+
+        clock.set(MAY_1.plus(Duration.ofDays(1)).plus(Duration.ofHours(1)));
+        StockHistory restarted = newHistory(1024);
+        restarted.flush();
+
+        assertTrue(repository.find(1L, Resolution.RAW, MAY_1.getEpochSecond()).orElseThrow().sealed());
+        assertTrue(repository.find(1L, Resolution.HOUR, MAY_1.getEpochSecond()).isPresent());
+    }
+
+    @Test
+    void flush_shouldPurgeSealedSegmentsOutsideTheRetention() {
+        recordAt("09:00:00", 10);
+        history.flush();
+        clock.set(MAY_1.plus(Duration.ofDays(1)));
+        history.flush();
+
+        clock.set(MAY_1.plus(Duration.ofDays(40)));
+        newHistory(1024).flush();
+
+        assertTrue(repository.find(1L, Resolution.RAW, MAY_1.getEpochSecond()).isEmpty());
+        assertTrue(repository.find(1L, Resolution.HOUR, MAY_1.getEpochSecond()).isPresent());
+        assertEquals(1, history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(2)), Resolution.DAY).size());
+    }
+
+    @Test
+    void record_withTheQueueFull_shouldDropAndCount() {
+        StockHistory small = newHistory(2);
+
+        for (int i = 0; i < 5; i++) {
+            small.record(1L, 3L, i);
+        }
+
+        assertEquals(2.0, registry.get(StockHistory.POINTS).tag("outcome", "recorded").counter().count());
+        assertEquals(3.0, registry.get(StockHistory.POINTS).tag("outcome", "dropped").counter().count());
+    }
+
+    @Test
+    void query_withInvalidRange_shouldBeRejected() {
+        Instant to = MAY_1.plus(Duration.ofDays(40));
+
+        assertThrows(IllegalArgumentException.class, () -> history.query(1L, to, MAY_1, Resolution.HOUR));
+        assertThrows(IllegalArgumentException.class, () -> history.query(1L, MAY_1, to, Resolution.RAW));
+        assertThrows(IllegalArgumentException.class,
+                () -> history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(200)), Resolution.HOUR));
+        assertTrue(history.query(1L, MAY_1, MAY_1.plus(Duration.ofDays(200)), Resolution.DAY).isEmpty());
+    }
+
+    private StockHistory newHistory(int queueCapacity) {
+        return new StockHistory(repository, registry, clock, true, queueCapacity, Duration.ofSeconds(10),
+                Duration.ofDays(30), Duration.ofDays(400), Duration.ofDays(31), Duration.ofDays(93));
+    }
+
+    private void recordAt(String time, int quantity) {
+        clock.set(Instant.parse("2024-05-01T" + time + "Z"));
+        history.record(1L, 3L, quantity);
+    }
+
+    private static StockLevelPoint point(String time, int min, int max, int last) {
+        return new StockLevelPoint(Instant.parse("2024-05-01T" + time + "Z"), min, max, last);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.tuempresa.gestioninventario.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private InventoryMetrics inventoryMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        inventoryMetrics = new InventoryMetrics(registry);
+    }
+
+    @Test
+    void recordMovement_shouldCountMovementsAndUnitsByDirectionAndWarehouse() {
+        inventoryMetrics.recordMovement(InventoryMetrics.Direction.ENTRY, 1L, 5);
+        inventoryMetrics.recordMovement(InventoryMetrics.Direction.ENTRY, 1L, 3);
+        inventoryMetrics.recordMovement(InventoryMetrics.Direction.EXIT, 2L, 4);
+
+        assertEquals(2.0, registry.get(InventoryMetrics.STOCK_MOVEMENTS)
+                .tag("direction", "entry").tag("warehouse", "1").counter().count());
+        assertEquals(8.0, registry.get(InventoryMetrics.STOCK_MOVED_UNITS)
+                .tag("direction", "entry").tag("warehouse", "1").counter().count());
+        assertEquals(1.0, registry.get(InventoryMetrics.STOCK_MOVEMENTS)
+                .tag("direction", "exit").tag("warehouse", "2").counter().count());
+        assertNull(registry.find(InventoryMetrics.STOCK_MOVEMENTS)
+                .tag("direction", "exit").tag("warehouse", "1").counter());
+    }
+
+    @Test
+    void recordMovement_whenProductHasNoWarehouse_shouldUseNoneTag() {
+        inventoryMetrics.recordMovement(InventoryMetrics.Direction.EXIT, null, 2);
+
+        assertEquals(1.0, registry.get(InventoryMetrics.STOCK_MOVEMENTS)
+                .tag("direction", "exit").tag("warehouse", "none").counter().count());
+    }
+
+    @Test
+    void recordInsufficientStock_shouldIncrementRejectionCounter() {
+        inventoryMetrics.recordInsufficientStock();
+        inventoryMetrics.recordInsufficientStock();
+
+        assertEquals(2.0, registry.get(InventoryMetrics.STOCK_REJECTIONS)
+                .tag("reason", "insufficient_stock").counter().count());
+    }
+}
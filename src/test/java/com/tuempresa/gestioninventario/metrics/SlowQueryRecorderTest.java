@@ -0,0 +1,74 @@
+package com.tuempresa.gestioninventario.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryRecorderTest {
+
+    private SlowQueryRecorder slowQueryRecorder;
+
+    @BeforeEach
+    void setUp() {
+        slowQueryRecorder = new SlowQueryRecorder(Duration.ofMillis(100), 2, Duration.ofMinutes(15), 100);
+    }
+
+    @Test
+    void normalize_shouldReplaceLiteralsAndCollapseInLists() {
+        assertEquals("select * from products where name=? and id in (?...)",
+                SlowQueryRecorder.normalize("select *\n  from products where name='Laptop' and id in (?, ?, ?)"));
+        assertEquals("update products set quantity=? where id=?",
+                SlowQueryRecorder.normalize("update products set quantity=15 where id=3"));
+    }
+
+    @Test
+    void record_shouldAggregateByShapeAndRankByMaxLatency() {
+        slowQueryRecorder.record("select * from products where id=1", millis(5), () -> "[1]");
+        slowQueryRecorder.record("select * from products where id=2", millis(15), () -> "[2]");
+        slowQueryRecorder.record("select * from app_users", millis(50), () -> "");
+        slowQueryRecorder.record("select * from roles", millis(1), () -> "");
+
+        List<SlowQueryRecorder.SlowQueryShape> top = slowQueryRecorder.topShapes();
+
+        assertEquals(2, top.size()); // top-N = 2
+        assertEquals("select * from app_users", top.get(0).shape());
+        assertEquals("select * from products where id=?", top.get(1).shape());
+        assertEquals(2, top.get(1).executions());
+        assertEquals(10.0, top.get(1).avgMillis(), 0.001);
+        assertEquals(0, top.get(1).slowExecutions());
+    }
+
+    @Test
+    void record_whenAboveThreshold_shouldKeepCallerAndParameters() {
+        slowQueryRecorder.record("select * from products where category=?", millis(250), () -> "[Electrónicos]");
+
+        SlowQueryRecorder.SlowQueryShape shape = slowQueryRecorder.topShapes().get(0);
+        assertEquals(1, shape.slowExecutions());
+        assertEquals("[Electrónicos]", shape.lastSlowParameters());
+        assertEquals("SlowQueryRecorderTest.record_whenAboveThreshold_shouldKeepCallerAndParameters", shape.lastSlowCaller());
+    }
+
+    @Test
+    void record_whenBelowThreshold_shouldNotFormatParameters() {
+        slowQueryRecorder.record("select 1", millis(1), () -> fail("No debe formatear parámetros de consultas rápidas"));
+
+        assertNull(slowQueryRecorder.topShapes().get(0).lastSlowParameters());
+    }
+
+    @Test
+    void reset_shouldClearStatistics() {
+        slowQueryRecorder.record("select 1", millis(1), () -> "");
+        slowQueryRecorder.reset();
+
+        assertTrue(slowQueryRecorder.topShapes().isEmpty());
+    }
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+}
@@ -0,0 +1,103 @@
+package com.tuempresa.gestioninventario.money;
+
+import com.tuempresa.gestioninventario.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyMathTest {
+
+    private static final BigDecimal[] FACTORS = {new BigDecimal("1.075"), new BigDecimal("0.9"),
+            new BigDecimal("0.333333"), new BigDecimal("-1.5"), new BigDecimal("2"), new BigDecimal("1E+2")};
+
+    @Test
+    void applyFactor_shouldRoundExactlyLikeBigDecimal() {
+        Random random = new Random(42);
+        long[] cents = new long[2_000];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = random.nextInt(2_000_000) - 1_000_000;
+        }
+        cents[0] = 5;   // 5 * 0.9 = 4.5: empates en ambos sentidos
+        cents[1] = -5;
+        long[] result = new long[cents.length];
+
+        for (BigDecimal factor : FACTORS) {
+            for (RoundingMode mode : RoundingMode.values()) {
+                if (mode == RoundingMode.UNNECESSARY) {
+                    continue;
+                }
+                MoneyMath.applyFactor(cents, cents.length, factor, mode, result);
+                for (int i = 0; i < cents.length; i++) {
+                    BigDecimal expected = BigDecimal.valueOf(cents[i], 2).multiply(factor).setScale(2, mode);
+                    assertEquals(expected, Money.ofCents(result[i]).toBigDecimal(),
+                            () -> "factor " + factor + ", modo " + mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    void applyFactor_withUnnecessary_shouldFailOnlyWhenRoundingIsNeeded() {
+        long[] result = new long[1];
+
+        MoneyMath.applyFactor(new long[]{1_000}, 1, new BigDecimal("1.075"), RoundingMode.UNNECESSARY, result);
+        assertEquals(1_075, result[0]);
+        assertThrows(ArithmeticException.class, () ->
+                MoneyMath.applyFactor(new long[]{999}, 1, new BigDecimal("1.075"), RoundingMode.UNNECESSARY, result));
+    }
+
+    @Test
+    void stockValue_shouldMatchBigDecimalAndGroupTotals() {
+        long[] cents = {120_099, 2_550, 1};
+        int[] quantities = {10, 50, 0};
+        int[] groups = {1, 0, 1};
+        long[] totals = new long[2];
+
+        assertEquals(new BigDecimal("13284.90"),
+                Money.ofCents(MoneyMath.stockValue(cents, quantities, cents.length)).toBigDecimal());
+        MoneyMath.stockValueByGroup(cents, quantities, groups, cents.length, totals);
+        assertArrayEquals(new long[]{127_500, 1_200_990}, totals);
+    }
+
+    @Test
+    void arithmetic_shouldFailInsteadOfOverflowing() {
+        assertThrows(ArithmeticException.class, () ->
+                MoneyMath.stockValue(new long[]{Long.MAX_VALUE / 2}, new int[]{3}, 1));
+        assertThrows(ArithmeticException.class, () ->
+                MoneyMath.stockValue(new long[]{Long.MAX_VALUE, 1}, new int[]{1, 1}, 2));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE).minus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+20")));
+    }
+
+    @Test
+    void money_shouldConvertFromAndToTwoDecimals() {
+        assertEquals(Money.ofCents(2_550), Money.of(new BigDecimal("25.5")));
+        assertEquals(new BigDecimal("25.50"), Money.ofCents(2_550).toBigDecimal());
+        assertEquals("-0.07", Money.ofCents(-7).toString());
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+        assertEquals(Money.ofCents(101), Money.of(new BigDecimal("1.005"), RoundingMode.HALF_UP));
+        assertEquals(Money.ofCents(1_075), Money.ofCents(1_000).times(new BigDecimal("1.075"), RoundingMode.HALF_UP));
+        assertEquals(Money.ofCents(7_650), Money.ofCents(2_550).times(3));
+    }
+
+    @Test
+    void product_shouldKeepItsDecimalPriceApi() {
+        Product product = new Product("Mouse", null, new BigDecimal("25.5"), 1, null, null);
+        assertEquals(new BigDecimal("25.50"), product.getPrice());
+        assertEquals(Money.ofCents(2_550), product.getPriceMoney());
+
+        product.setPrice(new BigDecimal("9.999"));
+        assertEquals(new BigDecimal("10.00"), product.getPrice());
+        product.setPrice(null);
+        assertNull(product.getPrice());
+
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("10.00"), converter.convertToDatabaseColumn(Money.ofCents(1_000)));
+        assertEquals(Money.ofCents(1_000), converter.convertToEntityAttribute(new BigDecimal("10.00")));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
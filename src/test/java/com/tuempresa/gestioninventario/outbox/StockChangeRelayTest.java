@@ -0,0 +1,152 @@
+package com.tuempresa.gestioninventario.outbox;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockChangeRelayTest {
+
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final List<Long> delivered = new ArrayList<>();
+    private final List<Long> late = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+    private StockChangeRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now.get());
+            }
+        };
+        relay = new StockChangeRelay(outboxRepository, registry, clock, true, Duration.ofMillis(10), 100,
+                Duration.ofSeconds(2), Duration.ofHours(24), Duration.ofMinutes(10));
+        relay.addListener(events -> events.forEach(event -> delivered.add(event.id())));
+        relay.addLateListener(events -> events.forEach(event -> late.add(event.id())));
+    }
+
+    private static StockChangeEvent event(long id) {
+        return new StockChangeEvent(id, ChangeType.UPDATED, 7L, 1L, "Periféricos", 10, null, Instant.EPOCH);
+    }
+
+    private void outboxAfter(long afterId, long... ids) {
+        List<StockChangeEvent> rows = new ArrayList<>();
+        for (long id : ids) {
+            rows.add(event(id));
+        }
+        when(outboxRepository.findAfter(afterId, 100)).thenReturn(rows);
+    }
+
+    @Test
+    void poll_shouldDeliverConsecutiveEventsInOrderAndAdvance() {
+        outboxAfter(0L, 1L, 2L, 3L);
+
+        assertEquals(3, relay.poll());
+
+        assertEquals(List.of(1L, 2L, 3L), delivered);
+        assertEquals(3L, relay.position());
+    }
+
+    @Test
+    void poll_shouldWaitForAMissingIdUntilTheGapTimeout() {
+        // El ID 2 pertenece a una transacción todavía sin confirmar
+        outboxAfter(0L, 1L, 3L);
+        assertEquals(1, relay.poll());
+        assertEquals(1L, relay.position());
+
+        outboxAfter(1L, 3L);
+        now.addAndGet(1_000L);
+        assertEquals(0, relay.poll());
+        assertEquals(0, relay.poll());
+
+        // La transacción confirma dentro del plazo: se entrega en orden
+        outboxAfter(1L, 2L, 3L);
+        assertEquals(2, relay.poll());
+        assertEquals(List.of(1L, 2L, 3L), delivered);
+        assertEquals(0, registry.get(StockChangeRelay.GAPS_SKIPPED).counter().count());
+    }
+
+    @Test
+    void poll_shouldSkipAGapLeftByARollbackAfterTheTimeout() {
+        outboxAfter(0L, 2L, 3L);
+        assertEquals(0, relay.poll());
+
+        now.addAndGet(2_000L);
+        assertEquals(2, relay.poll());
+
+        assertEquals(List.of(2L, 3L), delivered);
+        assertEquals(1, registry.get(StockChangeRelay.GAPS_SKIPPED).counter().count());
+    }
+
+    @Test
+    void recheckSkipped_shouldDeliverRowsThatCommitAfterTheirGapWasSkipped() {
+        outboxAfter(0L, 3L, 4L);
+        relay.poll();
+        now.addAndGet(2_000L);
+        assertEquals(2, relay.poll()); // Se saltean 1 y 2
+
+        // Confirma la transacción lenta del ID 2; el 1 fue un rollback
+        when(outboxRepository.findByIds(List.of(1L, 2L))).thenReturn(List.of(event(2L)));
+        now.addAndGet(2_000L);
+        assertEquals(1, relay.recheckSkipped());
+        assertEquals(List.of(2L), late);
+        assertEquals(List.of(3L, 4L), delivered);
+
+        // Dentro del mismo gap-timeout no se vuelve a consultar; pasado late-window el 1 se abandona
+        assertEquals(0, relay.recheckSkipped());
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+        assertEquals(0, relay.recheckSkipped());
+        assertEquals(1, registry.get(StockChangeRelay.LATE_EVENTS).tag("result", "delivered").counter().count());
+        assertEquals(1, registry.get(StockChangeRelay.LATE_EVENTS).tag("result", "abandoned").counter().count());
+        verify(outboxRepository, times(1)).findByIds(anyList());
+    }
+
+    @Test
+    void poll_withNothingNew_shouldNotNotify() {
+        when(outboxRepository.findAfter(anyLong(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, relay.poll());
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(0L, relay.position());
+    }
+}
@@ -0,0 +1,233 @@
+package com.tuempresa.gestioninventario.outbox;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockEventStreamTest {
+
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+
+    @Mock
+    private StockChangeRelay relay;
+
+    private SimpleMeterRegistry registry;
+    private StockEventStream stream;
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stream = new StockEventStream(outboxRepository, relay, registry, Duration.ofMillis(50), Duration.ofHours(1),
+                Duration.ofMinutes(1), 2, 1, Duration.ofMillis(200)) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(emitter -> emitter.unblock.countDown());
+        stream.destroy();
+    }
+
+    private static StockChangeEvent event(long id, long productId, long warehouseId, String category, int quantity) {
+        return new StockChangeEvent(id, ChangeType.UPDATED, productId, warehouseId, category, quantity, null, Instant.EPOCH);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Tiempo de espera agotado");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void publish_shouldCoalesceUpdatesOfTheSameProductWithinTheWindow() throws Exception {
+        stream.subscribe(null, null, null);
+        RecordingEmitter emitter = emitters.get(0);
+
+        stream.publish(List.of(event(1, 7, 1, "Periféricos", 10), event(2, 7, 1, "Periféricos", 9)));
+        stream.publish(List.of(event(3, 8, 1, "Periféricos", 5), event(4, 7, 1, "Periféricos", 8)));
+        await(() -> emitter.events.size() == 2);
+        Thread.sleep(100);
+
+        // Producto 8 y luego el último estado del 7, en el orden de su último cambio
+        assertEquals(List.of(3L, 4L), emitter.events.stream().map(StockChangeEvent::id).toList());
+        assertEquals(2, registry.get(StockEventStream.EVENTS).tag("outcome", "coalesced").counter().count());
+    }
+
+    @Test
+    void publish_shouldOnlySendEventsMatchingTheSubscriberFilter() throws Exception {
+        stream.subscribe(1L, "periféricos", null);
+        RecordingEmitter emitter = emitters.get(0);
+
+        stream.publish(List.of(
+                event(1, 7, 1, "Periféricos", 10),
+                event(2, 8, 2, "Periféricos", 10),
+                event(3, 9, 1, "Electrónicos", 10)));
+        await(() -> !emitter.events.isEmpty());
+        Thread.sleep(100);
+
+        assertEquals(List.of(1L), emitter.events.stream().map(StockChangeEvent::id).toList());
+    }
+
+    @Test
+    void subscribe_withLastEventId_shouldReplayMissedChangesWithoutDuplicatingLiveOnes() throws Exception {
+        when(relay.position()).thenReturn(6L);
+        when(outboxRepository.minId()).thenReturn(1L);
+        when(outboxRepository.findAfter(3L, 1000)).thenReturn(List.of(
+                event(4, 7, 1, "Periféricos", 10),
+                event(5, 8, 1, "Periféricos", 4),
+                event(6, 7, 1, "Periféricos", 9)));
+
+        stream.subscribe(null, null, 3L);
+        RecordingEmitter emitter = emitters.get(0);
+        // El 6 ya vino en la reanudación; el 7 es nuevo
+        stream.publish(List.of(event(6, 7, 1, "Periféricos", 9), event(7, 9, 1, "Periféricos", 1)));
+        await(() -> emitter.events.size() == 3);
+        Thread.sleep(100);
+
+        assertEquals(List.of(5L, 6L, 7L), emitter.events.stream().map(StockChangeEvent::id).toList());
+        assertEquals(0, emitter.resets);
+    }
+
+    @Test
+    void publishLate_shouldSendTheEventWithoutMovingTheClientsLastEventId() throws Exception {
+        stream.subscribe(null, null, null);
+        RecordingEmitter emitter = emitters.get(0);
+        stream.publish(List.of(event(12, 8, 1, "Periféricos", 4)));
+        await(() -> emitter.events.size() == 1);
+
+        // El 11 confirmó después de que el relay entregara el 12
+        stream.publishLate(List.of(event(11, 7, 1, "Periféricos", 9)));
+        await(() -> emitter.events.size() == 2);
+
+        assertEquals(List.of(12L, 11L), emitter.events.stream().map(StockChangeEvent::id).toList());
+        assertEquals(Arrays.asList("12", null), emitter.ids);
+    }
+
+    @Test
+    void publishLate_shouldNotReplaceANewerPendingChangeOfTheSameProduct() throws Exception {
+        stream.subscribe(null, null, null);
+        RecordingEmitter emitter = emitters.get(0);
+
+        stream.publish(List.of(event(12, 7, 1, "Periféricos", 4)));
+        stream.publishLate(List.of(event(11, 7, 1, "Periféricos", 9), event(10, 8, 1, "Periféricos", 1)));
+        await(() -> emitter.events.size() == 2);
+        Thread.sleep(100);
+
+        assertEquals(List.of(12L, 10L), emitter.events.stream().map(StockChangeEvent::id).toList());
+        assertEquals(Arrays.asList("12", null), emitter.ids);
+    }
+
+    @Test
+    void subscribe_withPurgedLastEventId_shouldAskTheClientToResync() {
+        when(relay.position()).thenReturn(500L);
+        when(outboxRepository.minId()).thenReturn(400L);
+
+        stream.subscribe(null, null, 10L);
+
+        assertEquals(1, emitters.get(0).resets);
+        verify(outboxRepository, never()).findAfter(10L, 1000);
+    }
+
+    @Test
+    void flush_withAClientThatStopsReading_shouldDropItWithoutDelayingTheOthers() throws Exception {
+        stream.subscribe(null, null, null);
+        stream.subscribe(null, null, null);
+        RecordingEmitter stuck = emitters.get(0);
+        RecordingEmitter healthy = emitters.get(1);
+        stuck.blocked = true;
+
+        // Con un solo hilo de programación, el envío trabado no debe demorar al otro suscriptor
+        stream.publish(List.of(event(1, 7, 1, "Periféricos", 10)));
+        await(() -> healthy.events.size() == 1);
+        stream.publish(List.of(event(2, 8, 1, "Periféricos", 3)));
+        await(() -> healthy.events.size() == 2);
+
+        await(() -> stream.subscriberCount() == 1);
+        assertInstanceOf(IOException.class, stuck.failure);
+        assertEquals(1, registry.get(StockEventStream.STALLED).counter().count());
+    }
+
+    @Test
+    void subscribe_shouldRejectWhenTheSubscriberLimitIsReached() {
+        stream.subscribe(null, null, null);
+        stream.subscribe(null, null, null);
+
+        assertThrows(IllegalStateException.class, () -> stream.subscribe(null, null, null));
+    }
+
+    // Registra lo enviado en lugar de escribir en una respuesta HTTP
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<StockChangeEvent> events = new CopyOnWriteArrayList<>();
+        // ID SSE de cada evento de events (null si se envió sin ID)
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        volatile int resets;
+        // Simula un cliente que no lee: send espera hasta unblock
+        volatile boolean blocked;
+        final CountDownLatch unblock = new CountDownLatch(1);
+        volatile Throwable failure;
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failure = ex;
+            unblock.countDown();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (blocked) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Respuesta cerrada");
+            }
+            String[] id = {null};
+            builder.build().forEach(part -> {
+                if (part.getData() instanceof StockChangeEvent event) {
+                    ids.add(id[0]);
+                    events.add(event);
+                } else if (part.getData().toString().startsWith("id:")) {
+                    // El texto previo a los datos: "id:12\nevent:stock\ndata:"
+                    id[0] = part.getData().toString().lines().findFirst().orElseThrow().substring(3);
+                } else if (part.getData().toString().contains("event:" + StockEventStream.RESET_EVENT)) {
+                    resets++;
+                }
+            });
+        }
+    }
+}
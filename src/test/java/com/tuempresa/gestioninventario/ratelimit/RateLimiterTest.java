@@ -0,0 +1,102 @@
+package com.tuempresa.gestioninventario.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private SimpleMeterRegistry registry;
+    private FakePoolPressure poolPressure;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        poolPressure = new FakePoolPressure();
+        // 10 permisos por segundo con ráfaga de 3 en todas las rutas
+        rateLimiter = new RateLimiter(poolPressure, registry, now::get, Duration.ofMillis(50), 2,
+                route -> 10.0, route -> 3);
+    }
+
+    private double rejections(RateLimitRoute route, String reason) {
+        return registry.get(RateLimiter.REJECTIONS).tag("route", route.key()).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void acquire_shouldAllowTheBurstAndThenAskToWaitOneInterval() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana"));
+        }
+        long wait = rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+        assertEquals(1, rejections(RateLimitRoute.STOCK_EXIT, "rate_limited"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana"));
+        assertTrue(rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana") > 0);
+    }
+
+    @Test
+    void acquire_shouldKeepSeparateBudgetsPerClientAndRoute() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana");
+        }
+        assertTrue(rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana") > 0);
+        assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_ENTRY, "ana"));
+        assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "beto"));
+    }
+
+    @Test
+    void acquire_shouldShedByPriorityWhenThePoolIsSaturated() {
+        poolPressure.waitNanos = TimeUnit.MILLISECONDS.toNanos(60);
+        assertEquals(RateLimiter.SHED, rateLimiter.acquire(RateLimitRoute.USER_BATCH, "ana"));
+        assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_ENTRY, "ana"));
+        assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana"));
+
+        poolPressure.waitNanos = TimeUnit.MILLISECONDS.toNanos(150);
+        assertEquals(RateLimiter.SHED, rateLimiter.acquire(RateLimitRoute.STOCK_ENTRY, "ana"));
+        // Las salidas de stock (picking) siguen pasando
+        assertEquals(RateLimiter.ALLOWED, rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana"));
+        assertEquals(1, rejections(RateLimitRoute.USER_BATCH, "shed"));
+        assertEquals(1, rejections(RateLimitRoute.STOCK_ENTRY, "shed"));
+    }
+
+    @Test
+    void acquire_shouldForgetIdleClientsWhenTheMapIsFull() {
+        rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "ana");
+        rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "beto");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        rateLimiter.acquire(RateLimitRoute.STOCK_EXIT, "carla");
+
+        assertEquals(1, rateLimiter.trackedClients());
+    }
+
+    @Test
+    void match_shouldMapMovementAndBulkRoutes() {
+        assertEquals(RateLimitRoute.STOCK_EXIT, RateLimitRoute.match("PATCH", "/api/products/7/exit"));
+        assertEquals(RateLimitRoute.STOCK_ENTRY, RateLimitRoute.match("PATCH", "/api/products/7/entry"));
+        assertEquals(RateLimitRoute.PRODUCT_WRITE, RateLimitRoute.match("POST", "/api/products"));
+        assertEquals(RateLimitRoute.PRODUCT_WRITE, RateLimitRoute.match("DELETE", "/api/products/7"));
+        assertEquals(RateLimitRoute.USER_BATCH, RateLimitRoute.match("POST", "/api/users/batch"));
+        assertNull(RateLimitRoute.match("GET", "/api/products/7"));
+        assertNull(RateLimitRoute.match("POST", "/api/users"));
+    }
+
+    private static final class FakePoolPressure extends PoolPressure {
+        long waitNanos;
+
+        @Override
+        public long waitNanos() {
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.tuempresa.gestioninventario.readmodel;
+
+import com.tuempresa.gestioninventario.readmodel.OffHeapProductTable.ProductRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapProductTableTest {
+
+    @Test
+    void putAndGet_shouldRoundTripEveryField() {
+        OffHeapProductTable table = new OffHeapProductTable(16);
+
+        table.put(7L, "Café Ñandú", null, 123_456L, 42, "Almacén", 3L);
+        table.put(8L, "Té", "Descripción", 0L, 0, null, 0L);
+
+        assertEquals(new ProductRecord(7L, "Café Ñandú", null, 123_456L, 42, "Almacén", 3L), table.get(7L));
+        assertEquals(new ProductRecord(8L, "Té", "Descripción", 0L, 0, null, 0L), table.get(8L));
+        assertNull(table.get(9L));
+        assertNull(table.get(0L));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void put_withAnExistingId_shouldReplaceTheRecord() {
+        OffHeapProductTable table = new OffHeapProductTable(16);
+        table.put(1L, "Viejo", "Texto viejo", 100L, 1, "A", 1L);
+
+        table.put(1L, "Nuevo", null, 250L, 9, "B", 2L);
+
+        assertEquals(new ProductRecord(1L, "Nuevo", null, 250L, 9, "B", 2L), table.get(1L));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void remove_shouldFreeTheRecordAndKeepOtherIdsReachable() {
+        OffHeapProductTable table = new OffHeapProductTable(16);
+        for (long id = 1; id <= 10; id++) {
+            table.put(id, "Producto " + id, null, id, (int) id, null, 1L);
+        }
+
+        assertTrue(table.remove(4L));
+        assertFalse(table.remove(4L));
+        table.put(11L, "Producto 11", null, 11L, 11, null, 1L);
+
+        assertNull(table.get(4L));
+        for (long id = 1; id <= 11; id++) {
+            if (id != 4L) {
+                assertEquals("Producto " + id, table.get(id).name());
+            }
+        }
+        assertEquals(10, table.size());
+    }
+
+    // IDs de a 1024 (como con sharding), altas, ediciones y bajas al azar hasta crecer varias veces y
+    // compactar el pool de textos; el resultado tiene que coincidir con un HashMap
+    @Test
+    void randomOperations_shouldMatchAHashMap() {
+        OffHeapProductTable table = new OffHeapProductTable(16);
+        Map<Long, ProductRecord> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long id = (random.nextInt(20_000) + 1) * 1024L + 3;
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(id) != null, table.remove(id));
+            } else {
+                ProductRecord record = new ProductRecord(id, "Producto " + id + "-" + i,
+                        random.nextBoolean() ? null : "Descripción " + i, random.nextInt(1_000_000), random.nextInt(500),
+                        "Categoría " + random.nextInt(30), random.nextInt(10) + 1);
+                table.put(id, record.name(), record.description(), record.priceCents(), record.quantity(),
+                        record.category(), record.warehouseId());
+                expected.put(id, record);
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        expected.forEach((id, record) -> assertEquals(record, table.get(id)));
+    }
+
+    @Test
+    void removeWarehouse_shouldDropOnlyItsProducts() {
+        OffHeapProductTable table = new OffHeapProductTable(16);
+        for (long id = 1; id <= 100; id++) {
+            table.put(id, "Producto " + id, null, id, 1, null, id % 2 == 0 ? 2L : 3L);
+        }
+
+        assertEquals(50, table.removeWarehouse(2L));
+
+        assertEquals(50, table.size());
+        assertNull(table.get(2L));
+        assertEquals(3L, table.get(3L).warehouseId());
+    }
+
+    @Test
+    void removeIf_shouldDropTheMatchingIdsAndKeepTheSlotsReusable() {
+        OffHeapProductTable table = new OffHeapProductTable(16);
+        for (long id = 1; id <= 100; id++) {
+            table.put(id, "Producto " + id, null, id, 1, null, 1L);
+        }
+
+        assertEquals(90, table.removeIf(id -> id > 10));
+        table.put(200L, "Nuevo", null, 1L, 1, null, 1L);
+
+        assertEquals(11, table.size());
+        assertNull(table.get(11L));
+        assertEquals("Producto 10", table.get(10L).name());
+        assertEquals("Nuevo", table.get(200L).name());
+    }
+
+    // Lectores sin lock mientras un escritor cambia textos y fuerza compactaciones: nunca ven un registro
+    // mezclado (el nombre siempre corresponde a la cantidad)
+    @Test
+    void concurrentReads_shouldNeverSeeATornRecord() throws Exception {
+        OffHeapProductTable table = new OffHeapProductTable(1024);
+        for (long id = 1; id <= 1000; id++) {
+            table.put(id, "Producto " + id + " v0", null, 0L, 0, "C", 1L);
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                Random random = new Random();
+                while (done.getCount() > 0) {
+                    long id = random.nextInt(1000) + 1;
+                    ProductRecord record = table.get(id);
+                    String expected = "Producto " + id + " v" + record.quantity();
+                    if (!expected.equals(record.name()) || record.priceCents() != record.quantity()) {
+                        failure.compareAndSet(null, record.toString());
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (int version = 1; version <= 300; version++) {
+            for (long id = 1; id <= 1000; id++) {
+                table.put(id, "Producto " + id + " v" + version, null, version, version, "C", 1L);
+            }
+        }
+        done.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,182 @@
+package com.tuempresa.gestioninventario.readmodel;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.outbox.StockChangeRelay;
+import com.tuempresa.gestioninventario.repository.ProductReadModelRepository;
+import com.tuempresa.gestioninventario.service.CatalogVersions;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Contra H2 en memoria (modo MariaDB) con las migraciones de producción y sin sharding
+@ExtendWith(MockitoExtension.class)
+class ProductReadModelTest {
+
+    @Mock
+    private ShardedProductStore shardedStore;
+    @Mock
+    private StockChangeRelay relay;
+    @Mock
+    private CatalogVersions catalogVersions;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+    private ProductReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:read_model;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        when(relay.isEnabled()).thenReturn(true);
+        readModel = new ProductReadModel(new ProductReadModelRepository(dataSource, jdbcTemplate), shardedStore, relay,
+                catalogVersions, new SimpleMeterRegistry(), true, 16, Duration.ofMinutes(1), Duration.ofHours(1));
+
+        jdbcTemplate.update("INSERT INTO warehouses (id, name, location_details) VALUES (1, 'Central', 'Calle 1'), (2, 'Norte', NULL)");
+        jdbcTemplate.update("INSERT INTO products (id, name, description, price, quantity, category, warehouse_id) VALUES"
+                + " (10, 'Laptop', 'Potente', 1200.99, 5, 'Electrónicos', 1),"
+                + " (11, 'Mouse', NULL, 25.50, 50, NULL, 2)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void find_beforeLoading_shouldDeferToTheDatabase() {
+        assertEquals(Optional.empty(), readModel.find(10L));
+    }
+
+    @Test
+    void load_shouldServeProductsWithTheirWarehouses() {
+        readModel.load();
+
+        Product laptop = readModel.find(10L).orElseThrow();
+        assertEquals(new Product(10L, "Laptop", "Potente", new BigDecimal("1200.99"), 5, "Electrónicos",
+                new Warehouse(1L, "Central", "Calle 1", null)), laptop);
+        assertEquals(new BigDecimal("25.50"), readModel.find(11L).orElseThrow().getPrice());
+        assertEquals(Optional.empty(), readModel.find(12L));
+    }
+
+    @Test
+    void localWrites_shouldApplyOnlyAfterCommit() {
+        readModel.load();
+        Product laptop = readModel.find(10L).orElseThrow();
+        laptop.setQuantity(4);
+
+        transaction.executeWithoutResult(status -> {
+            readModel.productChanged(laptop, 1L);
+            readModel.productRemoved(11L);
+            assertEquals(5, readModel.find(10L).orElseThrow().getQuantity());
+        });
+        assertEquals(4, readModel.find(10L).orElseThrow().getQuantity());
+        assertEquals(Optional.empty(), readModel.find(11L));
+
+        transaction.executeWithoutResult(status -> {
+            laptop.setQuantity(1);
+            readModel.productChanged(laptop, 1L);
+            status.setRollbackOnly();
+        });
+        assertEquals(4, readModel.find(10L).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void load_shouldNotOverwriteWritesMadeWhileLoading() {
+        readModel.productChanged(new Product(10L, "Laptop", "Potente", new BigDecimal("999.00"), 2, "Electrónicos",
+                null), 1L);
+        readModel.productRemoved(11L);
+
+        readModel.load();
+
+        assertEquals(new BigDecimal("999.00"), readModel.find(10L).orElseThrow().getPrice());
+        assertEquals(Optional.empty(), readModel.find(11L));
+    }
+
+    @Test
+    void refresh_shouldRereadTheProductsOfOtherInstances() {
+        readModel.load();
+        jdbcTemplate.update("UPDATE products SET quantity = 0, name = 'Laptop Pro' WHERE id = 10");
+        jdbcTemplate.update("DELETE FROM products WHERE id = 11");
+        jdbcTemplate.update("INSERT INTO products (id, name, price, quantity, warehouse_id) VALUES (12, 'Teclado', 30, 7, 2)");
+
+        List<StockChangeEvent> events = List.of(event(1, ChangeType.UPDATED, 10), event(2, ChangeType.DELETED, 11),
+                event(3, ChangeType.CREATED, 12), event(4, ChangeType.UPDATED, 10));
+        readModel.refresh(events);
+
+        assertEquals("Laptop Pro", readModel.find(10L).orElseThrow().getName());
+        assertEquals(Optional.empty(), readModel.find(11L));
+        assertEquals("Norte", readModel.find(12L).orElseThrow().getWarehouse().getName());
+        // Recién aplicados se invalidan los ETag
+        verify(catalogVersions).remoteProductsChanged(events);
+    }
+
+    @Test
+    void warehouseChanges_shouldReachTheServedProducts() {
+        readModel.load();
+
+        readModel.warehouseChanged(new Warehouse(1L, "Central Renovado", "Calle 2", null));
+        assertEquals("Central Renovado", readModel.find(10L).orElseThrow().getWarehouse().getName());
+
+        // Otra instancia borra el almacén 2 (y JPA sus productos): se ve en la relectura periódica
+        jdbcTemplate.update("DELETE FROM products WHERE warehouse_id = 2");
+        jdbcTemplate.update("DELETE FROM warehouses WHERE id = 2");
+        readModel.refreshWarehouses();
+        assertEquals(Optional.empty(), readModel.find(11L));
+        verify(catalogVersions).productsInvalidated();
+    }
+
+    // Un cambio de otra instancia cuyo evento el relay salteó: lo corrige la reconciliación
+    @Test
+    void rescan_shouldCorrectProductsWhoseEventsWereMissed() {
+        readModel.load();
+        jdbcTemplate.update("UPDATE products SET quantity = 1 WHERE id = 10");
+        jdbcTemplate.update("DELETE FROM products WHERE id = 11");
+        jdbcTemplate.update("INSERT INTO products (id, name, price, quantity, warehouse_id) VALUES (12, 'Teclado', 30, 7, 2)");
+
+        readModel.rescan();
+
+        assertEquals(1, readModel.find(10L).orElseThrow().getQuantity());
+        assertEquals(Optional.empty(), readModel.find(11L));
+        assertEquals("Teclado", readModel.find(12L).orElseThrow().getName());
+        verify(catalogVersions).productsInvalidated();
+    }
+
+    @Test
+    void constructor_withStockEventsDisabled_shouldFailFast() {
+        when(relay.isEnabled()).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> new ProductReadModel(
+                new ProductReadModelRepository(new JdbcDataSource(), jdbcTemplate), shardedStore, relay,
+                catalogVersions, new SimpleMeterRegistry(), true, 16, Duration.ofMinutes(1), Duration.ofHours(1)));
+    }
+
+    private static StockChangeEvent event(long id, ChangeType type, long productId) {
+        return new StockChangeEvent(id, type, productId, null, null, null, null, Instant.EPOCH);
+    }
+}
@@ -0,0 +1,88 @@
+package com.tuempresa.gestioninventario.reorder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReorderModelTest {
+
+    private static final int DAYS = 90;
+
+    // alfa 0.2, factor de seguridad 1.65, 7 días de entrega y 7 de revisión
+    private final ReorderModel model = new ReorderModel(0.2, 1.65, 7, 7);
+
+    @Test
+    void compute_withConstantDemand_shouldNeedNoSafetyStock() {
+        ReorderChunk chunk = new ReorderChunk(1, 3, DAYS);
+        chunk.addProduct(1, 50);  // Bajo el punto de reposición
+        chunk.addProduct(2, 100); // Por encima
+        chunk.seal();
+        for (int day = 0; day < DAYS; day++) {
+            chunk.addDemand(1, day, 10);
+            chunk.addDemand(2, day, 10);
+        }
+
+        model.compute(chunk);
+
+        assertEquals(10.0, chunk.dailyForecast()[0], 1e-9);
+        assertEquals(0, chunk.safetyStock()[0]);
+        assertEquals(70, chunk.reorderPoint()[0]);
+        assertEquals(90, chunk.suggestedQuantity()[0]); // 10 * (7 + 7) - 50
+        assertEquals(0, chunk.suggestedQuantity()[1]);
+    }
+
+    @Test
+    void compute_withVariableDemand_shouldAddSafetyStock() {
+        ReorderChunk chunk = new ReorderChunk(1, 2, DAYS);
+        chunk.addProduct(1, 0);
+        chunk.seal();
+        for (int day = 0; day < DAYS; day++) {
+            chunk.addDemand(1, day, day % 2 == 0 ? 0 : 20);
+        }
+
+        model.compute(chunk);
+
+        assertEquals(10.0, chunk.dailyForecast()[0], 2.5);
+        assertTrue(chunk.safetyStock()[0] > 0);
+        assertEquals((int) Math.ceil(chunk.dailyForecast()[0] * 7) + chunk.safetyStock()[0], chunk.reorderPoint()[0]);
+        assertTrue(chunk.suggestedQuantity()[0] > chunk.reorderPoint()[0]);
+    }
+
+    @Test
+    void compute_withoutDemand_shouldSuggestNothing() {
+        ReorderChunk chunk = new ReorderChunk(1, 2, DAYS);
+        chunk.addProduct(1, 0);
+        chunk.seal();
+
+        model.compute(chunk);
+
+        assertEquals(0, chunk.reorderPoint()[0]);
+        assertEquals(0, chunk.suggestedQuantity()[0]);
+    }
+
+    @Test
+    void chunk_loadedOutOfOrder_shouldSortIdsWithTheirQuantities() {
+        ReorderChunk chunk = new ReorderChunk(100, 200, DAYS);
+        chunk.addProduct(150, 5);  // Un shard
+        chunk.addProduct(190, 9);
+        chunk.addProduct(101, 1);  // Otro shard
+        chunk.addProduct(170, 7);
+        chunk.seal();
+        chunk.addDemand(170, 0, 3);
+        chunk.addDemand(999, 0, 3); // Fuera del bloque: se ignora
+        chunk.addDemand(101, DAYS, 3); // Fuera de la ventana: se ignora
+
+        assertArrayEquals(new long[]{101, 150, 170, 190}, Arrays.copyOf(chunk.productIds(), 4));
+        assertArrayEquals(new int[]{1, 5, 7, 9}, Arrays.copyOf(chunk.onHand(), 4));
+        assertEquals(3, chunk.demand()[2 * DAYS]);
+        assertThrows(IllegalArgumentException.class, () -> new ReorderChunk(1, 2, DAYS).addProduct(5, 1));
+    }
+
+    @Test
+    void constructor_withInvalidParameters_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ReorderModel(0, 1.65, 7, 7));
+        assertThrows(IllegalArgumentException.class, () -> new ReorderModel(0.2, -1, 7, 7));
+    }
+}
@@ -0,0 +1,155 @@
+package com.tuempresa.gestioninventario.reorder;
+
+import com.tuempresa.gestioninventario.dto.ReorderSuggestion;
+import com.tuempresa.gestioninventario.repository.ReorderRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// H2 en memoria (modo MariaDB) con las migraciones de producción: 45 productos en bloques de 10 IDs
+@ExtendWith(MockitoExtension.class)
+class ReorderPointJobTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T03:00:00Z");
+    private static final int PRODUCTS = 45;
+
+    @Mock
+    private ShardedProductStore shardedStore; // Deshabilitado: productos en la base principal
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+    private ReorderRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:reorder_job;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new ReorderRepository(jdbcTemplate);
+
+        jdbcTemplate.update("INSERT INTO warehouses (id, name, location_details) VALUES (1, 'Central', 'Calle 1')");
+        for (int i = 1; i <= PRODUCTS; i++) {
+            jdbcTemplate.update("INSERT INTO products (name, price, quantity, category, warehouse_id)"
+                    + " VALUES (?, 10.00, ?, 'General', 1)", "Producto " + i, i == 1 ? 10 : 1000);
+        }
+        // Producto 1: 5 unidades por día en los últimos 30 días, más salidas fuera de la ventana
+        for (int day = 1; day <= 30; day++) {
+            exit(1L, NOW.truncatedTo(ChronoUnit.DAYS).minus(Duration.ofDays(day)).plus(Duration.ofHours(10)), 5);
+        }
+        exit(1L, NOW.minus(Duration.ofDays(60)), 500); // Antes de la ventana
+        exit(1L, NOW, 500);                            // Hoy: la ventana termina al inicio del día
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void runOnce_shouldWriteASuggestionPerProduct() {
+        int processed = newJob(repository, 4).runOnce();
+
+        assertEquals(PRODUCTS, processed);
+        assertEquals(PRODUCTS, count("SELECT COUNT(*) FROM product_reorder"));
+        ReorderSuggestion suggestion = repository.findSuggestion(1L).orElseThrow();
+        assertEquals(5.0, suggestion.dailyForecast().doubleValue(), 1e-9);
+        assertEquals(0, suggestion.safetyStock());
+        assertEquals(35, suggestion.reorderPoint());          // 5 * 7 días de entrega
+        assertEquals(60, suggestion.suggestedQuantity());     // 5 * (7 + 7) - 10 en stock
+        assertEquals(0, repository.findSuggestion(2L).orElseThrow().suggestedQuantity());
+        assertEquals(1, count("SELECT COUNT(*) FROM reorder_run WHERE finished_at IS NOT NULL"));
+        assertEquals(0, count("SELECT COUNT(*) FROM reorder_run_chunk"));
+    }
+
+    @Test
+    void runOnce_afterAFailedChunk_shouldResumeOnlyThePendingChunks() {
+        // El bloque [21, 31) falla una vez al confirmar (p. ej. se cae la base)
+        ReorderRepository failing = new ReorderRepository(jdbcTemplate) {
+            private boolean failed;
+
+            @Override
+            public void saveChunk(long runId, ReorderChunk chunk, Instant computedAt) {
+                if (chunk.start() == 21 && !failed) {
+                    failed = true;
+                    throw new DataAccessResourceFailureException("conexión perdida");
+                }
+                super.saveChunk(runId, chunk, computedAt);
+            }
+        };
+        ReorderPointJob job = newJob(failing, 1);
+
+        assertThrows(DataAccessResourceFailureException.class, job::runOnce);
+        int committedChunks = count("SELECT COUNT(*) FROM reorder_run_chunk");
+        assertTrue(committedChunks >= 2 && committedChunks < 5, "bloques confirmados: " + committedChunks);
+        assertEquals(0, count("SELECT COUNT(*) FROM product_reorder WHERE product_id BETWEEN 21 AND 30"));
+        // El último bloque tiene 5 productos: lo pendiente se cuenta en la tabla, no por bloques
+        int pending = PRODUCTS - count("SELECT COUNT(*) FROM product_reorder");
+
+        int resumed = job.runOnce();
+
+        assertEquals(pending, resumed);
+        assertEquals(PRODUCTS, count("SELECT COUNT(*) FROM product_reorder"));
+        assertEquals(1, count("SELECT COUNT(*) FROM reorder_run"));
+        assertEquals(1, count("SELECT COUNT(*) FROM reorder_run WHERE finished_at IS NOT NULL"));
+    }
+
+    @Test
+    void runOnce_shouldRemoveSuggestionsOfDeletedProducts() {
+        ReorderPointJob job = newJob(repository, 2);
+        job.runOnce();
+        jdbcTemplate.update("DELETE FROM products WHERE id = 45");
+
+        job.runOnce();
+
+        assertTrue(repository.findSuggestion(45L).isEmpty());
+        assertEquals(PRODUCTS - 1, count("SELECT COUNT(*) FROM product_reorder"));
+    }
+
+    @Test
+    void runOnce_withoutProducts_shouldNotStartARun() {
+        jdbcTemplate.update("DELETE FROM products");
+
+        assertEquals(0, newJob(repository, 2).runOnce());
+        assertEquals(0, count("SELECT COUNT(*) FROM reorder_run"));
+    }
+
+    private ReorderPointJob newJob(ReorderRepository repository, int parallelism) {
+        return new ReorderPointJob(repository, shardedStore, transaction, new SimpleMeterRegistry(),
+                Clock.fixed(NOW, ZoneOffset.UTC), true, CronExpression.parse("0 30 2 * * *"), ZoneOffset.UTC,
+                30, 10, parallelism, 1, new ReorderModel(0.2, 1.65, 7, 7));
+    }
+
+    private void exit(long productId, Instant at, long amount) {
+        jdbcTemplate.update("INSERT INTO audit_log (occurred_at, actor, action, entity_type, entity_id, amount)"
+                + " VALUES (?, 'empleado', 'STOCK_EXIT', 'product', ?, ?)",
+                Timestamp.valueOf(LocalDateTime.ofInstant(at, ZoneOffset.UTC)), productId, amount);
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
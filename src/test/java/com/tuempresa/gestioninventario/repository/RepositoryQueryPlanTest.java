@@ -0,0 +1,335 @@
+package com.tuempresa.gestioninventario.repository;
+
+import com.tuempresa.gestioninventario.cyclecount.VarianceBatch;
+import com.tuempresa.gestioninventario.cyclecount.VarianceKind;
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.history.Resolution;
+import com.tuempresa.gestioninventario.history.StoredSegment;
+import com.tuempresa.gestioninventario.reorder.ReorderRun;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// EXPLAIN de cada consulta de los repositorios contra el esquema de las migraciones (H2 en modo MariaDB).
+// Se ejecuta el método real, se capturan sus sentencias con datasource-proxy (Hibernate y JdbcTemplate,
+// con los parámetros tal como se ligaron) y se vuelven a preparar con EXPLAIN delante.
+// Un índice faltante aparece en el plan como "tableScan" y el test falla mostrando el plan completo.
+@SpringBootTest
+@ActiveProfiles("embedded")
+class RepositoryQueryPlanTest {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* ([\\w.]+)\\.tableScan \\*/");
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserBatchRepository userBatchRepository;
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+    @Autowired
+    private StockHistoryRepository stockHistoryRepository;
+    @Autowired
+    private ReorderRepository reorderRepository;
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+    @Autowired
+    private CycleCountRepository cycleCountRepository;
+    @Autowired
+    private SecurityChangeRepository securityChangeRepository;
+
+    private final StatementCapture capture = new StatementCapture();
+    private Warehouse warehouse;
+    private Product product;
+    private Role role;
+
+    @BeforeEach
+    void setUp() {
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().addListener(capture);
+
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int w = 1; w <= 20; w++) {
+            warehouses.add(new Warehouse(null, "Almacén " + w, "Calle " + w, null));
+        }
+        warehouses = warehouseRepository.saveAll(warehouses);
+        warehouse = warehouses.get(0);
+        List<Product> products = new ArrayList<>();
+        for (int p = 1; p <= 500; p++) {
+            products.add(new Product("Producto " + p, "Descripción", new BigDecimal("10.00"), 100,
+                    "Categoría " + (p % 25), warehouses.get(p % warehouses.size())));
+        }
+        product = productRepository.saveAll(products).get(0);
+        role = roleRepository.save(new Role("ROLE_EMPLEADO_ALMACEN"));
+        transactionTemplate.executeWithoutResult(status -> {
+            Role managed = roleRepository.getReferenceById(role.getId());
+            List<User> users = new ArrayList<>();
+            for (int i = 1; i <= 200; i++) {
+                users.add(new User(null, "usuario" + i, "password" + i, "usuario" + i + "@example.com", i % 50 != 0,
+                        Set.of(managed)));
+            }
+            userRepository.saveAll(users);
+        });
+        outboxRepository.append(ChangeType.CREATED, product, warehouse.getId());
+        for (long day = 0; day < 30; day++) {
+            stockHistoryRepository.save(new StoredSegment(product.getId(), Resolution.HOUR, day * 86400, warehouse.getId(),
+                    1, true, new byte[]{0, 20, 20, 20}));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().getListeners().remove(capture);
+        jdbcTemplate.update("DELETE FROM product_outbox");
+        jdbcTemplate.update("DELETE FROM stock_history");
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+    }
+
+    @Test
+    void productRepository_lookups_shouldUseIndexes() {
+        assertIndexed(() -> productRepository.findById(product.getId()));
+        assertIndexed(() -> productRepository.existsById(product.getId()));
+        assertIndexed(() -> productRepository.findByName("Producto 7"));
+        assertIndexed(() -> productRepository.findByCategory("Categoría 3"));
+        assertIndexed(() -> productRepository.findByWarehouse(warehouse));
+    }
+
+    @Test
+    void warehouseAndRoleRepositories_lookups_shouldUseIndexes() {
+        assertIndexed(() -> warehouseRepository.findById(warehouse.getId()));
+        assertIndexed(() -> warehouseRepository.findByName("Almacén 3"));
+        assertIndexed(() -> roleRepository.findById(role.getId()));
+        assertIndexed(() -> roleRepository.findByName("ROLE_EMPLEADO_ALMACEN"));
+    }
+
+    @Test
+    void userRepository_lookups_shouldUseIndexes() {
+        assertIndexed(() -> userRepository.findByUsername("usuario7"));
+        assertIndexed(() -> userRepository.existsByUsername("usuario7"));
+        assertIndexed(() -> userRepository.existsByEmail("usuario7@example.com"));
+        assertIndexed(() -> userRepository.findExistingUsernames(List.of("usuario1", "usuario2", "nuevo")));
+        assertIndexed(() -> userRepository.findExistingEmails(List.of("usuario1@example.com", "nuevo@example.com")));
+        assertIndexed(() -> userRepository.findIdsByEnabledFalse());
+    }
+
+    @Test
+    void jdbcRepositories_queries_shouldUseIndexes() {
+        assertIndexed(() -> outboxRepository.findAfter(0L, 500));
+        assertIndexed(() -> outboxRepository.maxId());
+        assertIndexed(() -> outboxRepository.minId());
+        assertIndexed(() -> outboxRepository.deleteOlderThan(Instant.now().minus(1, ChronoUnit.DAYS)));
+        assertIndexed(() -> securityChangeRepository.findWithin(Duration.ofMinutes(1)));
+        assertIndexed(() -> securityChangeRepository.deleteOlderThan(Duration.ofHours(1)));
+        assertIndexed(() -> stockHistoryRepository.find(product.getId(), Resolution.RAW, 0L));
+        assertIndexed(() -> stockHistoryRepository.findRange(product.getId(), Resolution.HOUR, 0L, 10 * 86400L));
+        assertIndexed(() -> stockHistoryRepository.findUnsealedRawBefore(86400L));
+        assertIndexed(() -> stockHistoryRepository.saveIfCount(new StoredSegment(product.getId(), Resolution.HOUR,
+                0L, warehouse.getId(), 1, true, new byte[]{0, 20, 20, 20}), 1));
+        assertIndexed(() -> stockHistoryRepository.deleteSealedBefore(Resolution.RAW, 86400L));
+        Instant since = Instant.now().minus(90, ChronoUnit.DAYS);
+        assertIndexed(() -> reorderRepository.productIdRange());
+        assertIndexed(() -> reorderRepository.forEachStock(product.getId(), product.getId() + 100, rs -> { }));
+        assertIndexed(() -> reorderRepository.forEachExit(product.getId(), product.getId() + 100, since, Instant.now(), rs -> { }));
+        assertIndexed(() -> reorderRepository.findUnfinishedRun());
+        assertIndexed(() -> reorderRepository.completedChunks(1L));
+        assertIndexed(() -> reorderRepository.findSuggestion(product.getId()));
+        assertIndexed(() -> reorderRepository.findUnfinishedRun(Instant.now()));
+        assertIndexed(() -> transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            ReorderRun run = reorderRepository.startRun(now, now, now, 90, 1L, 100L, 10);
+            int stale = reorderRepository.finishRun(run.id(), now);
+            status.setRollbackOnly();
+            return stale;
+        }));
+        Instant now = Instant.now();
+        Instant later = now.plusSeconds(30);
+        assertIndexed(() -> jobLeaseRepository.heartbeat("nodo-1", now));
+        assertIndexed(() -> jobLeaseRepository.liveNodes(now.minusSeconds(30)));
+        assertIndexed(() -> jobLeaseRepository.deleteNodesBefore(now.minus(1, ChronoUnit.DAYS)));
+        assertIndexed(() -> jobLeaseRepository.deleteNode("nodo-1"));
+        assertIndexed(() -> jobLeaseRepository.ensurePartitions("plan", 2, now, now));
+        assertIndexed(() -> jobLeaseRepository.findDue("plan", now, now));
+        assertIndexed(() -> jobLeaseRepository.tryAcquire("plan", 0, "nodo-1", later, later.plusSeconds(30), later));
+        assertIndexed(() -> jobLeaseRepository.renew("plan", 0, 1L, later));
+        assertIndexed(() -> jobLeaseRepository.release("plan", 0, 1L, later, later.plusSeconds(3600)));
+        assertIndexed(() -> jobLeaseRepository.release("plan", 0, 1L, later, null));
+        assertIndexed(() -> transactionTemplate.execute(status -> jobLeaseRepository.lockIfCurrent("plan", 0, 1L)));
+        assertIndexed(() -> cycleCountRepository.forEachProduct(product.getId(), product.getId() + 100, rs -> { }));
+        assertIndexed(() -> transactionTemplate.execute(status -> {
+            long countId = cycleCountRepository.createCount("conteo.csv", "admin", now);
+            VarianceBatch batch = new VarianceBatch(2);
+            batch.add(product.getId(), warehouse.getId(), VarianceKind.QUANTITY, 100, 90);
+            batch.add(product.getId() + 1, warehouse.getId(), VarianceKind.UNKNOWN_PRODUCT, -1, 5);
+            cycleCountRepository.insertLines(countId, batch);
+            cycleCountRepository.finishReconciliation(countId, 2, 2, 0, 1, 1, 0, -10, 10, 1000);
+            cycleCountRepository.findCount(countId);
+            cycleCountRepository.findLines(countId, 0L, 0L, 500);
+            cycleCountRepository.claimForApply(countId, "admin", now);
+            cycleCountRepository.lockCount(countId);
+            cycleCountRepository.findPending(countId, batch, 1000);
+            cycleCountRepository.compareAndSetQuantities(batch);
+            cycleCountRepository.markLines(countId, batch, new boolean[]{true});
+            cycleCountRepository.addApplied(countId, 1, 0);
+            cycleCountRepository.finishApply(countId, now);
+            cycleCountRepository.markFailed(countId);
+            status.setRollbackOnly();
+            return countId;
+        }));
+        // insertUsers relee los IDs por username después del INSERT por lotes
+        assertIndexed(() -> transactionTemplate.execute(status -> {
+            User user = new User(null, "lote1", "password", "lote1@example.com", true, Set.of());
+            Long id = userBatchRepository.insertUsers(List.of(user)).get("lote1");
+            status.setRollbackOnly();
+            return id;
+        }));
+    }
+
+    @Test
+    void reactiveCatalog_filters_shouldUseIndexes() {
+        // ReactiveCatalogRepository usa R2DBC, sin perfil embebido: se explican las mismas sentencias por JDBC
+        String columns = "SELECT id, name, description, price, quantity, category, warehouse_id FROM products";
+        assertIndexed(() -> jdbcTemplate.queryForList(columns + " WHERE id = ?", product.getId()));
+        assertIndexed(() -> jdbcTemplate.queryForList(columns + " WHERE category = ? ORDER BY id", "Categoría 3"));
+        assertIndexed(() -> jdbcTemplate.queryForList(columns + " WHERE warehouse_id = ? ORDER BY id", warehouse.getId()));
+    }
+
+    @Test
+    void findAll_queries_shouldScanOnlyTheDrivingTable() {
+        // Listados completos: recorrer la tabla principal es lo esperado, pero cada JOIN debe ir por índice
+        assertScansOnly("products", () -> productRepository.findAll());
+        assertScansOnly("warehouses", () -> warehouseRepository.findAll());
+        assertScansOnly("app_users", () -> userRepository.findAll());
+        assertScansOnly("app_users", () -> transactionTemplate.execute(status -> {
+            try (var rows = userRepository.streamUsernamesAndEmails()) {
+                return rows.count();
+            }
+        }));
+    }
+
+    // --- Helpers ---
+
+    private void assertIndexed(Runnable action) {
+        for (String plan : explain(action)) {
+            assertTrue(scannedTables(plan).isEmpty(), () -> "Recorrido completo de tabla en el plan:\n" + plan);
+        }
+    }
+
+    private void assertScansOnly(String table, Runnable action) {
+        for (String plan : explain(action)) {
+            List<String> scanned = scannedTables(plan);
+            assertTrue(scanned.isEmpty() || scanned.equals(List.of("public." + table)),
+                    () -> "Solo se esperaba recorrer " + table + " en el plan:\n" + plan);
+        }
+    }
+
+    // Ejecuta la acción y devuelve el plan de cada SELECT/UPDATE/DELETE que emitió
+    private List<String> explain(Runnable action) {
+        capture.statements.clear();
+        capture.thread = Thread.currentThread();
+        action.run();
+        List<CapturedStatement> statements = List.copyOf(capture.statements);
+        List<String> plans = new ArrayList<>();
+        for (CapturedStatement statement : statements) {
+            String sql = statement.sql().trim();
+            String verb = sql.substring(0, sql.indexOf(' ')).toLowerCase(Locale.ROOT);
+            if (!verb.equals("select") && !verb.equals("update") && !verb.equals("delete")) {
+                continue;
+            }
+            plans.add(jdbcTemplate.query("EXPLAIN " + sql, ps -> bind(ps, statement.parameters()),
+                    rs -> rs.next() ? rs.getString(1) : ""));
+        }
+        assertFalse(plans.isEmpty(), "La acción no emitió consultas");
+        return plans;
+    }
+
+    // Repite sobre el EXPLAIN las mismas llamadas setXxx(...) que hizo el repositorio
+    private static void bind(PreparedStatement ps, List<ParameterSetOperation> parameters) {
+        for (ParameterSetOperation parameter : parameters) {
+            try {
+                parameter.getMethod().invoke(ps, parameter.getArgs());
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("No se pudo ligar el parámetro " + parameter.getMethod(), e);
+            }
+        }
+    }
+
+    private static List<String> scannedTables(String plan) {
+        List<String> tables = new ArrayList<>();
+        Matcher matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+        return tables;
+    }
+
+    private record CapturedStatement(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    private static class StatementCapture implements QueryExecutionListener {
+
+        final List<CapturedStatement> statements = new CopyOnWriteArrayList<>();
+        // Solo las sentencias de la acción: los pollers de fondo (versiones del catálogo, cambios de
+        // seguridad, relay del outbox) consultan la base desde sus propios hilos en cualquier momento
+        volatile Thread thread;
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (Thread.currentThread() != thread) {
+                return;
+            }
+            for (QueryInfo query : queryInfoList) {
+                List<List<ParameterSetOperation>> parameters = query.getParametersList();
+                statements.add(new CapturedStatement(query.getQuery(),
+                        parameters.isEmpty() ? List.of() : List.copyOf(parameters.get(0))));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tuempresa.gestioninventario.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bases creadas por ddl-auto=update antes de las migraciones (H2 en modo MariaDB), marcadas en la versión 1
+// como en producción (baseline-on-migrate): tras migrar deben quedar con el mismo esquema que una base nueva.
+class SchemaMigrationTest {
+
+    // Lo que generaba Hibernate con las entidades originales
+    private static final List<String> ORIGINAL_SCHEMA = List.of(
+            "CREATE TABLE warehouses (id BIGINT NOT NULL AUTO_INCREMENT, location_details VARCHAR(255),"
+                    + " name VARCHAR(255) NOT NULL, PRIMARY KEY (id), CONSTRAINT uk_warehouses UNIQUE (name))",
+            "CREATE TABLE products (id BIGINT NOT NULL AUTO_INCREMENT, category VARCHAR(255), description VARCHAR(255),"
+                    + " name VARCHAR(255) NOT NULL, price DECIMAL(10, 2) NOT NULL, quantity INTEGER NOT NULL,"
+                    + " warehouse_id BIGINT, PRIMARY KEY (id),"
+                    + " CONSTRAINT fk_products FOREIGN KEY (warehouse_id) REFERENCES warehouses (id))",
+            "CREATE TABLE roles (id BIGINT NOT NULL AUTO_INCREMENT, name VARCHAR(255) NOT NULL, PRIMARY KEY (id),"
+                    + " CONSTRAINT uk_roles UNIQUE (name))",
+            "CREATE TABLE app_users (id BIGINT NOT NULL AUTO_INCREMENT, email VARCHAR(255), enabled BIT NOT NULL,"
+                    + " password VARCHAR(255) NOT NULL, username VARCHAR(255) NOT NULL, PRIMARY KEY (id),"
+                    + " CONSTRAINT uk_app_users UNIQUE (username))",
+            "CREATE TABLE user_roles (user_id BIGINT NOT NULL, role_id BIGINT NOT NULL, PRIMARY KEY (role_id, user_id),"
+                    + " CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES app_users (id),"
+                    + " CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id))");
+
+    // Lo que agregaba después, con permisos, auditoría y outbox (change_type como ENUM nativo)
+    private static final List<String> LATER_ENTITIES = List.of(
+            "ALTER TABLE roles ADD COLUMN permission_mask BIGINT DEFAULT 0 NOT NULL",
+            "CREATE TABLE audit_log (id BIGINT NOT NULL AUTO_INCREMENT, action VARCHAR(40) NOT NULL,"
+                    + " actor VARCHAR(100) NOT NULL, amount BIGINT, detail VARCHAR(255), entity_id BIGINT,"
+                    + " entity_type VARCHAR(20) NOT NULL, occurred_at DATETIME(6) NOT NULL, PRIMARY KEY (id))",
+            "CREATE INDEX idx_audit_log_entity ON audit_log (entity_type, entity_id)",
+            "CREATE INDEX idx_audit_log_occurred_at ON audit_log (occurred_at)",
+            "CREATE TABLE product_outbox (id BIGINT NOT NULL AUTO_INCREMENT, category VARCHAR(255),"
+                    + " change_type ENUM('CREATED', 'UPDATED', 'DELETED') NOT NULL, occurred_at DATETIME(6) NOT NULL,"
+                    + " price DECIMAL(10, 2), product_id BIGINT NOT NULL, quantity INTEGER, warehouse_id BIGINT,"
+                    + " PRIMARY KEY (id))",
+            "CREATE INDEX idx_product_outbox_occurred_at ON product_outbox (occurred_at)");
+
+    private final List<JdbcTemplate> databases = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(database -> database.execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    void migrate_fromTheOriginalSchema_shouldMatchAFreshDatabase() {
+        JdbcTemplate existing = database("schema_original", ORIGINAL_SCHEMA);
+        existing.update("INSERT INTO roles (id, name) VALUES (1, 'ROLE_ADMIN')");
+
+        migrateFromBaseline(existing);
+
+        assertEquals(columns(freshDatabase()), columns(existing));
+        assertEquals(0L, existing.queryForObject("SELECT permission_mask FROM roles WHERE id = 1", Long.class));
+    }
+
+    @Test
+    void migrate_fromASchemaWithTheLaterEntities_shouldMatchAFreshDatabase() {
+        List<String> statements = new ArrayList<>(ORIGINAL_SCHEMA);
+        statements.addAll(LATER_ENTITIES);
+        JdbcTemplate existing = database("schema_later", statements);
+        existing.update("INSERT INTO product_outbox (change_type, occurred_at, product_id) VALUES ('UPDATED', NOW(), 10)");
+
+        migrateFromBaseline(existing);
+
+        assertEquals(columns(freshDatabase()), columns(existing));
+        assertEquals("UPDATED", existing.queryForObject("SELECT change_type FROM product_outbox", String.class));
+    }
+
+    @Test
+    void migrate_withDuplicatedEmails_shouldKeepEachEmailOnTheOldestUserAndMakeItUnique() {
+        JdbcTemplate existing = database("schema_emails", ORIGINAL_SCHEMA);
+        existing.update("INSERT INTO app_users (id, email, enabled, password, username) VALUES"
+                + " (1, 'ana@example.com', TRUE, 'x', 'ana'), (2, 'ana@example.com', TRUE, 'x', 'ana2'),"
+                + " (3, 'ana@example.com', TRUE, 'x', 'ana3'), (4, 'luis@example.com', TRUE, 'x', 'luis')");
+
+        migrateFromBaseline(existing);
+
+        assertEquals(List.of("ana@example.com", "luis@example.com"),
+                existing.queryForList("SELECT email FROM app_users WHERE email IS NOT NULL ORDER BY id", String.class));
+        assertEquals(List.of(2L, 3L), existing.queryForList("SELECT id FROM app_users WHERE email IS NULL ORDER BY id", Long.class));
+        // UserService reconoce la restricción por su nombre en el mensaje del driver
+        DuplicateKeyException duplicate = assertThrows(DuplicateKeyException.class, () -> existing.update(
+                "INSERT INTO app_users (email, enabled, password, username) VALUES ('luis@example.com', TRUE, 'x', 'luis2')"));
+        assertTrue(duplicate.getMostSpecificCause().getMessage().toLowerCase().contains("uk_app_users_email"));
+    }
+
+    private void migrateFromBaseline(JdbcTemplate database) {
+        Flyway flyway = Flyway.configure()
+                .dataSource(database.getDataSource())
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        MigrateResult result = flyway.migrate();
+        // V1 no corre (la base ya lo tiene); desde V1_1 en adelante, todas
+        assertEquals("1.1", result.migrations.get(0).version);
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    private JdbcTemplate freshDatabase() {
+        JdbcTemplate fresh = database("schema_fresh", List.of());
+        Flyway.configure().dataSource(fresh.getDataSource()).locations("classpath:db/migration").load().migrate();
+        return fresh;
+    }
+
+    private JdbcTemplate database(String name, List<String> statements) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate database = new JdbcTemplate(dataSource);
+        databases.add(database);
+        statements.forEach(database::execute);
+        return database;
+    }
+
+    // Tipo, largo y nulabilidad de cada columna (sin la tabla de Flyway)
+    private static List<Map<String, Object>> columns(JdbcTemplate database) {
+        return database.queryForList("SELECT table_name, column_name, data_type, character_maximum_length,"
+                + " numeric_precision, numeric_scale, is_nullable FROM information_schema.columns"
+                + " WHERE table_schema = 'public' AND table_name <> 'flyway_schema_history'"
+                + " ORDER BY table_name, column_name");
+    }
+}
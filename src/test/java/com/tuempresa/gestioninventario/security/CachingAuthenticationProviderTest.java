@@ -0,0 +1,121 @@
+package com.tuempresa.gestioninventario.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private AuthenticationCache authenticationCache;
+    private ExecutorService hashingExecutor;
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        authenticationCache = new AuthenticationCache(Duration.ofMinutes(1), 100);
+        hashingExecutor = Executors.newSingleThreadExecutor();
+        provider = new CachingAuthenticationProvider(delegate, authenticationCache, hashingExecutor, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @Test
+    void authenticate_twiceWithSameCredentials_shouldVerifyOnlyOnce() {
+        when(delegate.authenticate(any())).thenReturn(authenticated("john.doe"));
+
+        Authentication first = provider.authenticate(credentials("john.doe", "password123"));
+        Authentication second = provider.authenticate(credentials("john.doe", "password123"));
+
+        assertTrue(first.isAuthenticated());
+        assertTrue(second.isAuthenticated());
+        assertEquals("john.doe", second.getName());
+        assertTrue(AuthorityUtils.authorityListToSet(second.getAuthorities()).contains("ROLE_ADMIN"));
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_withDifferentPassword_shouldNotUseCachedEntry() {
+        when(delegate.authenticate(any()))
+                .thenReturn(authenticated("john.doe"))
+                .thenThrow(new BadCredentialsException("Credenciales inválidas"));
+
+        provider.authenticate(credentials("john.doe", "password123"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("john.doe", "otraClave")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_afterEvict_shouldVerifyAgain() {
+        when(delegate.authenticate(any())).thenReturn(authenticated("john.doe"));
+
+        provider.authenticate(credentials("john.doe", "password123"));
+        authenticationCache.evict("john.doe");
+        provider.authenticate(credentials("john.doe", "password123"));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_whenHashingPoolIsSaturated_shouldRejectWithoutVerifying() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        try {
+            saturated.execute(() -> awaitQuietly(release)); // Ocupa el único hilo
+            saturated.execute(() -> awaitQuietly(release)); // Ocupa la cola
+            CachingAuthenticationProvider busyProvider =
+                    new CachingAuthenticationProvider(delegate, authenticationCache, saturated, Duration.ofSeconds(5));
+
+            assertThrows(HashingCapacityExceededException.class,
+                    () -> busyProvider.authenticate(credentials("john.doe", "password123")));
+            verify(delegate, never()).authenticate(any());
+        } finally {
+            release.countDown();
+            saturated.shutdownNow();
+        }
+    }
+
+    private static UsernamePasswordAuthenticationToken credentials(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+
+    private static Authentication authenticated(String username) {
+        return UsernamePasswordAuthenticationToken.authenticated(username, null,
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
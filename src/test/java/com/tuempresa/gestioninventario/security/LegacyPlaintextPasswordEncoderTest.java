@@ -0,0 +1,36 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.config.SecurityConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacyPlaintextPasswordEncoderTest {
+
+    @Test
+    void passwordEncoder_withLegacyPlaintext_shouldMatchOldPasswordsAndAskForTheirUpgrade() {
+        PasswordEncoder encoder = new SecurityConfig().passwordEncoder(4, true);
+
+        assertTrue(encoder.matches("secreto", "secreto"));
+        assertFalse(encoder.matches("secreto", "otro"));
+        assertTrue(encoder.upgradeEncoding("secreto"));
+
+        String hash = encoder.encode("secreto");
+        assertTrue(hash.startsWith("{bcrypt}"));
+        assertTrue(encoder.matches("secreto", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void passwordEncoder_withoutLegacyPlaintext_shouldRejectUnprefixedPasswords() {
+        PasswordEncoder encoder = new SecurityConfig().passwordEncoder(4, false);
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.matches("secreto", "secreto"));
+    }
+
+    @Test
+    void encode_shouldNeverProducePlaintext() {
+        assertThrows(UnsupportedOperationException.class, () -> new LegacyPlaintextPasswordEncoder().encode("secreto"));
+    }
+}
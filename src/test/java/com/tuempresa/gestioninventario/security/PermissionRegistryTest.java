@@ -0,0 +1,139 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.tuempresa.gestioninventario.security.Permission.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+    @Mock
+    private SecurityChangeRepository changeRepository;
+
+    private PermissionRegistry permissionRegistry;
+    private Role supervisor;
+    private Role employee;
+
+    @BeforeEach
+    void setUp() {
+        supervisor = role(1L, "ROLE_SUPERVISOR_TURNO", EnumSet.of(PRODUCT_READ, PRODUCT_WRITE));
+        employee = role(2L, "ROLE_EMPLEADO_ALMACEN", EnumSet.of(PRODUCT_READ, STOCK_MOVE));
+        when(roleRepository.findAll()).thenReturn(List.of(supervisor, employee));
+        permissionRegistry = new PermissionRegistry(roleRepository, changeRepository, 100);
+        permissionRegistry.reload();
+    }
+
+    @Test
+    void maskOf_shouldBeTheUnionOfTheUserRoles() {
+        Authentication user = tokenUser(10L, "ROLE_SUPERVISOR_TURNO", "ROLE_EMPLEADO_ALMACEN");
+
+        assertEquals(Permission.maskOf(EnumSet.of(PRODUCT_READ, PRODUCT_WRITE, STOCK_MOVE)), permissionRegistry.maskOf(user));
+        assertTrue(permissionRegistry.hasPermission(user, STOCK_MOVE));
+        assertFalse(permissionRegistry.hasPermission(user, USER_WRITE));
+    }
+
+    @Test
+    void maskOf_withUnknownRole_shouldGrantNothing() {
+        assertEquals(0L, permissionRegistry.maskOf(tokenUser(10L, "ROLE_INEXISTENTE")));
+    }
+
+    @Test
+    void roleSaved_shouldRecomputeCachedUsersWithThatRole() {
+        Authentication supervisorUser = tokenUser(10L, "ROLE_SUPERVISOR_TURNO");
+        Authentication employeeUser = tokenUser(11L, "ROLE_EMPLEADO_ALMACEN");
+        permissionRegistry.maskOf(supervisorUser);
+        permissionRegistry.maskOf(employeeUser);
+
+        supervisor.setPermissions(EnumSet.of(PRODUCT_READ, WAREHOUSE_WRITE));
+        permissionRegistry.roleSaved("ROLE_SUPERVISOR_TURNO", supervisor);
+
+        assertTrue(permissionRegistry.hasPermission(supervisorUser, WAREHOUSE_WRITE));
+        assertFalse(permissionRegistry.hasPermission(supervisorUser, PRODUCT_WRITE));
+        assertTrue(permissionRegistry.hasPermission(employeeUser, STOCK_MOVE));
+    }
+
+    @Test
+    void roleSaved_withRename_shouldKeepPermissionsOfCachedUsers() {
+        Authentication supervisorUser = tokenUser(10L, "ROLE_SUPERVISOR_TURNO");
+        permissionRegistry.maskOf(supervisorUser);
+
+        supervisor.setName("ROLE_SUPERVISOR_NOCHE");
+        permissionRegistry.roleSaved("ROLE_SUPERVISOR_TURNO", supervisor);
+        supervisor.setPermissions(EnumSet.of(METRICS_READ));
+        permissionRegistry.roleSaved("ROLE_SUPERVISOR_NOCHE", supervisor);
+
+        assertTrue(permissionRegistry.hasPermission(supervisorUser, METRICS_READ));
+    }
+
+    @Test
+    void roleDeleted_shouldRemoveItsPermissionsFromCachedUsers() {
+        Authentication user = tokenUser(10L, "ROLE_SUPERVISOR_TURNO", "ROLE_EMPLEADO_ALMACEN");
+        permissionRegistry.maskOf(user);
+
+        permissionRegistry.roleDeleted("ROLE_SUPERVISOR_TURNO");
+
+        assertFalse(permissionRegistry.hasPermission(user, PRODUCT_WRITE));
+        assertTrue(permissionRegistry.hasPermission(user, STOCK_MOVE));
+    }
+
+    @Test
+    void userRolesChanged_shouldReplaceTheCachedMask() {
+        Authentication user = tokenUser(10L, "ROLE_EMPLEADO_ALMACEN");
+        permissionRegistry.maskOf(user);
+
+        permissionRegistry.userRolesChanged(10L, Set.of(supervisor));
+
+        Authentication updated = tokenUser(10L, "ROLE_SUPERVISOR_TURNO");
+        assertTrue(permissionRegistry.hasPermission(updated, PRODUCT_WRITE));
+        assertFalse(permissionRegistry.hasPermission(updated, STOCK_MOVE));
+        verify(changeRepository).append(10L);
+    }
+
+    // El usuario perdió un rol en otra instancia: la unión cacheada no puede ganarle a las authorities actuales
+    @Test
+    void maskOf_withRolesOtherThanTheCachedOnes_shouldRecompute() {
+        permissionRegistry.maskOf(tokenUser(10L, "ROLE_SUPERVISOR_TURNO", "ROLE_EMPLEADO_ALMACEN"));
+
+        Authentication reduced = tokenUser(10L, "ROLE_EMPLEADO_ALMACEN");
+
+        assertFalse(permissionRegistry.hasPermission(reduced, PRODUCT_WRITE));
+        assertTrue(permissionRegistry.hasPermission(reduced, STOCK_MOVE));
+    }
+
+    @Test
+    void roleSaved_shouldRecordTheChangeForOtherInstances() {
+        permissionRegistry.roleSaved(null, supervisor);
+        permissionRegistry.roleDeleted("ROLE_EMPLEADO_ALMACEN");
+
+        verify(changeRepository, times(2)).append(null);
+    }
+
+    private static Role role(Long id, String name, Set<Permission> permissions) {
+        Role role = new Role(id, name);
+        role.setPermissions(permissions);
+        return role;
+    }
+
+    private static Authentication tokenUser(Long userId, String... roles) {
+        return UsernamePasswordAuthenticationToken.authenticated(new TokenPrincipal(userId, "usuario" + userId), null,
+                AuthorityUtils.createAuthorityList(roles));
+    }
+}
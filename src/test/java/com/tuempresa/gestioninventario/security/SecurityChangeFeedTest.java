@@ -0,0 +1,113 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Contra H2 en memoria (modo MariaDB) con las migraciones de producción; otra instancia = filas escritas a mano
+@ExtendWith(MockitoExtension.class)
+class SecurityChangeFeedTest {
+
+    @Mock
+    private PermissionRegistry permissionRegistry;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    private JdbcTemplate jdbcTemplate;
+    private SecurityChangeRepository repository;
+    private SecurityChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:security_changes;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new SecurityChangeRepository(jdbcTemplate);
+        feed = new SecurityChangeFeed(repository, permissionRegistry, tokenRevocationList, Duration.ofSeconds(2),
+                Duration.ofMinutes(1), Duration.ofHours(1), Duration.ofMinutes(15));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void poll_shouldApplyOnlyChangesNotSeenBefore() {
+        repository.append(5L); // Anterior al arranque: ya está en lo que se cargó
+        assertEquals(0, feed.poll());
+
+        repository.append(7L);
+        repository.append(7L);
+        assertEquals(1, feed.poll());
+        verify(permissionRegistry).evictUser(7L);
+
+        assertEquals(0, feed.poll());
+        verify(permissionRegistry, never()).evictUser(5L);
+        verify(permissionRegistry, never()).reload();
+    }
+
+    @Test
+    void poll_withARoleChange_shouldReloadEveryMask() {
+        feed.poll();
+
+        repository.append(null);
+        repository.append(7L);
+        feed.poll();
+
+        verify(permissionRegistry).reload();
+    }
+
+    @Test
+    void poll_withARevocationFromAnotherInstance_shouldRevokeWithItsInstant() {
+        feed.poll();
+
+        repository.appendRevocation(7L, 1_714_557_600L);
+        feed.poll();
+        feed.poll();
+
+        verify(tokenRevocationList, times(1)).revokeAt(7L, 1_714_557_600L);
+        verify(permissionRegistry).evictUser(7L);
+    }
+
+    // Un token emitido antes del arranque puede seguir vigente: la primera lectura cubre la vida del token
+    @Test
+    void poll_first_shouldApplyTheRevocationsOfTheTokenLifetime() {
+        jdbcTemplate.update("INSERT INTO security_change (occurred_at, user_id, revoked_at)"
+                + " VALUES (TIMESTAMPADD(MINUTE, -10, LOCALTIMESTAMP(6)), 7, 100)");
+        jdbcTemplate.update("INSERT INTO security_change (occurred_at, user_id)"
+                + " VALUES (TIMESTAMPADD(MINUTE, -10, LOCALTIMESTAMP(6)), 8)");
+
+        assertEquals(0, feed.poll());
+
+        verify(tokenRevocationList).revokeAt(7L, 100L);
+        verify(permissionRegistry, never()).evictUser(anyLong());
+    }
+
+    // Fuera de la ventana no se relee; la retención borra lo viejo
+    @Test
+    void findWithinAndDeleteOlderThan_shouldUseTheDatabaseClock() {
+        repository.append(7L);
+        jdbcTemplate.update("INSERT INTO security_change (occurred_at, user_id)"
+                + " VALUES (TIMESTAMPADD(HOUR, -2, LOCALTIMESTAMP(6)), 8)");
+
+        assertEquals(1, repository.findWithin(Duration.ofMinutes(1)).size());
+        assertEquals(7L, repository.findWithin(Duration.ofMinutes(1)).get(0).userId());
+        assertEquals(1, repository.deleteOlderThan(Duration.ofHours(1)));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM security_change", Integer.class));
+    }
+}
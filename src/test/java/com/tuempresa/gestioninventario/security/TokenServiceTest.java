@@ -0,0 +1,168 @@
+package com.tuempresa.gestioninventario.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tuempresa.gestioninventario.repository.SecurityChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private MutableClock clock;
+    private SecurityChangeRepository changeRepository;
+    private TokenRevocationList revocationList;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+        changeRepository = mock(SecurityChangeRepository.class);
+        revocationList = new TokenRevocationList(null, changeRepository, clock, Duration.ofMinutes(15));
+        tokenService = new TokenService(new ObjectMapper(), revocationList, clock,
+                Duration.ofMinutes(15), Duration.ofHours(1), SECRET);
+    }
+
+    @Test
+    void verify_withIssuedToken_shouldReturnClaims() {
+        String token = tokenService.issue(7L, "john.doe", List.of("ROLE_ADMIN")).token();
+
+        TokenService.TokenClaims claims = tokenService.verify(token);
+
+        assertEquals(7L, claims.uid());
+        assertEquals("john.doe", claims.sub());
+        assertEquals(List.of("ROLE_ADMIN"), claims.roles());
+    }
+
+    @Test
+    void verify_withTamperedPayload_shouldThrowException() {
+        String token = tokenService.issue(7L, "john.doe", List.of("ROLE_EMPLEADO_ALMACEN")).token();
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(parts[1])).replace("ROLE_EMPLEADO_ALMACEN", "ROLE_ADMIN").getBytes());
+
+        assertThrows(BadCredentialsException.class,
+                () -> tokenService.verify(parts[0] + "." + forgedPayload + "." + parts[2]));
+    }
+
+    @Test
+    void verify_afterExpiration_shouldThrowException() {
+        String token = tokenService.issue(7L, "john.doe", List.of()).token();
+
+        clock.advance(Duration.ofMinutes(15));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(token));
+    }
+
+    @Test
+    void verify_withPreviousRotationKey_shouldStillAcceptToken() {
+        clock.advance(Duration.ofMinutes(55)); // 10:55, período de 10:00
+        String token = tokenService.issue(7L, "john.doe", List.of()).token();
+
+        clock.advance(Duration.ofMinutes(10)); // 11:05, ya rotó la clave
+
+        assertEquals(7L, tokenService.verify(token).uid());
+    }
+
+    @Test
+    void verify_withTokenFromAnotherSecret_shouldThrowException() {
+        byte[] otherSecret = new byte[32];
+        otherSecret[0] = 1;
+        TokenService otherInstance = new TokenService(new ObjectMapper(), revocationList, clock,
+                Duration.ofMinutes(15), Duration.ofHours(1), Base64.getEncoder().encodeToString(otherSecret));
+        String token = otherInstance.issue(7L, "john.doe", List.of()).token();
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(token));
+    }
+
+    @Test
+    void verify_afterRevocation_shouldRejectOnlyOlderTokens() {
+        String before = tokenService.issue(7L, "john.doe", List.of()).token();
+        String otherUser = tokenService.issue(8L, "jane.smith", List.of()).token();
+
+        clock.advance(Duration.ofSeconds(1));
+        revocationList.revoke(7L);
+        clock.advance(Duration.ofSeconds(1));
+        String after = tokenService.issue(7L, "john.doe", List.of()).token();
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(before));
+        assertEquals(7L, tokenService.verify(after).uid());
+        assertEquals(8L, tokenService.verify(otherUser).uid());
+    }
+
+    @Test
+    void revoke_shouldRecordTheRevocationInstantForTheOtherInstances() {
+        revocationList.revoke(7L);
+
+        verify(changeRepository).appendRevocation(7L, Instant.parse("2024-05-01T10:00:00Z").getEpochSecond());
+    }
+
+    // Lo que llega de otra instancia rechaza los tokens emitidos hasta su instante, no los posteriores
+    @Test
+    void revokeAt_shouldUseTheGivenInstantAndNeverMoveItBack() {
+        long revokedAt = clock.millis() / 1000;
+        clock.advance(Duration.ofSeconds(2));
+        String after = tokenService.issue(7L, "john.doe", List.of()).token();
+
+        revocationList.revokeAt(7L, revokedAt);
+        revocationList.revokeAt(7L, revokedAt - 60);
+
+        assertTrue(revocationList.isRevoked(7L, revokedAt));
+        assertEquals(7L, tokenService.verify(after).uid());
+        verifyNoInteractions(changeRepository);
+    }
+
+    @Test
+    void revoke_shouldDropEntriesOlderThanTokenLifetime() {
+        revocationList.revoke(1L);
+        clock.advance(Duration.ofMinutes(16));
+        revocationList.revoke(2L);
+
+        assertEquals(1, revocationList.size());
+    }
+
+    @Test
+    void constructor_whenTtlExceedsRotation_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenService(new ObjectMapper(), revocationList, clock,
+                Duration.ofHours(2), Duration.ofHours(1), SECRET));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
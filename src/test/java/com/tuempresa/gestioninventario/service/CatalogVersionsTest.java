@@ -0,0 +1,183 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.dto.StockChangeEvent;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
+import com.tuempresa.gestioninventario.outbox.StockChangeRelay;
+import com.tuempresa.gestioninventario.repository.CatalogVersionRepository;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogVersionsTest {
+
+    private CatalogVersions catalogVersions;
+
+    @BeforeEach
+    void setUp() {
+        catalogVersions = new CatalogVersions();
+    }
+
+    @Test
+    void productChanged_shouldChangeItemAndCollectionETags() {
+        String list = catalogVersions.productsETag();
+        String product1 = catalogVersions.productETag(1L);
+        String product2 = catalogVersions.productETag(2L);
+
+        catalogVersions.productChanged(1L);
+
+        assertNotEquals(list, catalogVersions.productsETag());
+        assertNotEquals(product1, catalogVersions.productETag(1L));
+        assertEquals(product2, catalogVersions.productETag(2L));
+    }
+
+    @Test
+    void warehouseChanged_shouldInvalidateEveryProduct() {
+        String product = catalogVersions.productETag(1L);
+        String products = catalogVersions.productsETag();
+        String warehouse = catalogVersions.warehouseETag(5L);
+
+        catalogVersions.warehouseChanged(5L);
+
+        assertNotEquals(product, catalogVersions.productETag(1L));
+        assertNotEquals(products, catalogVersions.productsETag());
+        assertNotEquals(warehouse, catalogVersions.warehouseETag(5L));
+    }
+
+    @Test
+    void productRemoved_shouldNotReuseAPreviousETag() {
+        catalogVersions.productChanged(1L);
+        String beforeDelete = catalogVersions.productETag(1L);
+
+        catalogVersions.productRemoved(1L);
+
+        assertNotEquals(beforeDelete, catalogVersions.productETag(1L));
+    }
+
+    // El 404 de un producto borrado no puede validar un ETag emitido antes (sería un 304 sobre el borrado)
+    @Test
+    void productRemoved_neverModified_shouldChangeItsETag() {
+        String beforeDelete = catalogVersions.productETag(3L);
+
+        catalogVersions.productRemoved(3L);
+
+        assertNotEquals(beforeDelete, catalogVersions.productETag(3L));
+    }
+
+    @Test
+    void productRemoved_afterAnInvalidationOfEveryProduct_shouldNotReuseAPreviousETag() {
+        catalogVersions.productChanged(1L);
+        String modified = catalogVersions.productETag(1L);
+        catalogVersions.productsInvalidated();
+        String invalidated = catalogVersions.productETag(1L);
+
+        catalogVersions.productRemoved(1L);
+
+        assertNotEquals(modified, catalogVersions.productETag(1L));
+        assertNotEquals(invalidated, catalogVersions.productETag(1L));
+    }
+
+    @Test
+    void eTags_shouldBeStrongAndQuoted() {
+        String eTag = catalogVersions.warehousesETag();
+        assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+        assertFalse(eTag.startsWith("W/"));
+    }
+
+    // --- Escrituras de otras instancias ---
+
+    @Test
+    void remoteProductsChanged_shouldInvalidateOnlyTheChangedProducts() {
+        String product1 = catalogVersions.productETag(1L);
+        String product2 = catalogVersions.productETag(2L);
+        String products = catalogVersions.productsETag();
+
+        catalogVersions.remoteProductsChanged(List.of(event(ChangeType.UPDATED, 1L)));
+
+        assertNotEquals(product1, catalogVersions.productETag(1L));
+        assertEquals(product2, catalogVersions.productETag(2L));
+        assertNotEquals(products, catalogVersions.productsETag());
+
+        product1 = catalogVersions.productETag(1L);
+        catalogVersions.remoteProductsChanged(List.of(event(ChangeType.DELETED, 1L)));
+        assertNotEquals(product1, catalogVersions.productETag(1L));
+        // Borrado en otra instancia sin haberse modificado antes
+        product2 = catalogVersions.productETag(2L);
+        catalogVersions.remoteProductsChanged(List.of(event(ChangeType.DELETED, 2L)));
+        assertNotEquals(product2, catalogVersions.productETag(2L));
+    }
+
+    @Test
+    void warehouseChanged_shouldBumpTheSharedVersion() {
+        CatalogVersionRepository repository = mock(CatalogVersionRepository.class);
+        catalogVersions = new CatalogVersions(repository, mock(ProductOutboxRepository.class),
+                mock(StockChangeRelay.class), false, Duration.ZERO);
+
+        catalogVersions.warehouseChanged(5L);
+        catalogVersions.catalogReplaced();
+
+        verify(repository).bump(CatalogVersions.PRODUCTS);
+        verify(repository, times(2)).bump(CatalogVersions.WAREHOUSES);
+    }
+
+    // Otra instancia cambió un almacén (o importó un snapshot): se ve al releer catalog_version
+    @Test
+    void pollShared_shouldInvalidateWhatOtherInstancesChanged() {
+        CatalogVersionRepository repository = mock(CatalogVersionRepository.class);
+        StockChangeRelay relay = mock(StockChangeRelay.class);
+        when(relay.isEnabled()).thenReturn(true);
+        catalogVersions = new CatalogVersions(repository, mock(ProductOutboxRepository.class), relay, false,
+                Duration.ofSeconds(2));
+        when(repository.findAll()).thenReturn(Map.of(CatalogVersions.PRODUCTS, 0L, CatalogVersions.WAREHOUSES, 0L));
+        catalogVersions.pollShared();
+        String product = catalogVersions.productETag(1L);
+        String warehouse = catalogVersions.warehouseETag(5L);
+
+        catalogVersions.pollShared();
+        assertEquals(product, catalogVersions.productETag(1L));
+
+        when(repository.findAll()).thenReturn(Map.of(CatalogVersions.PRODUCTS, 0L, CatalogVersions.WAREHOUSES, 1L));
+        catalogVersions.pollShared();
+        assertNotEquals(product, catalogVersions.productETag(1L));
+        assertNotEquals(warehouse, catalogVersions.warehouseETag(5L));
+
+        product = catalogVersions.productETag(1L);
+        warehouse = catalogVersions.warehouseETag(5L);
+        when(repository.findAll()).thenReturn(Map.of(CatalogVersions.PRODUCTS, 1L, CatalogVersions.WAREHOUSES, 1L));
+        catalogVersions.pollShared();
+        assertNotEquals(product, catalogVersions.productETag(1L));
+        assertEquals(warehouse, catalogVersions.warehouseETag(5L));
+    }
+
+    // Sin relay los cambios de productos de otras instancias se ven por MAX(id) de product_outbox
+    @Test
+    void pollShared_withStockEventsDisabled_shouldWatchTheOutbox() {
+        CatalogVersionRepository repository = mock(CatalogVersionRepository.class);
+        ProductOutboxRepository outboxRepository = mock(ProductOutboxRepository.class);
+        catalogVersions = new CatalogVersions(repository, outboxRepository, mock(StockChangeRelay.class), false,
+                Duration.ofSeconds(2));
+        when(repository.findAll()).thenReturn(Map.of(CatalogVersions.PRODUCTS, 0L, CatalogVersions.WAREHOUSES, 0L));
+        when(outboxRepository.maxId()).thenReturn(10L);
+        catalogVersions.pollShared();
+        String product = catalogVersions.productETag(1L);
+
+        when(outboxRepository.maxId()).thenReturn(11L);
+        catalogVersions.pollShared();
+
+        assertNotEquals(product, catalogVersions.productETag(1L));
+    }
+
+    private static StockChangeEvent event(ChangeType type, long productId) {
+        return new StockChangeEvent(1L, type, productId, null, null, null, null, Instant.EPOCH);
+    }
+}
@@ -1,12 +1,20 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditTrail;
 import com.tuempresa.gestioninventario.entity.Product;
 import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.history.StockHistory;
+import com.tuempresa.gestioninventario.metrics.InventoryMetrics;
+import com.tuempresa.gestioninventario.readmodel.ProductReadModel;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
 import com.tuempresa.gestioninventario.repository.ProductRepository;
+import com.tuempresa.gestioninventario.repository.ReorderRepository;
 import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -30,6 +38,30 @@ class ProductServiceTest {
     @Mock
     private WarehouseRepository warehouseRepository;
 
+    @Mock
+    private InventoryMetrics inventoryMetrics;
+
+    @Mock
+    private CatalogVersions catalogVersions;
+
+    @Mock
+    private AuditTrail auditTrail;
+
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+
+    @Mock
+    private ShardedProductStore shardedStore; // Sin stubs: isEnabled() es false y se usa ProductRepository
+
+    @Mock
+    private StockHistory stockHistory;
+
+    @Mock
+    private ReorderRepository reorderRepository;
+
+    @Mock
+    private ProductReadModel productReadModel; // Sin stubs: find() vacío y se lee del repositorio
+
     @InjectMocks
     private ProductService productService;
 
@@ -81,6 +113,16 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findById(3L);
     }
 
+    @Test
+    void getProductById_whenReadModelHasIt_shouldNotQueryTheRepository() {
+        when(productReadModel.find(1L)).thenReturn(Optional.of(product1));
+
+        Optional<Product> foundProduct = productService.getProductById(1L);
+
+        assertEquals(Optional.of(product1), foundProduct);
+        verifyNoInteractions(productRepository, shardedStore);
+    }
+
     @Test
     void getProductById_whenIdIsInvalid_shouldThrowException() {
         Exception exception = assertThrows(IllegalArgumentException.class, () -> productService.getProductById(null));
@@ -144,6 +186,17 @@ class ProductServiceTest {
         assertEquals("El precio no puede ser nulo o negativo.", exception.getMessage());
     }
 
+    // Con HALF_UP, -0.004 quedaba en 0.00 y pasaba la validación
+    @Test
+    void createProduct_whenPriceIsNegativeBelowOneCent_shouldThrowException() {
+        Product newProduct = new Product("Producto Test", "Descripción", new BigDecimal("-0.004"), 5, "Categoría", null);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> productService.createProduct(newProduct, 1L));
+        assertEquals("El precio no puede ser nulo o negativo.", exception.getMessage());
+        assertEquals(new BigDecimal("10.00"), new Product("Producto Test", "Descripción", new BigDecimal("9.995"), 5,
+                "Categoría", null).getPrice()); // Los positivos siguen con HALF_UP
+    }
+
     @Test
     void createProduct_whenWarehouseNotFound_shouldThrowException() {
         Product newProduct = new Product("Producto Test", "Descripción", new BigDecimal("10.00"), 5, "Categoría", null);
@@ -238,6 +291,12 @@ class ProductServiceTest {
         // Ya no verificamos entryDate
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(product1);
+        verify(inventoryMetrics, times(1)).recordMovement(InventoryMetrics.Direction.ENTRY, 1L, entryQuantity);
+        verify(stockHistory, times(1)).record(1L, 1L, product1.getQuantity());
+        // El modelo de lectura se actualiza antes que el ETag
+        InOrder order = inOrder(productReadModel, catalogVersions);
+        order.verify(productReadModel).productChanged(product1, 1L);
+        order.verify(catalogVersions).productChanged(1L);
     }
 
     @Test
@@ -264,6 +323,8 @@ class ProductServiceTest {
         // Ya no verificamos exitDate
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(product1);
+        verify(inventoryMetrics, times(1)).recordMovement(InventoryMetrics.Direction.EXIT, 1L, exitQuantity);
+        verify(stockHistory, times(1)).record(1L, 1L, product1.getQuantity());
     }
 
     @Test
@@ -276,6 +337,8 @@ class ProductServiceTest {
         assertTrue(exception.getMessage().contains("Stock insuficiente"));
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, never()).save(any(Product.class));
+        verify(inventoryMetrics, times(1)).recordInsufficientStock();
+        verifyNoInteractions(stockHistory);
     }
 
     @Test
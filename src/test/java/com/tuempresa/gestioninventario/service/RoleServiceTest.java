@@ -1,7 +1,9 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditTrail;
 import com.tuempresa.gestioninventario.entity.Role;
 import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.security.PermissionRegistry;
 // import com.tuempresa.gestioninventario.repository.UserRepository; // Si implementas la validación de rol en uso
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,9 +27,15 @@ class RoleServiceTest {
     @Mock
     private RoleRepository roleRepository;
 
+    @Mock
+    private PermissionRegistry permissionRegistry;
+
     // @Mock
     // private UserRepository userRepository; // Si implementas la validación de rol en uso
 
+    @Mock
+    private AuditTrail auditTrail;
+
     @InjectMocks
     private RoleService roleService;
 
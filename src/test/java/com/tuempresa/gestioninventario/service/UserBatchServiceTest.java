@@ -0,0 +1,235 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.audit.AuditTrail;
+import com.tuempresa.gestioninventario.dto.UserBatchRequest;
+import com.tuempresa.gestioninventario.dto.UserBatchResult;
+import com.tuempresa.gestioninventario.entity.Role;
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.repository.RoleRepository;
+import com.tuempresa.gestioninventario.repository.UserBatchRepository;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBatchServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private UserBatchRepository userBatchRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserUniquenessFilter uniquenessFilter;
+
+    @Mock
+    private AuditTrail auditTrail;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService hashingExecutor = Executors.newFixedThreadPool(2);
+
+    @Captor
+    private ArgumentCaptor<List<User>> inserted;
+
+    @Captor
+    private ArgumentCaptor<List<long[]>> userRoles;
+
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    void setUp() {
+        // validateUserData no usa dependencias: se reutiliza el UserService real para validar igual que createUser
+        UserService userService = new UserService(userRepository, roleRepository, passwordEncoder, null, null, null, null, null);
+        userBatchService = new UserBatchService(userService, userRepository, roleRepository,
+                userBatchRepository, passwordEncoder, uniquenessFilter, auditTrail, hashingExecutor, transactionManager, 3);
+        // Filtro de unicidad sin descartes: cada lote llega completo a las consultas IN
+        lenient().when(uniquenessFilter.takenUsernames(anyCollection(), any())).thenAnswer(UserBatchServiceTest::queryAll);
+        lenient().when(uniquenessFilter.takenEmails(anyCollection(), any())).thenAnswer(UserBatchServiceTest::queryAll);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> queryAll(InvocationOnMock invocation) {
+        Collection<String> values = invocation.getArgument(0);
+        Function<Collection<String>, List<String>> query = invocation.getArgument(1);
+        Set<String> existing = new HashSet<>();
+        query.apply(values).forEach(value -> existing.add(value.toLowerCase(Locale.ROOT)));
+        return existing;
+    }
+
+    @Test
+    void createUsers_shouldInsertValidRowsWithOneQueryPerCheck() {
+        Role admin = new Role(1L, "ROLE_ADMIN");
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(roleRepository.findAllById(Set.of(1L))).thenReturn(List.of(admin));
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "{bcrypt}" + invocation.getArgument(0));
+        when(userBatchRepository.insertUsers(anyList())).thenReturn(Map.of("ana", 10L, "beto", 11L));
+
+        UserBatchResult result = userBatchService.createUsers(List.of(
+                new UserBatchRequest("ana", "secreto1", "ana@example.com", null, Set.of(1L)),
+                new UserBatchRequest("beto", "secreto2", null, false, null)));
+
+        assertEquals(2, result.created());
+        assertEquals(0, result.failed());
+        assertEquals(10L, result.rows().get(0).id());
+        assertEquals(11L, result.rows().get(1).id());
+
+        verify(userBatchRepository).insertUsers(inserted.capture());
+        assertEquals("{bcrypt}secreto1", inserted.getValue().get(0).getPassword());
+        assertFalse(inserted.getValue().get(1).isEnabled());
+
+        verify(userBatchRepository).insertUserRoles(userRoles.capture());
+        assertEquals(1, userRoles.getValue().size());
+        assertArrayEquals(new long[] {10L, 1L}, userRoles.getValue().get(0));
+
+        verify(userRepository, times(1)).findExistingUsernames(anyCollection());
+        verify(userRepository, times(1)).findExistingEmails(anyCollection());
+        verify(roleRepository, times(1)).findAllById(any());
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(roleRepository, never()).findById(any());
+        verify(uniquenessFilter).userSaved(inserted.getValue().get(0));
+        verify(uniquenessFilter).userSaved(inserted.getValue().get(1));
+    }
+
+    @Test
+    void createUsers_shouldReportInvalidRowsAndKeepTheRest() {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("Tomado"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}hash");
+        when(userBatchRepository.insertUsers(anyList())).thenReturn(Map.of("valido", 20L));
+
+        UserBatchResult result = userBatchService.createUsers(List.of(
+                new UserBatchRequest("valido", "secreto1", "v@example.com", true, null),
+                new UserBatchRequest("VALIDO", "secreto1", null, true, null),
+                new UserBatchRequest("tomado", "secreto1", null, true, null)));
+
+        assertEquals(1, result.created());
+        assertEquals(2, result.failed());
+        assertNull(result.rows().get(0).error());
+        assertEquals("El nombre de usuario está repetido en el lote: VALIDO", result.rows().get(1).error());
+        assertEquals("El nombre de usuario ya está en uso: tomado", result.rows().get(2).error());
+        assertNull(result.rows().get(2).id());
+        verify(passwordEncoder, times(1)).encode(anyString());
+        verify(userBatchRepository, never()).insertUserRoles(anyList());
+    }
+
+    @Test
+    void createUsers_shouldHashOutsideTheTransaction() {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        List<String> hashingThreads = Collections.synchronizedList(new ArrayList<>());
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            hashingThreads.add(Thread.currentThread().getName());
+            return "{bcrypt}hash";
+        });
+        when(userBatchRepository.insertUsers(anyList())).thenReturn(Map.of("ana", 10L, "beto", 11L, "carla", 12L));
+
+        UserBatchResult result = userBatchService.createUsers(List.of(
+                new UserBatchRequest("ana", "secreto1", null, true, null),
+                new UserBatchRequest("beto", "secreto2", null, true, null),
+                new UserBatchRequest("carla", "secreto3", null, true, null)));
+
+        assertEquals(3, result.created());
+        assertFalse(hashingThreads.contains(Thread.currentThread().getName()));
+        // Una sola transacción, abierta después de los hashes
+        InOrder order = inOrder(passwordEncoder, transactionManager, userBatchRepository);
+        order.verify(passwordEncoder, times(3)).encode(anyString());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(userBatchRepository).insertUsers(anyList());
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void createUsers_whenAConcurrentInsertTakesAUsername_shouldReportOnlyThatRow() {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}hash");
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException("insert",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'beto' for key 'uk_app_users_username'"));
+        when(userBatchRepository.insertUsers(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getUsername().equals("beto"))) {
+                throw duplicate;
+            }
+            return Map.of(users.get(0).getUsername(), users.get(0).getUsername().equals("ana") ? 10L : 12L);
+        });
+
+        UserBatchResult result = userBatchService.createUsers(List.of(
+                new UserBatchRequest("ana", "secreto1", "ana@example.com", true, null),
+                new UserBatchRequest("beto", "secreto2", null, true, null),
+                new UserBatchRequest("carla", "secreto3", null, true, null)));
+
+        assertEquals(2, result.created());
+        assertEquals(1, result.failed());
+        assertEquals(10L, result.rows().get(0).id());
+        assertEquals("El nombre de usuario ya está en uso: beto", result.rows().get(1).error());
+        assertNull(result.rows().get(1).id());
+        assertEquals(12L, result.rows().get(2).id());
+        // El lote completo y luego una transacción por fila
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void createUsers_shouldRejectRowsWithMissingRolesOrInvalidData() {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        when(roleRepository.findAllById(Set.of(99L))).thenReturn(List.of());
+
+        UserBatchResult result = userBatchService.createUsers(List.of(
+                new UserBatchRequest("ana", "secreto1", null, true, Set.of(99L)),
+                new UserBatchRequest("beto", "123", null, true, null)));
+
+        assertEquals(0, result.created());
+        assertEquals("Rol no encontrado con ID: 99", result.rows().get(0).error());
+        assertEquals("La contraseña debe tener al menos 6 caracteres.", result.rows().get(1).error());
+        verify(userBatchRepository, never()).insertUsers(anyList());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    void createUsers_shouldRejectEmptyOrOversizedBatches() {
+        assertThrows(IllegalArgumentException.class, () -> userBatchService.createUsers(List.of()));
+        UserBatchRequest row = new UserBatchRequest("ana", "secreto1", null, true, null);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userBatchService.createUsers(List.of(row, row, row, row)));
+        assertEquals("El lote supera el máximo de 3 usuarios.", exception.getMessage());
+        verifyNoInteractions(userRepository, userBatchRepository);
+    }
+}
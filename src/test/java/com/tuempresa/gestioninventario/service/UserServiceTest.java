@@ -1,17 +1,26 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditTrail;
 import com.tuempresa.gestioninventario.entity.Role;
 import com.tuempresa.gestioninventario.entity.User;
 import com.tuempresa.gestioninventario.repository.RoleRepository;
 import com.tuempresa.gestioninventario.repository.UserRepository;
+import com.tuempresa.gestioninventario.security.AuthenticationCache;
+import com.tuempresa.gestioninventario.security.PermissionRegistry;
+import com.tuempresa.gestioninventario.security.TokenRevocationList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLIntegrityConstraintViolationException;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +38,24 @@ class UserServiceTest {
     @Mock
     private RoleRepository roleRepository;
 
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private PermissionRegistry permissionRegistry;
+
+    @Mock
+    private UserUniquenessFilter uniquenessFilter;
+
+    @Mock
+    private AuditTrail auditTrail;
+
     @InjectMocks
     private UserService userService;
 
@@ -39,6 +66,12 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
+        // El filtro de unicidad responde "puede existir": los chequeos llegan siempre al repositorio
+        lenient().when(uniquenessFilter.usernameTaken(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Predicate<String>>getArgument(1).test(invocation.getArgument(0)));
+        lenient().when(uniquenessFilter.emailTaken(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Predicate<String>>getArgument(1).test(invocation.getArgument(0)));
+
         roleAdmin = new Role(1L, "ROLE_ADMIN");
         roleEditor = new Role(2L, "ROLE_EDITOR");
 
@@ -104,6 +137,7 @@ class UserServiceTest {
         when(userRepository.existsByUsername("newUser")).thenReturn(false);
         when(userRepository.existsByEmail("new.user@example.com")).thenReturn(false);
         when(roleRepository.findById(roleAdmin.getId())).thenReturn(Optional.of(roleAdmin));
+        when(passwordEncoder.encode("newPassword123")).thenReturn("{bcrypt}hash-newPassword123");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
             User u = invocation.getArgument(0);
             u.setId(3L); // Simulate ID assignment
@@ -114,6 +148,7 @@ class UserServiceTest {
 
         assertNotNull(createdUser);
         assertEquals("newUser", createdUser.getUsername());
+        assertEquals("{bcrypt}hash-newPassword123", createdUser.getPassword()); // Nunca se guarda en texto plano
         assertTrue(createdUser.getRoles().contains(roleAdmin));
         assertNotNull(createdUser.getId());
         verify(userRepository, times(1)).save(any(User.class));
@@ -186,6 +221,33 @@ class UserServiceTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void createUser_whenAnotherInstanceSavedTheSameEmail_shouldThrowException() {
+        // El filtro y existsByEmail no lo ven: lo rechaza el UNIQUE de la base
+        User newUser = new User();
+        newUser.setUsername("newUser");
+        newUser.setPassword("newPassword123");
+        newUser.setEmail("new.user@example.com");
+        when(passwordEncoder.encode("newPassword123")).thenReturn("{bcrypt}hash-newPassword123");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("insert",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'new.user@example.com' for key 'uk_app_users_email'")));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> userService.createUser(newUser, Collections.emptySet()));
+        assertEquals("El email ya está en uso: new.user@example.com", exception.getMessage());
+    }
+
+    @Test
+    void createUser_whenAnotherConstraintIsViolated_shouldPropagateTheException() {
+        User newUser = new User();
+        newUser.setUsername("newUser");
+        newUser.setPassword("newPassword123");
+        when(passwordEncoder.encode("newPassword123")).thenReturn("{bcrypt}hash-newPassword123");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("insert",
+                new SQLIntegrityConstraintViolationException("Column 'password' cannot be null")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(newUser, Collections.emptySet()));
+    }
+
     @Test
     void createUser_whenRoleDoesNotExist_shouldThrowException() {
         User newUserDetails = new User();
@@ -220,6 +282,7 @@ class UserServiceTest {
         when(userRepository.existsByUsername("john.doe.updated")).thenReturn(false);
         when(userRepository.existsByEmail("john.updated@example.com")).thenReturn(false);
         when(roleRepository.findById(roleEditor.getId())).thenReturn(Optional.of(roleEditor));
+        when(passwordEncoder.encode("newStrongPass123")).thenReturn("{bcrypt}hash-newStrongPass123");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Optional<User> updatedUserOpt = userService.updateUser(user1.getId(), userDetailsToUpdate, newRoleIds);
@@ -228,7 +291,9 @@ class UserServiceTest {
         User updatedUser = updatedUserOpt.get();
         assertEquals("john.doe.updated", updatedUser.getUsername());
         assertEquals("john.updated@example.com", updatedUser.getEmail());
-        assertEquals("newStrongPass123", updatedUser.getPassword()); // Check new password
+        assertEquals("{bcrypt}hash-newStrongPass123", updatedUser.getPassword()); // Check new password (hasheada)
+        verify(authenticationCache).evict("john.doe"); // Credenciales cacheadas del nombre anterior
+        verify(tokenRevocationList).revoke(1L); // Los tokens emitidos llevan los roles anteriores
         assertFalse(updatedUser.isEnabled());
         assertTrue(updatedUser.getRoles().contains(roleEditor));
         assertEquals(1, updatedUser.getRoles().size());
@@ -260,6 +325,25 @@ class UserServiceTest {
         verify(userRepository, times(1)).save(any(User.class));
     }
 
+    @Test
+    void updateUser_whenTheNewUsernameIsSavedConcurrently_shouldThrowException() {
+        User userDetailsToUpdate = new User();
+        userDetailsToUpdate.setUsername("john.doe.v2");
+        userDetailsToUpdate.setEmail(user1.getEmail());
+        userDetailsToUpdate.setEnabled(true);
+        when(userRepository.findById(user1.getId())).thenReturn(Optional.of(user1));
+        when(userRepository.existsByUsername("john.doe.v2")).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // La edición se escribe al hacer flush: ahí salta la violación, no en el commit
+        doThrow(new DataIntegrityViolationException("update", new SQLIntegrityConstraintViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UK_APP_USERS_USERNAME_INDEX_3 ON PUBLIC.APP_USERS(USERNAME)\"")))
+                .when(userRepository).flush();
+
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.updateUser(user1.getId(), userDetailsToUpdate, null));
+        assertEquals("El nombre de usuario ya está en uso: john.doe.v2", exception.getMessage());
+    }
+
     @Test
     void updateUser_whenUserNotFound_shouldReturnEmptyOptional() {
         User userDetails = new User(); // Dummy details
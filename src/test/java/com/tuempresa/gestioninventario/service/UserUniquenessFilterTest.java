@@ -0,0 +1,142 @@
+package com.tuempresa.gestioninventario.service;
+
+import com.tuempresa.gestioninventario.entity.User;
+import com.tuempresa.gestioninventario.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserUniquenessFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry registry;
+    private UserUniquenessFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new UserUniquenessFilter(userRepository, transactionManager, registry, 0.01, 1000);
+    }
+
+    private void buildWith(Row... rows) {
+        when(userRepository.count()).thenReturn((long) rows.length);
+        when(userRepository.streamUsernamesAndEmails()).thenReturn(Stream.of(rows));
+        filter.rebuild();
+    }
+
+    private double checks(String field, String result) {
+        return registry.get(UserUniquenessFilter.CHECKS).tag("field", field).tag("result", result).counter().count();
+    }
+
+    @Test
+    void usernameTaken_beforeBuild_shouldAlwaysAskTheDatabase() {
+        AtomicInteger queries = new AtomicInteger();
+
+        assertFalse(filter.usernameTaken("ana", username -> queries.incrementAndGet() < 0));
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void usernameTaken_shouldSkipTheQueryWhenTheFilterRulesItOut() {
+        buildWith(new Row("Ana", "ana@example.com"));
+        AtomicInteger queries = new AtomicInteger();
+
+        assertFalse(filter.usernameTaken("beto", username -> queries.incrementAndGet() < 0));
+        assertEquals(0, queries.get());
+        assertEquals(1, checks("username", "skipped"));
+    }
+
+    @Test
+    void usernameAndEmailTaken_shouldAskTheDatabaseForKnownValuesIgnoringCase() {
+        buildWith(new Row("Ana", "ana@example.com"));
+
+        assertTrue(filter.usernameTaken("ANA ", username -> true));
+        assertTrue(filter.emailTaken("Ana@Example.com", email -> true));
+        // Un positivo que la base desmiente (p. ej. un usuario ya borrado) se cuenta como falso positivo
+        assertFalse(filter.usernameTaken("ana", username -> false));
+
+        assertEquals(1, checks("username", "exists"));
+        assertEquals(1, checks("email", "exists"));
+        assertEquals(1, checks("username", "false_positive"));
+        assertEquals(1.0, registry.get(UserUniquenessFilter.OBSERVED_FALSE_POSITIVE_RATE).gauge().value());
+    }
+
+    @Test
+    void userSaved_shouldMakeNewValuesVisibleWithoutRebuilding() {
+        buildWith();
+        User user = new User();
+        user.setUsername("carla");
+        user.setEmail("carla@example.com");
+
+        filter.userSaved(user);
+
+        AtomicInteger queries = new AtomicInteger();
+        assertTrue(filter.usernameTaken("carla", username -> queries.incrementAndGet() > 0));
+        assertTrue(filter.emailTaken("carla@example.com", email -> queries.incrementAndGet() > 0));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void takenUsernames_shouldQueryOnlyTheCandidatesAndSkipEmptyQueries() {
+        buildWith(new Row("ana", null));
+
+        Set<String> taken = filter.takenUsernames(List.of("ana", "beto", "carla"), candidates -> {
+            assertEquals(List.of("ana"), candidates);
+            return List.of("Ana");
+        });
+        assertEquals(Set.of("ana"), taken);
+
+        Set<String> none = filter.takenUsernames(List.of("diego"), candidates -> fail("No debería consultar la base"));
+        assertTrue(none.isEmpty());
+        assertEquals(3, checks("username", "skipped"));
+    }
+
+    @Test
+    void expectedFalsePositiveRate_shouldStayWithinTheConfiguredRateAtCapacity() {
+        buildWith();
+        for (int i = 0; i < 1000; i++) {
+            User user = new User();
+            user.setUsername("usuario" + i);
+            filter.userSaved(user);
+        }
+
+        double expected = registry.get(UserUniquenessFilter.EXPECTED_FALSE_POSITIVE_RATE).gauge().value();
+        assertTrue(expected > 0 && expected < 0.02, "fpp esperada: " + expected);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(filter.usernameTaken("otro" + i, username -> false));
+        }
+        double falsePositives = checks("username", "false_positive");
+        assertTrue(falsePositives < 300, "falsos positivos: " + falsePositives);
+    }
+
+    private record Row(String username, String email) implements UserRepository.UsernameAndEmail {
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+    }
+}
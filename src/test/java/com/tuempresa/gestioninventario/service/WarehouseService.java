@@ -1,12 +1,18 @@
 package com.tuempresa.gestioninventario.service;
 
+import com.tuempresa.gestioninventario.audit.AuditTrail;
 import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.ProductOutboxEvent.ChangeType;
 import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.readmodel.ProductReadModel;
+import com.tuempresa.gestioninventario.repository.ProductOutboxRepository;
 import com.tuempresa.gestioninventario.repository.ProductRepository;
 import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -33,6 +39,21 @@ class WarehouseServiceTest {
     @Mock
     private ProductRepository productRepository; // Necesario para la lógica de deleteWarehouse
 
+    @Mock
+    private CatalogVersions catalogVersions;
+
+    @Mock
+    private AuditTrail auditTrail;
+
+    @Mock
+    private ProductReadModel productReadModel;
+
+    @Mock
+    private ShardedProductStore shardedStore;
+
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+
     @InjectMocks
     private WarehouseService warehouseService;
 
@@ -263,6 +284,37 @@ class WarehouseServiceTest {
         verify(warehouseRepository, never()).deleteById(anyLong());
     }
 
+    @Test
+    void deleteWarehouse_withSharding_shouldDeleteItsProductsFromTheShardWithTheirEvents() {
+        when(shardedStore.isEnabled()).thenReturn(true);
+        when(warehouseRepository.existsById(1L)).thenReturn(true);
+        when(shardedStore.deleteByWarehouse(1L)).thenReturn(List.of(productInWarehouse1));
+
+        assertTrue(warehouseService.deleteWarehouse(1L));
+
+        verify(outboxRepository).append(ChangeType.DELETED, productInWarehouse1, 1L);
+        verify(warehouseRepository).deleteById(1L);
+        verify(productReadModel).warehouseRemoved(1L);
+        verify(catalogVersions).warehouseRemoved(1L);
+    }
+
+    @Test
+    void deleteWarehouse_withoutSharding_shouldRecordAnEventForEachCascadedProduct() {
+        Product other = new Product(2L, "Monitor", "Desc Monitor", new BigDecimal("300"), 2, "Electrónicos", warehouse1);
+        when(warehouseRepository.existsById(1L)).thenReturn(true);
+        when(warehouseRepository.getReferenceById(1L)).thenReturn(warehouse1);
+        when(productRepository.findByWarehouse(warehouse1)).thenReturn(List.of(productInWarehouse1, other));
+
+        assertTrue(warehouseService.deleteWarehouse(1L));
+
+        // Los eventos se escriben antes del borrado, con los productos todavía cargados
+        InOrder order = inOrder(outboxRepository, warehouseRepository);
+        order.verify(outboxRepository).append(ChangeType.DELETED, productInWarehouse1, 1L);
+        order.verify(outboxRepository).append(ChangeType.DELETED, other, 1L);
+        order.verify(warehouseRepository).deleteById(1L);
+        verify(shardedStore, never()).deleteByWarehouse(anyLong());
+    }
+
     @Test
     void deleteWarehouse_whenIdIsInvalid_shouldThrowIllegalArgumentException() {
          Exception exception = assertThrows(IllegalArgumentException.class, () -> warehouseService.deleteWarehouse(null));
@@ -0,0 +1,223 @@
+package com.tuempresa.gestioninventario.shard;
+
+import com.tuempresa.gestioninventario.entity.Product;
+import com.tuempresa.gestioninventario.entity.Warehouse;
+import com.tuempresa.gestioninventario.repository.WarehouseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.lenient;
+
+// Tres bases H2 en memoria (modo MariaDB) como shards, con el mismo esquema db/shard que en producción
+@ExtendWith(MockitoExtension.class)
+class ShardedProductStoreTest {
+
+    private static final int SHARDS = 3;
+    private static final int ID_STRIDE = 16;
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+
+    private final List<Shard> shards = new ArrayList<>();
+    private ShardMap shardMap;
+    private ShardedProductStore store;
+
+    @BeforeEach
+    void setUp() {
+        for (int ordinal = 1; ordinal <= SHARDS; ordinal++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:product_shard_" + ordinal + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            ShardedProductStore.migrate(dataSource, ordinal, ID_STRIDE);
+            shards.add(new Shard("shard-" + ordinal, ordinal, new JdbcTemplate(dataSource)));
+        }
+        // El almacén 7 iría al shard 2 por módulo; se fija en el 1
+        shardMap = new ShardMap(shards, Map.of(7L, "shard-1"), ID_STRIDE);
+        store = new ShardedProductStore(shardMap, warehouseRepository, new SimpleMeterRegistry(), Duration.ofSeconds(5));
+        lenient().when(warehouseRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false).map(ShardedProductStoreTest::warehouse).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.destroy();
+        shards.forEach(shard -> shard.jdbcTemplate().execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    void insert_shouldStoreTheProductInItsWarehouseShardAndEncodeTheShardInTheId() {
+        Product product = store.insert(product("Teclado", "Periféricos", 4L));
+
+        Shard owner = shardMap.shardForWarehouse(4L);
+        assertEquals("shard-2", owner.name()); // floorMod(4, 3) = 1
+        assertEquals(Optional.of(owner), shardMap.shardForProduct(product.getId()));
+        assertEquals(2L, product.getId()); // Primer valor de la secuencia del shard 2
+        assertEquals(List.of(0, 1, 0), rowsPerShard());
+    }
+
+    @Test
+    void insert_pinnedWarehouse_shouldIgnoreTheModulo() {
+        store.insert(product("Monitor", "Electrónicos", 7L));
+
+        assertEquals(List.of(1, 0, 0), rowsPerShard());
+    }
+
+    @Test
+    void findById_shouldReadTheOwningShardAndAttachTheWarehouse() {
+        Product saved = store.insert(product("Mouse", "Periféricos", 5L));
+
+        Optional<Product> found = store.findById(saved.getId());
+
+        assertTrue(found.isPresent());
+        assertEquals("Mouse", found.get().getName());
+        assertEquals("Almacén 5", found.get().getWarehouse().getName());
+        assertTrue(store.findById(saved.getId() + ID_STRIDE).isEmpty());
+        assertTrue(store.findById(ID_STRIDE).isEmpty()); // Ordinal 16: ningún shard configurado
+    }
+
+    @Test
+    void findAll_shouldGatherEveryShardMergedById() {
+        for (long warehouseId = 1; warehouseId <= 9; warehouseId++) {
+            for (int i = 0; i < 4; i++) {
+                store.insert(product("Producto " + warehouseId + "-" + i, i % 2 == 0 ? "A" : "B", warehouseId));
+            }
+        }
+
+        List<Product> all = store.findAll();
+
+        assertEquals(36, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getId() < all.get(i).getId(), "IDs fuera de orden en la posición " + i);
+        }
+        assertTrue(all.stream().allMatch(product -> product.getWarehouse().getName() != null));
+    }
+
+    @Test
+    void findFirst_shouldReturnTheLowestIdsAcrossShards() {
+        for (long warehouseId = 1; warehouseId <= 9; warehouseId++) {
+            for (int i = 0; i < 4; i++) {
+                store.insert(product("Producto " + warehouseId + "-" + i, "A", warehouseId));
+            }
+        }
+
+        List<Product> first = store.findFirst(5);
+
+        assertEquals(store.findAll().subList(0, 5).stream().map(Product::getId).toList(),
+                first.stream().map(Product::getId).toList());
+        assertTrue(first.stream().allMatch(product -> product.getWarehouse().getName() != null));
+    }
+
+    @Test
+    void findByCategory_shouldSearchAllShards() {
+        store.insert(product("Teclado", "Periféricos", 1L));
+        store.insert(product("Mouse", "Periféricos", 2L));
+        store.insert(product("Monitor", "Electrónicos", 3L));
+
+        List<Product> found = store.findByCategory("Periféricos");
+
+        assertEquals(Set.of("Teclado", "Mouse"), found.stream().map(Product::getName).collect(Collectors.toSet()));
+        assertEquals(2, found.stream().map(product -> shardMap.shardForProduct(product.getId()).orElseThrow()).distinct().count());
+    }
+
+    @Test
+    void update_withinTheSameShard_shouldPersistTheChanges() {
+        Product product = store.insert(product("Mouse", "Periféricos", 1L));
+        product.setQuantity(3);
+        product.setWarehouse(warehouse(4L)); // floorMod(4, 3) = 1, mismo shard que el 1
+
+        store.update(product);
+
+        Product reloaded = store.findById(product.getId()).orElseThrow();
+        assertEquals(3, reloaded.getQuantity());
+        assertEquals(4L, reloaded.getWarehouse().getId());
+    }
+
+    @Test
+    void update_toAWarehouseInAnotherShard_shouldBeRejected() {
+        Product product = store.insert(product("Mouse", "Periféricos", 1L));
+        product.setWarehouse(warehouse(2L));
+
+        assertThrows(IllegalArgumentException.class, () -> store.update(product));
+        assertEquals(1L, store.findById(product.getId()).orElseThrow().getWarehouse().getId());
+    }
+
+    @Test
+    void delete_shouldRemoveOnlyFromTheOwningShard() {
+        Product product = store.insert(product("Mouse", "Periféricos", 3L));
+        store.insert(product("Teclado", "Periféricos", 1L));
+
+        assertTrue(store.delete(product.getId()));
+        assertFalse(store.delete(product.getId()));
+        assertTrue(store.findById(product.getId()).isEmpty());
+        assertEquals(List.of(0, 1, 0), rowsPerShard());
+    }
+
+    @Test
+    void deleteByWarehouse_shouldRemoveOnlyThatWarehouseFromItsShard() {
+        Product mouse = store.insert(product("Mouse", "Periféricos", 1L));
+        Product teclado = store.insert(product("Teclado", "Periféricos", 1L));
+        store.insert(product("Monitor", "Electrónicos", 4L)); // Mismo shard que el almacén 1
+        store.insert(product("Cable", "Accesorios", 2L));
+
+        List<Product> deleted = store.deleteByWarehouse(1L);
+
+        assertEquals(List.of(mouse.getId(), teclado.getId()), deleted.stream().map(Product::getId).toList());
+        assertEquals("Periféricos", deleted.get(0).getCategory());
+        assertEquals(List.of(0, 1, 1), rowsPerShard());
+        assertTrue(store.deleteByWarehouse(1L).isEmpty());
+    }
+
+    @Test
+    void mergeById_shouldInterleaveSortedLists() {
+        List<Product> merged = ShardedProductStore.mergeById(List.of(
+                List.of(withId(1), withId(4), withId(7)), List.of(), List.of(withId(2), withId(3), withId(9))));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 7L, 9L), merged.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void shardMap_withUnknownPinnedShardOrTooManyShards_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardMap(shards, Map.of(1L, "otro"), ID_STRIDE));
+        assertThrows(IllegalArgumentException.class, () -> new ShardMap(shards, Map.of(), 2));
+    }
+
+    private List<Integer> rowsPerShard() {
+        return shards.stream()
+                .map(shard -> shard.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM products", Integer.class))
+                .toList();
+    }
+
+    private static Product product(String name, String category, long warehouseId) {
+        return new Product(name, "Descripción", new BigDecimal("10.00"), 10, category, warehouse(warehouseId));
+    }
+
+    private static Product withId(long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private static Warehouse warehouse(Long id) {
+        return new Warehouse(id, "Almacén " + id, "Calle " + id, null);
+    }
+}
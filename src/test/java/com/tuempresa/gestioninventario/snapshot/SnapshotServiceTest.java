@@ -0,0 +1,197 @@
+package com.tuempresa.gestioninventario.snapshot;
+
+import com.tuempresa.gestioninventario.repository.SnapshotRepository;
+import com.tuempresa.gestioninventario.service.CatalogVersions;
+import com.tuempresa.gestioninventario.shard.ShardedProductStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Ida y vuelta entre dos bases H2 en memoria (modo MariaDB) con las migraciones de producción: productos de
+// sobra para más de un grupo de filas, con nulos, textos no ASCII y decimales
+@ExtendWith(MockitoExtension.class)
+class SnapshotServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+    private static final int PRODUCTS = RowGroup.CAPACITY + 1_000;
+
+    @Mock
+    private ShardedProductStore shardedStore; // Deshabilitado: productos en la base principal
+    @Mock
+    private CatalogVersions catalogVersions;
+
+    @TempDir
+    private Path dir;
+
+    private JdbcTemplate source;
+    private JdbcTemplate target;
+    private SnapshotService sourceService;
+    private SnapshotService targetService;
+
+    @BeforeEach
+    void setUp() {
+        source = database("snapshot_source");
+        target = database("snapshot_target");
+        sourceService = service(source);
+        targetService = service(target);
+
+        source.update("INSERT INTO warehouses (id, name, location_details) VALUES (1, 'Central', 'Calle 1'),"
+                + " (2, 'Depósito Ñuñoa', NULL), (7, 'Norte', 'Ruta 5')");
+        source.update("INSERT INTO roles (id, name, permission_mask) VALUES (1, 'ROLE_ADMIN', 1023),"
+                + " (2, 'ROLE_EMPLEADO_ALMACEN', 13)");
+        source.update("INSERT INTO app_users (id, username, password, email, enabled) VALUES"
+                + " (1, 'admin', '$2a$10$hash', 'admin@example.com', TRUE), (5, 'ana', '$2a$10$otro', NULL, FALSE)");
+        source.update("INSERT INTO user_roles (user_id, role_id) VALUES (1, 1), (1, 2), (5, 2)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.execute("DROP ALL OBJECTS");
+        target.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void exportThenImport_shouldReproduceEveryTable() throws Exception {
+        insertProducts(PRODUCTS);
+        Path file = dir.resolve("inventario.snap");
+
+        SnapshotSummary exported = sourceService.export(file);
+        SnapshotSummary imported = targetService.importFrom(file);
+
+        assertEquals(Map.of("warehouses", 3L, "roles", 2L, "app_users", 2L, "user_roles", 3L, "products", (long) PRODUCTS),
+                exported.rows());
+        assertEquals(exported.rows(), imported.rows());
+        assertEquals(NOW, imported.createdAt());
+        assertEquals(Files.size(file), exported.bytes());
+        assertFalse(Files.exists(dir.resolve("inventario.snap.partial")));
+        for (SnapshotTable table : SnapshotTable.values()) {
+            String sql = table.selectSql();
+            assertEquals(source.queryForList(sql), target.queryForList(sql), table.tableName());
+        }
+        // Los índices secundarios se recrean y los IDs siguen desde el último importado
+        assertEquals(3, target.queryForObject("SELECT COUNT(*) FROM information_schema.indexes WHERE index_name IN"
+                + " ('idx_products_name', 'idx_products_category', 'idx_app_users_enabled')",
+                Integer.class));
+        target.update("INSERT INTO warehouses (name) VALUES ('Nuevo')");
+        assertEquals(8L, target.queryForObject("SELECT id FROM warehouses WHERE name = 'Nuevo'", Long.class));
+        // La carga no pasa por los servicios: invalida los ETag de todas las instancias
+        verify(catalogVersions).catalogReplaced();
+    }
+
+    @Test
+    void export_shouldCompressBelowTheRawColumnSize() throws Exception {
+        insertProducts(PRODUCTS);
+        Path file = dir.resolve("inventario.snap");
+
+        sourceService.export(file);
+
+        // Unos 60 bytes por producto en texto plano; IDs, cantidades y categorías se comprimen
+        assertTrue(Files.size(file) < PRODUCTS * 20L, "tamaño: " + Files.size(file));
+    }
+
+    @Test
+    void import_withACorruptedByte_shouldFailBeforeLoadingAnything() throws Exception {
+        insertProducts(1_000);
+        Path file = dir.resolve("inventario.snap");
+        sourceService.export(file);
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, size / 2);
+            b.flip().put(0, (byte) (b.get(0) ^ 0x10));
+            channel.write(b, size / 2);
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> targetService.importFrom(file));
+
+        assertTrue(e.getMessage().startsWith("Snapshot dañado"), e.getMessage());
+        assertEquals(0, target.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+    }
+
+    @Test
+    void verify_withATruncatedFile_shouldFail() throws Exception {
+        insertProducts(1_000);
+        Path file = dir.resolve("inventario.snap");
+        sourceService.export(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = dir.resolve("truncado.snap");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 100));
+
+        assertThrows(IllegalArgumentException.class, () -> sourceService.verify(truncated));
+        assertThrows(IllegalArgumentException.class, () -> sourceService.verify(writeText("no es un snapshot")));
+    }
+
+    @Test
+    void import_intoADatabaseWithData_shouldBeRejected() throws Exception {
+        Path file = dir.resolve("inventario.snap");
+        sourceService.export(file);
+        target.update("INSERT INTO roles (name) VALUES ('ROLE_ADMIN')");
+
+        assertThrows(IllegalArgumentException.class, () -> targetService.importFrom(file));
+        assertEquals(0, target.queryForObject("SELECT COUNT(*) FROM warehouses", Integer.class));
+    }
+
+    @Test
+    void export_withShardingEnabled_shouldBeRejected() {
+        when(shardedStore.isEnabled()).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> sourceService.export(dir.resolve("inventario.snap")));
+    }
+
+    private void insertProducts(int count) {
+        List<Object[]> products = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            products.add(new Object[]{i * 2L, "Producto " + i, i % 3 == 0 ? null : "Descripción " + i,
+                    new BigDecimal(i % 1000 + ".25"), i % 500, i % 7 == 0 ? null : "Categoría " + i % 25,
+                    i % 11 == 0 ? null : (long) (i % 2 == 0 ? 1 : 7)});
+        }
+        source.batchUpdate("INSERT INTO products (id, name, description, price, quantity, category, warehouse_id)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?)", products);
+    }
+
+    private Path writeText(String content) throws IOException {
+        return Files.writeString(dir.resolve("texto.snap"), content);
+    }
+
+    private SnapshotService service(JdbcTemplate jdbcTemplate) {
+        return new SnapshotService(new SnapshotRepository(jdbcTemplate.getDataSource(), jdbcTemplate), shardedStore,
+                catalogVersions, new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())),
+                new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tuempresa.gestioninventario.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Cuenta las sentencias que llegan a la base por el proxy JDBC (DataSourceProxyConfig): las de Hibernate
+// y también las de JdbcTemplate (outbox, auditoría, inserts por lotes). Un executeBatch cuenta como una
+// sola ida a la base. Se engancha con attach(dataSource) y permite fijar un "presupuesto" de sentencias
+// por flujo para detectar regresiones N+1. Cuenta las de todos los hilos: el test debe apagar los
+// procesos periódicos que consultan la base por su cuenta.
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private static final SqlStatementCounter INSTANCE = new SqlStatementCounter();
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private SqlStatementCounter() {
+    }
+
+    public static void attach(DataSource dataSource) {
+        List<QueryExecutionListener> listeners = proxy(dataSource).getProxyConfig().getQueryListener().getListeners();
+        if (!listeners.contains(INSTANCE)) {
+            proxy(dataSource).getProxyConfig().getQueryListener().addListener(INSTANCE);
+        }
+    }
+
+    public static void detach(DataSource dataSource) {
+        proxy(dataSource).getProxyConfig().getQueryListener().getListeners().remove(INSTANCE);
+    }
+
+    private static ProxyDataSource proxy(DataSource dataSource) {
+        if (!(dataSource instanceof ProxyDataSource proxy)) {
+            throw new IllegalStateException("El DataSource no pasa por el proxy JDBC: " + dataSource.getClass());
+        }
+        return proxy;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        STATEMENTS.add(execInfo.isBatch() ? "[lote de " + execInfo.getBatchSize() + "] " + sql : sql);
+    }
+
+    public static void reset() {
+        STATEMENTS.clear();
+    }
+
+    public static int count() {
+        return STATEMENTS.size();
+    }
+
+    // Ejecuta la acción y falla si emitió un número de sentencias distinto del esperado,
+    // listando las sentencias ejecutadas para que el N+1 sea evidente en el reporte.
+    public static <T> T assertStatements(int expected, ThrowingSupplier<T> action) throws Throwable {
+        reset();
+        T result = action.get();
+        List<String> executed = List.copyOf(STATEMENTS);
+        if (executed.size() != expected) {
+            StringBuilder message = new StringBuilder()
+                    .append("Se esperaban ").append(expected).append(" sentencias SQL pero se ejecutaron ")
+                    .append(executed.size()).append(':');
+            executed.forEach(sql -> message.append(System.lineSeparator()).append("  ").append(sql));
+            fail(message.toString());
+        }
+        return result;
+    }
+}